@@ -135,7 +135,17 @@ public interface AndroidSenseService {
                     name = "to",
                     value = "Get stats up to what time",
                     required = true)
-            @QueryParam("to") long to);
+            @QueryParam("to") long to,
+            @ApiParam(
+                    name = "limit",
+                    value = "Maximum number of records to return in a page. Without a limit or a continuation token " +
+                            "only the first 100 records are returned.")
+            @QueryParam("limit") int limit,
+            @ApiParam(
+                    name = "continuationToken",
+                    value = "Token of the page to return, taken from the X-Continuation-Token header of the " +
+                            "previous page.")
+            @QueryParam("continuationToken") String continuationToken);
 
     /**
      * Enroll devices.
@@ -30,7 +30,6 @@ import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroupConstants;
 import org.wso2.carbon.device.mgt.iot.androidsense.service.impl.constants.AndroidSenseConstants;
 import org.wso2.carbon.device.mgt.iot.androidsense.service.impl.util.APIUtil;
 import org.wso2.carbon.device.mgt.iot.androidsense.service.impl.util.AndroidConfiguration;
-import org.wso2.carbon.device.mgt.iot.androidsense.service.impl.util.SensorRecord;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.Response;
@@ -50,7 +49,9 @@ public class AndroidSenseServiceImpl implements AndroidSenseService {
     @Consumes("application/json")
     @Produces("application/json")
     public Response getAndroidSenseDeviceStats(@PathParam("deviceId") String deviceId, @PathParam("sensorName") String sensor,
-                                        @QueryParam("from") long from, @QueryParam("to") long to) {
+                                        @QueryParam("from") long from, @QueryParam("to") long to,
+                                        @QueryParam("limit") int limit,
+                                        @QueryParam("continuationToken") String continuationToken) {
         String fromDate = String.valueOf(from);
         String toDate = String.valueOf(to);
         String query = "meta_deviceId:" + deviceId + " AND meta_timestamp : [" + fromDate + " TO " + toDate + "]";
@@ -61,12 +62,10 @@ public class AndroidSenseServiceImpl implements AndroidSenseService {
                     AndroidSenseConstants.DEVICE_TYPE), DeviceGroupConstants.Permissions.DEFAULT_STATS_MONITOR_PERMISSIONS)) {
                 return Response.status(Response.Status.UNAUTHORIZED.getStatusCode()).build();
             }
-            List<SensorRecord> sensorDatas;
             List<SortByField> sortByFields = new ArrayList<>();
             SortByField sortByField = new SortByField("meta_timestamp", SortType.ASC);
             sortByFields.add(sortByField);
-            sensorDatas = APIUtil.getAllEventsForDevice(sensorTableName, query, sortByFields);
-            return Response.ok().entity(sensorDatas).build();
+            return APIUtil.getEventsResponse(sensorTableName, query, sortByFields, limit, continuationToken);
         } catch (AnalyticsException e) {
             String errorMsg = "Error on retrieving stats on table " + sensorTableName + " with query " + query;
             log.error(errorMsg);
@@ -109,7 +109,8 @@ public interface ArduinoService {
             }
     )
     Response getArduinoTemperatureStats(@PathParam("deviceId") String deviceId, @QueryParam("from") long from,
-                                        @QueryParam("to") long to);
+                                        @QueryParam("to") long to, @QueryParam("limit") int limit,
+                                        @QueryParam("continuationToken") String continuationToken);
 
     /**
      * download device agent
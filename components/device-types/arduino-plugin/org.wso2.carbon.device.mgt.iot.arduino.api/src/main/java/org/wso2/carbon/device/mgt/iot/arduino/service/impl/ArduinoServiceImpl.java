@@ -35,7 +35,6 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.CommandOperation;
 import org.wso2.carbon.device.mgt.iot.arduino.service.impl.constants.ArduinoConstants;
-import org.wso2.carbon.device.mgt.iot.arduino.service.impl.dto.SensorRecord;
 import org.wso2.carbon.device.mgt.iot.arduino.service.impl.util.APIUtil;
 import org.wso2.carbon.device.mgt.iot.arduino.service.impl.util.ZipArchive;
 import org.wso2.carbon.device.mgt.iot.arduino.service.impl.util.ZipUtil;
@@ -145,7 +144,8 @@ public class ArduinoServiceImpl implements ArduinoService {
     @Consumes("application/json")
     @Produces("application/json")
     public Response getArduinoTemperatureStats(@PathParam("deviceId") String deviceId, @QueryParam("from") long from,
-                                               @QueryParam("to") long to) {
+                                               @QueryParam("to") long to, @QueryParam("limit") int limit,
+                                               @QueryParam("continuationToken") String continuationToken) {
         try {
             if (!APIUtil.getDeviceAccessAuthorizationService().isUserAuthorized(new DeviceIdentifier(deviceId,
                     ArduinoConstants.DEVICE_TYPE), DeviceGroupConstants.Permissions.DEFAULT_STATS_MONITOR_PERMISSIONS)) {
@@ -160,8 +160,7 @@ public class ArduinoServiceImpl implements ArduinoService {
                 List<SortByField> sortByFields = new ArrayList<>();
                 SortByField sortByField = new SortByField("time", SortType.ASC);
                 sortByFields.add(sortByField);
-                List<SensorRecord> sensorRecords = APIUtil.getAllEventsForDevice(sensorTableName, query, sortByFields);
-                return Response.status(Response.Status.OK.getStatusCode()).entity(sensorRecords).build();
+                return APIUtil.getEventsResponse(sensorTableName, query, sortByFields, limit, continuationToken);
             } catch (AnalyticsException e) {
                 String errorMsg = "Error on retrieving stats on table " + sensorTableName + " with query " + query;
                 log.error(errorMsg);
@@ -92,7 +92,9 @@ public interface RaspberryPiService {
             }
     )
     Response getRaspberryPiTemperatureStats(@PathParam("deviceId") String deviceId,
-                                        @QueryParam("from") long from, @QueryParam("to") long to);
+                                        @QueryParam("from") long from, @QueryParam("to") long to,
+                                        @QueryParam("limit") int limit,
+                                        @QueryParam("continuationToken") String continuationToken);
 
     /**
      * download the agent.
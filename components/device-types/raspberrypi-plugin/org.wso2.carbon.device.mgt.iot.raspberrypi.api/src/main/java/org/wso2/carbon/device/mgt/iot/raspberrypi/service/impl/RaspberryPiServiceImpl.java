@@ -35,7 +35,6 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.CommandOperation;
 import org.wso2.carbon.device.mgt.iot.raspberrypi.service.impl.constants.RaspberrypiConstants;
-import org.wso2.carbon.device.mgt.iot.raspberrypi.service.impl.dto.SensorRecord;
 import org.wso2.carbon.device.mgt.iot.raspberrypi.service.impl.util.APIUtil;
 import org.wso2.carbon.device.mgt.iot.raspberrypi.service.impl.util.ZipArchive;
 import org.wso2.carbon.device.mgt.iot.raspberrypi.service.impl.util.ZipUtil;
@@ -109,7 +108,9 @@ public class RaspberryPiServiceImpl implements RaspberryPiService {
     @Consumes("application/json")
     @Produces("application/json")
     public Response getRaspberryPiTemperatureStats(@PathParam("deviceId") String deviceId,
-                                                   @QueryParam("from") long from, @QueryParam("to") long to) {
+                                                   @QueryParam("from") long from, @QueryParam("to") long to,
+                                                   @QueryParam("limit") int limit,
+                                                   @QueryParam("continuationToken") String continuationToken) {
         String fromDate = String.valueOf(from*1000);
         String toDate = String.valueOf(to*1000);
         String query = "meta_deviceId:" + deviceId + " AND meta_deviceType:" +
@@ -123,8 +124,7 @@ public class RaspberryPiServiceImpl implements RaspberryPiService {
             List<SortByField> sortByFields = new ArrayList<>();
             SortByField sortByField = new SortByField("meta_time", SortType.ASC);
             sortByFields.add(sortByField);
-            List<SensorRecord> sensorRecords = APIUtil.getAllEventsForDevice(sensorTableName, query, sortByFields);
-            return Response.status(Response.Status.OK.getStatusCode()).entity(sensorRecords).build();
+            return APIUtil.getEventsResponse(sensorTableName, query, sortByFields, limit, continuationToken);
         } catch (AnalyticsException e) {
             String errorMsg = "Error on retrieving stats on table " + sensorTableName + " with query " + query;
             log.error(errorMsg);
@@ -110,7 +110,8 @@ public interface VirtualFireAlarmService {
     @Consumes("application/json")
     @Produces("application/json")
     Response getVirtualFirealarmStats(@PathParam("deviceId") String deviceId, @QueryParam("from") long from,
-                                                 @QueryParam("to") long to);
+                                                 @QueryParam("to") long to, @QueryParam("limit") int limit,
+                                                 @QueryParam("continuationToken") String continuationToken);
 
     @Path("device/download")
     @GET
@@ -36,7 +36,6 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementExcept
 import org.wso2.carbon.device.mgt.core.operation.mgt.CommandOperation;
 import org.wso2.carbon.device.mgt.core.operation.mgt.ConfigOperation;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.constants.VirtualFireAlarmConstants;
-import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.dto.SensorRecord;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.APIUtil;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.ZipArchive;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.ZipUtil;
@@ -134,7 +133,8 @@ public class VirtualFireAlarmServiceImpl implements VirtualFireAlarmService {
     @Consumes("application/json")
     @Produces("application/json")
     public Response getVirtualFirealarmStats(@PathParam("deviceId") String deviceId, @QueryParam("from") long from,
-                                             @QueryParam("to") long to) {
+                                             @QueryParam("to") long to, @QueryParam("limit") int limit,
+                                             @QueryParam("continuationToken") String continuationToken) {
         String fromDate = String.valueOf(from*1000); // converting time to ms
         String toDate = String.valueOf(to*1000); // converting time to ms
         String query = "meta_deviceId:" + deviceId + " AND meta_deviceType:" +
@@ -149,8 +149,7 @@ public class VirtualFireAlarmServiceImpl implements VirtualFireAlarmService {
             List<SortByField> sortByFields = new ArrayList<>();
             SortByField sortByField = new SortByField("meta_time", SortType.ASC);
             sortByFields.add(sortByField);
-            List<SensorRecord> sensorRecords = APIUtil.getAllEventsForDevice(sensorTableName, query, sortByFields);
-            return Response.status(Response.Status.OK.getStatusCode()).entity(sensorRecords).build();
+            return APIUtil.getEventsResponse(sensorTableName, query, sortByFields, limit, continuationToken);
         } catch (AnalyticsException e) {
             String errorMsg = "Error on retrieving stats on table " + sensorTableName + " with query " + query;
             log.error(errorMsg);
@@ -18,7 +18,10 @@ import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.dto.SensorRecord;
 import org.wso2.carbon.identity.jwt.client.extension.service.JWTClientManagerService;
 
+import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +32,10 @@ import java.util.Map;
 public class APIUtil {
 
 	private static Log log = LogFactory.getLog(APIUtil.class);
+	private static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+	private static final int DEFAULT_PAGE_SIZE = 100;
+	private static final int MAX_PAGE_SIZE = 1000;
+	private static final int STREAM_PAGE_SIZE = 500;
 
 	public static String getAuthenticatedUser() {
 		PrivilegedCarbonContext threadLocalCarbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
@@ -64,22 +71,90 @@ public class APIUtil {
 		return analyticsDataAPI;
 	}
 
-	public static List<SensorRecord> getAllEventsForDevice(String tableName, String query,
-														   List<SortByField> sortByFields) throws AnalyticsException {
+	/**
+	 * Builds the response of a stats query. Without a limit or a continuation token all the matching events are
+	 * streamed, otherwise a single page of at most {@value #MAX_PAGE_SIZE} events is returned, and the token of the
+	 * next page, if any, is set in the {@value #CONTINUATION_TOKEN_HEADER} header.
+	 */
+	public static Response getEventsResponse(String tableName, String query, List<SortByField> sortByFields,
+											 int limit, String continuationToken) throws AnalyticsException {
 		int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
 		AnalyticsDataAPI analyticsDataAPI = getAnalyticsDataAPI();
-		int eventCount = analyticsDataAPI.searchCount(tenantId, tableName, query);
-		if (eventCount == 0) {
-			return null;
+		if (limit <= 0 && continuationToken == null) {
+			List<SearchResultEntry> resultEntries = searchEvents(analyticsDataAPI, tenantId, tableName, query,
+																 sortByFields, 0, STREAM_PAGE_SIZE);
+			if (resultEntries.isEmpty()) {
+				return Response.status(Response.Status.OK.getStatusCode()).build();
+			}
+			return Response.status(Response.Status.OK.getStatusCode()).entity(new SensorRecordStreamingOutput(
+					analyticsDataAPI, tenantId, tableName, query, sortByFields, resultEntries, STREAM_PAGE_SIZE))
+					.build();
+		}
+		return getEventsPage(analyticsDataAPI, tenantId, tableName, query, sortByFields, limit, continuationToken);
+	}
+
+	private static Response getEventsPage(AnalyticsDataAPI analyticsDataAPI, int tenantId, String tableName,
+										  String query, List<SortByField> sortByFields, int limit,
+										  String continuationToken) throws AnalyticsException {
+		int start = decodeContinuationToken(continuationToken);
+		if (start < 0) {
+			return Response.status(Response.Status.BAD_REQUEST.getStatusCode())
+					.entity("Invalid continuation token " + continuationToken).build();
+		}
+		int pageSize = limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+		List<SearchResultEntry> resultEntries = searchEvents(analyticsDataAPI, tenantId, tableName, query,
+															 sortByFields, start, pageSize + 1);
+		Response.ResponseBuilder responseBuilder = Response.status(Response.Status.OK.getStatusCode());
+		if (resultEntries.size() > pageSize) {
+			resultEntries = resultEntries.subList(0, pageSize);
+			responseBuilder.header(CONTINUATION_TOKEN_HEADER, encodeContinuationToken(start + pageSize));
+		}
+		return responseBuilder.entity(getSensorRecords(analyticsDataAPI, tenantId, tableName, resultEntries))
+				.build();
+	}
+
+	public static List<SearchResultEntry> searchEvents(AnalyticsDataAPI analyticsDataAPI, int tenantId,
+													   String tableName, String query,
+													   List<SortByField> sortByFields, int start, int count)
+			throws AnalyticsException {
+		return analyticsDataAPI.search(tenantId, tableName, query, start, count, sortByFields);
+	}
+
+	/**
+	 * Loads the records of the given search results, in the order of the search results.
+	 */
+	public static List<SensorRecord> getSensorRecords(AnalyticsDataAPI analyticsDataAPI, int tenantId,
+													  String tableName, List<SearchResultEntry> resultEntries)
+			throws AnalyticsException {
+		if (resultEntries.isEmpty()) {
+			return new ArrayList<>();
 		}
-		List<SearchResultEntry> resultEntries = analyticsDataAPI.search(tenantId, tableName, query, 0, eventCount,
-																		sortByFields);
 		List<String> recordIds = getRecordIds(resultEntries);
 		AnalyticsDataResponse response = analyticsDataAPI.get(tenantId, tableName, 1, null, recordIds);
 		Map<String, SensorRecord> sensorDatas = createSensorData(AnalyticsDataAPIUtil.listRecords(
 				analyticsDataAPI, response));
-		List<SensorRecord> sortedSensorData = getSortedSensorData(sensorDatas, resultEntries);
-		return sortedSensorData;
+		return getSortedSensorData(sensorDatas, resultEntries);
+	}
+
+	private static String encodeContinuationToken(int start) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(
+				String.valueOf(start).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the offset encoded in the token, 0 for a missing token or -1 for an invalid one.
+	 */
+	private static int decodeContinuationToken(String continuationToken) {
+		if (continuationToken == null || continuationToken.isEmpty()) {
+			return 0;
+		}
+		try {
+			int start = Integer.parseInt(new String(Base64.getUrlDecoder().decode(continuationToken),
+													StandardCharsets.UTF_8));
+			return start >= 0 ? start : -1;
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
 	}
 
 	private static List<String> getRecordIds(List<SearchResultEntry> searchResults) {
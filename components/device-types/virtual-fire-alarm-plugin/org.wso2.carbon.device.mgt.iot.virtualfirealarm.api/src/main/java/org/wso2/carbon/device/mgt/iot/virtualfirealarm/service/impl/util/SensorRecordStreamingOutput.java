@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.wso2.carbon.analytics.api.AnalyticsDataAPI;
+import org.wso2.carbon.analytics.dataservice.commons.SearchResultEntry;
+import org.wso2.carbon.analytics.dataservice.commons.SortByField;
+import org.wso2.carbon.analytics.datasource.commons.exception.AnalyticsException;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.dto.SensorRecord;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes all the sensor records matching a query as a JSON array. Records are searched and loaded one page at a time
+ * and written as soon as they are loaded, so the memory used does not grow with the queried time range.
+ */
+public class SensorRecordStreamingOutput implements StreamingOutput {
+
+    private static final Log log = LogFactory.getLog(SensorRecordStreamingOutput.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AnalyticsDataAPI analyticsDataAPI;
+    private final int tenantId;
+    private final String tableName;
+    private final String query;
+    private final List<SortByField> sortByFields;
+    private final List<SearchResultEntry> firstPage;
+    private final int pageSize;
+
+    public SensorRecordStreamingOutput(AnalyticsDataAPI analyticsDataAPI, int tenantId, String tableName, String query,
+                                       List<SortByField> sortByFields, List<SearchResultEntry> firstPage,
+                                       int pageSize) {
+        this.analyticsDataAPI = analyticsDataAPI;
+        this.tenantId = tenantId;
+        this.tableName = tableName;
+        this.query = query;
+        this.sortByFields = sortByFields;
+        this.firstPage = firstPage;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        JsonGenerator generator = objectMapper.getJsonFactory().createJsonGenerator(output, JsonEncoding.UTF8);
+        generator.writeStartArray();
+        try {
+            List<SearchResultEntry> resultEntries = firstPage;
+            int start = 0;
+            while (!resultEntries.isEmpty()) {
+                for (SensorRecord sensorRecord : APIUtil.getSensorRecords(analyticsDataAPI, tenantId, tableName,
+                                                                          resultEntries)) {
+                    generator.writeObject(sensorRecord);
+                }
+                generator.flush();
+                if (resultEntries.size() < pageSize) {
+                    break;
+                }
+                start += resultEntries.size();
+                resultEntries = APIUtil.searchEvents(analyticsDataAPI, tenantId, tableName, query, sortByFields,
+                                                     start, pageSize);
+            }
+        } catch (AnalyticsException e) {
+            String errorMsg = "Error on retrieving stats on table " + tableName + " with query " + query;
+            log.error(errorMsg, e);
+            throw new IOException(errorMsg, e);
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+}
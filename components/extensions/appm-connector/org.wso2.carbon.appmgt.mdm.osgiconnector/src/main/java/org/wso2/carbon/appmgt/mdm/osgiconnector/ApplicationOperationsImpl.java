@@ -37,6 +37,8 @@ import org.wso2.carbon.appmgt.mobile.store.Generic;
 import org.wso2.carbon.appmgt.mobile.utils.MobileApplicationException;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.common.PaginationResult;
 import org.wso2.carbon.device.mgt.common.Platform;
 import org.wso2.carbon.device.mgt.common.app.mgt.ApplicationManagementException;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
@@ -53,8 +55,10 @@ import org.wso2.carbon.user.api.UserStoreManager;
 import org.wso2.carbon.user.core.service.RealmService;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 public class ApplicationOperationsImpl implements ApplicationOperations {
 
@@ -74,28 +78,18 @@ public class ApplicationOperationsImpl implements ApplicationOperations {
 					applicationOperationAction.getType() +".");
 		}
 
-		Operation operation = null;
 		List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
-		List<org.wso2.carbon.device.mgt.common.Device> deviceList;
+		Set<String> resolvedDevices = new HashSet<>();
 		if (MDMAppConstants.USER.equals(applicationOperationAction.getType())) {
 			String userName = null;
 			try {
+				DeviceManagementProviderService deviceManagementService =
+						MDMServiceAPIUtils.getDeviceManagementService(applicationOperationAction.getTenantId());
 				for (String param : applicationOperationAction.getParams()) {
 					userName = param;
-
-					deviceList = MDMServiceAPIUtils
-							.getDeviceManagementService(applicationOperationAction.getTenantId()).
-									getDevicesOfUser(userName);
-
-					for (org.wso2.carbon.device.mgt.common.Device device : deviceList) {
-                        if (MDMAppConstants.WEBAPP.equals(applicationOperationAction.getApp().getPlatform()) ||
-                                applicationOperationAction.getApp().getPlatform().equalsIgnoreCase(device.getType())) {
-                            if (MDMAppConstants.ACTIVE.equalsIgnoreCase(device.getEnrolmentInfo().
-                                    getStatus().toString())) {
-								deviceIdentifiers.add(getDeviceIdentifierByDevice(device));
-							}
-						}
-					}
+					addActiveDevicesOfUser(deviceManagementService, userName,
+					                       applicationOperationAction.getApp().getPlatform(), deviceIdentifiers,
+					                       resolvedDevices);
 				}
 			} catch (DeviceManagementException devEx) {
                 String errorMsg = "Error occurred fetch device for user " + userName +
@@ -106,17 +100,14 @@ public class ApplicationOperationsImpl implements ApplicationOperations {
 		} else if (MDMAppConstants.ROLE.equals(applicationOperationAction.getType())) {
 			String userRole = null;
 			try {
+				DeviceManagementProviderService deviceManagementService =
+						MDMServiceAPIUtils.getDeviceManagementService(applicationOperationAction.getTenantId());
+				UserStoreManager userStoreManager = getUserStoreManager();
 				for (String param : applicationOperationAction.getParams()) {
 					userRole = param;
-
-					deviceList = MDMServiceAPIUtils
-							.getDeviceManagementService(applicationOperationAction.getTenantId()).
-									getAllDevicesOfRole(userRole);
-
-					for (org.wso2.carbon.device.mgt.common.Device device : deviceList) {
-						if (MDMAppConstants.ACTIVE.equalsIgnoreCase(device.getEnrolmentInfo().getStatus().toString())) {
-							deviceIdentifiers.add(getDeviceIdentifierByDevice(device));
-						}
+					for (String userName : userStoreManager.getUserListOfRole(userRole)) {
+						addActiveDevicesOfUser(deviceManagementService, userName, null, deviceIdentifiers,
+						                       resolvedDevices);
 					}
 				}
 			} catch (DeviceManagementException devMgtEx) {
@@ -124,6 +115,11 @@ public class ApplicationOperationsImpl implements ApplicationOperations {
                         " at app installation";
                 logError(errorMsg, devMgtEx);
 				throw new MobileApplicationException(errorMsg, devMgtEx);
+			} catch (UserStoreException userStoreEx) {
+				String errorMsg = "Error occurred fetch users of user role " + userRole +
+						" at app installation";
+				logError(errorMsg, userStoreEx);
+				throw new MobileApplicationException(errorMsg, userStoreEx);
 			}
 
 		} else if (MDMAppConstants.DEVICE.equals(applicationOperationAction.getType())) {
@@ -181,33 +177,11 @@ public class ApplicationOperationsImpl implements ApplicationOperations {
 		Activity activity = null;
 		try {
 			if (deviceIdentifiers.size() > 0) {
-				if (deviceIdentifiers.get(0).getType().equalsIgnoreCase(Platform.ANDROID.toString())) {
-					if (MDMAppConstants.INSTALL.equals(applicationOperationAction.getAction())) {
-						operation = AndroidApplicationOperationUtil
-								.createInstallAppOperation(mobileApp, applicationOperationAction.getSchedule());
-					} else if (MDMAppConstants.UPDATE.equals(applicationOperationAction.getAction())) {
-						operation = AndroidApplicationOperationUtil
-								.createUpdateAppOperation(mobileApp, applicationOperationAction.getSchedule());
-					} else {
-						operation = AndroidApplicationOperationUtil
-								.createAppUninstallOperation(mobileApp, applicationOperationAction.getSchedule());
-					}
-				} else if (deviceIdentifiers.get(0).getType().equalsIgnoreCase(Platform.IOS.toString())) {
-					if (MDMAppConstants.INSTALL.equals(applicationOperationAction.getAction())) {
-						operation =
-								IOSApplicationOperationUtil.createInstallAppOperation(mobileApp);
-					} else {
-						if (MDMAppConstants.WEBAPP.equals(app.getPlatform())) {
-							operation = IOSApplicationOperationUtil.createWebClipUninstallOperation(mobileApp);
-						} else {
-							operation = IOSApplicationOperationUtil.createAppUninstallOperation(mobileApp);
-						}
-					}
-				}
-                activity = MDMServiceAPIUtils.getAppManagementService(applicationOperationAction.getTenantId())
-                        .installApplicationForDevices(operation, deviceIdentifiers);
-
-
+				// a single operation is added for all the devices, so that the returned activity tracks all of them.
+				Operation operation = createOperation(applicationOperationAction, mobileApp,
+				                                      deviceIdentifiers.get(0).getType());
+				activity = MDMServiceAPIUtils.getAppManagementService(applicationOperationAction.getTenantId())
+						.installApplicationForDevices(operation, deviceIdentifiers);
 			}
 
 			if(activity != null){
@@ -226,6 +200,76 @@ public class ApplicationOperationsImpl implements ApplicationOperations {
 
 	}
 
+	/**
+	 * Creates the operation performing the action on devices of the given type.
+	 */
+	private static Operation createOperation(ApplicationOperationAction applicationOperationAction,
+	                                         MobileApp mobileApp, String deviceType)
+			throws DeviceApplicationException {
+		Operation operation = null;
+		if (deviceType.equalsIgnoreCase(Platform.ANDROID.toString())) {
+			if (MDMAppConstants.INSTALL.equals(applicationOperationAction.getAction())) {
+				operation = AndroidApplicationOperationUtil
+						.createInstallAppOperation(mobileApp, applicationOperationAction.getSchedule());
+			} else if (MDMAppConstants.UPDATE.equals(applicationOperationAction.getAction())) {
+				operation = AndroidApplicationOperationUtil
+						.createUpdateAppOperation(mobileApp, applicationOperationAction.getSchedule());
+			} else {
+				operation = AndroidApplicationOperationUtil
+						.createAppUninstallOperation(mobileApp, applicationOperationAction.getSchedule());
+			}
+		} else if (deviceType.equalsIgnoreCase(Platform.IOS.toString())) {
+			if (MDMAppConstants.INSTALL.equals(applicationOperationAction.getAction())) {
+				operation =
+						IOSApplicationOperationUtil.createInstallAppOperation(mobileApp);
+			} else {
+				if (MDMAppConstants.WEBAPP.equals(applicationOperationAction.getApp().getPlatform())) {
+					operation = IOSApplicationOperationUtil.createWebClipUninstallOperation(mobileApp);
+				} else {
+					operation = IOSApplicationOperationUtil.createAppUninstallOperation(mobileApp);
+				}
+			}
+		}
+		return operation;
+	}
+
+	/**
+	 * Adds the active devices of the user, reading them a page at a time so that the devices of users owning many of
+	 * them are not loaded at once. Devices already added for another user or role are skipped.
+	 *
+	 * @param platform type of the devices to be added, or null to add devices of any type
+	 */
+	private static void addActiveDevicesOfUser(DeviceManagementProviderService deviceManagementService,
+	                                           String userName, String platform,
+	                                           List<DeviceIdentifier> deviceIdentifiers, Set<String> resolvedDevices)
+			throws DeviceManagementException {
+		int start = 0;
+		while (true) {
+			PaginationRequest paginationRequest = new PaginationRequest(start, MDMAppConstants.DEVICE_PAGE_SIZE);
+			paginationRequest.setOwner(userName);
+			PaginationResult paginationResult = deviceManagementService.getDevicesOfUser(paginationRequest);
+			List<?> devices = paginationResult.getData();
+			if (devices == null || devices.isEmpty()) {
+				return;
+			}
+			for (Object data : devices) {
+				org.wso2.carbon.device.mgt.common.Device device = (org.wso2.carbon.device.mgt.common.Device) data;
+				if (platform != null && !MDMAppConstants.WEBAPP.equals(platform) &&
+						!platform.equalsIgnoreCase(device.getType())) {
+					continue;
+				}
+				if (MDMAppConstants.ACTIVE.equalsIgnoreCase(device.getEnrolmentInfo().getStatus().toString()) &&
+						resolvedDevices.add(device.getType() + ":" + device.getDeviceIdentifier())) {
+					deviceIdentifiers.add(getDeviceIdentifierByDevice(device));
+				}
+			}
+			start += devices.size();
+			if (devices.size() < MDMAppConstants.DEVICE_PAGE_SIZE || start >= paginationResult.getRecordsTotal()) {
+				return;
+			}
+		}
+	}
+
 	/**
 	 * Create a new device identifier from Device object.
 	 * @param device device which is to be retrieved type and id
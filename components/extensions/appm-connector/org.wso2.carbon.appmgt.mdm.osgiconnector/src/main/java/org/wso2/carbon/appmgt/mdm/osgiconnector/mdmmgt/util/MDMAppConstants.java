@@ -37,6 +37,7 @@ public class MDMAppConstants {
 	public static final String IMAGE_URL = "ImageURL";
 	public static final String TYPE = "type";
 	public static final String ID = "id";
+	public static final int DEVICE_PAGE_SIZE = 100;
 
 	public class IOSConstants {
 
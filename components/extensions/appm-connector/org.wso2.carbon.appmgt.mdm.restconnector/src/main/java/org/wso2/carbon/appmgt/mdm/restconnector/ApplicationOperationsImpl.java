@@ -35,6 +35,7 @@ import org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.OAuthReques
 import org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.Activity;
 import org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.ApplicationManagementAdminService;
 import org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.ApplicationWrapper;
+import org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.DeviceList;
 import org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.DeviceManagementAdminService;
 import org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.MobileApp;
 import org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.MobileAppTypes;
@@ -58,9 +59,11 @@ import java.security.*;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 public class ApplicationOperationsImpl implements ApplicationOperations {
     private static final String CDMF_SERVER_BASE_CONTEXT = "/api/device-mgt/v1.0";
@@ -106,32 +109,15 @@ public class ApplicationOperationsImpl implements ApplicationOperations {
         PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId);
 
         List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
-        List<org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.Device> deviceList;
+        Set<String> resolvedDevices = new HashSet<>();
         if (Constants.USER.equals(type)) {
             String platform = applicationOperationAction.getApp().getPlatform();
-            String userName;
-            for (String param : params) {
-                userName = param;
-                deviceList = deviceManagementAdminService.getDevices(userName, null).getList();
-
-                for (org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.Device device : deviceList) {
-                    if (Constants.WEBAPP.equals(platform) || platform.equalsIgnoreCase(device.getType())) {
-                        if (Constants.ACTIVE.equalsIgnoreCase(device.getEnrolmentInfo().getStatus().toString())) {
-                            deviceIdentifiers.add(getDeviceIdentifierByDevice(device));
-                        }
-                    }
-                }
+            for (String userName : params) {
+                addActiveDevices(userName, null, platform, deviceIdentifiers, resolvedDevices);
             }
         } else if (Constants.ROLE.equals(type)) {
-            String userRole;
-            for (String param : applicationOperationAction.getParams()) {
-                userRole = param;
-                deviceList = deviceManagementAdminService.getDevices(null, userRole).getList();
-                for (org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.Device device : deviceList) {
-                    if (Constants.ACTIVE.equalsIgnoreCase(device.getEnrolmentInfo().getStatus().toString())) {
-                        deviceIdentifiers.add(getDeviceIdentifierByDevice(device));
-                    }
-                }
+            for (String userRole : applicationOperationAction.getParams()) {
+                addActiveDevices(null, userRole, null, deviceIdentifiers, resolvedDevices);
             }
         } else if (Constants.DEVICE.equals(type)) {
             DeviceIdentifier deviceIdentifier;
@@ -188,6 +174,7 @@ public class ApplicationOperationsImpl implements ApplicationOperations {
         Activity activity = null;
 
         if (deviceIdentifiers.size() > 0) {
+            // a single operation is added for all the devices, so that the returned activity tracks all of them.
             applicationWrapper.setDeviceIdentifiers(deviceIdentifiers);
             if (Constants.INSTALL.equals(applicationOperationAction.getAction())) {
                 activity = applicationManagementAdminService.installApplication(applicationWrapper);
@@ -252,6 +239,41 @@ public class ApplicationOperationsImpl implements ApplicationOperations {
 
     }
 
+    /**
+     * Adds the active devices of the user or role, reading them a page at a time so that the devices of large roles
+     * are not loaded at once. Devices already added for another user or role are skipped.
+     *
+     * @param platform type of the devices to be added, or null to add devices of any type
+     */
+    private static void addActiveDevices(String user, String role, String platform,
+                                         List<DeviceIdentifier> deviceIdentifiers, Set<String> resolvedDevices) {
+        int offset = 0;
+        while (true) {
+            DeviceList deviceList = deviceManagementAdminService.getDevices(user, role,
+                                                                            Constants.ACTIVE.toUpperCase(), offset,
+                                                                            Constants.DEVICE_PAGE_SIZE);
+            List<org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.Device> devices =
+                    deviceList == null ? null : deviceList.getList();
+            if (devices == null || devices.isEmpty()) {
+                return;
+            }
+            for (org.wso2.carbon.appmgt.mdm.restconnector.authorization.client.dto.Device device : devices) {
+                if (platform != null && !Constants.WEBAPP.equals(platform) &&
+                        !platform.equalsIgnoreCase(device.getType())) {
+                    continue;
+                }
+                if (Constants.ACTIVE.equalsIgnoreCase(device.getEnrolmentInfo().getStatus().toString()) &&
+                        resolvedDevices.add(device.getType() + ":" + device.getDeviceIdentifier())) {
+                    deviceIdentifiers.add(getDeviceIdentifierByDevice(device));
+                }
+            }
+            offset += devices.size();
+            if (devices.size() < Constants.DEVICE_PAGE_SIZE || offset >= deviceList.getCount()) {
+                return;
+            }
+        }
+    }
+
     private HashMap<String, String> getActiveMDMProperties() {
         MobileConfigurations configurations = MobileConfigurations.getInstance();
         return configurations.getActiveMDMProperties();
@@ -53,6 +53,7 @@ public class Constants {
     public static final String ENTERPRISE = "enterprise";
     public static final String ACTIVE = "active";
     public static final String DEVICE = "device";
+    public static final int DEVICE_PAGE_SIZE = 100;
 
 
     public class IOSConstants {
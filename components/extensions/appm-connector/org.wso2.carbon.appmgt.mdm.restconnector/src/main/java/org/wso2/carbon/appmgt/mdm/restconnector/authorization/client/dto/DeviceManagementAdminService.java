@@ -44,4 +44,20 @@ public interface DeviceManagementAdminService {
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     DeviceList getDevices(@QueryParam("user") String user, @QueryParam("role") String role);
+
+    /**
+     * Get a page of devices.
+     *
+     * @param user Username
+     * @param role Role of the user
+     * @param status Enrolment status of the devices
+     * @param offset Index of the first device of the page
+     * @param limit Maximum number of devices in the page
+     * @return {@link DeviceList} object
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    DeviceList getDevices(@QueryParam("user") String user, @QueryParam("role") String role,
+                          @QueryParam("status") String status, @QueryParam("offset") int offset,
+                          @QueryParam("limit") int limit);
 }
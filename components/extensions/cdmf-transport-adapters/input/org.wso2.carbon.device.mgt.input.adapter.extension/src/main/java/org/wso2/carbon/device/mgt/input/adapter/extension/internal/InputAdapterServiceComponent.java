@@ -26,6 +26,7 @@ import org.wso2.carbon.device.mgt.input.adapter.extension.InputAdapterExtensionS
 import org.wso2.carbon.device.mgt.input.adapter.extension.InputAdapterExtensionServiceImpl;
 import org.wso2.carbon.device.mgt.input.adapter.extension.transformer.DefaultContentTransformer;
 import org.wso2.carbon.device.mgt.input.adapter.extension.transformer.MQTTContentTransformer;
+import org.wso2.carbon.device.mgt.input.adapter.extension.transformer.MQTTStreamingContentTransformer;
 import org.wso2.carbon.device.mgt.input.adapter.extension.validator.DefaultContentValidator;
 import org.wso2.carbon.device.mgt.input.adapter.extension.validator.HTTPContentValidator;
 import org.wso2.carbon.device.mgt.input.adapter.extension.validator.MQTTContentValidator;
@@ -58,6 +59,7 @@ public class InputAdapterServiceComponent {
 
             InputAdapterServiceDataHolder.getInstance().addContentTransformer(new DefaultContentTransformer());
             InputAdapterServiceDataHolder.getInstance().addContentTransformer(new MQTTContentTransformer());
+            InputAdapterServiceDataHolder.getInstance().addContentTransformer(new MQTTStreamingContentTransformer());
             InputAdapterServiceDataHolder.getInstance().addContentValidator(new DefaultContentValidator());
             InputAdapterServiceDataHolder.getInstance().addContentValidator(new HTTPContentValidator());
             InputAdapterServiceDataHolder.getInstance().addContentValidator(new MQTTContentValidator());
@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.input.adapter.extension.transformer;
+
+import org.json.simple.parser.ParseException;
+
+/**
+ * Copies a JSON text into a buffer in the form json-simple writes it after parsing, i.e. without white space, with
+ * strings escaped the way {@link org.json.simple.JSONValue#escape(String)} escapes them and with numbers formatted
+ * the way they are as Long or Double, but without building a tree of the content. Object members are copied in the
+ * order they are given. The output can optionally be escaped once more, to be embedded in a JSON string.
+ */
+final class JsonStreamCopier {
+
+    private final String json;
+    private final StringBuilder out;
+    private final boolean quoted;
+    private final StringBuilder scratch = new StringBuilder(6);
+    private int pos;
+
+    /**
+     * @param quoted whether everything appended, including the text given to {@link #append}, is escaped as the
+     *               content of a JSON string.
+     */
+    JsonStreamCopier(String json, StringBuilder out, boolean quoted) {
+        this.json = json;
+        this.out = out;
+        this.quoted = quoted;
+    }
+
+    /**
+     * Copies the whole text, which must be a single JSON value.
+     */
+    void copyDocument() throws ParseException {
+        skipWhiteSpace();
+        copyValue();
+        skipWhiteSpace();
+        if (pos < json.length()) {
+            throw unexpected();
+        }
+    }
+
+    /**
+     * Appends markup such as the event wrapper.
+     */
+    void append(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            emit(text.charAt(i));
+        }
+    }
+
+    /**
+     * Appends the given range of characters as the escaped content of a JSON string.
+     */
+    void appendEscaped(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            emitEscaped(text.charAt(i));
+        }
+    }
+
+    /**
+     * Positions the copier at the first element of the JSON array given as text.
+     *
+     * @return false if the array is empty.
+     */
+    boolean startArray() throws ParseException {
+        skipWhiteSpace();
+        expect('[');
+        skipWhiteSpace();
+        if (peek() == ']') {
+            pos++;
+            endArray();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves past the separator that follows an array element.
+     *
+     * @return false if the element was the last one.
+     */
+    boolean nextElement() throws ParseException {
+        skipWhiteSpace();
+        char c = peek();
+        pos++;
+        if (c == ',') {
+            skipWhiteSpace();
+            return true;
+        }
+        if (c == ']') {
+            endArray();
+            return false;
+        }
+        pos--;
+        throw unexpected();
+    }
+
+    /**
+     * @return true if the current array element is a JSON string.
+     */
+    boolean isStringElement() {
+        return peek() == '"';
+    }
+
+    /**
+     * @return true if the current array element is the null literal.
+     */
+    boolean isNullElement() {
+        return json.startsWith("null", pos);
+    }
+
+    /**
+     * Reads the current array element, which must be a JSON string, and returns its unescaped content.
+     */
+    String readStringElement() throws ParseException {
+        StringBuilder content = new StringBuilder();
+        expect('"');
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return content.toString();
+            }
+            content.append(c == '\\' ? readEscape() : c);
+        }
+    }
+
+    /**
+     * Copies the current array element.
+     */
+    void copyElement() throws ParseException {
+        copyValue();
+    }
+
+    private void endArray() throws ParseException {
+        skipWhiteSpace();
+        if (pos < json.length()) {
+            throw unexpected();
+        }
+    }
+
+    private void copyValue() throws ParseException {
+        char c = peek();
+        switch (c) {
+            case '{':
+                copyObject();
+                break;
+            case '[':
+                copyArray();
+                break;
+            case '"':
+                copyString();
+                break;
+            case 't':
+                copyLiteral("true");
+                break;
+            case 'f':
+                copyLiteral("false");
+                break;
+            case 'n':
+                copyLiteral("null");
+                break;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    copyNumber();
+                } else {
+                    throw unexpected();
+                }
+        }
+    }
+
+    private void copyObject() throws ParseException {
+        expect('{');
+        emit('{');
+        skipWhiteSpace();
+        if (peek() == '}') {
+            pos++;
+            emit('}');
+            return;
+        }
+        while (true) {
+            skipWhiteSpace();
+            if (peek() != '"') {
+                throw unexpected();
+            }
+            copyString();
+            skipWhiteSpace();
+            expect(':');
+            emit(':');
+            skipWhiteSpace();
+            copyValue();
+            skipWhiteSpace();
+            char c = next();
+            if (c == '}') {
+                emit('}');
+                return;
+            }
+            if (c != ',') {
+                pos--;
+                throw unexpected();
+            }
+            emit(',');
+        }
+    }
+
+    private void copyArray() throws ParseException {
+        expect('[');
+        emit('[');
+        skipWhiteSpace();
+        if (peek() == ']') {
+            pos++;
+            emit(']');
+            return;
+        }
+        while (true) {
+            skipWhiteSpace();
+            copyValue();
+            skipWhiteSpace();
+            char c = next();
+            if (c == ']') {
+                emit(']');
+                return;
+            }
+            if (c != ',') {
+                pos--;
+                throw unexpected();
+            }
+            emit(',');
+        }
+    }
+
+    private void copyString() throws ParseException {
+        expect('"');
+        emit('"');
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                emit('"');
+                return;
+            }
+            emitEscaped(c == '\\' ? readEscape() : c);
+        }
+    }
+
+    private char readEscape() throws ParseException {
+        char c = next();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (pos + 4 > json.length()) {
+                    throw unexpected();
+                }
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(json.charAt(pos++), 16);
+                    if (digit < 0) {
+                        pos--;
+                        throw unexpected();
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                pos--;
+                throw unexpected();
+        }
+    }
+
+    private void copyLiteral(String literal) throws ParseException {
+        if (!json.startsWith(literal, pos)) {
+            throw unexpected();
+        }
+        pos += literal.length();
+        append(literal);
+    }
+
+    private void copyNumber() throws ParseException {
+        int start = pos;
+        boolean decimal = false;
+        if (peek() == '-') {
+            pos++;
+        }
+        int digits = skipDigits();
+        if (digits == 0) {
+            throw unexpected();
+        }
+        if (peek() == '.') {
+            pos++;
+            decimal = true;
+            if (skipDigits() == 0) {
+                throw unexpected();
+            }
+        }
+        char c = peek();
+        if (c == 'e' || c == 'E') {
+            pos++;
+            decimal = true;
+            c = peek();
+            if (c == '+' || c == '-') {
+                pos++;
+            }
+            if (skipDigits() == 0) {
+                throw unexpected();
+            }
+        }
+        int intStart = json.charAt(start) == '-' ? start + 1 : start;
+        if (decimal) {
+            append(Double.toString(Double.parseDouble(json.substring(start, pos))));
+        } else if (json.charAt(intStart) == '0' && (digits > 1 || intStart > start)) {
+            // leading zeros and negative zero are not kept by Long.
+            append(Long.toString(Long.parseLong(json.substring(start, pos))));
+        } else {
+            for (int i = start; i < pos; i++) {
+                emit(json.charAt(i));
+            }
+        }
+    }
+
+    private int skipDigits() {
+        int start = pos;
+        while (pos < json.length() && json.charAt(pos) >= '0' && json.charAt(pos) <= '9') {
+            pos++;
+        }
+        return pos - start;
+    }
+
+    private void skipWhiteSpace() {
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private char peek() {
+        return pos < json.length() ? json.charAt(pos) : 0;
+    }
+
+    private char next() throws ParseException {
+        if (pos >= json.length()) {
+            throw unexpected();
+        }
+        return json.charAt(pos++);
+    }
+
+    private void expect(char c) throws ParseException {
+        if (peek() != c) {
+            throw unexpected();
+        }
+        pos++;
+    }
+
+    private ParseException unexpected() {
+        if (pos >= json.length()) {
+            return new ParseException(pos, ParseException.ERROR_UNEXPECTED_TOKEN, null);
+        }
+        return new ParseException(pos, ParseException.ERROR_UNEXPECTED_CHAR, json.charAt(pos));
+    }
+
+    /**
+     * Writes a character of the JSON markup.
+     */
+    private void emit(char c) {
+        if (quoted) {
+            escape(c, out);
+        } else {
+            out.append(c);
+        }
+    }
+
+    /**
+     * Writes a character of a string value.
+     */
+    private void emitEscaped(char c) {
+        if (quoted) {
+            // escape the escaped form once more for the enclosing string.
+            scratch.setLength(0);
+            escape(c, scratch);
+            for (int i = 0; i < scratch.length(); i++) {
+                escape(scratch.charAt(i), out);
+            }
+        } else {
+            escape(c, out);
+        }
+    }
+
+    /**
+     * Escapes a character exactly as {@link org.json.simple.JSONValue#escape(String)} does.
+     */
+    static void escape(char c, StringBuilder out) {
+        switch (c) {
+            case '"':
+                out.append("\\\"");
+                break;
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\b':
+                out.append("\\b");
+                break;
+            case '\f':
+                out.append("\\f");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r");
+                break;
+            case '\t':
+                out.append("\\t");
+                break;
+            case '/':
+                out.append("\\/");
+                break;
+            default:
+                if (c <= '\u001F' || (c >= '\u007F' && c <= '\u009F') || (c >= '\u2000' && c <= '\u20FF')) {
+                    String hex = Integer.toHexString(c);
+                    out.append("\\u");
+                    for (int k = 0; k < 4 - hex.length(); k++) {
+                        out.append('0');
+                    }
+                    out.append(hex.toUpperCase());
+                } else {
+                    out.append(c);
+                }
+        }
+    }
+}
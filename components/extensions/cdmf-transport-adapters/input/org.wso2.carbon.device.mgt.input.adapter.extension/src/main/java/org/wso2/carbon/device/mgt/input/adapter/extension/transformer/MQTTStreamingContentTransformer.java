@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.input.adapter.extension.transformer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.simple.parser.ParseException;
+import org.wso2.carbon.device.mgt.input.adapter.extension.ContentTransformer;
+
+import java.util.Map;
+
+/**
+ * Produces the same events as {@link MQTTContentTransformer}, but copies the payload into the event wrapper token by
+ * token instead of parsing it into objects and serializing them again. The only difference to the output of
+ * {@link MQTTContentTransformer} is the order of the members of payload objects, which are kept in the order they
+ * were sent rather than in hash order.
+ */
+public class MQTTStreamingContentTransformer implements ContentTransformer {
+
+    private static final String MQTT_STREAMING_CONTENT_TRANSFORMER = "device-meta-streaming-transformer";
+    private static final String TOPIC = "topic";
+    private static final String JSON_ARRAY_START_CHAR = "[";
+    private static final int DEVICE_ID_TOPIC_HIERARCHY_INDEX = 2;
+    // members in the order json-simple writes the wrapper objects of MQTTContentTransformer.
+    private static final String EVENT_PREFIX = "{\"event\":{\"metaData\":{\"deviceId\":\"";
+    private static final String EVENT_INFIX = "\"},\"payloadData\":";
+    private static final String EVENT_SUFFIX = "}}";
+
+    private static final Log log = LogFactory.getLog(MQTTStreamingContentTransformer.class);
+
+    @Override
+    public String getType() {
+        return MQTT_STREAMING_CONTENT_TRANSFORMER;
+    }
+
+    @Override
+    public Object transform(Object messagePayload, Map<String, Object> dynamicProperties) {
+        String topic = (String) dynamicProperties.get(TOPIC);
+        int deviceIdStart = segmentStart(topic, DEVICE_ID_TOPIC_HIERARCHY_INDEX);
+        int deviceIdEnd = topic.indexOf('/', deviceIdStart);
+        if (deviceIdEnd < 0) {
+            deviceIdEnd = topic.length();
+        }
+        String message = (String) messagePayload;
+        try {
+            if (message.startsWith(JSON_ARRAY_START_CHAR)) {
+                return processMultipleEvents(message, topic, deviceIdStart, deviceIdEnd);
+            } else {
+                return processSingleEvent(message, topic, deviceIdStart, deviceIdEnd);
+            }
+        } catch (ParseException e) {
+            log.error("Invalid input " + message, e);
+            return false;
+        }
+    }
+
+    private String processSingleEvent(String msg, String topic, int deviceIdStart, int deviceIdEnd)
+            throws ParseException {
+        StringBuilder event = new StringBuilder(msg.length() + EVENT_PREFIX.length() + EVENT_INFIX.length()
+                                                        + EVENT_SUFFIX.length() + deviceIdEnd - deviceIdStart);
+        JsonStreamCopier copier = new JsonStreamCopier(msg, event, false);
+        copier.append(EVENT_PREFIX);
+        copier.appendEscaped(topic, deviceIdStart, deviceIdEnd);
+        copier.append(EVENT_INFIX);
+        copier.copyDocument();
+        copier.append(EVENT_SUFFIX);
+        return event.toString();
+    }
+
+    /**
+     * Wraps each element of the array as an event, written as a JSON string like MQTTContentTransformer does.
+     */
+    private String processMultipleEvents(String msg, String topic, int deviceIdStart, int deviceIdEnd)
+            throws ParseException {
+        StringBuilder events = new StringBuilder(msg.length() * 2);
+        events.append('[');
+        JsonStreamCopier copier = new JsonStreamCopier(msg, events, true);
+        if (copier.startArray()) {
+            boolean first = true;
+            do {
+                if (!first) {
+                    events.append(',');
+                }
+                first = false;
+                events.append('"');
+                copier.append(EVENT_PREFIX);
+                copier.appendEscaped(topic, deviceIdStart, deviceIdEnd);
+                copier.append(EVENT_INFIX);
+                if (copier.isNullElement()) {
+                    throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN);
+                } else if (copier.isStringElement()) {
+                    // a string element holds the JSON text of the event.
+                    new JsonStreamCopier(copier.readStringElement(), events, true).copyDocument();
+                } else {
+                    copier.copyElement();
+                }
+                copier.append(EVENT_SUFFIX);
+                events.append('"');
+            } while (copier.nextElement());
+        }
+        events.append(']');
+        return events.toString();
+    }
+
+    /**
+     * Finds where a segment of the topic starts, without splitting the topic.
+     */
+    private static int segmentStart(String topic, int index) {
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            int separator = topic.indexOf('/', start);
+            if (separator < 0) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            start = separator + 1;
+        }
+        return start;
+    }
+}
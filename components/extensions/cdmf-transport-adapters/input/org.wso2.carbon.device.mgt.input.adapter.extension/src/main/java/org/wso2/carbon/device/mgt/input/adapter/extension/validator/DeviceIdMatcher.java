@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.input.adapter.extension.validator;
+
+import com.jayway.jsonpath.JsonPath;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks that the device id found at a JSON path of an event matches the id of the device which sent it. The path is
+ * compiled once, and each payload is parsed once into a document that every array element is read from. Elements
+ * which are themselves JSON strings, as produced by the device meta transformer, are parsed once as well.
+ */
+final class DeviceIdMatcher {
+
+    private static final Log log = LogFactory.getLog(DeviceIdMatcher.class);
+
+    // the parser keeps a sizeable lexer buffer, so it is reused by each thread instead of created per event.
+    private static final ThreadLocal<JSONParser> jsonParser = new ThreadLocal<JSONParser>() {
+        @Override
+        protected JSONParser initialValue() {
+            return new JSONParser();
+        }
+    };
+
+    private final JsonPath deviceIdPath;
+
+    DeviceIdMatcher(String deviceIdJsonPath) {
+        this.deviceIdPath = JsonPath.compile(deviceIdJsonPath);
+    }
+
+    /**
+     * @return true if the payload is a single event or a non empty array of events, all carrying the given device id.
+     */
+    boolean matches(String payload, String deviceId) {
+        try {
+            Object document = jsonParser.get().parse(payload);
+            if (document instanceof List) {
+                List<?> events = (List<?>) document;
+                if (events.isEmpty()) {
+                    return false;
+                }
+                for (Object event : events) {
+                    if (!matchesEvent(event, deviceId)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return matchesEvent(document, deviceId);
+        } catch (ParseException e) {
+            log.error("Invalid input " + payload, e);
+            return false;
+        }
+    }
+
+    private boolean matchesEvent(Object event, String deviceId) throws ParseException {
+        if (event instanceof String) {
+            event = jsonParser.get().parse((String) event);
+        }
+        if (!(event instanceof Map)) {
+            return false;
+        }
+        Object res = deviceIdPath.read(event);
+        String deviceIdFromContent = (res != null) ? res.toString() : "";
+        return deviceIdFromContent.equals(deviceId);
+    }
+}
@@ -18,25 +18,18 @@
 
 package org.wso2.carbon.device.mgt.input.adapter.extension.validator;
 
-import com.jayway.jsonpath.JsonPath;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.json.simple.JSONArray;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentInfo;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentValidator;
 
 import java.util.Map;
 
 public class MQTTContentValidator implements ContentValidator {
-    private static final String JSON_ARRAY_START_CHAR = "[";
-    private static final Log log = LogFactory.getLog(MQTTContentValidator.class);
     private static final String CDMF_MQTT_CONTENT_VALIDATOR = "deviceid-topic-content-validator";
     private static final String DEVICE_ID_JSON_PATH = "event.metaData.deviceId";
     private static final String DEVICE_TYPE_JSON_PATH = "event.metaData.deviceId";
     private static final String TOPIC = "topic";
     private static final int DEVICE_ID_TOPIC_HIERARCHY_INDEX = 2;
+    private static final DeviceIdMatcher deviceIdMatcher = new DeviceIdMatcher(DEVICE_ID_JSON_PATH);
 
     @Override
     public String getType() {
@@ -49,40 +42,7 @@ public class MQTTContentValidator implements ContentValidator {
         String topics[] = topic.split("/");
         int deviceIdInTopicHierarchyLevelIndex = DEVICE_ID_TOPIC_HIERARCHY_INDEX;
         String deviceIdFromTopic = topics[deviceIdInTopicHierarchyLevelIndex];
-        boolean status;
-        String message = (String) msgPayload;
-        if (message.startsWith(JSON_ARRAY_START_CHAR)) {
-            status = processMultipleEvents(message, deviceIdFromTopic, DEVICE_ID_JSON_PATH);
-        } else {
-            status = processSingleEvent(message, deviceIdFromTopic, DEVICE_ID_JSON_PATH);
-        }
+        boolean status = deviceIdMatcher.matches((String) msgPayload, deviceIdFromTopic);
         return new ContentInfo(status, msgPayload);
     }
-
-    private boolean processSingleEvent(String msg, String deviceIdFromTopic, String deviceIdJsonPath) {
-        Object res = JsonPath.read(msg, deviceIdJsonPath);
-        String deviceIdFromContent = (res != null) ? res.toString() : "";
-        if (deviceIdFromContent.equals(deviceIdFromTopic)) {
-            return true;
-        }
-        return false;
-    }
-
-    private boolean processMultipleEvents(String msg, String deviceIdFromTopic, String deviceIdJsonPath) {
-        try {
-            JSONParser jsonParser = new JSONParser();
-            JSONArray jsonArray = (JSONArray) jsonParser.parse(msg);
-            boolean status = false;
-            for (int i = 0; i < jsonArray.size(); i++) {
-                status = processSingleEvent(jsonArray.get(i).toString(), deviceIdFromTopic, deviceIdJsonPath);
-                if (!status) {
-                    return false;
-                }
-            }
-            return status;
-        } catch (ParseException e) {
-            log.error("Invalid input " + msg, e);
-            return false;
-        }
-    }
 }
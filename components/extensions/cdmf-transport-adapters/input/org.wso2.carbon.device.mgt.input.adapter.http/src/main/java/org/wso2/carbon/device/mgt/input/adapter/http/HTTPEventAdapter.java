@@ -96,17 +96,8 @@ public final class HTTPEventAdapter implements InputEventAdapter {
                 jobQueueSize = HTTPEventAdapterConstants.ADAPTER_EXECUTOR_JOB_QUEUE_SIZE;
             }
 
-            RejectedExecutionHandler rejectedExecutionHandler = new RejectedExecutionHandler() {
-                @Override
-                public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-                    try {
-                        executor.getQueue().put(r);
-                    } catch (InterruptedException e) {
-                        log.error("Exception while adding event to executor queue : " + e.getMessage(), e);
-                    }
-                }
-
-            };
+            // a saturated queue is reported to the client instead of holding up the container thread.
+            RejectedExecutionHandler rejectedExecutionHandler = new ThreadPoolExecutor.AbortPolicy();
 
             executorService = new ThreadPoolExecutor(minThread, maxThread, defaultKeepAliveTime, TimeUnit.MILLISECONDS,
                     new LinkedBlockingQueue<Runnable>(jobQueueSize), rejectedExecutionHandler);
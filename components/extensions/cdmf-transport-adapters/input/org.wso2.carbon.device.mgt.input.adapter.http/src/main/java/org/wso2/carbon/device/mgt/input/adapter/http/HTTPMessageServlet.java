@@ -17,6 +17,10 @@ package org.wso2.carbon.device.mgt.input.adapter.http;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.input.adapter.http.authorization.DeviceAuthorizer;
 import org.wso2.carbon.device.mgt.input.adapter.http.internal.InputAdapterServiceDataHolder;
@@ -36,12 +40,20 @@ import org.wso2.carbon.device.mgt.input.adapter.extension.ContentValidator;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This will act as the event reciver.
@@ -53,11 +65,20 @@ public class HTTPMessageServlet extends HttpServlet {
 
 	private static Log log = LogFactory.getLog(HTTPMessageServlet.class);
 
+	// request bodies are read into a buffer kept by each container thread, unless they are too large to keep.
+	private static final ThreadLocal<byte[]> readBuffer = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[HTTPEventAdapterConstants.READ_BUFFER_SIZE];
+		}
+	};
+
 	private static ContentValidator contentValidator;
 	private static ContentTransformer contentTransformer;
 	private InputEventAdapterListener eventAdaptorListener;
 	private int tenantId;
 	private String exposedTransports;
+	private int maxRequestBodySize = HTTPEventAdapterConstants.DEFAULT_MAX_REQUEST_BODY_SIZE;
 	private static JWTAuthenticator jwtAuthenticator;
 	private static OAuthAuthenticator oAuthAuthenticator;
     private static DeviceAuthorizer deviceAuthorizer;
@@ -71,6 +92,22 @@ public class HTTPMessageServlet extends HttpServlet {
 				HTTPEventAdapterConstants.EXPOSED_TRANSPORTS);
         String globalContentValidator = globalProperties.get(HTTPEventAdapterConstants.
                                                                      ADAPTER_CONF_CONTENT_VALIDATOR_TYPE);
+		String maxRequestBodySizeValue = globalProperties.get(HTTPEventAdapterConstants.MAX_REQUEST_BODY_SIZE_NAME);
+		if (maxRequestBodySizeValue != null && !maxRequestBodySizeValue.isEmpty()) {
+			int value = -1;
+			try {
+				value = Integer.parseInt(maxRequestBodySizeValue.trim());
+			} catch (NumberFormatException e) {
+				// falls back to the default below
+			}
+			if (value > 0 && value < Integer.MAX_VALUE) {
+				this.maxRequestBodySize = value;
+			} else {
+				log.warn("Invalid value '" + maxRequestBodySizeValue + "' for "
+						+ HTTPEventAdapterConstants.MAX_REQUEST_BODY_SIZE_NAME + ", using the default value "
+						+ HTTPEventAdapterConstants.DEFAULT_MAX_REQUEST_BODY_SIZE);
+			}
+		}
 
 		String contentValidatorType = eventAdapterConfiguration.getProperties().get(
 				HTTPEventAdapterConstants.ADAPTER_CONF_CONTENT_VALIDATOR_TYPE);
@@ -104,9 +141,15 @@ public class HTTPMessageServlet extends HttpServlet {
 	protected void doPost(HttpServletRequest req,
 						  HttpServletResponse res) throws IOException {
 
-		String data = this.inputStreamToString(req.getInputStream());
+		if (req.getContentLength() > maxRequestBodySize) {
+			res.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body is larger than "
+					+ maxRequestBodySize + " bytes");
+			return;
+		}
+		String data = this.readRequestBody(req);
 		if (data == null) {
-			log.warn("Event Object is empty/null");
+			res.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body is larger than "
+					+ maxRequestBodySize + " bytes");
 			return;
 		}
 		AuthenticationInfo authenticationInfo = null;
@@ -166,24 +209,22 @@ public class HTTPMessageServlet extends HttpServlet {
 			paramMap.put(HTTPEventAdapterConstants.USERNAME_TAG, authenticationInfo.getUsername());
 			paramMap.put(HTTPEventAdapterConstants.TENANT_DOMAIN_TAG, authenticationInfo.getTenantDomain());
 			paramMap.put(HTTPEventAdapterConstants.SCOPE_TAG, authenticationInfo.getScopes());
-            String deviceId = (String) paramMap.get("deviceId");
-            String deviceType = (String) paramMap.get("deviceType");
-            if (deviceAuthorizer.isAuthorized(authenticationInfo, deviceId, deviceType)) {
-                if (contentValidator != null && contentTransformer != null) {
-                    data = (String) contentTransformer.transform(data, paramMap);
-                    ContentInfo contentInfo = contentValidator.validate(data, paramMap);
-                    if (contentInfo != null && contentInfo.isValidContent()) {
-                        HTTPEventAdapter.executorService.submit(new HTTPRequestProcessor(eventAdaptorListener,
-                                                                                         (String) contentInfo
-                                                                                                 .getMessage(),
-                                                                                         tenantId));
-                    }
-                }
-            } else {
-                if (log.isDebugEnabled()) {
-                    log.debug("Unauthorized device with device id" + deviceId + " and device type" + deviceType);
-                }
-            }
+			String contentType = getBatchContentType(req);
+			if (contentType != null) {
+				processBatch(data, contentType, authenticationInfo, paramMap, res);
+				return;
+			}
+			try {
+				HTTPEventAdapter.executorService.submit(new HTTPRequestProcessor(eventAdaptorListener, data,
+																				 tenantId, authenticationInfo,
+																				 paramMap));
+				res.setStatus(HttpServletResponse.SC_ACCEPTED);
+			} catch (RejectedExecutionException e) {
+				res.setHeader(HTTPEventAdapterConstants.RETRY_AFTER_HEADER,
+							  String.valueOf(HTTPEventAdapterConstants.RETRY_AFTER_IN_SECONDS));
+				res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				log.warn("Event processing queue is full, rejecting the event received through http adapter");
+			}
 		}
 	}
 
@@ -193,22 +234,293 @@ public class HTTPMessageServlet extends HttpServlet {
 		doPost(req, res);
 	}
 
+	/**
+	 * @return the batch content type of the request, or null if the request carries a single event.
+	 */
+	private String getBatchContentType(HttpServletRequest req) {
+		String contentType = req.getContentType();
+		if (contentType == null) {
+			return null;
+		}
+		int parameterIndex = contentType.indexOf(';');
+		if (parameterIndex >= 0) {
+			contentType = contentType.substring(0, parameterIndex);
+		}
+		contentType = contentType.trim();
+		if (HTTPEventAdapterConstants.JSON_BATCH_CONTENT_TYPE.equalsIgnoreCase(contentType)) {
+			return HTTPEventAdapterConstants.JSON_BATCH_CONTENT_TYPE;
+		} else if (HTTPEventAdapterConstants.NDJSON_BATCH_CONTENT_TYPE.equalsIgnoreCase(contentType)) {
+			return HTTPEventAdapterConstants.NDJSON_BATCH_CONTENT_TYPE;
+		}
+		return null;
+	}
+
+	/**
+	 * Handles a request carrying many events, either as a JSON array or as newline delimited JSON. The request is
+	 * authenticated once and each distinct device of the batch is authorized once. Events are transformed and
+	 * validated before responding, so that the result of each event can be returned, while publishing the accepted
+	 * events is left to the executor.
+	 */
+	private void processBatch(String data, String contentType, AuthenticationInfo authenticationInfo,
+							  Map<String, Object> paramMap, HttpServletResponse res) throws IOException {
+		JSONParser parser = new JSONParser();
+		List<String> events = new ArrayList<>();
+		List<Object> parsedEvents = new ArrayList<>();
+		if (HTTPEventAdapterConstants.JSON_BATCH_CONTENT_TYPE.equals(contentType)) {
+			Object batch;
+			try {
+				batch = parser.parse(data);
+			} catch (ParseException e) {
+				res.sendError(HttpServletResponse.SC_BAD_REQUEST, "Batch is not valid JSON");
+				return;
+			}
+			if (!(batch instanceof JSONArray)) {
+				res.sendError(HttpServletResponse.SC_BAD_REQUEST, "Batch has to be a JSON array of events");
+				return;
+			}
+			for (Object event : (JSONArray) batch) {
+				events.add(event instanceof JSONObject ? ((JSONObject) event).toJSONString() : String.valueOf(event));
+				parsedEvents.add(event);
+			}
+		} else {
+			for (String line : data.split("\\r?\\n")) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				events.add(line);
+				try {
+					parsedEvents.add(parser.parse(line));
+				} catch (ParseException e) {
+					parsedEvents.add(null);
+				}
+			}
+		}
+		if (events.size() > HTTPEventAdapterConstants.MAX_BATCH_SIZE) {
+			res.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Batch has more than "
+					+ HTTPEventAdapterConstants.MAX_BATCH_SIZE + " events");
+			return;
+		}
+
+		int size = events.size();
+		String[] deviceIds = new String[size];
+		String[] statuses = new String[size];
+		Set<String> distinctDeviceIds = new HashSet<>();
+		for (int i = 0; i < size; i++) {
+			if (parsedEvents.get(i) == null) {
+				statuses[i] = HTTPEventAdapterConstants.BATCH_STATUS_INVALID;
+				continue;
+			}
+			deviceIds[i] = getDeviceId(parsedEvents.get(i), paramMap);
+			distinctDeviceIds.add(deviceIds[i]);
+		}
+		String deviceType = (String) paramMap.get(HTTPEventAdapterConstants.DEVICE_TYPE_TAG);
+		// Container threads only wait briefly for authorization, the devices not decided by then are reported as
+		// pending so that the client retries them once the decisions are cached.
+		Map<String, Boolean> decisions = deviceAuthorizer.isAuthorized(
+				authenticationInfo, distinctDeviceIds, deviceType,
+				HTTPEventAdapterConstants.BATCH_AUTHORIZATION_TIMEOUT_IN_MILLIS);
+
+		List<String> payloads = new ArrayList<>();
+		int pendingEvents = 0;
+		try {
+			PrivilegedCarbonContext.startTenantFlow();
+			PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
+			for (int i = 0; i < size; i++) {
+				if (statuses[i] != null) {
+					continue;
+				}
+				Boolean authorized = decisions.get(deviceIds[i]);
+				if (authorized == null) {
+					statuses[i] = HTTPEventAdapterConstants.BATCH_STATUS_PENDING;
+					pendingEvents++;
+					continue;
+				}
+				if (!authorized) {
+					statuses[i] = HTTPEventAdapterConstants.BATCH_STATUS_UNAUTHORIZED;
+					continue;
+				}
+				String payload = transformAndValidate(events.get(i), deviceIds[i], paramMap);
+				if (payload == null) {
+					statuses[i] = HTTPEventAdapterConstants.BATCH_STATUS_INVALID;
+				} else {
+					statuses[i] = HTTPEventAdapterConstants.BATCH_STATUS_ACCEPTED;
+					payloads.add(payload);
+				}
+			}
+		} finally {
+			PrivilegedCarbonContext.endTenantFlow();
+		}
+
+		int status = HttpServletResponse.SC_OK;
+		if (pendingEvents > 0) {
+			res.setHeader(HTTPEventAdapterConstants.RETRY_AFTER_HEADER,
+						  String.valueOf(HTTPEventAdapterConstants.RETRY_AFTER_IN_SECONDS));
+			if (payloads.isEmpty()) {
+				status = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+			}
+		}
+		if (!payloads.isEmpty()) {
+			try {
+				HTTPEventAdapter.executorService.submit(new HTTPBatchPublisher(eventAdaptorListener, payloads,
+																			   tenantId));
+				status = HttpServletResponse.SC_ACCEPTED;
+			} catch (RejectedExecutionException e) {
+				for (int i = 0; i < size; i++) {
+					if (HTTPEventAdapterConstants.BATCH_STATUS_ACCEPTED.equals(statuses[i])) {
+						statuses[i] = HTTPEventAdapterConstants.BATCH_STATUS_REJECTED;
+					}
+				}
+				res.setHeader(HTTPEventAdapterConstants.RETRY_AFTER_HEADER,
+							  String.valueOf(HTTPEventAdapterConstants.RETRY_AFTER_IN_SECONDS));
+				status = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+				log.warn("Event processing queue is full, rejecting a batch of " + payloads.size()
+								 + " events received through http adapter");
+			}
+		}
+		writeBatchResults(res, status, deviceIds, statuses);
+	}
+
+	/**
+	 * @return the device id given in the meta data of the event, or the one given with the request.
+	 */
+	private String getDeviceId(Object event, Map<String, Object> paramMap) {
+		if (event instanceof Map) {
+			Object eventBody = ((Map) event).get(HTTPEventAdapterConstants.EVENT_TAG);
+			if (eventBody instanceof Map) {
+				Object metaData = ((Map) eventBody).get(HTTPEventAdapterConstants.META_DATA_TAG);
+				if (metaData instanceof Map) {
+					Object deviceId = ((Map) metaData).get(HTTPEventAdapterConstants.DEVICE_ID_TAG);
+					if (deviceId != null) {
+						return String.valueOf(deviceId);
+					}
+				}
+			}
+		}
+		return (String) paramMap.get(HTTPEventAdapterConstants.DEVICE_ID_TAG);
+	}
+
+	/**
+	 * @return the message to publish for the event, or null if the event is not valid.
+	 */
+	private String transformAndValidate(String event, String deviceId, Map<String, Object> paramMap) {
+		if (contentValidator == null || contentTransformer == null) {
+			return null;
+		}
+		Map<String, Object> eventParamMap = new HashMap<>(paramMap);
+		eventParamMap.put(HTTPEventAdapterConstants.DEVICE_ID_TAG, deviceId);
+		try {
+			String data = (String) contentTransformer.transform(event, eventParamMap);
+			ContentInfo contentInfo = contentValidator.validate(data, eventParamMap);
+			if (contentInfo == null || !contentInfo.isValidContent()) {
+				return null;
+			}
+			return (String) contentInfo.getMessage();
+		} catch (Exception e) {
+			log.error("Error while processing an event of a batch received through http adapter: "
+							  + e.getMessage(), e);
+			return null;
+		}
+	}
+
+	private void writeBatchResults(HttpServletResponse res, int status, String[] deviceIds, String[] statuses)
+			throws IOException {
+		JSONArray results = new JSONArray();
+		int accepted = 0;
+		for (int i = 0; i < statuses.length; i++) {
+			JSONObject result = new JSONObject();
+			result.put("index", i);
+			result.put(HTTPEventAdapterConstants.DEVICE_ID_TAG, deviceIds[i]);
+			result.put("status", statuses[i]);
+			results.add(result);
+			if (HTTPEventAdapterConstants.BATCH_STATUS_ACCEPTED.equals(statuses[i])) {
+				accepted++;
+			}
+		}
+		JSONObject response = new JSONObject();
+		response.put(HTTPEventAdapterConstants.BATCH_STATUS_ACCEPTED, accepted);
+		response.put("total", statuses.length);
+		response.put("results", results);
+		res.setStatus(status);
+		res.setContentType(HTTPEventAdapterConstants.JSON_CONTENT_TYPE);
+		res.setCharacterEncoding("UTF-8");
+		res.getWriter().write(response.toJSONString());
+	}
+
+	/**
+	 * Publishes the events of a batch that were already authorized and validated on the container thread.
+	 */
+	public class HTTPBatchPublisher implements Runnable {
+
+		private InputEventAdapterListener inputEventAdapterListener;
+		private List<String> payloads;
+		private int tenantId;
+
+		public HTTPBatchPublisher(InputEventAdapterListener inputEventAdapterListener, List<String> payloads,
+								  int tenantId) {
+			this.inputEventAdapterListener = inputEventAdapterListener;
+			this.payloads = payloads;
+			this.tenantId = tenantId;
+		}
+
+		public void run() {
+			try {
+				PrivilegedCarbonContext.startTenantFlow();
+				PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
+				for (String payload : payloads) {
+					try {
+						inputEventAdapterListener.onEvent(payload);
+					} catch (Exception e) {
+						log.error("Error while publishing an event of a batch received through http adapter: "
+										  + e.getMessage(), e);
+					}
+				}
+			} finally {
+				PrivilegedCarbonContext.endTenantFlow();
+			}
+		}
+	}
+
+	/**
+	 * Authorizes the device, then transforms, validates and publishes the event, off the container thread.
+	 */
 	public class HTTPRequestProcessor implements Runnable {
 
 		private InputEventAdapterListener inputEventAdapterListener;
 		private String payload;
 		private int tenantId;
+		private AuthenticationInfo authenticationInfo;
+		private Map<String, Object> paramMap;
 
-		public HTTPRequestProcessor(InputEventAdapterListener inputEventAdapterListener, String payload, int tenantId) {
+		public HTTPRequestProcessor(InputEventAdapterListener inputEventAdapterListener, String payload, int tenantId,
+									AuthenticationInfo authenticationInfo, Map<String, Object> paramMap) {
 			this.inputEventAdapterListener = inputEventAdapterListener;
 			this.payload = payload;
 			this.tenantId = tenantId;
+			this.authenticationInfo = authenticationInfo;
+			this.paramMap = paramMap;
 		}
 
 		public void run() {
 			try {
 				PrivilegedCarbonContext.startTenantFlow();
 				PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
+				String deviceId = (String) paramMap.get("deviceId");
+				String deviceType = (String) paramMap.get("deviceType");
+				if (!deviceAuthorizer.isAuthorized(authenticationInfo, deviceId, deviceType)) {
+					if (log.isDebugEnabled()) {
+						log.debug("Unauthorized device with device id" + deviceId + " and device type" + deviceType);
+					}
+					return;
+				}
+				if (contentValidator == null || contentTransformer == null) {
+					return;
+				}
+				String data = (String) contentTransformer.transform(payload, paramMap);
+				ContentInfo contentInfo = contentValidator.validate(data, paramMap);
+				if (contentInfo == null || !contentInfo.isValidContent()) {
+					return;
+				}
+				payload = (String) contentInfo.getMessage();
 				if (log.isDebugEnabled()) {
 					log.debug("Event received in HTTP Event Adapter - " + payload);
 				}
@@ -245,15 +557,55 @@ public class HTTPMessageServlet extends HttpServlet {
 		return authenticationInfo;
 	}
 
-	private String inputStreamToString(InputStream in) throws IOException {
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		byte[] buff = new byte[1024];
-		int i;
-		while ((i = in.read(buff)) > 0) {
-			out.write(buff, 0, i);
+	/**
+	 * Reads the request body into the buffer of the current thread when it fits. Larger buffers are only grown as the
+	 * bytes arrive, whatever the declared content length is.
+	 *
+	 * @return the body, or null if it is larger than the maximum request body size.
+	 */
+	private String readRequestBody(HttpServletRequest req) throws IOException {
+		InputStream in = req.getInputStream();
+		int contentLength = req.getContentLength();
+		byte[] buffer = readBuffer.get();
+		if (contentLength > buffer.length && buffer.length < HTTPEventAdapterConstants.MAX_POOLED_READ_BUFFER_SIZE) {
+			buffer = new byte[Math.min(contentLength, HTTPEventAdapterConstants.MAX_POOLED_READ_BUFFER_SIZE)];
+			readBuffer.set(buffer);
+		}
+		// at most one byte more than the maximum is read, which is enough to tell that the body is too large.
+		int readLimit = maxRequestBodySize + 1;
+		int length = 0;
+		while (true) {
+			if (length == buffer.length) {
+				if (contentLength >= 0 && length >= contentLength) {
+					break;
+				}
+				buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, readLimit));
+				if (buffer.length <= HTTPEventAdapterConstants.MAX_POOLED_READ_BUFFER_SIZE) {
+					readBuffer.set(buffer);
+				}
+			}
+			int i = in.read(buffer, length, Math.min(buffer.length, readLimit) - length);
+			if (i < 0) {
+				break;
+			}
+			length += i;
+			if (length > maxRequestBodySize) {
+				return null;
+			}
+		}
+		return new String(buffer, 0, length, getCharset(req));
+	}
+
+	private Charset getCharset(HttpServletRequest req) {
+		String encoding = req.getCharacterEncoding();
+		if (encoding != null) {
+			try {
+				return Charset.forName(encoding);
+			} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+				log.warn("Unsupported character encoding '" + encoding + "', using the default encoding");
+			}
 		}
-		out.close();
-		return out.toString();
+		return Charset.defaultCharset();
 	}
 
 }
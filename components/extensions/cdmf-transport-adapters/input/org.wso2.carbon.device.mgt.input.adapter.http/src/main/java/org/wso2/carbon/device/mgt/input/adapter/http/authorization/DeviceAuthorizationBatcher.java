@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.input.adapter.http.authorization;
+
+import feign.FeignException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.AuthorizationRequest;
+import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceAccessAuthorizationAdminService;
+import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceAuthorizationResult;
+import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceIdentifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the device authorization requests of a user which miss the cache within a short window and resolves them
+ * with a single call to the device access authorization service.
+ */
+public class DeviceAuthorizationBatcher {
+
+    private static final Log log = LogFactory.getLog(DeviceAuthorizationBatcher.class);
+    private static final String KEY_SEPARATOR = "@";
+
+    private final DeviceAccessAuthorizationAdminService deviceAccessAuthorizationAdminService;
+    private final DeviceAuthorizationCache authorizationCache;
+    private final DeviceAuthorizationStats authorizationStats;
+    private final long batchWindowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentHashMap<String, AuthorizationBatch> pendingBatches = new ConcurrentHashMap<>();
+
+    public DeviceAuthorizationBatcher(DeviceAccessAuthorizationAdminService deviceAccessAuthorizationAdminService,
+                                      DeviceAuthorizationCache authorizationCache,
+                                      DeviceAuthorizationStats authorizationStats, long batchWindowMillis,
+                                      int maxBatchSize, int threadPoolSize) {
+        this.deviceAccessAuthorizationAdminService = deviceAccessAuthorizationAdminService;
+        this.authorizationCache = authorizationCache;
+        this.authorizationStats = authorizationStats;
+        this.batchWindowMillis = batchWindowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newScheduledThreadPool(threadPoolSize);
+    }
+
+    /**
+     * Adds the device to the pending batch of the user.
+     *
+     * @return the future decision, which is completed once the batch is resolved.
+     */
+    public Future<Boolean> submit(String tenantDomain, String username, String deviceId, String deviceType) {
+        String batchKey = tenantDomain + KEY_SEPARATOR + username;
+        while (true) {
+            AuthorizationBatch batch = pendingBatches.get(batchKey);
+            if (batch == null) {
+                AuthorizationBatch newBatch = new AuthorizationBatch(batchKey, tenantDomain, username);
+                batch = pendingBatches.putIfAbsent(batchKey, newBatch);
+                if (batch == null) {
+                    batch = newBatch;
+                    scheduler.schedule(new BatchFlusher(batch), batchWindowMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            CompletableFuture<Boolean> decision = batch.add(deviceId, deviceType);
+            if (decision != null) {
+                if (batch.isFull()) {
+                    scheduler.execute(new BatchFlusher(batch));
+                }
+                return decision;
+            }
+            // the batch was flushed meanwhile, retry with a new batch.
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private void flush(AuthorizationBatch batch) {
+        pendingBatches.remove(batch.batchKey, batch);
+        Collection<PendingAuthorization> pendingAuthorizations = batch.close();
+        if (pendingAuthorizations == null || pendingAuthorizations.isEmpty()) {
+            return;
+        }
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setTenantDomain(batch.tenantDomain);
+        authorizationRequest.setUsername(batch.username);
+        List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
+        for (PendingAuthorization pendingAuthorization : pendingAuthorizations) {
+            DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
+            deviceIdentifier.setId(pendingAuthorization.deviceId);
+            deviceIdentifier.setType(pendingAuthorization.deviceType);
+            deviceIdentifiers.add(deviceIdentifier);
+        }
+        authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
+        try {
+            DeviceAuthorizationResult deviceAuthorizationResult =
+                    deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
+            authorizationStats.recordRemoteCall(pendingAuthorizations.size(), false);
+            Set<String> authorizedDevices = new HashSet<>();
+            if (deviceAuthorizationResult != null && deviceAuthorizationResult.getAuthorizedDevices() != null) {
+                for (DeviceIdentifier authorizedDevice : deviceAuthorizationResult.getAuthorizedDevices()) {
+                    authorizedDevices.add(authorizedDevice.getType() + KEY_SEPARATOR + authorizedDevice.getId());
+                }
+            }
+            for (PendingAuthorization pendingAuthorization : pendingAuthorizations) {
+                boolean authorized = authorizedDevices.contains(
+                        pendingAuthorization.deviceType + KEY_SEPARATOR + pendingAuthorization.deviceId);
+                authorizationCache.put(batch.tenantDomain, batch.username, pendingAuthorization.deviceId,
+                                       pendingAuthorization.deviceType, "", authorized);
+                pendingAuthorization.decision.complete(authorized);
+            }
+        } catch (FeignException e) {
+            authorizationStats.recordRemoteCall(pendingAuthorizations.size(), true);
+            log.error(e.getMessage(), e);
+            reject(pendingAuthorizations);
+        } catch (RuntimeException e) {
+            authorizationStats.recordRemoteCall(pendingAuthorizations.size(), true);
+            log.error("Error occurred while authorizing the devices of user " + batch.username, e);
+            reject(pendingAuthorizations);
+        }
+    }
+
+    private static void reject(Collection<PendingAuthorization> pendingAuthorizations) {
+        for (PendingAuthorization pendingAuthorization : pendingAuthorizations) {
+            pendingAuthorization.decision.complete(false);
+        }
+    }
+
+    private class BatchFlusher implements Runnable {
+
+        private final AuthorizationBatch batch;
+
+        private BatchFlusher(AuthorizationBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            flush(batch);
+        }
+    }
+
+    private class AuthorizationBatch {
+
+        private final String batchKey;
+        private final String tenantDomain;
+        private final String username;
+        private final Map<String, PendingAuthorization> pendingAuthorizations = new LinkedHashMap<>();
+        private boolean closed;
+
+        private AuthorizationBatch(String batchKey, String tenantDomain, String username) {
+            this.batchKey = batchKey;
+            this.tenantDomain = tenantDomain;
+            this.username = username;
+        }
+
+        /**
+         * @return the future decision of the device, or null if the batch is already closed.
+         */
+        private synchronized CompletableFuture<Boolean> add(String deviceId, String deviceType) {
+            if (closed) {
+                return null;
+            }
+            String deviceKey = deviceType + KEY_SEPARATOR + deviceId;
+            PendingAuthorization pendingAuthorization = pendingAuthorizations.get(deviceKey);
+            if (pendingAuthorization == null) {
+                pendingAuthorization = new PendingAuthorization(deviceId, deviceType);
+                pendingAuthorizations.put(deviceKey, pendingAuthorization);
+            }
+            return pendingAuthorization.decision;
+        }
+
+        private synchronized boolean isFull() {
+            return !closed && pendingAuthorizations.size() >= maxBatchSize;
+        }
+
+        /**
+         * @return the pending authorizations of the batch, or null if the batch is already closed.
+         */
+        private synchronized Collection<PendingAuthorization> close() {
+            if (closed) {
+                return null;
+            }
+            closed = true;
+            return pendingAuthorizations.values();
+        }
+    }
+
+    private static class PendingAuthorization {
+
+        private final String deviceId;
+        private final String deviceType;
+        private final CompletableFuture<Boolean> decision = new CompletableFuture<>();
+
+        private PendingAuthorization(String deviceId, String deviceType) {
+            this.deviceId = deviceId;
+            this.deviceType = deviceType;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.input.adapter.http.authorization;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size bounded cache of device authorization decisions keyed by tenant, user, device and permission. It is shared by
+ * all the HTTP input adapters of the server so that a device posting events does not cost a remote authorization
+ * call per event. The decisions of a device or a user can be invalidated through the authorization stats MBean when
+ * the ownership or the sharing of the device, or the permissions of the user change, otherwise they are kept until
+ * they expire.
+ */
+public class DeviceAuthorizationCache {
+
+    private static final float EVICTION_FACTOR = 0.9f;
+
+    private final ConcurrentHashMap<CacheKey, CachedDecision> decisions = new ConcurrentHashMap<>();
+    private final long durationNanos;
+    private final int maxSize;
+
+    public DeviceAuthorizationCache(long durationSeconds, int maxSize) {
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the cached decision, or null if there is no valid decision for the given request.
+     */
+    public Boolean get(String tenantDomain, String username, String deviceId, String deviceType, String permission) {
+        CacheKey key = new CacheKey(tenantDomain, username, deviceId, deviceType, permission);
+        CachedDecision cachedDecision = decisions.get(key);
+        if (cachedDecision == null) {
+            return null;
+        }
+        if (cachedDecision.expiryTime - System.nanoTime() <= 0) {
+            decisions.remove(key, cachedDecision);
+            return null;
+        }
+        return cachedDecision.authorized;
+    }
+
+    public void put(String tenantDomain, String username, String deviceId, String deviceType, String permission,
+                    boolean authorized) {
+        if (durationNanos <= 0) {
+            return;
+        }
+        if (decisions.size() >= maxSize) {
+            evict();
+        }
+        decisions.put(new CacheKey(tenantDomain, username, deviceId, deviceType, permission),
+                      new CachedDecision(authorized, System.nanoTime() + durationNanos));
+    }
+
+    /**
+     * Removes the cached decisions of the given device, e.g. when the device is re-enrolled or its ownership changes.
+     */
+    public void invalidateDevice(String tenantDomain, String deviceId, String deviceType) {
+        Iterator<CacheKey> iterator = decisions.keySet().iterator();
+        while (iterator.hasNext()) {
+            CacheKey key = iterator.next();
+            if (key.tenantDomain.equals(tenantDomain) && key.deviceId.equals(deviceId)
+                    && key.deviceType.equals(deviceType)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the cached decisions of the given user, e.g. when the permissions of the user are changed.
+     */
+    public void invalidateUser(String tenantDomain, String username) {
+        Iterator<CacheKey> iterator = decisions.keySet().iterator();
+        while (iterator.hasNext()) {
+            CacheKey key = iterator.next();
+            if (key.tenantDomain.equals(tenantDomain) && key.username.equals(username)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        decisions.clear();
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    /**
+     * Removes the expired decisions, and if the cache is still full, arbitrary decisions until the cache is filled
+     * below the eviction threshold.
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        int threshold = (int) (maxSize * EVICTION_FACTOR);
+        Iterator<Map.Entry<CacheKey, CachedDecision>> iterator = decisions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expiryTime - now <= 0) {
+                iterator.remove();
+            }
+        }
+        iterator = decisions.entrySet().iterator();
+        while (decisions.size() > threshold && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class CacheKey {
+        private final String tenantDomain;
+        private final String username;
+        private final String deviceId;
+        private final String deviceType;
+        private final String permission;
+        private final int hashCode;
+
+        private CacheKey(String tenantDomain, String username, String deviceId, String deviceType,
+                         String permission) {
+            this.tenantDomain = tenantDomain;
+            this.username = username;
+            this.deviceId = deviceId;
+            this.deviceType = deviceType;
+            this.permission = permission;
+            int result = tenantDomain.hashCode();
+            result = 31 * result + username.hashCode();
+            result = 31 * result + deviceId.hashCode();
+            result = 31 * result + deviceType.hashCode();
+            result = 31 * result + permission.hashCode();
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return hashCode == other.hashCode && tenantDomain.equals(other.tenantDomain)
+                    && username.equals(other.username) && deviceId.equals(other.deviceId)
+                    && deviceType.equals(other.deviceType) && permission.equals(other.permission);
+        }
+    }
+
+    private static class CachedDecision {
+        private final boolean authorized;
+        private final long expiryTime;
+
+        private CachedDecision(boolean authorized, long expiryTime) {
+            this.authorized = authorized;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
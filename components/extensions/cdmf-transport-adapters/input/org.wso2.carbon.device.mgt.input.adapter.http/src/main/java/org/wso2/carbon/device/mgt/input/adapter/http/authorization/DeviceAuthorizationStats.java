@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.input.adapter.http.authorization;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the device authorization cache and the remote authorization calls, exposed over JMX.
+ */
+public class DeviceAuthorizationStats implements DeviceAuthorizationStatsMBean {
+
+    private final DeviceAuthorizationCache authorizationCache;
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+    private final AtomicLong remoteCallCount = new AtomicLong();
+    private final AtomicLong remoteCallFailureCount = new AtomicLong();
+    private final AtomicLong batchedDeviceCount = new AtomicLong();
+    private volatile long startTime = System.nanoTime();
+
+    public DeviceAuthorizationStats(DeviceAuthorizationCache authorizationCache) {
+        this.authorizationCache = authorizationCache;
+    }
+
+    void recordCacheHit() {
+        cacheHitCount.incrementAndGet();
+    }
+
+    void recordCacheMiss() {
+        cacheMissCount.incrementAndGet();
+    }
+
+    void recordRemoteCall(int deviceCount, boolean failed) {
+        remoteCallCount.incrementAndGet();
+        batchedDeviceCount.addAndGet(deviceCount);
+        if (failed) {
+            remoteCallFailureCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return cacheMissCount.get();
+    }
+
+    @Override
+    public long getRemoteCallCount() {
+        return remoteCallCount.get();
+    }
+
+    @Override
+    public long getRemoteCallFailureCount() {
+        return remoteCallFailureCount.get();
+    }
+
+    @Override
+    public long getBatchedDeviceCount() {
+        return batchedDeviceCount.get();
+    }
+
+    @Override
+    public double getRemoteCallsPerSecond() {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        if (elapsedMillis == 0) {
+            return 0;
+        }
+        return remoteCallCount.get() * 1000d / elapsedMillis;
+    }
+
+    @Override
+    public double getAverageBatchSize() {
+        long calls = remoteCallCount.get();
+        if (calls == 0) {
+            return 0;
+        }
+        return (double) batchedDeviceCount.get() / calls;
+    }
+
+    @Override
+    public int getCacheSize() {
+        return authorizationCache.size();
+    }
+
+    @Override
+    public void invalidateCache() {
+        authorizationCache.invalidateAll();
+    }
+
+    @Override
+    public void invalidateDevice(String tenantDomain, String deviceId, String deviceType) {
+        authorizationCache.invalidateDevice(tenantDomain, deviceId, deviceType);
+    }
+
+    @Override
+    public void invalidateUser(String tenantDomain, String username) {
+        authorizationCache.invalidateUser(tenantDomain, username);
+    }
+
+    @Override
+    public void resetStats() {
+        cacheHitCount.set(0);
+        cacheMissCount.set(0);
+        remoteCallCount.set(0);
+        remoteCallFailureCount.set(0);
+        batchedDeviceCount.set(0);
+        startTime = System.nanoTime();
+    }
+}
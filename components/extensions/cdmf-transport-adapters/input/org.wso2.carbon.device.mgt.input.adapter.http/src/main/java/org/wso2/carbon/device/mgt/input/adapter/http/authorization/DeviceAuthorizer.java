@@ -31,41 +31,56 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.ServerConfiguration;
 import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.OAuthRequestInterceptor;
-import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.AuthorizationRequest;
 import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceAccessAuthorizationAdminService;
-import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceAuthorizationResult;
-import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.input.adapter.http.util.AuthenticationInfo;
+import org.wso2.carbon.device.mgt.input.adapter.http.util.HTTPEventAdapterConstants;
 import org.wso2.carbon.device.mgt.input.adapter.http.util.PropertyUtils;
 import org.wso2.carbon.event.input.adapter.core.exception.InputEventAdapterException;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.net.ssl.*;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.security.*;
 import java.security.cert.CertificateException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * This authorizer crossvalidates the request with device id and device type.
+ * This authorizer crossvalidates the request with device id and device type. Decisions are cached and the cache misses
+ * of a user are resolved in batches, so a burst of events does not turn into one remote call per event.
  */
 public class DeviceAuthorizer {
 
     private static DeviceAccessAuthorizationAdminService deviceAccessAuthorizationAdminService;
     private static final String CDMF_SERVER_BASE_CONTEXT = "/api/device-mgt/v1.0";
     private static final String DEVICE_MGT_SERVER_URL = "deviceMgtServerUrl";
+    private static final String AUTHORIZATION_STATS_MBEAN_NAME =
+            "org.wso2.carbon.device.mgt.input.adapter.http:type=DeviceAuthorizationStats";
     private static Log log = LogFactory.getLog(DeviceAuthorizer.class);
+    private static DeviceAuthorizationCache authorizationCache;
+    private static DeviceAuthorizationStats authorizationStats;
+    private static DeviceAuthorizationBatcher authorizationBatcher;
 
     public DeviceAuthorizer(Map<String, String> globalProperties) {
         try {
             deviceAccessAuthorizationAdminService = Feign.builder().client(getSSLClient()).logger(new Slf4jLogger())
-                    .logLevel(Logger.Level.FULL).requestInterceptor(new OAuthRequestInterceptor(globalProperties))
+                    .logLevel(log.isDebugEnabled() ? Logger.Level.FULL : Logger.Level.BASIC)
+                    .requestInterceptor(new OAuthRequestInterceptor(globalProperties))
                     .contract(new JAXRSContract()).encoder(new GsonEncoder()).decoder(new GsonDecoder())
                     .target(DeviceAccessAuthorizationAdminService.class, getDeviceMgtServerUrl(globalProperties)
                             + CDMF_SERVER_BASE_CONTEXT);
+            initAuthorizationCache(globalProperties);
         } catch (InputEventAdapterException e) {
             log.error("Invalid value for deviceMgtServerUrl in globalProperties.");
         }
@@ -75,31 +90,133 @@ public class DeviceAuthorizer {
     public boolean isAuthorized(AuthenticationInfo authenticationInfo, String deviceId, String deviceType) {
 
         if (deviceId != null && !deviceId.isEmpty() && deviceType != null && !deviceType.isEmpty()) {
+            String tenantDomain = authenticationInfo.getTenantDomain();
+            String username = authenticationInfo.getUsername();
+            Boolean authorized = authorizationCache.get(tenantDomain, username, deviceId, deviceType, "");
+            if (authorized != null) {
+                authorizationStats.recordCacheHit();
+                return authorized;
+            }
+            authorizationStats.recordCacheMiss();
+            try {
+                return authorizationBatcher.submit(tenantDomain, username, deviceId, deviceType)
+                        .get(HTTPEventAdapterConstants.AUTHORIZATION_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while authorizing device " + deviceType + ":" + deviceId, e);
+            } catch (ExecutionException | TimeoutException e) {
+                log.error("Failed to authorize device " + deviceType + ":" + deviceId, e);
+            }
+        }
+        return false;
+    }
 
-            AuthorizationRequest authorizationRequest = new AuthorizationRequest();
-            authorizationRequest.setTenantDomain(authenticationInfo.getTenantDomain());
-            authorizationRequest.setUsername(authenticationInfo.getUsername());
-            DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
-            deviceIdentifier.setId(deviceId);
-            deviceIdentifier.setType(deviceType);
-            List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
-            deviceIdentifiers.add(deviceIdentifier);
-            authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
+    /**
+     * Authorizes several devices of the same type at once. The cache misses are all handed to the batcher before
+     * waiting on any of them, so they are resolved together instead of one batch window after another. Decisions
+     * which are not made within the given timeout are still cached once they arrive, so a retry can be served from
+     * the cache.
+     *
+     * @param timeoutInMillis the maximum time to wait for the decisions which are not cached.
+     * @return the decision for each of the given device ids, leaving out the ones not made within the timeout.
+     */
+    public Map<String, Boolean> isAuthorized(AuthenticationInfo authenticationInfo, Collection<String> deviceIds,
+                                             String deviceType, long timeoutInMillis) {
+        Map<String, Boolean> decisions = new HashMap<>();
+        Map<String, Future<Boolean>> pendingDecisions = new HashMap<>();
+        String tenantDomain = authenticationInfo.getTenantDomain();
+        String username = authenticationInfo.getUsername();
+        for (String deviceId : deviceIds) {
+            if (deviceId == null || deviceId.isEmpty() || deviceType == null || deviceType.isEmpty()) {
+                decisions.put(deviceId, false);
+                continue;
+            }
+            Boolean authorized = authorizationCache.get(tenantDomain, username, deviceId, deviceType, "");
+            if (authorized != null) {
+                authorizationStats.recordCacheHit();
+                decisions.put(deviceId, authorized);
+            } else {
+                authorizationStats.recordCacheMiss();
+                pendingDecisions.put(deviceId,
+                                     authorizationBatcher.submit(tenantDomain, username, deviceId, deviceType));
+            }
+        }
+        long deadline = System.currentTimeMillis() + timeoutInMillis;
+        for (Map.Entry<String, Future<Boolean>> pendingDecision : pendingDecisions.entrySet()) {
+            String deviceId = pendingDecision.getKey();
             try {
-                DeviceAuthorizationResult deviceAuthorizationResult =
-                        deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
-                List<DeviceIdentifier> devices = deviceAuthorizationResult.getAuthorizedDevices();
-                if (devices != null && devices.size() > 0) {
-                    DeviceIdentifier authorizedDevice = devices.get(0);
-                    if (authorizedDevice.getId().equals(deviceId) && authorizedDevice.getType().equals(deviceType)) {
-                        return true;
-                    }
+                long timeout = Math.max(0, deadline - System.currentTimeMillis());
+                decisions.put(deviceId, pendingDecision.getValue().get(timeout, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while authorizing device " + deviceType + ":" + deviceId, e);
+                break;
+            } catch (ExecutionException e) {
+                log.error("Failed to authorize device " + deviceType + ":" + deviceId, e);
+                decisions.put(deviceId, false);
+            } catch (TimeoutException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Authorization of device " + deviceType + ":" + deviceId + " is still pending");
                 }
-            } catch (FeignException e) {
-                log.error(e.getMessage(), e);
             }
         }
-        return false;
+        return decisions;
+    }
+
+    private static synchronized void initAuthorizationCache(Map<String, String> globalProperties) {
+        if (authorizationCache != null) {
+            return;
+        }
+        long cacheDuration = getLongProperty(globalProperties,
+                                             HTTPEventAdapterConstants.AUTHORIZATION_CACHE_DURATION_NAME,
+                                             HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_CACHE_DURATION_IN_SECONDS);
+        int cacheSize = (int) getLongProperty(globalProperties,
+                                              HTTPEventAdapterConstants.AUTHORIZATION_CACHE_SIZE_NAME,
+                                              HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_CACHE_SIZE);
+        long batchWindow = getLongProperty(globalProperties,
+                                           HTTPEventAdapterConstants.AUTHORIZATION_BATCH_WINDOW_NAME,
+                                           HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_BATCH_WINDOW_IN_MILLIS);
+        int batchSize = (int) getLongProperty(globalProperties,
+                                              HTTPEventAdapterConstants.AUTHORIZATION_BATCH_SIZE_NAME,
+                                              HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_BATCH_SIZE);
+        int batchThreads = (int) getLongProperty(globalProperties,
+                                                 HTTPEventAdapterConstants.AUTHORIZATION_BATCH_THREAD_POOL_SIZE_NAME,
+                                                 HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_BATCH_THREAD_POOL_SIZE);
+        DeviceAuthorizationCache cache = new DeviceAuthorizationCache(cacheDuration, cacheSize);
+        authorizationStats = new DeviceAuthorizationStats(cache);
+        authorizationBatcher = new DeviceAuthorizationBatcher(deviceAccessAuthorizationAdminService, cache,
+                                                              authorizationStats, batchWindow, batchSize,
+                                                              batchThreads);
+        authorizationCache = cache;
+        registerStatsMBean();
+    }
+
+    private static long getLongProperty(Map<String, String> globalProperties, String name, long defaultValue) {
+        String value = globalProperties.get(name);
+        if (value != null && !value.isEmpty()) {
+            try {
+                long parsedValue = Long.parseLong(value.trim());
+                if (parsedValue > 0) {
+                    return parsedValue;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value '" + value + "' for " + name + ", using the default " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static void registerStatsMBean() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            mBeanServer.registerMBean(authorizationStats, new ObjectName(AUTHORIZATION_STATS_MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Device authorization stats MBean is already registered.");
+            }
+        } catch (JMException e) {
+            log.warn("Unable to register the device authorization stats MBean.", e);
+        }
     }
 
     private String getDeviceMgtServerUrl(Map<String, String> properties) throws InputEventAdapterException {
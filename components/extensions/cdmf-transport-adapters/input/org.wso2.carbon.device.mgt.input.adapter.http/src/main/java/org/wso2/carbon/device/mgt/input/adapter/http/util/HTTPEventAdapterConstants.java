@@ -61,4 +61,35 @@ public final class HTTPEventAdapterConstants {
     public static final String DEFAULT = "default";
     public static final String ADAPTER_CONF_CONTENT_TRANSFORMER_CLASSNAME = "contentTransformer";
     public static final String ADAPTER_CONF_CONTENT_TRANSFORMER_CLASSNAME_HINT = "contentTransformer.hint";
+    public static final String AUTHORIZATION_CACHE_DURATION_NAME = "authorizationCacheDurationInSeconds";
+    public static final String AUTHORIZATION_CACHE_SIZE_NAME = "authorizationCacheSize";
+    public static final String AUTHORIZATION_BATCH_WINDOW_NAME = "authorizationBatchWindowInMillis";
+    public static final String AUTHORIZATION_BATCH_SIZE_NAME = "authorizationBatchSize";
+    public static final String AUTHORIZATION_BATCH_THREAD_POOL_SIZE_NAME = "authorizationBatchThread";
+    public static final long DEFAULT_AUTHORIZATION_CACHE_DURATION_IN_SECONDS = 300;
+    public static final int DEFAULT_AUTHORIZATION_CACHE_SIZE = 10000;
+    public static final long DEFAULT_AUTHORIZATION_BATCH_WINDOW_IN_MILLIS = 10;
+    public static final int DEFAULT_AUTHORIZATION_BATCH_SIZE = 100;
+    public static final int DEFAULT_AUTHORIZATION_BATCH_THREAD_POOL_SIZE = 4;
+    public static final long AUTHORIZATION_TIMEOUT_IN_MILLIS = 60000;
+    public static final long BATCH_AUTHORIZATION_TIMEOUT_IN_MILLIS = 2000;
+    public static final int READ_BUFFER_SIZE = 8192;
+    public static final int MAX_POOLED_READ_BUFFER_SIZE = 65536;
+    public static final String MAX_REQUEST_BODY_SIZE_NAME = "maxRequestBodySize";
+    public static final int DEFAULT_MAX_REQUEST_BODY_SIZE = 4 * 1024 * 1024;
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+    public static final int RETRY_AFTER_IN_SECONDS = 1;
+    public static final String JSON_BATCH_CONTENT_TYPE = "application/batch+json";
+    public static final String NDJSON_BATCH_CONTENT_TYPE = "application/x-ndjson";
+    public static final String JSON_CONTENT_TYPE = "application/json";
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final String DEVICE_ID_TAG = "deviceId";
+    public static final String DEVICE_TYPE_TAG = "deviceType";
+    public static final String EVENT_TAG = "event";
+    public static final String META_DATA_TAG = "metaData";
+    public static final String BATCH_STATUS_ACCEPTED = "accepted";
+    public static final String BATCH_STATUS_INVALID = "invalid";
+    public static final String BATCH_STATUS_UNAUTHORIZED = "unauthorized";
+    public static final String BATCH_STATUS_REJECTED = "rejected";
+    public static final String BATCH_STATUS_PENDING = "pending";
 }
@@ -29,6 +29,8 @@ import org.wso2.carbon.event.input.adapter.core.exception.InputEventAdapterExcep
 import org.wso2.carbon.event.input.adapter.core.exception.TestConnectionNotSupportedException;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -41,7 +43,7 @@ public class MQTTEventAdapter implements InputEventAdapter {
     private final Map<String, String> globalProperties;
     private InputEventAdapterListener eventAdapterListener;
     private final String id = UUID.randomUUID().toString();
-    private MQTTAdapterListener mqttAdapterListener;
+    private final List<MQTTAdapterListener> mqttAdapterListeners = new ArrayList<>();
     private MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration;
 
     public MQTTEventAdapter(InputEventAdapterConfiguration eventAdapterConfiguration,
@@ -57,10 +59,13 @@ public class MQTTEventAdapter implements InputEventAdapter {
             mqttBrokerConnectionConfiguration = new MQTTBrokerConnectionConfiguration(eventAdapterConfiguration
                     ,globalProperties);
             String topic = eventAdapterConfiguration.getProperties().get(MQTTEventAdapterConstants.ADAPTER_MESSAGE_TOPIC);
-            mqttAdapterListener = new MQTTAdapterListener(mqttBrokerConnectionConfiguration
-                    ,topic
-                    ,eventAdapterConfiguration
-                    ,eventAdapterListener);
+            for (int i = 0; i < mqttBrokerConnectionConfiguration.getConsumerCount(); i++) {
+                mqttAdapterListeners.add(new MQTTAdapterListener(mqttBrokerConnectionConfiguration
+                        ,topic
+                        ,eventAdapterConfiguration
+                        ,eventAdapterListener
+                        ,i));
+            }
         } catch (Throwable t) {
             throw new InputEventAdapterException(t.getMessage(), t);
         }
@@ -84,9 +89,11 @@ public class MQTTEventAdapter implements InputEventAdapter {
                 .equals(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
             return;
         }
-        synchronized (this.mqttAdapterListener) {
-            if (!mqttAdapterListener.isConnectionInitialized()) {
-                mqttAdapterListener.createConnection();
+        for (MQTTAdapterListener mqttAdapterListener : mqttAdapterListeners) {
+            synchronized (mqttAdapterListener) {
+                if (!mqttAdapterListener.isConnectionInitialized()) {
+                    mqttAdapterListener.createConnection();
+                }
             }
         }
 
@@ -104,8 +111,8 @@ public class MQTTEventAdapter implements InputEventAdapter {
             if (ServerStatus.getCurrentStatus().equals(ServerStatus.STATUS_SHUTTING_DOWN)) {
                 Thread thread = new Thread(new Runnable() {
                     public void run() {
-                        synchronized (mqttAdapterListener) {
-                            if (mqttAdapterListener != null) {
+                        for (MQTTAdapterListener mqttAdapterListener : mqttAdapterListeners) {
+                            synchronized (mqttAdapterListener) {
                                 mqttAdapterListener.stopListener(eventAdapterConfiguration.getName());
                             }
                         }
@@ -114,7 +121,7 @@ public class MQTTEventAdapter implements InputEventAdapter {
                 thread.start();
                 thread.join(2000);
             } else {
-                if (mqttAdapterListener != null) {
+                for (MQTTAdapterListener mqttAdapterListener : mqttAdapterListeners) {
                     mqttAdapterListener.stopListener(eventAdapterConfiguration.getName());
                 }
             }
@@ -153,7 +160,7 @@ public class MQTTEventAdapter implements InputEventAdapter {
 
     @Override
     public boolean isPolling() {
-        return mqttAdapterListener.isConnectionInitialized();
+        return !mqttAdapterListeners.isEmpty() && mqttAdapterListeners.get(0).isConnectionInitialized();
     }
 
 }
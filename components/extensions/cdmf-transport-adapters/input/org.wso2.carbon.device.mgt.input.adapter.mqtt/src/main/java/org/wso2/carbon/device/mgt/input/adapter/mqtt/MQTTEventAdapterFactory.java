@@ -124,6 +124,44 @@ public class MQTTEventAdapterFactory extends InputEventAdapterFactory {
         clientId.setHint(resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_CLIENTID_HINT));
         propertyList.add(clientId);
 
+        // set number of threads processing received messages
+        Property processingThreads = new Property(MQTTEventAdapterConstants.ADAPTER_CONF_PROCESSING_THREADS);
+        processingThreads.setDisplayName(
+                resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_PROCESSING_THREADS));
+        processingThreads.setRequired(false);
+        processingThreads.setDefaultValue(String.valueOf(MQTTEventAdapterConstants.DEFAULT_PROCESSING_THREADS));
+        processingThreads.setHint(
+                resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_PROCESSING_THREADS_HINT));
+        propertyList.add(processingThreads);
+
+        // set number of received messages buffered for processing
+        Property processingQueueSize = new Property(MQTTEventAdapterConstants.ADAPTER_CONF_PROCESSING_QUEUE_SIZE);
+        processingQueueSize.setDisplayName(
+                resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_PROCESSING_QUEUE_SIZE));
+        processingQueueSize.setRequired(false);
+        processingQueueSize.setDefaultValue(String.valueOf(MQTTEventAdapterConstants.DEFAULT_PROCESSING_QUEUE_SIZE));
+        processingQueueSize.setHint(
+                resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_PROCESSING_QUEUE_SIZE_HINT));
+        propertyList.add(processingQueueSize);
+
+        // set number of clients consuming the topic
+        Property consumerCount = new Property(MQTTEventAdapterConstants.ADAPTER_CONF_CONSUMER_COUNT);
+        consumerCount.setDisplayName(resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_CONSUMER_COUNT));
+        consumerCount.setRequired(false);
+        consumerCount.setDefaultValue(String.valueOf(MQTTEventAdapterConstants.DEFAULT_CONSUMER_COUNT));
+        consumerCount.setHint(resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_CONSUMER_COUNT_HINT));
+        propertyList.add(consumerCount);
+
+        // set shared subscription group of the consumers
+        Property sharedSubscriptionGroup =
+                new Property(MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP);
+        sharedSubscriptionGroup.setDisplayName(
+                resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP));
+        sharedSubscriptionGroup.setRequired(false);
+        sharedSubscriptionGroup.setHint(
+                resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP_HINT));
+        propertyList.add(sharedSubscriptionGroup);
+
         return propertyList;
     }
 
@@ -58,7 +58,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
 
-public class MQTTAdapterListener implements MqttCallback, Runnable {
+public class MQTTAdapterListener implements MqttCallback {
     private static final Log log = LogFactory.getLog(MQTTAdapterListener.class);
 
     private MqttClient mqttClient;
@@ -68,22 +68,37 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
 
     private MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration;
     private String topic;
+    private String subscriptionTopic;
+    private final int consumerIndex;
+    private final int consumerCount;
+    private final String mqttClientId;
     private String tenantDomain;
-    private volatile boolean connectionSucceeded = false;
+    private final MQTTReconnectScheduler.ReconnectHandle reconnectHandle;
+    private final String credentialsKey;
     private ContentValidator contentValidator;
     private ContentTransformer contentTransformer;
     private InputEventAdapterConfiguration inputEventAdapterConfiguration;
 
     private InputEventAdapterListener eventAdapterListener = null;
+    private final MQTTMessageProcessor messageProcessor;
+    private volatile InputEventAdapterListener inputAdapterRuntime;
+    private volatile int tenantId = MultitenantConstants.INVALID_TENANT_ID;
+    private volatile long tenantLoadedTime;
 
     public MQTTAdapterListener(MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration,
                                String topic, InputEventAdapterConfiguration inputEventAdapterConfiguration,
-                               InputEventAdapterListener inputEventAdapterListener) {
+                               InputEventAdapterListener inputEventAdapterListener, int consumerIndex) {
         String mqttClientId = inputEventAdapterConfiguration.getProperties()
                 .get(MQTTEventAdapterConstants.ADAPTER_CONF_CLIENTID);
+        this.consumerIndex = consumerIndex;
+        this.consumerCount = mqttBrokerConnectionConfiguration.getConsumerCount();
         if (mqttClientId == null || mqttClientId.trim().isEmpty()) {
             mqttClientId = MqttClient.generateClientId();
+        } else if (consumerCount > 1) {
+            // client ids must be unique in the broker, so each consumer gets its own.
+            mqttClientId = mqttClientId + "-" + consumerIndex;
         }
+        this.mqttClientId = mqttClientId;
         this.inputEventAdapterConfiguration = inputEventAdapterConfiguration;
         this.mqttBrokerConnectionConfiguration = mqttBrokerConnectionConfiguration;
         this.cleanSession = mqttBrokerConnectionConfiguration.isCleanSession();
@@ -95,6 +110,15 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
         if (this.tenantDomain.equals("+")) {
             this.tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
         }
+        String sharedSubscriptionGroup = mqttBrokerConnectionConfiguration.getSharedSubscriptionGroup();
+        if (sharedSubscriptionGroup != null) {
+            // the broker balances the messages of the topic among the consumers of the group, so the messages of a
+            // device may be processed out of order.
+            this.subscriptionTopic = MQTTEventAdapterConstants.SHARED_SUBSCRIPTION_PREFIX + sharedSubscriptionGroup
+                    + "/" + this.topic;
+        } else {
+            this.subscriptionTopic = this.topic;
+        }
 
         //SORTING messages until the server fetches them
         String temp_directory = System.getProperty("java.io.tmpdir");
@@ -134,58 +158,39 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
                     + mqttBrokerConnectionConfiguration.getBrokerUrl() + " reason code:" + e.getReasonCode());
             throw new InputEventAdapterRuntimeException(e);
         }
+        messageProcessor = new MQTTMessageProcessor(inputEventAdapterConfiguration.getName(), consumerIndex,
+                tenantDomain,
+                mqttBrokerConnectionConfiguration.getProcessingThreads(),
+                mqttBrokerConnectionConfiguration.getProcessingQueueSize(),
+                new MQTTMessageProcessor.MessageHandler() {
+                    @Override
+                    public void handleMessage(String topic, byte[] payload) throws Exception {
+                        processMessage(topic, payload);
+                    }
+                });
+        messageProcessor.getStats().setClientId(mqttClientId);
+        credentialsKey = inputEventAdapterConfiguration.getName() + "@" + tenantDomain;
+        reconnectHandle = MQTTReconnectScheduler.register(mqttClientId,
+                MQTTEventAdapterConstants.INITIAL_RECONNECTION_DURATION,
+                MQTTEventAdapterConstants.MAXIMUM_RECONNECTION_DURATION, new MQTTReconnectScheduler.Connector() {
+                    @Override
+                    public boolean connect() {
+                        return connectListener();
+                    }
+                });
+        messageProcessor.getStats().setReconnectHandle(reconnectHandle);
     }
 
     public boolean startListener() throws MqttException {
         if (this.mqttBrokerConnectionConfiguration.getUsername() != null &&
                 this.mqttBrokerConnectionConfiguration.getDcrUrl() != null) {
-            String username = this.mqttBrokerConnectionConfiguration.getUsername();
-            String password = this.mqttBrokerConnectionConfiguration.getPassword();
             String dcrUrlString = this.mqttBrokerConnectionConfiguration.getDcrUrl();
-            String scopes = this.mqttBrokerConnectionConfiguration.getBrokerScopes();
             //getJWT Client Parameters.
             if (dcrUrlString != null && !dcrUrlString.isEmpty()) {
                 try {
-                    URL dcrUrl = new URL(dcrUrlString);
-                    HttpClient httpClient = MQTTUtil.getHttpClient(dcrUrl.getProtocol());
-                    HttpPost postMethod = new HttpPost(dcrUrlString);
-                    RegistrationProfile registrationProfile = new RegistrationProfile();
-                    registrationProfile.setCallbackUrl(MQTTEventAdapterConstants.EMPTY_STRING);
-                    registrationProfile.setGrantType(MQTTEventAdapterConstants.GRANT_TYPE);
-                    registrationProfile.setOwner(username);
-                    registrationProfile.setTokenScope(MQTTEventAdapterConstants.TOKEN_SCOPE);
-                    if (!mqttBrokerConnectionConfiguration.isGlobalCredentailSet()) {
-                        registrationProfile.setClientName(MQTTEventAdapterConstants.APPLICATION_NAME_PREFIX
-                                                                  + mqttBrokerConnectionConfiguration.getAdapterName() +
-                                                                  "_" + tenantDomain);
-                        registrationProfile.setIsSaasApp(false);
-                    } else {
-                        registrationProfile.setClientName(MQTTEventAdapterConstants.APPLICATION_NAME_PREFIX
-                                                                  + mqttBrokerConnectionConfiguration.getAdapterName());
-                        registrationProfile.setIsSaasApp(true);
-                    }
-                    String jsonString = registrationProfile.toJSON();
-                    StringEntity requestEntity = new StringEntity(jsonString, ContentType.APPLICATION_JSON);
-                    postMethod.setEntity(requestEntity);
-                    String basicAuth = getBase64Encode(username, password);
-                    postMethod.setHeader(new BasicHeader(MQTTEventAdapterConstants.AUTHORIZATION_HEADER_NAME,
-                                                         MQTTEventAdapterConstants.AUTHORIZATION_HEADER_VALUE_PREFIX +
-                                                                 basicAuth));
-                    HttpResponse httpResponse = httpClient.execute(postMethod);
-                    if (httpResponse != null) {
-                        String response = MQTTUtil.getResponseString(httpResponse);
-                        try {
-                            if (response != null) {
-                                JSONParser jsonParser = new JSONParser();
-                                JSONObject jsonPayload = (JSONObject) jsonParser.parse(response);
-                                String clientId = (String) jsonPayload.get(MQTTEventAdapterConstants.CLIENT_ID);
-                                String clientSecret = (String) jsonPayload.get(MQTTEventAdapterConstants.CLIENT_SECRET);
-                                connectionOptions.setUserName(getToken(clientId, clientSecret));
-                            }
-                        } catch (ParseException e) {
-                            String msg = "error occurred while parsing generating token for the adapter";
-                            log.error(msg, e);
-                        }
+                    String accessToken = getAccessToken(dcrUrlString);
+                    if (accessToken != null) {
+                        connectionOptions.setUserName(accessToken);
                     }
                 } catch (HttpHostConnectException e) {
                     log.error("Keymanager is unreachable, Waiting....");
@@ -194,6 +199,8 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
                     log.error("Invalid dcrUrl : " + dcrUrlString);
                     return false;
                 } catch (JWTClientException | UserStoreException e) {
+                    // the registered client may have been removed, so register again on the next attempt.
+                    MQTTClientCredentials.invalidate(credentialsKey);
                     log.error("Failed to create an oauth token with jwt grant type.", e);
                     return false;
                 } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException | IOException e) {
@@ -205,14 +212,18 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
         try {
             mqttClient.connect(connectionOptions);
         } catch (MqttException e) {
+            if (e.getReasonCode() == MqttException.REASON_CODE_FAILED_AUTHENTICATION
+                    || e.getReasonCode() == MqttException.REASON_CODE_NOT_AUTHORIZED) {
+                MQTTClientCredentials.invalidateAccessToken(credentialsKey);
+            }
             log.warn("Broker is unreachable, Waiting.....");
             return false;
         }
         try {
-            mqttClient.subscribe(topic);
-            log.info("mqtt receiver subscribed to topic: " + topic);
+            mqttClient.subscribe(subscriptionTopic);
+            log.info("mqtt receiver " + mqttClientId + " subscribed to topic: " + subscriptionTopic);
         } catch (MqttException e) {
-            log.error("Failed to subscribe to topic: " + topic + ", Retrying.....");
+            log.error("Failed to subscribe to topic: " + subscriptionTopic + ", Retrying.....");
             try {
                 mqttClient.disconnect();
             } catch (MqttException ex) {
@@ -225,43 +236,50 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
     }
 
     public void stopListener(String adapterName) {
-        if (connectionSucceeded) {
+        reconnectHandle.cancel();
+        if (mqttClient.isConnected()) {
             try {
                 if (!ServerStatus.getCurrentStatus().equals(ServerStatus.STATUS_SHUTTING_DOWN) || cleanSession) {
-                    mqttClient.unsubscribe(topic);
+                    mqttClient.unsubscribe(subscriptionTopic);
                 }
                 mqttClient.disconnect(3000);
             } catch (MqttException e) {
-                log.error("Can not unsubscribe from the destination " + topic +
+                log.error("Can not unsubscribe from the destination " + subscriptionTopic +
                         " with the event adapter " + adapterName, e);
             }
         }
-        connectionSucceeded = true;
+        messageProcessor.getStats().setConnected(false);
+        messageProcessor.stop();
     }
 
     @Override
     public void connectionLost(Throwable throwable) {
-        log.warn("MQTT connection not reachable " + throwable);
-        connectionSucceeded = false;
-        new Thread(this).start();
+        log.warn("MQTT connection of " + mqttClientId + " not reachable " + throwable);
+        messageProcessor.getStats().setConnected(false);
+        reconnectHandle.reconnect();
     }
 
     @Override
     public void messageArrived(String topic, MqttMessage mqttMessage) throws Exception {
+        // The paho callback thread must not be held up by event processing, so the message is only queued here.
+        messageProcessor.submit(topic, mqttMessage.getPayload());
+    }
+
+    private void processMessage(String topic, byte[] payload) throws Exception {
         try {
-            String msgText = mqttMessage.toString();
-            if (log.isDebugEnabled()) {
-                log.debug(msgText);
-            }
+            String msgText = new String(payload);
             PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
-            if (!tenantDomain.equalsIgnoreCase(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
-                TenantAxisUtils.getTenantConfigurationContext(tenantDomain, InputAdapterServiceDataHolder.getMainServerConfigContext());
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            if (tenantId == MultitenantConstants.INVALID_TENANT_ID) {
+                carbonContext.setTenantDomain(tenantDomain, true);
+                tenantId = carbonContext.getTenantId();
+            } else {
+                carbonContext.setTenantId(tenantId);
+                carbonContext.setTenantDomain(tenantDomain);
             }
+            loadTenant();
 
-            InputEventAdapterListener inputEventAdapterListener = InputAdapterServiceDataHolder
-                    .getInputEventAdapterService().getInputAdapterRuntime(PrivilegedCarbonContext.getThreadLocalCarbonContext()
-                            .getTenantId(), inputEventAdapterConfiguration.getName());
+            InputEventAdapterListener inputEventAdapterListener = getInputAdapterRuntime();
 
             if (log.isDebugEnabled()) {
                 log.debug("Event received in MQTT Event Adapter - " + msgText);
@@ -284,43 +302,142 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
         }
     }
 
+    /**
+     * Makes sure the tenant is loaded. Loading is checked at most once per interval, since the tenant stays loaded
+     * while it keeps receiving messages.
+     */
+    private void loadTenant() {
+        if (tenantDomain.equalsIgnoreCase(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - tenantLoadedTime >= MQTTEventAdapterConstants.TENANT_LOAD_INTERVAL_IN_MILLIS) {
+            TenantAxisUtils.getTenantConfigurationContext(tenantDomain,
+                    InputAdapterServiceDataHolder.getMainServerConfigContext());
+            tenantLoadedTime = now;
+        }
+    }
+
+    private InputEventAdapterListener getInputAdapterRuntime() {
+        InputEventAdapterListener runtime = inputAdapterRuntime;
+        if (runtime == null) {
+            runtime = InputAdapterServiceDataHolder.getInputEventAdapterService()
+                    .getInputAdapterRuntime(tenantId, inputEventAdapterConfiguration.getName());
+            inputAdapterRuntime = runtime;
+        }
+        return runtime;
+    }
+
     @Override
     public void deliveryComplete(IMqttDeliveryToken iMqttDeliveryToken) {
 
     }
 
-    @Override
-    public void run() {
-        int connectionDuration = MQTTEventAdapterConstants.INITIAL_RECONNECTION_DURATION;
-        while (!connectionSucceeded) {
-            try {
-                connectionDuration = connectionDuration * MQTTEventAdapterConstants.RECONNECTION_PROGRESS_FACTOR;
-                if (connectionDuration > MQTTEventAdapterConstants.MAXIMUM_RECONNECTION_DURATION) {
-                    connectionDuration = MQTTEventAdapterConstants.MAXIMUM_RECONNECTION_DURATION;
-                }
-                Thread.sleep(connectionDuration);
-                if (startListener()) {
-                    connectionSucceeded = true;
-                    log.info("MQTT Connection successful");
-                }
-            } catch (InterruptedException e) {
-                log.error("Interruption occurred while waiting for reconnection", e);
-            } catch (MqttException e) {
-                log.error("MQTT Exception occurred when starting listener", e);
+    private boolean connectListener() {
+        try {
+            if (startListener()) {
+                messageProcessor.getStats().setConnected(true);
+                log.info("MQTT Connection of " + mqttClientId + " successful");
+                return true;
             }
+        } catch (MqttException e) {
+            log.error("MQTT Exception occurred when starting listener", e);
         }
+        return false;
     }
 
     public void createConnection() {
         connectionInitialized = true;
-        new Thread(this).start();
+        messageProcessor.start();
+        reconnectHandle.reconnect();
     }
 
     public boolean isConnectionInitialized() {
         return connectionInitialized;
     }
 
-    private String getToken(String clientId, String clientSecret)
+    public boolean isConnected() {
+        return mqttClient.isConnected();
+    }
+
+    public MQTTConnectionState getConnectionState() {
+        return reconnectHandle.getState();
+    }
+
+    /**
+     * Returns an access token of the client registered for this adapter, registering the client and requesting a
+     * token only when there is no cached one.
+     */
+    private String getAccessToken(String dcrUrlString)
+            throws IOException, NoSuchAlgorithmException, KeyManagementException, KeyStoreException,
+                   JWTClientException, UserStoreException {
+        MQTTClientCredentials credentials = MQTTClientCredentials.get(credentialsKey);
+        if (credentials != null) {
+            String accessToken = credentials.getAccessToken();
+            if (accessToken != null) {
+                return accessToken;
+            }
+        } else {
+            credentials = registerClient(dcrUrlString);
+            if (credentials == null) {
+                return null;
+            }
+            MQTTClientCredentials.put(credentialsKey, credentials);
+        }
+        AccessTokenInfo accessTokenInfo = getToken(credentials.getClientId(), credentials.getClientSecret());
+        credentials.setAccessToken(accessTokenInfo.getAccessToken(), accessTokenInfo.getExpiresIn());
+        return accessTokenInfo.getAccessToken();
+    }
+
+    private MQTTClientCredentials registerClient(String dcrUrlString)
+            throws IOException, NoSuchAlgorithmException, KeyManagementException, KeyStoreException {
+        String username = this.mqttBrokerConnectionConfiguration.getUsername();
+        String password = this.mqttBrokerConnectionConfiguration.getPassword();
+        URL dcrUrl = new URL(dcrUrlString);
+        HttpClient httpClient = MQTTUtil.getHttpClient(dcrUrl.getProtocol());
+        HttpPost postMethod = new HttpPost(dcrUrlString);
+        RegistrationProfile registrationProfile = new RegistrationProfile();
+        registrationProfile.setCallbackUrl(MQTTEventAdapterConstants.EMPTY_STRING);
+        registrationProfile.setGrantType(MQTTEventAdapterConstants.GRANT_TYPE);
+        registrationProfile.setOwner(username);
+        registrationProfile.setTokenScope(MQTTEventAdapterConstants.TOKEN_SCOPE);
+        if (!mqttBrokerConnectionConfiguration.isGlobalCredentailSet()) {
+            registrationProfile.setClientName(MQTTEventAdapterConstants.APPLICATION_NAME_PREFIX
+                                                      + mqttBrokerConnectionConfiguration.getAdapterName() +
+                                                      "_" + tenantDomain);
+            registrationProfile.setIsSaasApp(false);
+        } else {
+            registrationProfile.setClientName(MQTTEventAdapterConstants.APPLICATION_NAME_PREFIX
+                                                      + mqttBrokerConnectionConfiguration.getAdapterName());
+            registrationProfile.setIsSaasApp(true);
+        }
+        String jsonString = registrationProfile.toJSON();
+        StringEntity requestEntity = new StringEntity(jsonString, ContentType.APPLICATION_JSON);
+        postMethod.setEntity(requestEntity);
+        String basicAuth = getBase64Encode(username, password);
+        postMethod.setHeader(new BasicHeader(MQTTEventAdapterConstants.AUTHORIZATION_HEADER_NAME,
+                                             MQTTEventAdapterConstants.AUTHORIZATION_HEADER_VALUE_PREFIX +
+                                                     basicAuth));
+        HttpResponse httpResponse = httpClient.execute(postMethod);
+        if (httpResponse != null) {
+            String response = MQTTUtil.getResponseString(httpResponse);
+            try {
+                if (response != null) {
+                    JSONParser jsonParser = new JSONParser();
+                    JSONObject jsonPayload = (JSONObject) jsonParser.parse(response);
+                    String clientId = (String) jsonPayload.get(MQTTEventAdapterConstants.CLIENT_ID);
+                    String clientSecret = (String) jsonPayload.get(MQTTEventAdapterConstants.CLIENT_SECRET);
+                    return new MQTTClientCredentials(clientId, clientSecret);
+                }
+            } catch (ParseException e) {
+                String msg = "error occurred while parsing generating token for the adapter";
+                log.error(msg, e);
+            }
+        }
+        return null;
+    }
+
+    private AccessTokenInfo getToken(String clientId, String clientSecret)
             throws UserStoreException, JWTClientException {
         PrivilegedCarbonContext.startTenantFlow();
         PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
@@ -335,9 +452,7 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
 
             JWTClientManagerService jwtClientManagerService =
                     InputAdapterServiceDataHolder.getJwtClientManagerService();
-            AccessTokenInfo accessTokenInfo = jwtClientManagerService.getJWTClient().getAccessToken(
-                    clientId, clientSecret, username, scopes);
-            return accessTokenInfo.getAccessToken();
+            return jwtClientManagerService.getJWTClient().getAccessToken(clientId, clientSecret, username, scopes);
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
         }
@@ -38,6 +38,10 @@ public class MQTTBrokerConnectionConfiguration {
     private String contentTransformerType;
     private String adapterName;
     private boolean globalCredentailSet;
+    private int processingThreads;
+    private int processingQueueSize;
+    private int consumerCount;
+    private String sharedSubscriptionGroup;
 
     public String getBrokerScopes() {
         return brokerScopes;
@@ -83,6 +87,22 @@ public class MQTTBrokerConnectionConfiguration {
         return adapterName;
     }
 
+    public int getProcessingThreads() {
+        return processingThreads;
+    }
+
+    public int getProcessingQueueSize() {
+        return processingQueueSize;
+    }
+
+    public int getConsumerCount() {
+        return consumerCount;
+    }
+
+    public String getSharedSubscriptionGroup() {
+        return sharedSubscriptionGroup;
+    }
+
     public MQTTBrokerConnectionConfiguration(InputEventAdapterConfiguration eventAdapterConfiguration,
                                              Map<String, String> globalProperties) throws InputEventAdapterException {
 
@@ -133,5 +153,60 @@ public class MQTTBrokerConnectionConfiguration {
         }
         this.contentTransformerType = eventAdapterConfiguration.getProperties()
                 .get(MQTTEventAdapterConstants.ADAPTER_CONF_CONTENT_TRANSFORMER_TYPE);
+        this.processingThreads = getIntProperty(eventAdapterConfiguration, globalProperties,
+                                                MQTTEventAdapterConstants.ADAPTER_CONF_PROCESSING_THREADS,
+                                                MQTTEventAdapterConstants.DEFAULT_PROCESSING_THREADS);
+        this.processingQueueSize = getIntProperty(eventAdapterConfiguration, globalProperties,
+                                                  MQTTEventAdapterConstants.ADAPTER_CONF_PROCESSING_QUEUE_SIZE,
+                                                  MQTTEventAdapterConstants.DEFAULT_PROCESSING_QUEUE_SIZE);
+        this.consumerCount = getIntProperty(eventAdapterConfiguration, globalProperties,
+                                            MQTTEventAdapterConstants.ADAPTER_CONF_CONSUMER_COUNT,
+                                            MQTTEventAdapterConstants.DEFAULT_CONSUMER_COUNT);
+        this.sharedSubscriptionGroup = eventAdapterConfiguration.getProperties()
+                .get(MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP);
+        if (sharedSubscriptionGroup == null || sharedSubscriptionGroup.trim().isEmpty()) {
+            sharedSubscriptionGroup = globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP);
+        }
+        if (sharedSubscriptionGroup != null) {
+            sharedSubscriptionGroup = sharedSubscriptionGroup.trim();
+            if (sharedSubscriptionGroup.isEmpty()) {
+                sharedSubscriptionGroup = null;
+            } else if (sharedSubscriptionGroup.contains("/") || sharedSubscriptionGroup.contains("+")
+                    || sharedSubscriptionGroup.contains("#")) {
+                throw new InputEventAdapterException("Shared subscription group '" + sharedSubscriptionGroup
+                                                             + "' must not contain '/', '+' or '#'");
+            }
+        }
+        if (consumerCount > 1 && sharedSubscriptionGroup == null) {
+            // separate subscriptions would deliver every message to each of the consumers.
+            throw new InputEventAdapterException("Property '" + MQTTEventAdapterConstants.ADAPTER_CONF_CONSUMER_COUNT
+                                                         + "' can only be more than 1 with a '"
+                                                         + MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP
+                                                         + "'");
+        }
+    }
+
+    /**
+     * Reads a positive integer property, preferring the value given for the adapter over the global one.
+     */
+    private static int getIntProperty(InputEventAdapterConfiguration eventAdapterConfiguration,
+                                      Map<String, String> globalProperties, String name, int defaultValue)
+            throws InputEventAdapterException {
+        String value = eventAdapterConfiguration.getProperties().get(name);
+        if (value == null || value.trim().isEmpty()) {
+            value = globalProperties.get(name);
+        }
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue > 0) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            throw new InputEventAdapterException("Invalid value '" + value + "' for property '" + name + "'", e);
+        }
+        throw new InputEventAdapterException("Property '" + name + "' must be a positive number, but was " + value);
     }
 }
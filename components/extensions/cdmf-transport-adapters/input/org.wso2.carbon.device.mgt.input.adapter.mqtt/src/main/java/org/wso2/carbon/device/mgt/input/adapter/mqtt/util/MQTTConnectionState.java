@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.input.adapter.mqtt.util;
+
+/**
+ * Connection state of an MQTT client managed by the {@link MQTTReconnectScheduler}.
+ */
+public enum MQTTConnectionState {
+
+    /** Not connected and no connection attempt is scheduled. */
+    DISCONNECTED,
+
+    /** A connection attempt is in progress. */
+    CONNECTING,
+
+    /** Connected to the broker. */
+    CONNECTED,
+
+    /** Waiting for the next connection attempt. */
+    BACKOFF
+}
@@ -49,8 +49,26 @@ public class MQTTEventAdapterConstants {
     public static final int ADAPTER_CONF_DEFAULT_KEEP_ALIVE = 20000;
 
     public static final int INITIAL_RECONNECTION_DURATION = 4000;
-    public static final int RECONNECTION_PROGRESS_FACTOR = 2;
     public static final int MAXIMUM_RECONNECTION_DURATION = 60000;
+    public static final int MAX_CONCURRENT_RECONNECTS = 4;
+    public static final long ACCESS_TOKEN_EXPIRY_MARGIN_IN_MILLIS = 60000;
+
+    public static final String ADAPTER_CONF_PROCESSING_THREADS = "processingThreads";
+    public static final String ADAPTER_CONF_PROCESSING_THREADS_HINT = "processingThreads.hint";
+    public static final int DEFAULT_PROCESSING_THREADS = 4;
+    public static final String ADAPTER_CONF_PROCESSING_QUEUE_SIZE = "processingQueueSize";
+    public static final String ADAPTER_CONF_PROCESSING_QUEUE_SIZE_HINT = "processingQueueSize.hint";
+    public static final int DEFAULT_PROCESSING_QUEUE_SIZE = 10000;
+    public static final long TENANT_LOAD_INTERVAL_IN_MILLIS = 60000;
+    public static final long PROCESSOR_SHUTDOWN_TIMEOUT_IN_MILLIS = 2000;
+    public static final int DROPPED_MESSAGE_LOG_INTERVAL = 1000;
+    public static final String ADAPTER_CONF_CONSUMER_COUNT = "consumerCount";
+    public static final String ADAPTER_CONF_CONSUMER_COUNT_HINT = "consumerCount.hint";
+    public static final int DEFAULT_CONSUMER_COUNT = 1;
+    public static final String ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP = "sharedSubscriptionGroup";
+    public static final String ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP_HINT = "sharedSubscriptionGroup.hint";
+    public static final String SHARED_SUBSCRIPTION_PREFIX = "$share/";
+    public static final String STATS_MBEAN_DOMAIN = "org.wso2.carbon.device.mgt.input.adapter.mqtt";
 
     public static final String EMPTY_STRING = "";
     public static final String GRANT_TYPE_PARAM_NAME = "grant_type";
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.input.adapter.mqtt.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes the messages received by an MQTT input adapter on a fixed set of worker threads, so that the paho
+ * callback thread only has to hand the message over. Messages are partitioned to the workers by topic, which keeps
+ * the messages of a single device in the order they were received. Each worker has a bounded queue and messages
+ * arriving at a full queue are dropped.
+ */
+public class MQTTMessageProcessor {
+
+    private static final Log log = LogFactory.getLog(MQTTMessageProcessor.class);
+    private static final long POLL_TIMEOUT_IN_MILLIS = 100;
+
+    private final String adapterName;
+    private final int consumerIndex;
+    private final String tenantDomain;
+    private final MessageHandler messageHandler;
+    private final BlockingQueue<ReceivedMessage>[] queues;
+    private final Thread[] workers;
+    private final int queueCapacity;
+    private final MQTTMessageProcessorStats stats;
+    private ObjectName objectName;
+    private volatile boolean running;
+
+    /**
+     * Handles a message taken off the processing queue.
+     */
+    public interface MessageHandler {
+
+        void handleMessage(String topic, byte[] payload) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    public MQTTMessageProcessor(String adapterName, int consumerIndex, String tenantDomain, int processingThreads,
+                                int queueSize, MessageHandler messageHandler) {
+        this.adapterName = adapterName;
+        this.consumerIndex = consumerIndex;
+        this.tenantDomain = tenantDomain;
+        this.messageHandler = messageHandler;
+        int perThreadCapacity = Math.max(1, queueSize / processingThreads);
+        this.queueCapacity = perThreadCapacity * processingThreads;
+        this.queues = new BlockingQueue[processingThreads];
+        this.workers = new Thread[processingThreads];
+        for (int i = 0; i < processingThreads; i++) {
+            queues[i] = new ArrayBlockingQueue<>(perThreadCapacity);
+        }
+        this.stats = new MQTTMessageProcessorStats(this);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(new Worker(queues[i]),
+                                    "MQTTInputAdapter-" + adapterName + "-" + consumerIndex + "-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        registerMBean();
+    }
+
+    /**
+     * Stops the workers after giving them up to the shutdown timeout to process the already queued messages.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + MQTTEventAdapterConstants.PROCESSOR_SHUTDOWN_TIMEOUT_IN_MILLIS;
+        for (Thread worker : workers) {
+            try {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining > 0) {
+                    worker.join(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (worker.isAlive()) {
+                worker.interrupt();
+            }
+        }
+        int discarded = 0;
+        for (BlockingQueue<ReceivedMessage> queue : queues) {
+            discarded += queue.size();
+            queue.clear();
+        }
+        if (discarded > 0) {
+            log.warn("Discarded " + discarded + " unprocessed messages while stopping the MQTT input adapter '"
+                    + adapterName + "'.");
+        }
+        unregisterMBean();
+    }
+
+    /**
+     * Queues a received message for processing.
+     *
+     * @return false if the message was dropped because the queue of its topic is full.
+     */
+    public boolean submit(String topic, byte[] payload) {
+        stats.recordReceived();
+        BlockingQueue<ReceivedMessage> queue = queues[(topic.hashCode() & Integer.MAX_VALUE) % queues.length];
+        if (queue.offer(new ReceivedMessage(topic, payload))) {
+            return true;
+        }
+        long dropped = stats.recordDropped();
+        if (dropped == 1 || dropped % MQTTEventAdapterConstants.DROPPED_MESSAGE_LOG_INTERVAL == 0) {
+            log.warn("Processing queue of the MQTT input adapter '" + adapterName + "' is full, " + dropped
+                    + " messages dropped so far.");
+        }
+        return false;
+    }
+
+    public MQTTMessageProcessorStats getStats() {
+        return stats;
+    }
+
+    int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<ReceivedMessage> queue : queues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    int getProcessingThreads() {
+        return workers.length;
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName(MQTTEventAdapterConstants.STATS_MBEAN_DOMAIN
+                    + ":type=MQTTInputAdapterStats,name=" + ObjectName.quote(adapterName)
+                    + ",consumer=" + consumerIndex
+                    + ",tenant=" + ObjectName.quote(tenantDomain));
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(stats, objectName);
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException
+                | NotCompliantMBeanException | InstanceNotFoundException e) {
+            log.error("Failed to register the statistics MBean of the MQTT input adapter '" + adapterName + "'.", e);
+        }
+    }
+
+    private void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (MBeanRegistrationException | InstanceNotFoundException e) {
+            log.error("Failed to unregister the statistics MBean of the MQTT input adapter '" + adapterName
+                    + "'.", e);
+        }
+        objectName = null;
+    }
+
+    private static class ReceivedMessage {
+
+        private final String topic;
+        private final byte[] payload;
+
+        ReceivedMessage(String topic, byte[] payload) {
+            this.topic = topic;
+            this.payload = payload;
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private final BlockingQueue<ReceivedMessage> queue;
+
+        Worker(BlockingQueue<ReceivedMessage> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                ReceivedMessage message;
+                try {
+                    message = queue.poll(POLL_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (message == null) {
+                    continue;
+                }
+                try {
+                    messageHandler.handleMessage(message.topic, message.payload);
+                    stats.recordProcessed();
+                } catch (Exception e) {
+                    stats.recordFailed();
+                    log.error("Failed to process the message received on topic '" + message.topic
+                            + "' by the MQTT input adapter '" + adapterName + "'.", e);
+                }
+            }
+        }
+    }
+}
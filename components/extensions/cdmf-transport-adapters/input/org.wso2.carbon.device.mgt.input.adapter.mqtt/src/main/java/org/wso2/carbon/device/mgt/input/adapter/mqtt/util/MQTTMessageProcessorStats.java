@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.input.adapter.mqtt.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the received message processing of an MQTT input adapter.
+ */
+public class MQTTMessageProcessorStats implements MQTTMessageProcessorStatsMBean {
+
+    private final MQTTMessageProcessor processor;
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile String clientId;
+    private volatile boolean connected;
+    private volatile MQTTReconnectScheduler.ReconnectHandle reconnectHandle;
+
+    MQTTMessageProcessorStats(MQTTMessageProcessor processor) {
+        this.processor = processor;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    public void setReconnectHandle(MQTTReconnectScheduler.ReconnectHandle reconnectHandle) {
+        this.reconnectHandle = reconnectHandle;
+    }
+
+    void recordReceived() {
+        receivedCount.incrementAndGet();
+    }
+
+    long recordDropped() {
+        return droppedCount.incrementAndGet();
+    }
+
+    void recordProcessed() {
+        processedCount.incrementAndGet();
+    }
+
+    void recordFailed() {
+        failedCount.incrementAndGet();
+    }
+
+    @Override
+    public String getClientId() {
+        return clientId;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public String getConnectionState() {
+        MQTTReconnectScheduler.ReconnectHandle handle = reconnectHandle;
+        return handle != null ? handle.getState().name() : MQTTConnectionState.DISCONNECTED.name();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return processor.getQueueDepth();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return processor.getQueueCapacity();
+    }
+
+    @Override
+    public int getProcessingThreads() {
+        return processor.getProcessingThreads();
+    }
+
+    @Override
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
@@ -20,6 +20,7 @@ package org.wso2.carbon.device.mgt.output.adapter.http;
 import org.apache.commons.httpclient.HostConfiguration;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
@@ -37,10 +38,12 @@ import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.output.adapter.http.internal.OutputAdapterServiceDataHolder;
+import org.wso2.carbon.device.mgt.output.adapter.http.util.AccessTokenManager;
 import org.wso2.carbon.device.mgt.output.adapter.http.util.HTTPConnectionConfiguration;
 import org.wso2.carbon.device.mgt.output.adapter.http.util.HTTPEventAdapterConstants;
 import org.wso2.carbon.device.mgt.output.adapter.http.util.HTTPUtil;
 import org.wso2.carbon.device.mgt.output.adapter.http.util.RegistrationProfile;
+import org.wso2.carbon.device.mgt.output.adapter.http.util.URLTemplate;
 import org.wso2.carbon.event.output.adapter.core.EventAdapterUtil;
 import org.wso2.carbon.event.output.adapter.core.OutputEventAdapter;
 import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration;
@@ -59,22 +62,25 @@ import java.net.UnknownHostException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class HTTPEventAdapter implements OutputEventAdapter {
 
     private static final Log log = LogFactory.getLog(OutputEventAdapter.class);
 
+    /**
+     * The last event parsed by the publishing thread. An event published to several templated endpoints is parsed
+     * only once.
+     */
+    private static final ThreadLocal<ParsedEvent> lastParsedEvent = new ThreadLocal<>();
+
     private ExecutorService executorService;
     private HttpConnectionManager connectionManager;
     private OutputEventAdapterConfiguration eventAdapterConfiguration;
@@ -87,7 +93,8 @@ public class HTTPEventAdapter implements OutputEventAdapter {
     private HostConfiguration hostConfiguration = null;
     private String clientId;
     private String clientSecret;
-
+    private AccessTokenManager accessTokenManager;
+    private final Map<String, URLTemplate> urlTemplates = new ConcurrentHashMap<>();
 
     public HTTPEventAdapter(OutputEventAdapterConfiguration eventAdapterConfiguration,
                             Map<String, String> globalProperties) {
@@ -175,6 +182,12 @@ public class HTTPEventAdapter implements OutputEventAdapter {
         httpConnectionConfiguration =
                 new HTTPConnectionConfiguration(eventAdapterConfiguration, globalProperties);
         generateToken();
+        accessTokenManager = new AccessTokenManager(getTokenRefreshMargin(), executorService) {
+            @Override
+            protected AccessTokenInfo requestAccessToken() throws JWTClientException, UserStoreException {
+                return HTTPEventAdapter.this.requestAccessToken();
+            }
+        };
     }
 
     @Override
@@ -187,29 +200,17 @@ public class HTTPEventAdapter implements OutputEventAdapter {
 
         if ("true".equals(dynamicProperties.get(HTTPEventAdapterConstants.ADAPTER_MESSAGE_URL_TEMPLATED))) {
             contentType = "application/json";
+            URLTemplate urlTemplate = getURLTemplate(url);
+            String rawPayload = payload;
             payload = payload.replace("'", "\\\"");
-            try {
-                JSONParser jsonParser = new JSONParser();
-                JSONObject jsonPayload = (JSONObject) jsonParser.parse(payload);
-
-                List<String> matchList = new ArrayList<>();
-                Pattern regex = Pattern.compile("\\{(.*?)\\}");
-                Matcher regexMatcher = regex.matcher(url);
-
-                while (regexMatcher.find()) {//Finds Matching Pattern in String
-                    matchList.add(regexMatcher.group(1));//Fetching Group from String
-                }
-
-                for(String str:matchList) {
-                    if (jsonPayload.containsKey(str)) {
-                        url = url.replace("{" + str + "}", jsonPayload.get(str).toString());
+            if (urlTemplate.hasPlaceholders()) {
+                JSONObject jsonPayload = parseEvent(rawPayload, payload);
+                if (jsonPayload != null) {
+                    url = urlTemplate.expand(jsonPayload);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Modified url: " + url);
                     }
                 }
-                if (log.isDebugEnabled()) {
-                    log.debug("Modified url: " + url);
-                }
-            } catch (ParseException e) {
-                log.error("Unable to parse request body to Json.", e);
             }
         }
 
@@ -223,7 +224,9 @@ public class HTTPEventAdapter implements OutputEventAdapter {
 
     @Override
     public void disconnect() {
-        //not required
+        if (accessTokenManager != null) {
+            accessTokenManager.invalidate();
+        }
     }
 
     @Override
@@ -236,6 +239,32 @@ public class HTTPEventAdapter implements OutputEventAdapter {
         return false;
     }
 
+    private URLTemplate getURLTemplate(String url) {
+        URLTemplate urlTemplate = urlTemplates.get(url);
+        if (urlTemplate == null) {
+            urlTemplate = URLTemplate.compile(url);
+            if (urlTemplates.size() < HTTPEventAdapterConstants.MAX_CACHED_URL_TEMPLATES) {
+                urlTemplates.put(url, urlTemplate);
+            }
+        }
+        return urlTemplate;
+    }
+
+    private JSONObject parseEvent(String rawPayload, String payload) {
+        ParsedEvent parsedEvent = lastParsedEvent.get();
+        if (parsedEvent != null && parsedEvent.rawPayload.equals(rawPayload)) {
+            return parsedEvent.jsonPayload;
+        }
+        try {
+            JSONObject jsonPayload = (JSONObject) new JSONParser().parse(payload);
+            lastParsedEvent.set(new ParsedEvent(rawPayload, jsonPayload));
+            return jsonPayload;
+        } catch (ParseException e) {
+            log.error("Unable to parse request body to Json.", e);
+            return null;
+        }
+    }
+
     private void checkHTTPClientInit() {
 
         if (this.httpClient != null) {
@@ -336,11 +365,60 @@ public class HTTPEventAdapter implements OutputEventAdapter {
         }
     }
 
+    private long getTokenRefreshMargin() {
+        String refreshMargin = globalProperties.get(HTTPEventAdapterConstants.ADAPTER_TOKEN_REFRESH_MARGIN_NAME);
+        if (refreshMargin != null) {
+            try {
+                long refreshMarginInSeconds = Long.parseLong(refreshMargin.trim());
+                if (refreshMarginInSeconds >= 0) {
+                    return TimeUnit.SECONDS.toMillis(refreshMarginInSeconds);
+                }
+            } catch (NumberFormatException e) {
+                // falls back to the default below
+            }
+            log.warn("Invalid value '" + refreshMargin + "' for "
+                             + HTTPEventAdapterConstants.ADAPTER_TOKEN_REFRESH_MARGIN_NAME + ", using the default "
+                             + HTTPEventAdapterConstants.DEFAULT_TOKEN_REFRESH_MARGIN_IN_SECONDS + " seconds");
+        }
+        return TimeUnit.SECONDS.toMillis(HTTPEventAdapterConstants.DEFAULT_TOKEN_REFRESH_MARGIN_IN_SECONDS);
+    }
+
+    private AccessTokenInfo requestAccessToken() throws UserStoreException, JWTClientException {
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
+        try {
+            String scopes = httpConnectionConfiguration.getScopes();
+            String username = httpConnectionConfiguration.getUsername();
+            if (httpConnectionConfiguration.isGlobalCredentialSet()) {
+                username = PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                                   .getUserRealm().getRealmConfiguration().getAdminUserName() + "@" + PrivilegedCarbonContext
+                                   .getThreadLocalCarbonContext().getTenantDomain(true);
+            }
+
+            JWTClientManagerService jwtClientManagerService =
+                    OutputAdapterServiceDataHolder.getJwtClientManagerService();
+            return jwtClientManagerService.getJWTClient().getAccessToken(clientId, clientSecret, username, scopes);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
     private String getBase64Encode(String key, String value) {
         return new String(org.apache.commons.ssl.Base64.encodeBase64((key + ":" + value).getBytes()));
     }
 
 
+    private static class ParsedEvent {
+
+        private final String rawPayload;
+        private final JSONObject jsonPayload;
+
+        private ParsedEvent(String rawPayload, JSONObject jsonPayload) {
+            this.rawPayload = rawPayload;
+            this.jsonPayload = jsonPayload;
+        }
+    }
+
     /**
      * This class represents a job to send an HTTP request to a target URL.
      */
@@ -381,31 +459,22 @@ public class HTTPEventAdapter implements OutputEventAdapter {
             EntityEnclosingMethod method = null;
 
             try {
-
-                if (clientMethod.equalsIgnoreCase(HTTPEventAdapterConstants.CONSTANT_HTTP_PUT)) {
-                    method = new PutMethod(this.getUrl());
-                } else {
-                    method = new PostMethod(this.getUrl());
-                }
-
                 if (hostConfiguration == null) {
                     URL hostUrl = new URL(this.getUrl());
                     hostConfiguration = new HostConfiguration();
                     hostConfiguration.setHost(hostUrl.getHost(), hostUrl.getPort(), hostUrl.getProtocol());
                 }
 
-                method.setRequestEntity(new StringRequestEntity(this.getPayload(), contentType, "UTF-8"));
-                method.setRequestHeader("Authorization",
-                                        "Bearer " + getToken(clientId, clientSecret));
-
-                if (this.getHeaders() != null) {
-                    for (Map.Entry<String, String> header : this.getHeaders().entrySet()) {
-                        method.setRequestHeader(header.getKey(), header.getValue());
-                    }
+                String accessToken = accessTokenManager.getAccessToken();
+                method = createMethod(accessToken);
+                int statusCode = this.getHttpClient().executeMethod(hostConfiguration, method);
+                if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+                    // the cached token may have been revoked, retry once with a new token.
+                    method.releaseConnection();
+                    method = createMethod(accessTokenManager.renewAccessToken(accessToken));
+                    this.getHttpClient().executeMethod(hostConfiguration, method);
                 }
 
-                this.getHttpClient().executeMethod(hostConfiguration, method);
-
             } catch (UnknownHostException e) {
                 EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), this.getPayload(),
                                             "Cannot connect to " + this.getUrl(), e, log, tenantId);
@@ -421,27 +490,22 @@ public class HTTPEventAdapter implements OutputEventAdapter {
             }
         }
 
-        private String getToken(String clientId, String clientSecret)
-                throws UserStoreException, JWTClientException {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
-            try {
-                String scopes = httpConnectionConfiguration.getScopes();
-                String username = httpConnectionConfiguration.getUsername();
-                if (httpConnectionConfiguration.isGlobalCredentialSet()) {
-                    username = PrivilegedCarbonContext.getThreadLocalCarbonContext()
-                                       .getUserRealm().getRealmConfiguration().getAdminUserName() + "@" + PrivilegedCarbonContext
-                                       .getThreadLocalCarbonContext().getTenantDomain(true);
-                }
+        private EntityEnclosingMethod createMethod(String accessToken) throws IOException {
+            EntityEnclosingMethod method;
+            if (clientMethod.equalsIgnoreCase(HTTPEventAdapterConstants.CONSTANT_HTTP_PUT)) {
+                method = new PutMethod(this.getUrl());
+            } else {
+                method = new PostMethod(this.getUrl());
+            }
+            method.setRequestEntity(new StringRequestEntity(this.getPayload(), contentType, "UTF-8"));
+            method.setRequestHeader("Authorization", "Bearer " + accessToken);
 
-                JWTClientManagerService jwtClientManagerService =
-                        OutputAdapterServiceDataHolder.getJwtClientManagerService();
-                AccessTokenInfo accessTokenInfo = jwtClientManagerService.getJWTClient().getAccessToken(
-                        clientId, clientSecret, username, scopes);
-                return accessTokenInfo.getAccessToken();
-            } finally {
-                PrivilegedCarbonContext.endTenantFlow();
+            if (this.getHeaders() != null) {
+                for (Map.Entry<String, String> header : this.getHeaders().entrySet()) {
+                    method.setRequestHeader(header.getKey(), header.getValue());
+                }
             }
+            return method;
         }
     }
 
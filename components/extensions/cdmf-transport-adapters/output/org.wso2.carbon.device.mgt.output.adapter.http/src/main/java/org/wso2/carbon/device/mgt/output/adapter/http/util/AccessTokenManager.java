@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.http.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.jwt.client.extension.dto.AccessTokenInfo;
+import org.wso2.carbon.identity.jwt.client.extension.exception.JWTClientException;
+import org.wso2.carbon.user.api.UserStoreException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caches the access token of an adapter until shortly before it expires. Within the refresh margin the current token
+ * is still handed out while a new one is requested in the background, and concurrent callers waiting for a token
+ * share a single token request.
+ */
+public abstract class AccessTokenManager {
+
+    private static final Log log = LogFactory.getLog(AccessTokenManager.class);
+
+    private final long refreshMarginMillis;
+    private final Executor refreshExecutor;
+    private final AtomicReference<RefreshTask> pendingRefresh = new AtomicReference<>();
+    private volatile CachedToken cachedToken;
+
+    /**
+     * @param refreshMarginMillis time before the expiry at which the token is refreshed in the background.
+     * @param refreshExecutor     executor used for the background refresh.
+     */
+    public AccessTokenManager(long refreshMarginMillis, Executor refreshExecutor) {
+        this.refreshMarginMillis = refreshMarginMillis;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Requests a new access token from the token endpoint.
+     */
+    protected abstract AccessTokenInfo requestAccessToken() throws JWTClientException, UserStoreException;
+
+    /**
+     * @return a valid access token, requesting a new one only if the cached token has expired.
+     */
+    public String getAccessToken() throws JWTClientException, UserStoreException {
+        CachedToken token = cachedToken;
+        long currentTime = System.currentTimeMillis();
+        if (token != null && currentTime < token.expiryTime) {
+            if (currentTime >= token.refreshTime) {
+                refreshInBackground();
+            }
+            return token.accessToken;
+        }
+        return awaitRefresh(startRefresh());
+    }
+
+    /**
+     * Discards the given token, typically after it has been rejected by the endpoint, and returns a fresh one. If
+     * the token has already been replaced by another caller, the replacement is returned without a new request.
+     */
+    public String renewAccessToken(String rejectedToken) throws JWTClientException, UserStoreException {
+        CachedToken token = cachedToken;
+        if (token != null && System.currentTimeMillis() < token.expiryTime
+                && !token.accessToken.equals(rejectedToken)) {
+            return token.accessToken;
+        }
+        return awaitRefresh(startRefresh());
+    }
+
+    public void invalidate() {
+        cachedToken = null;
+    }
+
+    private void refreshInBackground() {
+        if (pendingRefresh.get() != null) {
+            return;
+        }
+        RefreshTask task = new RefreshTask();
+        if (pendingRefresh.compareAndSet(null, task)) {
+            try {
+                refreshExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the token is refreshed by the first caller after the expiry instead.
+                pendingRefresh.compareAndSet(task, null);
+                if (log.isDebugEnabled()) {
+                    log.debug("Unable to schedule the access token refresh.", e);
+                }
+            }
+        }
+    }
+
+    private RefreshTask startRefresh() {
+        while (true) {
+            RefreshTask task = pendingRefresh.get();
+            if (task != null) {
+                return task;
+            }
+            task = new RefreshTask();
+            if (pendingRefresh.compareAndSet(null, task)) {
+                task.run();
+                return task;
+            }
+        }
+    }
+
+    private String awaitRefresh(RefreshTask task) throws JWTClientException, UserStoreException {
+        // A background refresh may still be queued behind the senders waiting for it on the same executor, so the
+        // caller runs it instead. This is a no-op if the task has already been started.
+        task.run();
+        try {
+            return task.get().accessToken;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JWTClientException("Interrupted while waiting for the access token.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JWTClientException) {
+                throw (JWTClientException) cause;
+            } else if (cause instanceof UserStoreException) {
+                throw (UserStoreException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new JWTClientException("Failed to obtain the access token.", cause);
+        }
+    }
+
+    private class RefreshTask extends FutureTask<CachedToken> {
+
+        private RefreshTask() {
+            super(new Callable<CachedToken>() {
+                @Override
+                public CachedToken call() throws Exception {
+                    CachedToken token = new CachedToken(requestAccessToken(), refreshMarginMillis);
+                    cachedToken = token;
+                    return token;
+                }
+            });
+        }
+
+        @Override
+        protected void done() {
+            pendingRefresh.compareAndSet(this, null);
+        }
+    }
+
+    private static class CachedToken {
+
+        private final String accessToken;
+        private final long expiryTime;
+        private final long refreshTime;
+
+        private CachedToken(AccessTokenInfo accessTokenInfo, long refreshMarginMillis) {
+            this.accessToken = accessTokenInfo.getAccessToken();
+            long currentTime = System.currentTimeMillis();
+            long lifetimeMillis = accessTokenInfo.getExpiresIn() * 1000;
+            if (accessToken == null || lifetimeMillis <= 0) {
+                // tokens without an expiry are not reused.
+                this.expiryTime = currentTime;
+                this.refreshTime = currentTime;
+            } else {
+                this.expiryTime = currentTime + lifetimeMillis;
+                this.refreshTime = expiryTime - Math.min(refreshMarginMillis, lifetimeMillis / 2);
+            }
+        }
+    }
+}
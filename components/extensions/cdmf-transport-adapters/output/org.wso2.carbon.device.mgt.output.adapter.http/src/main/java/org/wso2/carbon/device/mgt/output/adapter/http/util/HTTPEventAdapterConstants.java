@@ -34,6 +34,8 @@ public class HTTPEventAdapterConstants {
     public static final String ADAPTER_MAX_THREAD_POOL_SIZE_NAME = "maxThread";
     public static final String ADAPTER_KEEP_ALIVE_TIME_NAME = "keepAliveTimeInMillis";
     public static final String ADAPTER_EXECUTOR_JOB_QUEUE_SIZE_NAME = "jobQueueSize";
+    public static final String ADAPTER_TOKEN_REFRESH_MARGIN_NAME = "tokenRefreshMarginInSeconds";
+    public static final long DEFAULT_TOKEN_REFRESH_MARGIN_IN_SECONDS = 60;
     public static final String ADAPTER_USERNAME = "username";
     public static final String ADAPTER_USERNAME_HINT = "http.username.hint";
     public static final String ADAPTER_PASSWORD = "password";
@@ -47,6 +49,7 @@ public class HTTPEventAdapterConstants {
     public static final String ADAPTER_HTTP_CLIENT_METHOD = "http.client.method";
     public static final String CONSTANT_HTTP_POST = "HttpPost";
     public static final String CONSTANT_HTTP_PUT = "HttpPut";
+    public static final int MAX_CACHED_URL_TEMPLATES = 100;
 
     public static final String EMPTY_STRING = "";
     public static final String DEFAULT_CALLBACK = "";
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.http.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A templated endpoint URL such as http://host/devices/{deviceId}, split once into literal segments and placeholder
+ * names so that it can be expanded for each event without any pattern matching.
+ */
+public final class URLTemplate {
+
+    private static final char PLACEHOLDER_START = '{';
+    private static final char PLACEHOLDER_END = '}';
+
+    private final String template;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private URLTemplate(String template, String[] literals, String[] placeholders) {
+        this.template = template;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Splits the template into literals and placeholders. literals[i] precedes placeholders[i], and the last literal
+     * follows the last placeholder.
+     */
+    public static URLTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int literalStart = 0;
+        int placeholderStart = template.indexOf(PLACEHOLDER_START);
+        while (placeholderStart >= 0) {
+            int placeholderEnd = template.indexOf(PLACEHOLDER_END, placeholderStart + 1);
+            if (placeholderEnd < 0) {
+                break;
+            }
+            literals.add(template.substring(literalStart, placeholderStart));
+            placeholders.add(template.substring(placeholderStart + 1, placeholderEnd));
+            literalStart = placeholderEnd + 1;
+            placeholderStart = template.indexOf(PLACEHOLDER_START, literalStart);
+        }
+        literals.add(template.substring(literalStart));
+        return new URLTemplate(template, literals.toArray(new String[literals.size()]),
+                               placeholders.toArray(new String[placeholders.size()]));
+    }
+
+    public boolean hasPlaceholders() {
+        return placeholders.length > 0;
+    }
+
+    /**
+     * Fills the placeholders with the matching values. Placeholders without a value are kept as they are.
+     */
+    public String expand(Map<?, ?> values) {
+        if (placeholders.length == 0) {
+            return template;
+        }
+        StringBuilder url = new StringBuilder(literalLength + placeholders.length * 16);
+        for (int i = 0; i < placeholders.length; i++) {
+            url.append(literals[i]);
+            Object value = values.get(placeholders[i]);
+            if (value != null) {
+                url.append(value.toString());
+            } else {
+                url.append(PLACEHOLDER_START).append(placeholders[i]).append(PLACEHOLDER_END);
+            }
+        }
+        url.append(literals[placeholders.length]);
+        return url.toString();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.output.adapter.mqtt.util.MQTTAdapterPublisher;
+import org.wso2.carbon.device.mgt.output.adapter.mqtt.util.MQTTAsyncAdapterPublisher;
 import org.wso2.carbon.device.mgt.output.adapter.mqtt.util.MQTTEventAdapterConstants;
 import org.wso2.carbon.device.mgt.output.adapter.mqtt.util.MQTTBrokerConnectionConfiguration;
 import org.wso2.carbon.event.output.adapter.core.EventAdapterUtil;
@@ -43,6 +44,7 @@ public class MQTTEventAdapter implements OutputEventAdapter {
     private OutputEventAdapterConfiguration eventAdapterConfiguration;
     private Map<String, String> globalProperties;
     private MQTTAdapterPublisher mqttAdapterPublisher;
+    private MQTTAsyncAdapterPublisher mqttAsyncAdapterPublisher;
     private int connectionKeepAliveInterval;
     private static ThreadPoolExecutor threadPoolExecutor;
     private static final Log log = LogFactory.getLog(MQTTEventAdapter.class);
@@ -122,12 +124,24 @@ public class MQTTEventAdapter implements OutputEventAdapter {
         String clientId = eventAdapterConfiguration.getStaticProperties().get(
                 MQTTEventAdapterConstants.ADAPTER_CONF_CLIENTID);
 
-        mqttAdapterPublisher = new MQTTAdapterPublisher(mqttBrokerConnectionConfiguration, clientId, tenantId);
+        if (mqttBrokerConnectionConfiguration.isAsyncPublish()) {
+            mqttAsyncAdapterPublisher = new MQTTAsyncAdapterPublisher(mqttBrokerConnectionConfiguration, clientId,
+                                                                      tenantId);
+        } else {
+            mqttAdapterPublisher = new MQTTAdapterPublisher(mqttBrokerConnectionConfiguration, clientId, tenantId);
+        }
     }
 
     @Override
     public void publish(Object message, Map<String, String> dynamicProperties) {
         String topic = dynamicProperties.get(MQTTEventAdapterConstants.ADAPTER_MESSAGE_TOPIC);
+        if (mqttAsyncAdapterPublisher != null) {
+            if (!mqttAsyncAdapterPublisher.publish(message.toString(), topic)) {
+                EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, "Outbound queue is full",
+                                            log, tenantId);
+            }
+            return;
+        }
         try {
             threadPoolExecutor.submit(new MQTTSender(topic, message));
         } catch (RejectedExecutionException e) {
@@ -143,6 +157,10 @@ public class MQTTEventAdapter implements OutputEventAdapter {
                 mqttAdapterPublisher.close();
                 mqttAdapterPublisher = null;
             }
+            if (mqttAsyncAdapterPublisher != null) {
+                mqttAsyncAdapterPublisher.close();
+                mqttAsyncAdapterPublisher = null;
+            }
         } catch (OutputEventAdapterException e) {
             log.error("Exception when closing the mqtt publisher connection on Output MQTT Adapter '" +
                               eventAdapterConfiguration.getName() + "'", e);
@@ -172,12 +190,11 @@ public class MQTTEventAdapter implements OutputEventAdapter {
         @Override
         public void run() {
             try {
-                if (!mqttAdapterPublisher.isConnected()) {
-                    synchronized (MQTTEventAdapter.class) {
-                        if (!mqttAdapterPublisher.isConnected()) {
-                            mqttAdapterPublisher.connect();
-                        }
-                    }
+                long timeout = MQTTEventAdapterConstants.CONNECTION_WAIT_TIMEOUT_IN_MILLIS;
+                if (!mqttAdapterPublisher.awaitConnection(timeout)) {
+                    EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message,
+                                                "MQTT client is not connected", log, tenantId);
+                    return;
                 }
                 mqttAdapterPublisher.publish(mqttBrokerConnectionConfiguration.getQos(), message.toString(), topic);
             } catch (Throwable t) {
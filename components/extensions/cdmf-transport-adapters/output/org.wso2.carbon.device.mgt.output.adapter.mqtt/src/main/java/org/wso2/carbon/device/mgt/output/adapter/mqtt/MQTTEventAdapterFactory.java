@@ -94,12 +94,40 @@ public class MQTTEventAdapterFactory extends OutputEventAdapterFactory {
         qos.setOptions(new String[]{"0", "1", "2"});
         qos.setDefaultValue("2");
 
+        // set publish mode
+        Property publishMode = new Property(MQTTEventAdapterConstants.ADAPTER_CONF_PUBLISH_MODE);
+        publishMode.setDisplayName(resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_PUBLISH_MODE));
+        publishMode.setRequired(false);
+        publishMode.setOptions(new String[]{MQTTEventAdapterConstants.PUBLISH_MODE_BLOCKING,
+                MQTTEventAdapterConstants.PUBLISH_MODE_ASYNC});
+        publishMode.setDefaultValue(MQTTEventAdapterConstants.PUBLISH_MODE_BLOCKING);
+        publishMode.setHint(resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_PUBLISH_MODE_HINT));
+
+        // set max in-flight messages of the async publisher
+        Property maxInflight = new Property(MQTTEventAdapterConstants.ADAPTER_CONF_MAX_INFLIGHT);
+        maxInflight.setDisplayName(resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_MAX_INFLIGHT));
+        maxInflight.setRequired(false);
+        maxInflight.setDefaultValue(String.valueOf(MQTTEventAdapterConstants.DEFAULT_MAX_INFLIGHT));
+        maxInflight.setHint(resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_MAX_INFLIGHT_HINT));
+
+        // set outbound queue size of the async publisher
+        Property outboundQueueSize = new Property(MQTTEventAdapterConstants.ADAPTER_CONF_OUTBOUND_QUEUE_SIZE);
+        outboundQueueSize.setDisplayName(
+                resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_OUTBOUND_QUEUE_SIZE));
+        outboundQueueSize.setRequired(false);
+        outboundQueueSize.setDefaultValue(String.valueOf(MQTTEventAdapterConstants.DEFAULT_OUTBOUND_QUEUE_SIZE));
+        outboundQueueSize.setHint(
+                resourceBundle.getString(MQTTEventAdapterConstants.ADAPTER_CONF_OUTBOUND_QUEUE_SIZE_HINT));
+
         staticPropertyList.add(brokerUrl);
         staticPropertyList.add(userName);
         staticPropertyList.add(scopes);
         staticPropertyList.add(clearSession);
         staticPropertyList.add(qos);
         staticPropertyList.add(password);
+        staticPropertyList.add(publishMode);
+        staticPropertyList.add(maxInflight);
+        staticPropertyList.add(outboundQueueSize);
         return staticPropertyList;
     }
 
@@ -59,6 +59,8 @@ public class MQTTAdapterPublisher {
     private static final Log log = LogFactory.getLog(MQTTAdapterPublisher.class);
     private MqttClient mqttClient;
     private MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration;
+    private final MQTTReconnectScheduler.ReconnectHandle reconnectHandle;
+    private final Object connectionMonitor = new Object();
     String clientId;
     int tenantId;
 
@@ -69,40 +71,85 @@ public class MQTTAdapterPublisher {
             this.clientId = MqttClient.generateClientId();
         }
         this.mqttBrokerConnectionConfiguration = mqttBrokerConnectionConfiguration;
+        this.reconnectHandle = MQTTReconnectScheduler.register(mqttBrokerConnectionConfiguration.getAdapterName(),
+                MQTTEventAdapterConstants.INITIAL_RECONNECT_DELAY_IN_MILLIS,
+                MQTTEventAdapterConstants.MAX_RECONNECT_DELAY_IN_MILLIS, new MQTTReconnectScheduler.Connector() {
+                    @Override
+                    public boolean connect() {
+                        return reconnect();
+                    }
+                });
         connect();
     }
 
-    public void connect() {
+    private void connect() {
         if (clientId == null || clientId.trim().isEmpty()) {
             clientId = MqttClient.generateClientId();
         }
-        boolean cleanSession = mqttBrokerConnectionConfiguration.isCleanSession();
-        int keepAlive = mqttBrokerConnectionConfiguration.getKeepAlive();
         String temp_directory = System.getProperty(MQTTEventAdapterConstants.ADAPTER_TEMP_DIRECTORY_NAME);
         MqttDefaultFilePersistence dataStore = new MqttDefaultFilePersistence(temp_directory);
         try {
-            MqttConnectOptions connectionOptions = new MqttConnectOptions();
-            connectionOptions.setCleanSession(cleanSession);
-            connectionOptions.setKeepAliveInterval(keepAlive);
-            if (mqttBrokerConnectionConfiguration.getUsername() != null) {
-                connectionOptions.setUserName(getToken());
-                connectionOptions.setPassword(MQTTEventAdapterConstants.DEFAULT_PASSWORD.toCharArray());
-            }
+            MqttConnectOptions connectionOptions = createConnectOptions(mqttBrokerConnectionConfiguration, tenantId);
             // Construct an MQTT blocking mode client
             mqttClient = new MqttClient(mqttBrokerConnectionConfiguration.getBrokerUrl(), clientId, dataStore);
             mqttClient.connect(connectionOptions);
-
+            reconnectHandle.connected();
         } catch (MqttException e) {
             log.error("Error occurred when constructing MQTT client for broker url : "
                               + mqttBrokerConnectionConfiguration.getBrokerUrl(), e);
+            handleConnectionFailure(mqttBrokerConnectionConfiguration, tenantId, e);
             handleException(e);
         }
     }
 
+    /**
+     * Makes a single attempt to connect the existing client again. Runs on the reconnect scheduler only.
+     */
+    private boolean reconnect() {
+        if (!mqttClient.isConnected()) {
+            try {
+                mqttClient.connect(createConnectOptions(mqttBrokerConnectionConfiguration, tenantId));
+            } catch (MqttException e) {
+                handleConnectionFailure(mqttBrokerConnectionConfiguration, tenantId, e);
+                log.error("Error occurred when connecting to MQTT server : " + mqttClient.getServerURI(), e);
+                return false;
+            }
+        }
+        synchronized (connectionMonitor) {
+            connectionMonitor.notifyAll();
+        }
+        return true;
+    }
+
     public boolean isConnected() {
         return mqttClient.isConnected();
     }
 
+    public MQTTConnectionState getConnectionState() {
+        return reconnectHandle.getState();
+    }
+
+    /**
+     * Requests a reconnection if the client is not connected and waits for it up to the given time.
+     *
+     * @return true if the client is connected.
+     */
+    public boolean awaitConnection(long timeout) throws InterruptedException {
+        if (mqttClient.isConnected()) {
+            return true;
+        }
+        reconnectHandle.reconnect();
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (connectionMonitor) {
+            long remaining = timeout;
+            while (!mqttClient.isConnected() && remaining > 0) {
+                connectionMonitor.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+        return mqttClient.isConnected();
+    }
+
     public void publish(int qos, String payload, String topic) {
         try {
             // Create and configure a message
@@ -127,6 +174,7 @@ public class MQTTAdapterPublisher {
     }
 
     public void close() throws OutputEventAdapterException {
+        reconnectHandle.cancel();
         try {
             mqttClient.disconnect(1000);
             mqttClient.close();
@@ -138,16 +186,76 @@ public class MQTTAdapterPublisher {
     private void handleException(MqttException e) {
         //Check for Client not connected exception code and throw ConnectionUnavailableException
         if (e.getReasonCode() == 32104) {
+            reconnectHandle.reconnect();
             throw new ConnectionUnavailableException(e);
         } else {
             throw new OutputEventAdapterRuntimeException(e);
         }
     }
 
-    private String getToken() {
-        String username = this.mqttBrokerConnectionConfiguration.getUsername();
-        String password = this.mqttBrokerConnectionConfiguration.getPassword();
-        String dcrUrlString = this.mqttBrokerConnectionConfiguration.getDcrUrl();
+    /**
+     * Builds the options used to connect to the broker. When broker credentials are configured an access token is
+     * included, which is reused across connections for as long as it is valid, so this should be called for every
+     * (re)connection.
+     */
+    static MqttConnectOptions createConnectOptions(MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration,
+                                                   int tenantId) {
+        MqttConnectOptions connectionOptions = new MqttConnectOptions();
+        connectionOptions.setCleanSession(mqttBrokerConnectionConfiguration.isCleanSession());
+        connectionOptions.setKeepAliveInterval(mqttBrokerConnectionConfiguration.getKeepAlive());
+        if (mqttBrokerConnectionConfiguration.getUsername() != null) {
+            connectionOptions.setUserName(getToken(mqttBrokerConnectionConfiguration, tenantId));
+            connectionOptions.setPassword(MQTTEventAdapterConstants.DEFAULT_PASSWORD.toCharArray());
+        }
+        return connectionOptions;
+    }
+
+    /**
+     * Forgets the cached access token when the broker rejected the connection due to it.
+     */
+    static void handleConnectionFailure(MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration,
+                                        int tenantId, MqttException e) {
+        if (e.getReasonCode() == MqttException.REASON_CODE_FAILED_AUTHENTICATION
+                || e.getReasonCode() == MqttException.REASON_CODE_NOT_AUTHORIZED) {
+            MQTTClientCredentials.invalidateAccessToken(getCredentialsKey(mqttBrokerConnectionConfiguration, tenantId));
+        }
+    }
+
+    private static String getCredentialsKey(MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration,
+                                            int tenantId) {
+        return mqttBrokerConnectionConfiguration.getAdapterName() + "@" + tenantId;
+    }
+
+    private static String getToken(MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration, int tenantId) {
+        String credentialsKey = getCredentialsKey(mqttBrokerConnectionConfiguration, tenantId);
+        MQTTClientCredentials credentials = MQTTClientCredentials.get(credentialsKey);
+        if (credentials != null) {
+            String accessToken = credentials.getAccessToken();
+            if (accessToken != null) {
+                return accessToken;
+            }
+        } else {
+            credentials = registerClient(mqttBrokerConnectionConfiguration, tenantId);
+            MQTTClientCredentials.put(credentialsKey, credentials);
+        }
+        try {
+            AccessTokenInfo accessTokenInfo = getToken(mqttBrokerConnectionConfiguration, tenantId,
+                                                       credentials.getClientId(), credentials.getClientSecret());
+            credentials.setAccessToken(accessTokenInfo.getAccessToken(), accessTokenInfo.getExpiresIn());
+            return accessTokenInfo.getAccessToken();
+        } catch (JWTClientException | UserStoreException e) {
+            // the registered client may have been removed, so register again on the next attempt.
+            MQTTClientCredentials.invalidate(credentialsKey);
+            log.error("Failed to create an oauth token with jwt grant type.", e);
+        }
+        throw new OutputEventAdapterRuntimeException("Invalid configuration for mqtt publisher");
+    }
+
+    private static MQTTClientCredentials registerClient(
+            MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration, int tenantId) {
+        String username = mqttBrokerConnectionConfiguration.getUsername();
+        String password = mqttBrokerConnectionConfiguration.getPassword();
+        String dcrUrlString = mqttBrokerConnectionConfiguration.getDcrUrl();
 
         if (dcrUrlString != null && !dcrUrlString.isEmpty()) {
             try {
@@ -185,7 +293,7 @@ public class MQTTAdapterPublisher {
                             JSONObject jsonPayload = (JSONObject) jsonParser.parse(response);
                             String clientId = (String) jsonPayload.get(MQTTEventAdapterConstants.CLIENT_ID);
                             String clientSecret = (String) jsonPayload.get(MQTTEventAdapterConstants.CLIENT_SECRET);
-                            return getToken(clientId, clientSecret);
+                            return new MQTTClientCredentials(clientId, clientSecret);
                         }
                     } catch (ParseException e) {
                         String msg = "error occurred while parsing generating token for the adapter";
@@ -196,14 +304,13 @@ public class MQTTAdapterPublisher {
                 throw new OutputEventAdapterRuntimeException("Invalid dcrUrl : " + dcrUrlString);
             } catch (KeyManagementException | NoSuchAlgorithmException | KeyStoreException | IOException e) {
                 throw new OutputEventAdapterRuntimeException("Failed to create an https connection.", e);
-            } catch (JWTClientException | UserStoreException   e) {
-                log.error("Failed to create an oauth token with jwt grant type.", e);
             }
         }
         throw new OutputEventAdapterRuntimeException("Invalid configuration for mqtt publisher");
     }
 
-    private String getToken(String clientId, String clientSecret)
+    private static AccessTokenInfo getToken(MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration,
+                                            int tenantId, String clientId, String clientSecret)
             throws UserStoreException, JWTClientException {
         PrivilegedCarbonContext.startTenantFlow();
         PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
@@ -218,15 +325,13 @@ public class MQTTAdapterPublisher {
 
             JWTClientManagerService jwtClientManagerService =
                     OutputAdapterServiceDataHolder.getJwtClientManagerService();
-            AccessTokenInfo accessTokenInfo = jwtClientManagerService.getJWTClient().getAccessToken(
-                    clientId, clientSecret, username, scopes);
-            return accessTokenInfo.getAccessToken();
+            return jwtClientManagerService.getJWTClient().getAccessToken(clientId, clientSecret, username, scopes);
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
         }
     }
 
-    private String getBase64Encode(String key, String value) {
+    private static String getBase64Encode(String key, String value) {
         return new String(Base64.encodeBase64((key + ":" + value).getBytes()));
     }
 
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.output.adapter.mqtt.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
+import org.wso2.carbon.event.output.adapter.core.EventAdapterUtil;
+import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterException;
+import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterRuntimeException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non blocking MQTT publisher. Messages are placed on a bounded outbound queue and a dispatcher thread drains them
+ * in batches, keeping up to the configured number of publishes in flight instead of waiting for each acknowledgement
+ * in turn. When the queue is full, callers are held back for a short while and the message is dropped if no space
+ * frees up. Lost connections are re-established by the {@link MQTTReconnectScheduler}, while the dispatcher holds on
+ * to pending messages until the client is connected again.
+ */
+public class MQTTAsyncAdapterPublisher {
+
+    private static final Log log = LogFactory.getLog(MQTTAsyncAdapterPublisher.class);
+
+    private final MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration;
+    private final int tenantId;
+    private final MqttAsyncClient mqttClient;
+    private final BlockingQueue<OutboundMessage> outboundQueue;
+    private final Semaphore inflightPermits;
+    private final MQTTReconnectScheduler.ReconnectHandle reconnectHandle;
+    private final Object connectionMonitor = new Object();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public MQTTAsyncAdapterPublisher(MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration,
+                                     String clientId, int tenantId) {
+        this.mqttBrokerConnectionConfiguration = mqttBrokerConnectionConfiguration;
+        this.tenantId = tenantId;
+        if (clientId == null || clientId.trim().isEmpty()) {
+            clientId = MqttClient.generateClientId();
+        }
+        String tempDirectory = System.getProperty(MQTTEventAdapterConstants.ADAPTER_TEMP_DIRECTORY_NAME);
+        try {
+            mqttClient = new MqttAsyncClient(mqttBrokerConnectionConfiguration.getBrokerUrl(), clientId,
+                                             new MqttDefaultFilePersistence(tempDirectory));
+        } catch (MqttException e) {
+            throw new OutputEventAdapterRuntimeException("Error occurred when constructing MQTT client for broker " +
+                                                                 "url : " + mqttBrokerConnectionConfiguration
+                    .getBrokerUrl(), e);
+        }
+        mqttClient.setCallback(new MqttCallback() {
+            @Override
+            public void connectionLost(Throwable cause) {
+                log.warn("Output MQTT Adapter '" + getAdapterName() + "' lost the connection to "
+                                 + mqttClient.getServerURI() + ", reconnecting", cause);
+                reconnectHandle.reconnect();
+            }
+
+            @Override
+            public void messageArrived(String topic, MqttMessage message) {
+                // publisher does not subscribe to any topic.
+            }
+
+            @Override
+            public void deliveryComplete(IMqttDeliveryToken token) {
+                // acknowledgements are handled by the listener given to each publish.
+            }
+        });
+        outboundQueue = new ArrayBlockingQueue<>(mqttBrokerConnectionConfiguration.getOutboundQueueSize());
+        inflightPermits = new Semaphore(mqttBrokerConnectionConfiguration.getMaxInflight());
+        reconnectHandle = MQTTReconnectScheduler.register(clientId,
+                MQTTEventAdapterConstants.INITIAL_RECONNECT_DELAY_IN_MILLIS,
+                MQTTEventAdapterConstants.MAX_RECONNECT_DELAY_IN_MILLIS, new MQTTReconnectScheduler.Connector() {
+                    @Override
+                    public boolean connect() {
+                        return connectClient();
+                    }
+                });
+        dispatcher = new Thread(new Dispatcher(), "MQTTOutputAdapterPublisher-" + getAdapterName());
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        reconnectHandle.reconnect();
+    }
+
+    /**
+     * Queues a message for publishing.
+     *
+     * @return false if the message was dropped because the outbound queue stayed full.
+     */
+    public boolean publish(String payload, String topic) {
+        OutboundMessage message = new OutboundMessage(topic, payload);
+        if (outboundQueue.offer(message)) {
+            return true;
+        }
+        try {
+            return outboundQueue.offer(message, MQTTEventAdapterConstants.OUTBOUND_QUEUE_OFFER_TIMEOUT_IN_MILLIS,
+                                       TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isConnected() {
+        return mqttClient.isConnected();
+    }
+
+    public MQTTConnectionState getConnectionState() {
+        return reconnectHandle.getState();
+    }
+
+    public void close() throws OutputEventAdapterException {
+        running = false;
+        dispatcher.interrupt();
+        reconnectHandle.cancel();
+        try {
+            dispatcher.join(MQTTEventAdapterConstants.OUTBOUND_QUEUE_OFFER_TIMEOUT_IN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int pending = outboundQueue.size();
+        if (pending > 0) {
+            log.warn("Output MQTT Adapter '" + getAdapterName() + "' is closing with " + pending +
+                             " unpublished messages, they will be dropped");
+            outboundQueue.clear();
+        }
+        try {
+            if (mqttClient.isConnected()) {
+                mqttClient.disconnect(1000).waitForCompletion(MQTTEventAdapterConstants.CONNECTION_TIMEOUT_IN_MILLIS);
+            }
+            mqttClient.close();
+        } catch (MqttException e) {
+            throw new OutputEventAdapterException(e);
+        }
+    }
+
+    private String getAdapterName() {
+        return mqttBrokerConnectionConfiguration.getAdapterName();
+    }
+
+    /**
+     * Makes a single connection attempt. Runs on the reconnect scheduler only.
+     */
+    private boolean connectClient() {
+        if (!mqttClient.isConnected()) {
+            try {
+                IMqttToken token = mqttClient.connect(MQTTAdapterPublisher.createConnectOptions(
+                        mqttBrokerConnectionConfiguration, tenantId));
+                token.waitForCompletion(MQTTEventAdapterConstants.CONNECTION_TIMEOUT_IN_MILLIS);
+            } catch (MqttException e) {
+                MQTTAdapterPublisher.handleConnectionFailure(mqttBrokerConnectionConfiguration, tenantId, e);
+                log.error("Error occurred when connecting Output MQTT Adapter '" + getAdapterName() + "' to " +
+                                  mqttBrokerConnectionConfiguration.getBrokerUrl() + ", retrying", e);
+            } catch (RuntimeException e) {
+                log.error("Error occurred when connecting Output MQTT Adapter '" + getAdapterName() + "' to " +
+                                  mqttBrokerConnectionConfiguration.getBrokerUrl() + ", retrying", e);
+            }
+        }
+        if (mqttClient.isConnected()) {
+            synchronized (connectionMonitor) {
+                connectionMonitor.notifyAll();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drains the outbound queue and issues the publishes back to back, only waiting when the in-flight window is
+     * full or the client is disconnected.
+     */
+    private class Dispatcher implements Runnable {
+
+        @Override
+        public void run() {
+            List<OutboundMessage> batch = new ArrayList<>(MQTTEventAdapterConstants.PUBLISH_BATCH_SIZE);
+            while (running) {
+                try {
+                    OutboundMessage first = outboundQueue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    outboundQueue.drainTo(batch, MQTTEventAdapterConstants.PUBLISH_BATCH_SIZE - 1);
+                    for (OutboundMessage message : batch) {
+                        send(message);
+                    }
+                } catch (InterruptedException e) {
+                    if (running) {
+                        log.warn("Publisher of Output MQTT Adapter '" + getAdapterName() + "' was interrupted");
+                    }
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void send(final OutboundMessage message) throws InterruptedException {
+            awaitConnection();
+            inflightPermits.acquire();
+            MqttMessage mqttMessage = new MqttMessage(message.payload.getBytes(StandardCharsets.UTF_8));
+            mqttMessage.setQos(mqttBrokerConnectionConfiguration.getQos());
+            try {
+                mqttClient.publish(message.topic, mqttMessage, null, new IMqttActionListener() {
+                    @Override
+                    public void onSuccess(IMqttToken asyncActionToken) {
+                        inflightPermits.release();
+                    }
+
+                    @Override
+                    public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                        inflightPermits.release();
+                        EventAdapterUtil.logAndDrop(getAdapterName(), message.payload, null, exception, log,
+                                                    tenantId);
+                    }
+                });
+            } catch (MqttException e) {
+                inflightPermits.release();
+                if (e.getReasonCode() == MqttException.REASON_CODE_CLIENT_NOT_CONNECTED) {
+                    reconnectHandle.reconnect();
+                }
+                EventAdapterUtil.logAndDrop(getAdapterName(), message.payload, null, e, log, tenantId);
+            }
+        }
+
+        private void awaitConnection() throws InterruptedException {
+            while (!mqttClient.isConnected()) {
+                reconnectHandle.reconnect();
+                synchronized (connectionMonitor) {
+                    if (!mqttClient.isConnected()) {
+                        connectionMonitor.wait(MQTTEventAdapterConstants.INITIAL_RECONNECT_DELAY_IN_MILLIS);
+                    }
+                }
+                if (!running) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    private static class OutboundMessage {
+
+        private final String topic;
+        private final String payload;
+
+        private OutboundMessage(String topic, String payload) {
+            this.topic = topic;
+            this.payload = payload;
+        }
+    }
+}
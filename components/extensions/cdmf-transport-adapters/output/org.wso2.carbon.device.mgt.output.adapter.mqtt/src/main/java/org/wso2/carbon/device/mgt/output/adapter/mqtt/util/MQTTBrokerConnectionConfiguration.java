@@ -17,6 +17,8 @@
 */
 package org.wso2.carbon.device.mgt.output.adapter.mqtt.util;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration;
 import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterException;
 
@@ -24,6 +26,8 @@ import java.util.Map;
 
 public class MQTTBrokerConnectionConfiguration {
 
+    private static final Log log = LogFactory.getLog(MQTTBrokerConnectionConfiguration.class);
+
     private String adapterName;
     private String username;
     private String password;
@@ -35,6 +39,9 @@ public class MQTTBrokerConnectionConfiguration {
     private int keepAlive;
     private boolean globalCredentailSet;
     private int qos;
+    private boolean asyncPublish;
+    private int maxInflight;
+    private int outboundQueueSize;
 
     public String getTokenUrl() {
         return tokenUrl;
@@ -79,6 +86,19 @@ public class MQTTBrokerConnectionConfiguration {
     public int getQos() {
         return qos;
     }
+
+    public boolean isAsyncPublish() {
+        return asyncPublish;
+    }
+
+    public int getMaxInflight() {
+        return maxInflight;
+    }
+
+    public int getOutboundQueueSize() {
+        return outboundQueueSize;
+    }
+
     public MQTTBrokerConnectionConfiguration(OutputEventAdapterConfiguration eventAdapterConfiguration,
                                              Map<String, String> globalProperties) {
         adapterName = eventAdapterConfiguration.getName();
@@ -122,8 +142,52 @@ public class MQTTBrokerConnectionConfiguration {
             qosVal = eventAdapterConfiguration.getStaticProperties().get(MQTTEventAdapterConstants.ADAPTER_MESSAGE_QOS);
             this.qos = Integer.parseInt(qosVal);
         }
+        String publishMode = getProperty(eventAdapterConfiguration, globalProperties,
+                                         MQTTEventAdapterConstants.ADAPTER_CONF_PUBLISH_MODE);
+        this.asyncPublish = MQTTEventAdapterConstants.PUBLISH_MODE_ASYNC.equalsIgnoreCase(publishMode);
+        this.maxInflight = getIntProperty(eventAdapterConfiguration, globalProperties,
+                                          MQTTEventAdapterConstants.ADAPTER_CONF_MAX_INFLIGHT,
+                                          MQTTEventAdapterConstants.DEFAULT_MAX_INFLIGHT);
+        if (maxInflight > MQTTEventAdapterConstants.MAX_INFLIGHT_LIMIT) {
+            log.warn("Output MQTT Adapter '" + adapterName + "' is configured with " + maxInflight + " in-flight " +
+                             "messages, which is more than the client supports. Using " +
+                             MQTTEventAdapterConstants.MAX_INFLIGHT_LIMIT + " instead");
+            maxInflight = MQTTEventAdapterConstants.MAX_INFLIGHT_LIMIT;
+        }
+        this.outboundQueueSize = getIntProperty(eventAdapterConfiguration, globalProperties,
+                                                MQTTEventAdapterConstants.ADAPTER_CONF_OUTBOUND_QUEUE_SIZE,
+                                                MQTTEventAdapterConstants.DEFAULT_OUTBOUND_QUEUE_SIZE);
+    }
 
+    /**
+     * Reads an adapter property, preferring the value given for the adapter over the global one.
+     */
+    private static String getProperty(OutputEventAdapterConfiguration eventAdapterConfiguration,
+                                      Map<String, String> globalProperties, String name) {
+        String value = eventAdapterConfiguration.getStaticProperties().get(name);
+        if (value == null || value.isEmpty()) {
+            value = globalProperties.get(name);
+        }
+        return value;
+    }
 
+    private int getIntProperty(OutputEventAdapterConfiguration eventAdapterConfiguration,
+                               Map<String, String> globalProperties, String name, int defaultValue) {
+        String value = getProperty(eventAdapterConfiguration, globalProperties, name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue > 0) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the default value.
+        }
+        log.warn("Invalid value '" + value + "' for property '" + name + "' of Output MQTT Adapter '" + adapterName
+                         + "', using the default value " + defaultValue);
+        return defaultValue;
     }
 
 }
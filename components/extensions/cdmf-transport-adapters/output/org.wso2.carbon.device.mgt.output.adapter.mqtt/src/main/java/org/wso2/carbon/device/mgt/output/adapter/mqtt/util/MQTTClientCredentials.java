@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.output.adapter.mqtt.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OAuth client registered for an adapter and the last access token issued to it. These are kept across
+ * reconnections, so that a client only registers again, or requests a new token, when the cached one can no longer
+ * be used.
+ */
+public class MQTTClientCredentials {
+
+    private static final Map<String, MQTTClientCredentials> credentialsCache = new ConcurrentHashMap<>();
+
+    private final String clientId;
+    private final String clientSecret;
+    private volatile String accessToken;
+    private volatile long accessTokenExpiryTime;
+
+    public MQTTClientCredentials(String clientId, String clientSecret) {
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+    }
+
+    public static MQTTClientCredentials get(String key) {
+        return credentialsCache.get(key);
+    }
+
+    public static void put(String key, MQTTClientCredentials credentials) {
+        credentialsCache.put(key, credentials);
+    }
+
+    public static void invalidate(String key) {
+        credentialsCache.remove(key);
+    }
+
+    /**
+     * Forgets the access token, for instance when the broker rejected it.
+     */
+    public static void invalidateAccessToken(String key) {
+        MQTTClientCredentials credentials = credentialsCache.get(key);
+        if (credentials != null) {
+            credentials.accessToken = null;
+        }
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    /**
+     * @return the cached access token or null if there is none which is valid for a while longer.
+     */
+    public String getAccessToken() {
+        String token = accessToken;
+        if (token != null && accessTokenExpiryTime - System.currentTimeMillis()
+                > MQTTEventAdapterConstants.ACCESS_TOKEN_EXPIRY_MARGIN_IN_MILLIS) {
+            return token;
+        }
+        return null;
+    }
+
+    /**
+     * @param expiresIn validity period of the token in seconds, tokens without a validity period are not cached.
+     */
+    public void setAccessToken(String accessToken, long expiresIn) {
+        if (expiresIn <= 0) {
+            this.accessToken = null;
+            return;
+        }
+        this.accessTokenExpiryTime = System.currentTimeMillis() + expiresIn * 1000;
+        this.accessToken = accessToken;
+    }
+}
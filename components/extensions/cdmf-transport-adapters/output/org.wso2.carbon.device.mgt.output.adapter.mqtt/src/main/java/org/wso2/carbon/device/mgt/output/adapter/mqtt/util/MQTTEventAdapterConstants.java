@@ -56,6 +56,27 @@ public final class MQTTEventAdapterConstants {
     public static final String ADAPTER_KEEP_ALIVE_TIME_NAME = "keepAliveTimeInMillis";
     public static final String ADAPTER_EXECUTOR_JOB_QUEUE_SIZE_NAME = "jobQueueSize";
 
+    public static final String ADAPTER_CONF_PUBLISH_MODE = "publishMode";
+    public static final String ADAPTER_CONF_PUBLISH_MODE_HINT = "publishMode.hint";
+    public static final String PUBLISH_MODE_BLOCKING = "blocking";
+    public static final String PUBLISH_MODE_ASYNC = "async";
+    public static final String ADAPTER_CONF_MAX_INFLIGHT = "maxInflight";
+    public static final String ADAPTER_CONF_MAX_INFLIGHT_HINT = "maxInflight.hint";
+    // in-flight window of the bundled paho client, publishing beyond it fails with REASON_CODE_MAX_INFLIGHT.
+    public static final int MAX_INFLIGHT_LIMIT = 10;
+    public static final int DEFAULT_MAX_INFLIGHT = 10;
+    public static final String ADAPTER_CONF_OUTBOUND_QUEUE_SIZE = "outboundQueueSize";
+    public static final String ADAPTER_CONF_OUTBOUND_QUEUE_SIZE_HINT = "outboundQueueSize.hint";
+    public static final int DEFAULT_OUTBOUND_QUEUE_SIZE = 10000;
+    public static final int PUBLISH_BATCH_SIZE = 100;
+    public static final long OUTBOUND_QUEUE_OFFER_TIMEOUT_IN_MILLIS = 500;
+    public static final long INITIAL_RECONNECT_DELAY_IN_MILLIS = 1000;
+    public static final long MAX_RECONNECT_DELAY_IN_MILLIS = 60000;
+    public static final long CONNECTION_TIMEOUT_IN_MILLIS = 30000;
+    public static final long CONNECTION_WAIT_TIMEOUT_IN_MILLIS = 2000;
+    public static final int MAX_CONCURRENT_RECONNECTS = 4;
+    public static final long ACCESS_TOKEN_EXPIRY_MARGIN_IN_MILLIS = 60000;
+
     public static final String DEFAULT_CALLBACK = "";
     public static final String DEFAULT_PASSWORD = "";
     public static final String GRANT_TYPE = "urn:ietf:params:oauth:grant-type:jwt-bearer";
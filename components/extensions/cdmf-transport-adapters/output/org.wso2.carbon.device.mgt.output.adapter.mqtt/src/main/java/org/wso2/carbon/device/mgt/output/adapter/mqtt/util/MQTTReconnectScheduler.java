@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.output.adapter.mqtt.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reconnects the MQTT clients of all adapters on a small shared pool of threads. Attempts are delayed with a
+ * randomized exponential back off, so that clients which lost their connection together, e.g. when the broker is
+ * restarted, do not reconnect in lockstep, and the size of the pool caps how many attempts run at the same time.
+ */
+public final class MQTTReconnectScheduler {
+
+    private static final Log log = LogFactory.getLog(MQTTReconnectScheduler.class);
+    private static final int MAX_BACKOFF_EXPONENT = 20;
+
+    private static final ScheduledExecutorService executor = Executors.newScheduledThreadPool(
+            MQTTEventAdapterConstants.MAX_CONCURRENT_RECONNECTS, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "MQTTReconnectScheduler-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private MQTTReconnectScheduler() {
+    }
+
+    /**
+     * Establishes the connection of a client.
+     */
+    public interface Connector {
+
+        /**
+         * Attempts to connect once.
+         *
+         * @return true if the client is connected.
+         */
+        boolean connect();
+    }
+
+    /**
+     * Creates the handle through which the given client requests reconnections.
+     *
+     * @param name         name of the client, used in logs.
+     * @param initialDelay upper bound of the delay before the first attempt, in milliseconds.
+     * @param maxDelay     upper bound of the delay between attempts, in milliseconds.
+     */
+    public static ReconnectHandle register(String name, long initialDelay, long maxDelay, Connector connector) {
+        return new ReconnectHandle(name, initialDelay, maxDelay, connector);
+    }
+
+    /**
+     * Reconnection state of a single client. At most one attempt of a client is scheduled at any time.
+     */
+    public static class ReconnectHandle implements Runnable {
+
+        private final String name;
+        private final long initialDelay;
+        private final long maxDelay;
+        private final Connector connector;
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile MQTTConnectionState state = MQTTConnectionState.DISCONNECTED;
+        private volatile boolean cancelled;
+        private int attempts;
+
+        private ReconnectHandle(String name, long initialDelay, long maxDelay, Connector connector) {
+            this.name = name;
+            this.initialDelay = initialDelay;
+            this.maxDelay = maxDelay;
+            this.connector = connector;
+        }
+
+        /**
+         * Schedules a connection attempt unless one is already scheduled or in progress.
+         */
+        public void reconnect() {
+            if (cancelled || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            attempts = 0;
+            schedule();
+        }
+
+        /**
+         * Stops scheduling further attempts. An attempt which is already in progress is allowed to finish.
+         */
+        public void cancel() {
+            cancelled = true;
+            setState(MQTTConnectionState.DISCONNECTED);
+        }
+
+        public MQTTConnectionState getState() {
+            return state;
+        }
+
+        /**
+         * Marks the client as connected, for connections established outside of the scheduler.
+         */
+        public void connected() {
+            if (!cancelled) {
+                setState(MQTTConnectionState.CONNECTED);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                scheduled.set(false);
+                return;
+            }
+            setState(MQTTConnectionState.CONNECTING);
+            boolean connected;
+            try {
+                connected = connector.connect();
+            } catch (RuntimeException e) {
+                log.error("Error occurred while connecting MQTT client '" + name + "'", e);
+                connected = false;
+            }
+            if (cancelled) {
+                scheduled.set(false);
+                setState(MQTTConnectionState.DISCONNECTED);
+            } else if (connected) {
+                // released before publishing the state, so that a connection lost right away is not missed.
+                scheduled.set(false);
+                setState(MQTTConnectionState.CONNECTED);
+            } else {
+                // the scheduled flag stays set, so that nobody triggers an attempt ahead of the back off.
+                attempts++;
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            setState(MQTTConnectionState.BACKOFF);
+            long delay = nextDelay();
+            if (log.isDebugEnabled()) {
+                log.debug("Connecting MQTT client '" + name + "' in " + delay + " ms");
+            }
+            try {
+                executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.error("Failed to schedule the reconnection of MQTT client '" + name + "'", e);
+                scheduled.set(false);
+                setState(MQTTConnectionState.DISCONNECTED);
+            }
+        }
+
+        /**
+         * Picks a random delay up to the exponentially growing bound of the current attempt.
+         */
+        private long nextDelay() {
+            long bound = initialDelay << Math.min(attempts, MAX_BACKOFF_EXPONENT);
+            if (bound <= 0 || bound > maxDelay) {
+                bound = maxDelay;
+            }
+            return ThreadLocalRandom.current().nextLong(bound + 1);
+        }
+
+        private void setState(MQTTConnectionState state) {
+            if (this.state != state && log.isDebugEnabled()) {
+                log.debug("MQTT client '" + name + "' is " + state);
+            }
+            this.state = state;
+        }
+    }
+}
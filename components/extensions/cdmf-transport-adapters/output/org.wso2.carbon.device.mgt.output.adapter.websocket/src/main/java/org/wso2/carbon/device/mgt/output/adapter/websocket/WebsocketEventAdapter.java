@@ -20,15 +20,18 @@ package org.wso2.carbon.device.mgt.output.adapter.websocket;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
-import org.wso2.carbon.device.mgt.output.adapter.websocket.constants.WebsocketConstants;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.filter.FilterableEvent;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.filter.JsonEventView;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.filter.WSO2EventView;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.internal.WebsocketEventAdaptorServiceDataHolder;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.SessionFilterGroup;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.SlowConsumerPolicy;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.StreamSessionIndex;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebsocketEventAdapterConstants;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebSocketSessionRequest;
 import org.wso2.carbon.event.output.adapter.core.EventAdapterUtil;
@@ -40,12 +43,9 @@ import org.wso2.carbon.event.output.adapter.core.exception.TestConnectionNotSupp
 import org.wso2.carbon.event.stream.core.EventStreamService;
 import org.wso2.carbon.event.stream.core.exception.EventStreamConfigurationException;
 
-import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -186,6 +186,26 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
         } else {
             queueSize = WebsocketEventAdapterConstants.EVENTS_QUEUE_SIZE;
         }
+
+        int sessionQueueSize = WebsocketEventAdapterConstants.SESSION_OUTBOUND_QUEUE_SIZE;
+        if (globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_SESSION_QUEUE_SIZE_NAME) != null) {
+            try {
+                sessionQueueSize = Integer.parseInt(
+                        globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_SESSION_QUEUE_SIZE_NAME));
+            } catch (NumberFormatException e) {
+                log.error("String does not have the appropriate format for conversion." + e.getMessage());
+            }
+            if (sessionQueueSize <= 0) {
+                log.warn("Invalid value " + sessionQueueSize + " for "
+                                 + WebsocketEventAdapterConstants.ADAPTER_SESSION_QUEUE_SIZE_NAME + ", using the default "
+                                 + WebsocketEventAdapterConstants.SESSION_OUTBOUND_QUEUE_SIZE);
+                sessionQueueSize = WebsocketEventAdapterConstants.SESSION_OUTBOUND_QUEUE_SIZE;
+            }
+        }
+        SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.fromString(
+                globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_SLOW_CONSUMER_POLICY_NAME));
+        WebsocketEventAdaptorServiceDataHolder.getUIOutputCallbackRegisterServiceImpl()
+                .setSessionQueueConfiguration(sessionQueueSize, slowConsumerPolicy);
     }
 
     @Override
@@ -261,11 +281,8 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
         eventValues[WebsocketEventAdapterConstants.INDEX_ONE] = System.currentTimeMillis();
         streamSpecificEvents.add(eventValues);
 
-        // fetch all valid sessions checked against any queryParameters provided when subscribing.
-        CopyOnWriteArrayList<WebSocketSessionRequest> validSessions = getValidSessions(message);
-
         try {
-            executorService.execute(new WebSocketSender(validSessions, eventString));
+            executorService.execute(new WebSocketSender(message, eventString));
         } catch (RejectedExecutionException e) {
             EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, "Job queue is full", e, log,
                     tenantId);
@@ -329,171 +346,47 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
     }
 
     /**
-     * Fetches all valid web-socket sessions from the entire pool of subscribed sessions. The validity is checked
-     * against any queryString provided when subscribing to the web-socket endpoint.
+     * Builds the read-only view of the event which is evaluated against the filters of all subscribed sessions. The
+     * event is processed only once regardless of the number of sessions.
      *
      * @param event the current event received and that which needs to be published to subscribed sessions.
-     * @return a list of all validated web-socket sessions against the queryString values.
+     * @return the view of the event.
      */
-    private CopyOnWriteArrayList<WebSocketSessionRequest> getValidSessions(Object event) {
-        CopyOnWriteArrayList<WebSocketSessionRequest> validSessions = new CopyOnWriteArrayList<>();
-        WebsocketOutputCallbackControllerServiceImpl websocketOutputCallbackControllerServiceImpl =
-                WebsocketEventAdaptorServiceDataHolder.getUIOutputCallbackRegisterServiceImpl();
-        // get all subscribed web-socket sessions.
-        CopyOnWriteArrayList<WebSocketSessionRequest> webSocketSessionUtils =
-                websocketOutputCallbackControllerServiceImpl.getSessions(tenantId, streamId);
-        if (webSocketSessionUtils != null) {
-            for (WebSocketSessionRequest webSocketSessionUtil : webSocketSessionUtils) {
-                boolean isValidSession;
-                if (event instanceof Event) {
-                    isValidSession = validateEventAgainstSessionFilters((Event) event, webSocketSessionUtil);
-                } else {
-                    isValidSession = validateJsonMessageAgainstEventFilters(event.toString(), webSocketSessionUtil);
-                }
-                if (isValidSession) {
-                    validSessions.add(webSocketSessionUtil);
-                }
-            }
+    private FilterableEvent getFilterableEvent(Object event) {
+        if (event instanceof Event) {
+            return new WSO2EventView((Event) event, streamMetaAttributes, streamCorrelationAttributes,
+                                     streamPayloadAttributes);
         }
-        return validSessions;
-    }
-
-
-    /**
-     * Processes the given session's validity to receive the current "event" against any queryParams that was used at
-     * the time when the web-socket-session is subscribed. This method can be extended to validate the event against
-     * any additional attribute of the given session too.
-     *
-     * @param event                the current event received and that which needs to be published to subscribed
-     *                             sessions.
-     * @param webSocketSessionUtil the session which needs validated for its authenticity to receive this event.
-     * @return "true" if the session is valid to receive the event else "false".
-     */
-    private boolean validateEventAgainstSessionFilters(Event event, WebSocketSessionRequest webSocketSessionUtil) {
-
-        // fetch the queryString Key:Value pair map of the given session.
-        Map<String, String> queryParamValuePairs = webSocketSessionUtil.getQueryParamValuePairs();
-        if (queryParamValuePairs != null && !queryParamValuePairs.isEmpty()) {
-            // fetch the different attribute values received as part of the current event.
-            Object[] eventMetaData = event.getMetaData();
-            Object[] eventCorrelationData = event.getCorrelationData();
-            Object[] eventPayloadData = event.getPayloadData();
-
-            if (streamMetaAttributes != null) {
-                for (int i = 0; i < streamMetaAttributes.size(); i++) {
-                    String attributeName = streamMetaAttributes.get(i).getName();
-                    String queryValue = queryParamValuePairs.get(attributeName);
-
-                    if (queryValue != null &&
-                            (eventMetaData == null || !eventMetaData[i].toString().equals(queryValue))) {
-                        return false;
-                    }
-                }
-            }
-
-            if (streamCorrelationAttributes != null) {
-                for (int i = 0; i < streamCorrelationAttributes.size(); i++) {
-                    String attributeName = streamCorrelationAttributes.get(i).getName();
-                    String queryValue = queryParamValuePairs.get(attributeName);
-
-                    if (queryValue != null &&
-                            (eventCorrelationData == null || !eventCorrelationData[i].toString().equals(queryValue))) {
-                        return false;
-                    }
-                }
-            }
-
-            if (streamPayloadAttributes != null) {
-                for (int i = 0; i < streamPayloadAttributes.size(); i++) {
-                    String attributeName = streamPayloadAttributes.get(i).getName();
-                    String queryValue = queryParamValuePairs.get(attributeName);
-
-                    if (queryValue != null && (eventPayloadData == null || !eventPayloadData[i].toString().equals(
-                            queryValue))) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
-    }
-
-
-    private boolean validateJsonMessageAgainstEventFilters(String jsonMessage, WebSocketSessionRequest webSocketSessionRequest) {
-        Map<String, String> queryParamValuePairs = webSocketSessionRequest.getQueryParamValuePairs();
-        if (queryParamValuePairs != null && !queryParamValuePairs.isEmpty()) {
-            // fetch the different attribute values received as part of the current event.
-            Set<String> queryParams = queryParamValuePairs.keySet();
-            for (String aQueryParam : queryParams) {
-                try {
-
-                    String queryValue = queryParamValuePairs.get(aQueryParam);
-                    if (queryValue != null && !queryValue.trim().isEmpty()) {
-                        JSONObject jsonObject = new JSONObject(jsonMessage);
-                        JSONObject event = jsonObject.getJSONObject(WebsocketConstants.EVENT);
-                        JSONObject data;
-                        if (!event.isNull(WebsocketConstants.META_DATA)) {
-                            data = event.getJSONObject(WebsocketConstants.META_DATA);
-                            if (!data.isNull(aQueryParam)) {
-                                String eventValue = data.get(aQueryParam).toString();
-                                if (eventValue == null || !eventValue.equalsIgnoreCase(queryValue)) {
-                                    return false;
-                                }
-                            }
-
-                        }
-
-                        if (!event.isNull(WebsocketConstants.PAYLOAD_DATA)) {
-                            data = event.getJSONObject(WebsocketConstants.PAYLOAD_DATA);
-                            if (!data.isNull(aQueryParam)) {
-                                String eventValue = data.get(aQueryParam).toString();
-                                if (eventValue == null || !eventValue.equalsIgnoreCase(queryValue)) {
-                                    return false;
-                                }
-                            }
-                        }
-                    }
-                } catch (JSONException e) {
-                    //do nothing - This exception is thrown when the event does not have query parameter.
-                }
-            }
-        }
-        return true;
+        return new JsonEventView(event.toString());
     }
 
     private class WebSocketSender implements Runnable {
 
+        private Object event;
         private String message;
-        private CopyOnWriteArrayList<WebSocketSessionRequest> webSocketSessionUtils;
 
-        public WebSocketSender(CopyOnWriteArrayList<WebSocketSessionRequest> webSocketSessionUtils, String message) {
-            this.webSocketSessionUtils = webSocketSessionUtils;
+        public WebSocketSender(Object event, String message) {
+            this.event = event;
             this.message = message;
         }
 
         /**
-         * When an object implementing interface <code>Runnable</code> is used
-         * to create a thread, starting the thread causes the object's
-         * <code>run</code> method to be called in that separately executing
-         * thread.
-         * <p/>
-         * The general contract of the method <code>run</code> is that it may
-         * take any action whatsoever.
+         * Hands the message over to the outbound queue of every session eligible to receive it. The event is parsed
+         * once, only the filter groups indexed on its values are validated and the actual sending happens
+         * asynchronously per session, hence a slow client does not delay the others.
          *
          * @see Thread#run()
          */
         @Override
         public void run() {
-            if (webSocketSessionUtils != null) {
+            StreamSessionIndex streamSessionIndex = WebsocketEventAdaptorServiceDataHolder
+                    .getUIOutputCallbackRegisterServiceImpl().getSessions(tenantId, streamId);
+            if (streamSessionIndex != null && !streamSessionIndex.isEmpty()) {
                 doLogDroppedMessage = true;
-                for (WebSocketSessionRequest webSocketSessionUtil : webSocketSessionUtils) {
-                    synchronized (WebSocketSessionRequest.class) {
-                        try {
-                            webSocketSessionUtil.getSession().getBasicRemote().sendText(message);
-                        } catch (IOException e) {
-                            EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message,
-                                    "Cannot send to endpoint", e, log, tenantId);
-                        }
+                FilterableEvent filterableEvent = getFilterableEvent(event);
+                for (SessionFilterGroup filterGroup : streamSessionIndex.getMatchingGroups(filterableEvent)) {
+                    for (WebSocketSessionRequest webSocketSessionRequest : filterGroup.getSessions()) {
+                        webSocketSessionRequest.offer(message);
                     }
                 }
             } else if (doLogDroppedMessage) {
@@ -504,4 +397,3 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
         }
     }
 }
-
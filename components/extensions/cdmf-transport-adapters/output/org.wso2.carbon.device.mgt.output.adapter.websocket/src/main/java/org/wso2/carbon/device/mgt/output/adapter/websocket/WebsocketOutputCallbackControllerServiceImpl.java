@@ -20,13 +20,13 @@ package org.wso2.carbon.device.mgt.output.adapter.websocket;
 
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.internal.WebsocketEventAdaptorServiceDataHolder;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.SlowConsumerPolicy;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.StreamSessionIndex;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebSocketSessionRequest;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebsocketEventAdapterConstants;
 
 import javax.websocket.Session;
-import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingDeque;
 
 /**
@@ -34,13 +34,25 @@ import java.util.concurrent.LinkedBlockingDeque;
  */
 public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOutputCallbackControllerService {
 
-    private ConcurrentHashMap<Integer, ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>>>
-            outputEventAdaptorSessionMap;
+    private ConcurrentHashMap<Integer, ConcurrentHashMap<String, StreamSessionIndex>> outputEventAdaptorSessionMap;
+    private volatile int sessionQueueSize = WebsocketEventAdapterConstants.SESSION_OUTBOUND_QUEUE_SIZE;
+    private volatile SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.COALESCE;
 
     public WebsocketOutputCallbackControllerServiceImpl() {
         outputEventAdaptorSessionMap = new ConcurrentHashMap<>();
     }
 
+    /**
+     * Sets the outbound queue configuration applied to the sessions subscribed from now on.
+     *
+     * @param sessionQueueSize   - Maximum number of events queued per session.
+     * @param slowConsumerPolicy - Action taken when the queue of a session is full.
+     */
+    public void setSessionQueueConfiguration(int sessionQueueSize, SlowConsumerPolicy slowConsumerPolicy) {
+        this.sessionQueueSize = sessionQueueSize;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
     /**
      * Used to subscribe the session id and stream id for later web socket connectivity
      *
@@ -56,7 +68,7 @@ public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOu
             version = WebsocketEventAdapterConstants.ADAPTER_UI_DEFAULT_OUTPUT_STREAM_VERSION;
         }
         String streamId = streamName + WebsocketEventAdapterConstants.ADAPTER_UI_COLON + version;
-        ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>> tenantSpecificAdaptorMap =
+        ConcurrentHashMap<String, StreamSessionIndex> tenantSpecificAdaptorMap =
                 outputEventAdaptorSessionMap.get(tenantId);
         if (tenantSpecificAdaptorMap == null) {
             tenantSpecificAdaptorMap = new ConcurrentHashMap<>();
@@ -64,16 +76,17 @@ public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOu
                 tenantSpecificAdaptorMap = outputEventAdaptorSessionMap.get(tenantId);
             }
         }
-        CopyOnWriteArrayList<WebSocketSessionRequest> adapterSpecificSessions = tenantSpecificAdaptorMap.get(streamId);
+        StreamSessionIndex adapterSpecificSessions = tenantSpecificAdaptorMap.get(streamId);
         if (adapterSpecificSessions == null) {
-            adapterSpecificSessions = new CopyOnWriteArrayList<>();
+            adapterSpecificSessions = new StreamSessionIndex();
             if (null != tenantSpecificAdaptorMap.putIfAbsent(streamId, adapterSpecificSessions)) {
                 adapterSpecificSessions = tenantSpecificAdaptorMap.get(streamId);
             }
         }
 
-        WebSocketSessionRequest webSocketSessionUtil = new WebSocketSessionRequest(session);
-        adapterSpecificSessions.add(webSocketSessionUtil);
+        WebSocketSessionRequest webSocketSessionUtil = new WebSocketSessionRequest(session, sessionQueueSize,
+                                                                                   slowConsumerPolicy);
+        adapterSpecificSessions.addSession(webSocketSessionUtil);
     }
 
     /**
@@ -81,10 +94,10 @@ public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOu
      *
      * @param tenantId - Tenant id of the user.
      * @param streamId - Stream name and version which user register to.
-     * @return the sessions list.
+     * @return the sessions of the stream indexed by their filters.
      */
-    public CopyOnWriteArrayList<WebSocketSessionRequest> getSessions(int tenantId, String streamId) {
-        ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>> tenantSpecificAdaptorMap
+    public StreamSessionIndex getSessions(int tenantId, String streamId) {
+        ConcurrentHashMap<String, StreamSessionIndex> tenantSpecificAdaptorMap
                 = outputEventAdaptorSessionMap.get(tenantId);
         if (tenantSpecificAdaptorMap != null) {
             return tenantSpecificAdaptorMap.get(streamId);
@@ -123,22 +136,14 @@ public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOu
             version = WebsocketEventAdapterConstants.ADAPTER_UI_DEFAULT_OUTPUT_STREAM_VERSION;
         }
         String id = streamName + WebsocketEventAdapterConstants.ADAPTER_UI_COLON + version;
-        ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>> tenantSpecificAdaptorMap
+        ConcurrentHashMap<String, StreamSessionIndex> tenantSpecificAdaptorMap
                 = outputEventAdaptorSessionMap.get(tenantId);
         if (tenantSpecificAdaptorMap != null) {
-            CopyOnWriteArrayList<WebSocketSessionRequest> adapterSpecificSessions = tenantSpecificAdaptorMap.get(id);
+            StreamSessionIndex adapterSpecificSessions = tenantSpecificAdaptorMap.get(id);
             if (adapterSpecificSessions != null) {
-                WebSocketSessionRequest sessionToRemove = null;
-                Iterator<WebSocketSessionRequest> iterator = adapterSpecificSessions.iterator();
-                while (iterator.hasNext()) {
-                    WebSocketSessionRequest webSocketSessionUtil = iterator.next();
-                    if (session.getId().equals(webSocketSessionUtil.getSession().getId())) {
-                        sessionToRemove = webSocketSessionUtil;
-                        break;
-                    }
-                }
-                if (sessionToRemove != null) {
-                    adapterSpecificSessions.remove(sessionToRemove);
+                WebSocketSessionRequest removedSession = adapterSpecificSessions.removeSession(session.getId());
+                if (removedSession != null) {
+                    removedSession.close();
                 }
             }
         }
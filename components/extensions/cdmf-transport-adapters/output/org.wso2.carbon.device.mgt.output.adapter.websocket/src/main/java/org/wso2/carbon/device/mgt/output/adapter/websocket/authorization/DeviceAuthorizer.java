@@ -82,8 +82,7 @@ public class DeviceAuthorizer implements Authorizer {
 
     @Override
     public  synchronized boolean isAuthorized(AuthenticationInfo authenticationInfo, Session session, String stream) {
-        WebSocketSessionRequest webSocketSessionRequest = new WebSocketSessionRequest(session);
-        Map<String, String> queryParams = webSocketSessionRequest.getQueryParamValuePairs();
+        Map<String, String> queryParams = WebSocketSessionRequest.parseQueryString(session.getQueryString());
         String deviceId = queryParams.get(DEVICE_ID);
         String deviceType = queryParams.get(DEVICE_TYPE);
 
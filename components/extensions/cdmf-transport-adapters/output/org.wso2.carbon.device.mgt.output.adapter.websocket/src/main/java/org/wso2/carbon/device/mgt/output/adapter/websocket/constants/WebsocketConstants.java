@@ -37,4 +37,6 @@ public class WebsocketConstants {
     public static final String META_DATA = "metaData";
     public static final String PAYLOAD_DATA = "payloadData";
     public static final String EVENT = "event";
+    public static final String DEVICE_ID = "deviceId";
+    public static final String DEVICE_TYPE = "deviceType";
 }
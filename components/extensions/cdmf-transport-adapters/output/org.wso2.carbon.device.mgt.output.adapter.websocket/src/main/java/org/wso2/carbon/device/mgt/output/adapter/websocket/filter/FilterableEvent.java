@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.websocket.filter;
+
+/**
+ * Read-only view of an event built once per published event and shared by the filters of all subscribed sessions.
+ */
+public interface FilterableEvent {
+
+    /**
+     * @param attributeName name of the attribute.
+     * @return true if the event carries the given attribute. Filters on attributes which the event does not carry
+     * are ignored.
+     */
+    boolean hasAttribute(String attributeName);
+
+    /**
+     * @param attributeName name of the attribute.
+     * @return the value of the given attribute, or null if the event does not carry a value for it.
+     */
+    String getValue(String attributeName);
+
+    /**
+     * @param attributeName name of the attribute.
+     * @param filterValue   value given in the subscription filter.
+     * @return true if the event satisfies the filter on the given attribute.
+     */
+    boolean matches(String attributeName, String filterValue);
+}
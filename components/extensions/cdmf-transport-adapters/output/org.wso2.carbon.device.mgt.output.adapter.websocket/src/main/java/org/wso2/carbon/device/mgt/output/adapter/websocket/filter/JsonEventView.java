@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.websocket.filter;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.constants.WebsocketConstants;
+
+/**
+ * {@link FilterableEvent} over a JSON event of the form {"event": {"metaData": {..}, "payloadData": {..}}}.
+ * The message is parsed only once, values are compared case insensitively and blank filter values are ignored.
+ */
+public class JsonEventView implements FilterableEvent {
+
+    private JSONObject metaData;
+    private JSONObject payloadData;
+
+    public JsonEventView(String jsonMessage) {
+        try {
+            JSONObject event = new JSONObject(jsonMessage).getJSONObject(WebsocketConstants.EVENT);
+            metaData = event.optJSONObject(WebsocketConstants.META_DATA);
+            payloadData = event.optJSONObject(WebsocketConstants.PAYLOAD_DATA);
+        } catch (JSONException e) {
+            //do nothing - Filters are not applicable for messages which are not in the event format.
+        }
+    }
+
+    @Override
+    public boolean hasAttribute(String attributeName) {
+        return getValue(attributeName) != null;
+    }
+
+    @Override
+    public String getValue(String attributeName) {
+        String value = getValue(metaData, attributeName);
+        if (value == null) {
+            value = getValue(payloadData, attributeName);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean matches(String attributeName, String filterValue) {
+        if (filterValue == null || filterValue.trim().isEmpty()) {
+            return true;
+        }
+        String metaValue = getValue(metaData, attributeName);
+        if (metaValue != null && !metaValue.equalsIgnoreCase(filterValue)) {
+            return false;
+        }
+        String payloadValue = getValue(payloadData, attributeName);
+        return payloadValue == null || payloadValue.equalsIgnoreCase(filterValue);
+    }
+
+    private static String getValue(JSONObject data, String attributeName) {
+        if (data == null || data.isNull(attributeName)) {
+            return null;
+        }
+        return data.get(attributeName).toString();
+    }
+}
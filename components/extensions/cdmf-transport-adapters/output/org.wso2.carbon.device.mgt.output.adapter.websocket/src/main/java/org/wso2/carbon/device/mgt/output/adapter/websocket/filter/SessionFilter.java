@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.websocket.filter;
+
+import java.util.Map;
+
+/**
+ * Event filter compiled from the query parameters of a web-socket subscription. It is built once when the session
+ * subscribes and evaluated against the {@link FilterableEvent} view of each published event.
+ */
+public class SessionFilter {
+
+    private final String[] attributeNames;
+    private final String[] filterValues;
+
+    public SessionFilter(Map<String, String> filterParamValuePairs) {
+        attributeNames = new String[filterParamValuePairs.size()];
+        filterValues = new String[filterParamValuePairs.size()];
+        int index = 0;
+        for (Map.Entry<String, String> filterParam : filterParamValuePairs.entrySet()) {
+            attributeNames[index] = filterParam.getKey();
+            filterValues[index] = filterParam.getValue();
+            index++;
+        }
+    }
+
+    /**
+     * @param event view of the published event.
+     * @return true if the event satisfies every filter of the subscription.
+     */
+    public boolean matches(FilterableEvent event) {
+        for (int i = 0; i < attributeNames.length; i++) {
+            if (!event.matches(attributeNames[i], filterValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
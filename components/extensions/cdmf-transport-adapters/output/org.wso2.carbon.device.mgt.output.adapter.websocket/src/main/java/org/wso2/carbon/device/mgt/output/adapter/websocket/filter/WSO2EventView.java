@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.websocket.filter;
+
+import org.wso2.carbon.databridge.commons.Attribute;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link FilterableEvent} over a WSO2 event, resolving the attribute names from the stream definition.
+ * Values are compared case sensitively.
+ */
+public class WSO2EventView implements FilterableEvent {
+
+    private final Map<String, String> attributeValues = new HashMap<>();
+
+    public WSO2EventView(Event event, List<Attribute> metaAttributes, List<Attribute> correlationAttributes,
+                         List<Attribute> payloadAttributes) {
+        addAttributes(metaAttributes, event.getMetaData());
+        addAttributes(correlationAttributes, event.getCorrelationData());
+        addAttributes(payloadAttributes, event.getPayloadData());
+    }
+
+    @Override
+    public boolean hasAttribute(String attributeName) {
+        return attributeValues.containsKey(attributeName);
+    }
+
+    @Override
+    public String getValue(String attributeName) {
+        return attributeValues.get(attributeName);
+    }
+
+    @Override
+    public boolean matches(String attributeName, String filterValue) {
+        if (!attributeValues.containsKey(attributeName)) {
+            return true;
+        }
+        String eventValue = attributeValues.get(attributeName);
+        return eventValue != null && eventValue.equals(filterValue);
+    }
+
+    private void addAttributes(List<Attribute> attributes, Object[] data) {
+        if (attributes != null) {
+            for (int i = 0; i < attributes.size(); i++) {
+                Object value = data == null ? null : data[i];
+                attributeValues.put(attributes.get(i).getName(), value == null ? null : value.toString());
+            }
+        }
+    }
+}
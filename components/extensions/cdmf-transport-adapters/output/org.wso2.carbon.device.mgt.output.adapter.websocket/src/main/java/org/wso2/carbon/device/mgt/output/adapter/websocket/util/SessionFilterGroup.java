@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.websocket.util;
+
+import org.wso2.carbon.device.mgt.output.adapter.websocket.filter.SessionFilter;
+
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Web-socket sessions of a stream which subscribed with the same set of filters. An event is validated once against
+ * the compiled filter of the group and then handed to every session of the group.
+ */
+public class SessionFilterGroup {
+
+    private final String filterKey;
+    private final Map<String, String> filterParamValuePairs;
+    private final SessionFilter filter;
+    private final CopyOnWriteArrayList<WebSocketSessionRequest> sessions = new CopyOnWriteArrayList<>();
+
+    public SessionFilterGroup(WebSocketSessionRequest webSocketSessionRequest) {
+        this.filterKey = webSocketSessionRequest.getFilterKey();
+        this.filterParamValuePairs = webSocketSessionRequest.getFilterParamValuePairs();
+        this.filter = new SessionFilter(filterParamValuePairs);
+    }
+
+    public String getFilterKey() {
+        return filterKey;
+    }
+
+    public Map<String, String> getFilterParamValuePairs() {
+        return filterParamValuePairs;
+    }
+
+    public SessionFilter getFilter() {
+        return filter;
+    }
+
+    public CopyOnWriteArrayList<WebSocketSessionRequest> getSessions() {
+        return sessions;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.websocket.util;
+
+/**
+ * Action taken when the outbound queue of a web-socket session is full.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Discard the oldest queued events so the session always receives the latest ones.
+     */
+    COALESCE,
+
+    /**
+     * Close the session, the client is expected to reconnect.
+     */
+    DISCONNECT;
+
+    public static SlowConsumerPolicy fromString(String policy) {
+        if (policy != null) {
+            for (SlowConsumerPolicy slowConsumerPolicy : values()) {
+                if (slowConsumerPolicy.name().equalsIgnoreCase(policy.trim())) {
+                    return slowConsumerPolicy;
+                }
+            }
+        }
+        return COALESCE;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.websocket.util;
+
+import org.wso2.carbon.device.mgt.output.adapter.websocket.constants.WebsocketConstants;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.filter.FilterableEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Index of the web-socket sessions subscribed to a single stream of a tenant. Sessions are grouped by their filter
+ * key and the groups are indexed on the value of their device filters, so that an event is only validated against
+ * the groups which may accept it. Subscribing and unsubscribing are serialized per stream, whereas reading the index
+ * on the publishing path does not take any lock.
+ */
+public class StreamSessionIndex {
+
+    private static final String[] INDEXED_ATTRIBUTES = {WebsocketConstants.DEVICE_ID, WebsocketConstants.DEVICE_TYPE};
+
+    private final ConcurrentHashMap<String, SessionFilterGroup> filterGroups = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, CopyOnWriteArrayList<SessionFilterGroup>>>
+            invertedIndex = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<SessionFilterGroup> unindexedGroups = new CopyOnWriteArrayList<>();
+
+    public synchronized void addSession(WebSocketSessionRequest webSocketSessionRequest) {
+        SessionFilterGroup filterGroup = filterGroups.get(webSocketSessionRequest.getFilterKey());
+        if (filterGroup == null) {
+            filterGroup = new SessionFilterGroup(webSocketSessionRequest);
+            filterGroups.put(filterGroup.getFilterKey(), filterGroup);
+            indexGroup(filterGroup);
+        }
+        filterGroup.getSessions().add(webSocketSessionRequest);
+    }
+
+    /**
+     * Removes the session with the given id from the index.
+     *
+     * @param sessionId id of the web-socket session.
+     * @return the removed session or null if there is no such session.
+     */
+    public synchronized WebSocketSessionRequest removeSession(String sessionId) {
+        for (SessionFilterGroup filterGroup : filterGroups.values()) {
+            for (WebSocketSessionRequest webSocketSessionRequest : filterGroup.getSessions()) {
+                if (sessionId.equals(webSocketSessionRequest.getSession().getId())) {
+                    filterGroup.getSessions().remove(webSocketSessionRequest);
+                    if (filterGroup.getSessions().isEmpty()) {
+                        filterGroups.remove(filterGroup.getFilterKey());
+                        unindexGroup(filterGroup);
+                    }
+                    return webSocketSessionRequest;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fetches the filter groups whose filters are satisfied by the given event.
+     *
+     * @param event view of the published event.
+     * @return the matching filter groups.
+     */
+    public List<SessionFilterGroup> getMatchingGroups(FilterableEvent event) {
+        List<SessionFilterGroup> matchingGroups = new ArrayList<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, CopyOnWriteArrayList<SessionFilterGroup>>> attributeIndex :
+                invertedIndex.entrySet()) {
+            if (!event.hasAttribute(attributeIndex.getKey())) {
+                // filters on attributes which are not carried by the event are ignored.
+                for (CopyOnWriteArrayList<SessionFilterGroup> indexedGroups : attributeIndex.getValue().values()) {
+                    addMatchingGroups(indexedGroups, event, matchingGroups);
+                }
+            } else {
+                String value = event.getValue(attributeIndex.getKey());
+                if (value != null) {
+                    addMatchingGroups(attributeIndex.getValue().get(value.toLowerCase(Locale.ENGLISH)), event,
+                                      matchingGroups);
+                }
+            }
+        }
+        addMatchingGroups(unindexedGroups, event, matchingGroups);
+        return matchingGroups;
+    }
+
+    public boolean isEmpty() {
+        return filterGroups.isEmpty();
+    }
+
+    private static void addMatchingGroups(List<SessionFilterGroup> filterGroups, FilterableEvent event,
+                                          List<SessionFilterGroup> matchingGroups) {
+        if (filterGroups != null) {
+            for (SessionFilterGroup filterGroup : filterGroups) {
+                if (filterGroup.getFilter().matches(event)) {
+                    matchingGroups.add(filterGroup);
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes the given group on the first of the indexed attributes it filters on. Groups without such a filter are
+     * kept in a separate list which is evaluated for every event.
+     */
+    private void indexGroup(SessionFilterGroup filterGroup) {
+        String attributeName = getIndexedAttribute(filterGroup);
+        if (attributeName == null) {
+            unindexedGroups.add(filterGroup);
+            return;
+        }
+        String indexValue = getIndexValue(filterGroup, attributeName);
+        ConcurrentHashMap<String, CopyOnWriteArrayList<SessionFilterGroup>> attributeIndex =
+                invertedIndex.get(attributeName);
+        if (attributeIndex == null) {
+            attributeIndex = new ConcurrentHashMap<>();
+            invertedIndex.put(attributeName, attributeIndex);
+        }
+        CopyOnWriteArrayList<SessionFilterGroup> indexedGroups = attributeIndex.get(indexValue);
+        if (indexedGroups == null) {
+            indexedGroups = new CopyOnWriteArrayList<>();
+            attributeIndex.put(indexValue, indexedGroups);
+        }
+        indexedGroups.add(filterGroup);
+    }
+
+    private void unindexGroup(SessionFilterGroup filterGroup) {
+        String attributeName = getIndexedAttribute(filterGroup);
+        if (attributeName == null) {
+            unindexedGroups.remove(filterGroup);
+            return;
+        }
+        String indexValue = getIndexValue(filterGroup, attributeName);
+        ConcurrentHashMap<String, CopyOnWriteArrayList<SessionFilterGroup>> attributeIndex =
+                invertedIndex.get(attributeName);
+        if (attributeIndex != null) {
+            CopyOnWriteArrayList<SessionFilterGroup> indexedGroups = attributeIndex.get(indexValue);
+            if (indexedGroups != null) {
+                indexedGroups.remove(filterGroup);
+                if (indexedGroups.isEmpty()) {
+                    attributeIndex.remove(indexValue);
+                }
+            }
+            if (attributeIndex.isEmpty()) {
+                invertedIndex.remove(attributeName);
+            }
+        }
+    }
+
+    private static String getIndexedAttribute(SessionFilterGroup filterGroup) {
+        for (String attributeName : INDEXED_ATTRIBUTES) {
+            String filterValue = filterGroup.getFilterParamValuePairs().get(attributeName);
+            if (filterValue != null && !filterValue.trim().isEmpty()) {
+                return attributeName;
+            }
+        }
+        return null;
+    }
+
+    private static String getIndexValue(SessionFilterGroup filterGroup, String attributeName) {
+        return filterGroup.getFilterParamValuePairs().get(attributeName).toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -20,44 +20,183 @@ package org.wso2.carbon.device.mgt.output.adapter.websocket.util;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.constants.WebsocketConstants;
 
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
 import javax.websocket.Session;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is wrapper class over the javax.websocket.Session implementation. This class contains additional attributes
  * of the Session object derived from processing some of the (default) existing attributes.
  * Ex: Query-String's [Key:Value] Map derived from the queryString attribute of the original class.
+ * Each session owns a bounded outbound queue which is drained through the asynchronous remote endpoint, so a slow
+ * client never blocks the delivery to other sessions.
  */
 public class WebSocketSessionRequest {
     private static final Log log = LogFactory.getLog(WebSocketSessionRequest.class);
 
     private static final String QUERY_STRING_SEPERATOR = "&";
     private static final String QUERY_KEY_VALUE_SEPERATOR = "=";
-    private Map<String, String> queryParamValuePairs = new HashMap<>();
+    private static final String SLOW_CONSUMER_CLOSE_REASON = "Client is too slow to consume the events";
+    private Map<String, String> queryParamValuePairs;
+    private Map<String, String> filterParamValuePairs = new TreeMap<>();
+    private String filterKey;
     private Session session;
+    private ArrayBlockingQueue<String> outboundQueue;
+    private SlowConsumerPolicy slowConsumerPolicy;
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicLong droppedMessageCount = new AtomicLong();
+    private final SendHandler sendHandler = new OutboundSendHandler();
 
     public WebSocketSessionRequest(Session session) {
+        this(session, WebsocketEventAdapterConstants.SESSION_OUTBOUND_QUEUE_SIZE, SlowConsumerPolicy.COALESCE);
+    }
+
+    public WebSocketSessionRequest(Session session, int outboundQueueSize, SlowConsumerPolicy slowConsumerPolicy) {
         this.session = session;
+        this.outboundQueue = new ArrayBlockingQueue<>(outboundQueueSize);
+        this.slowConsumerPolicy = slowConsumerPolicy;
         setQueryParamValuePairs();
+        setFilterParamValuePairs();
     }
 
     public Map<String, String> getQueryParamValuePairs() {
         return queryParamValuePairs;
     }
 
+    /**
+     * @return the query parameters used to filter events for this session, i.e. all query parameters except the
+     * access token.
+     */
+    public Map<String, String> getFilterParamValuePairs() {
+        return filterParamValuePairs;
+    }
+
+    /**
+     * @return a canonical representation of the filter parameters. Sessions sharing the same key receive exactly
+     * the same events.
+     */
+    public String getFilterKey() {
+        return filterKey;
+    }
+
     public Session getSession() {
         return session;
     }
 
+    public long getDroppedMessageCount() {
+        return droppedMessageCount.get();
+    }
+
+    /**
+     * Queues a message to be sent to this session. This never blocks the caller; when the outbound queue is full the
+     * configured {@link SlowConsumerPolicy} is applied.
+     *
+     * @param message the message to be sent.
+     * @return false if the message could not be queued as the session is closed or was dropped as a slow consumer.
+     */
+    public boolean offer(String message) {
+        if (closed.get()) {
+            return false;
+        }
+        while (!outboundQueue.offer(message)) {
+            if (slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT) {
+                droppedMessageCount.incrementAndGet();
+                closeSlowConsumer();
+                return false;
+            }
+            if (outboundQueue.poll() != null) {
+                droppedMessageCount.incrementAndGet();
+            }
+        }
+        sendNext();
+        return true;
+    }
+
+    /**
+     * Stops delivering messages to this session and discards any queued messages.
+     */
+    public void close() {
+        closed.set(true);
+        outboundQueue.clear();
+    }
+
+    /**
+     * Sends the head of the outbound queue unless a send is already in flight for this session. The next message is
+     * picked up from the completion callback of the previous one.
+     */
+    private void sendNext() {
+        while (!closed.get() && !outboundQueue.isEmpty() && sending.compareAndSet(false, true)) {
+            String message = outboundQueue.poll();
+            if (message == null) {
+                sending.set(false);
+                continue;
+            }
+            try {
+                session.getAsyncRemote().sendText(message, sendHandler);
+                return;
+            } catch (IllegalStateException e) {
+                log.warn("Unable to send message to web-socket session " + session.getId() + ": " + e.getMessage());
+                sending.set(false);
+                close();
+            }
+        }
+    }
+
+    private void closeSlowConsumer() {
+        if (!closed.getAndSet(true)) {
+            outboundQueue.clear();
+            log.warn("Closing web-socket session " + session.getId() + " as its outbound queue is full.");
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, SLOW_CONSUMER_CLOSE_REASON));
+            } catch (IOException e) {
+                log.error("Failed to close the slow web-socket session " + session.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Processes the query parameters except the access token to build the filters of this session.
+     */
+    private void setFilterParamValuePairs() {
+        filterParamValuePairs.putAll(queryParamValuePairs);
+        filterParamValuePairs.remove(WebsocketConstants.TOKEN_PARAM);
+        StringBuilder filterKeyBuilder = new StringBuilder();
+        for (Map.Entry<String, String> filterParam : filterParamValuePairs.entrySet()) {
+            if (filterKeyBuilder.length() > 0) {
+                filterKeyBuilder.append(QUERY_STRING_SEPERATOR);
+            }
+            filterKeyBuilder.append(filterParam.getKey()).append(QUERY_KEY_VALUE_SEPERATOR)
+                    .append(filterParam.getValue());
+        }
+        filterKey = filterKeyBuilder.toString();
+    }
+
     /**
      * Processes the queryString from the current instance's Session attribute and constructs a map of Query
      * Key:Value pair.
      */
     private void setQueryParamValuePairs() {
-        if (session.getQueryString() != null) {
-            String queryString = session.getQueryString();
+        queryParamValuePairs = parseQueryString(session.getQueryString());
+    }
+
+    /**
+     * Constructs a map of the Query Key:Value pairs of the given query string, without the per session state of a
+     * session request.
+     */
+    public static Map<String, String> parseQueryString(String queryString) {
+        Map<String, String> queryParamValuePairs = new HashMap<>();
+        if (queryString != null) {
             String[] allQueryParamPairs = queryString.split(QUERY_STRING_SEPERATOR);
             for (String keyValuePair : allQueryParamPairs) {
                 String[] thisQueryParamPair = keyValuePair.split(QUERY_KEY_VALUE_SEPERATOR);
@@ -68,5 +207,18 @@ public class WebSocketSessionRequest {
                 queryParamValuePairs.put(thisQueryParamPair[0], thisQueryParamPair[1]);
             }
         }
+        return queryParamValuePairs;
+    }
+
+    private class OutboundSendHandler implements SendHandler {
+
+        @Override
+        public void onResult(SendResult result) {
+            if (!result.isOK() && log.isDebugEnabled()) {
+                log.debug("Failed to send message to web-socket session " + session.getId(), result.getException());
+            }
+            sending.set(false);
+            sendNext();
+        }
     }
 }
@@ -46,6 +46,9 @@ public class WebsocketEventAdapterConstants {
 
     public static final String ADAPTER_EVENT_QUEUE_SIZE_NAME = "eventQueueSize";
     public static final int EVENTS_QUEUE_SIZE = 30;
+    public static final String ADAPTER_SESSION_QUEUE_SIZE_NAME = "sessionQueueSize";
+    public static final int SESSION_OUTBOUND_QUEUE_SIZE = 100;
+    public static final String ADAPTER_SLOW_CONSUMER_POLICY_NAME = "slowConsumerPolicy";
     public static final String AUTHENTICATOR_CLASS = "authenticator";
     public static final String AUTHORIZER_CLASS = "authorizer";
 
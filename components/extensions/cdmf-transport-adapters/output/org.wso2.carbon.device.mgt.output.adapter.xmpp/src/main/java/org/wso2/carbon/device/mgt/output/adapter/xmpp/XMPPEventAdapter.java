@@ -30,10 +30,6 @@ import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterExc
 import org.wso2.carbon.event.output.adapter.core.exception.TestConnectionNotSupportedException;
 
 import java.util.Map;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Output XMPPEventAdapter will be used to publish events with MQTT protocol to specified broker and topic.
@@ -43,7 +39,8 @@ public class XMPPEventAdapter implements OutputEventAdapter {
     private OutputEventAdapterConfiguration eventAdapterConfiguration;
     private Map<String, String> globalProperties;
     private XMPPAdapterPublisher xmppAdapterPublisher;
-    private static ThreadPoolExecutor threadPoolExecutor;
+    private int connectionPoolSize;
+    private int sendQueueSize;
     private static final Log log = LogFactory.getLog(XMPPEventAdapter.class);
     private int tenantId;
 
@@ -56,44 +53,18 @@ public class XMPPEventAdapter implements OutputEventAdapter {
     @Override
     public void init() throws OutputEventAdapterException {
         tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
-        //ThreadPoolExecutor will be assigned  if it is null
-        if (threadPoolExecutor == null) {
-            int minThread;
-            int maxThread;
-            int jobQueSize;
-            long defaultKeepAliveTime;
-            //If global properties are available those will be assigned else constant values will be assigned
-            if (globalProperties.get(XMPPEventAdapterConstants.ADAPTER_MIN_THREAD_POOL_SIZE_NAME) != null) {
-                minThread = Integer.parseInt(globalProperties.get(
-                        XMPPEventAdapterConstants.ADAPTER_MIN_THREAD_POOL_SIZE_NAME));
-            } else {
-                minThread = XMPPEventAdapterConstants.DEFAULT_MIN_THREAD_POOL_SIZE;
-            }
-
-            if (globalProperties.get(XMPPEventAdapterConstants.ADAPTER_MAX_THREAD_POOL_SIZE_NAME) != null) {
-                maxThread = Integer.parseInt(globalProperties.get(
-                        XMPPEventAdapterConstants.ADAPTER_MAX_THREAD_POOL_SIZE_NAME));
-            } else {
-                maxThread = XMPPEventAdapterConstants.DEFAULT_MAX_THREAD_POOL_SIZE;
-            }
-
-            if (globalProperties.get(XMPPEventAdapterConstants.ADAPTER_KEEP_ALIVE_TIME_NAME) != null) {
-                defaultKeepAliveTime = Integer.parseInt(globalProperties.get(
-                        XMPPEventAdapterConstants.ADAPTER_KEEP_ALIVE_TIME_NAME));
-            } else {
-                defaultKeepAliveTime = XMPPEventAdapterConstants.DEFAULT_KEEP_ALIVE_TIME_IN_MILLIS;
-            }
-
-            if (globalProperties.get(XMPPEventAdapterConstants.ADAPTER_EXECUTOR_JOB_QUEUE_SIZE_NAME) != null) {
-                jobQueSize = Integer.parseInt(globalProperties.get(
-                        XMPPEventAdapterConstants.ADAPTER_EXECUTOR_JOB_QUEUE_SIZE_NAME));
-            } else {
-                jobQueSize = XMPPEventAdapterConstants.DEFAULT_EXECUTOR_JOB_QUEUE_SIZE;
-            }
+        if (globalProperties.get(XMPPEventAdapterConstants.ADAPTER_CONNECTION_POOL_SIZE_NAME) != null) {
+            connectionPoolSize = Integer.parseInt(globalProperties.get(
+                    XMPPEventAdapterConstants.ADAPTER_CONNECTION_POOL_SIZE_NAME));
+        } else {
+            connectionPoolSize = XMPPEventAdapterConstants.DEFAULT_CONNECTION_POOL_SIZE;
+        }
 
-            threadPoolExecutor = new ThreadPoolExecutor(minThread, maxThread, defaultKeepAliveTime,
-                                                        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(
-                    jobQueSize));
+        if (globalProperties.get(XMPPEventAdapterConstants.ADAPTER_EXECUTOR_JOB_QUEUE_SIZE_NAME) != null) {
+            sendQueueSize = Integer.parseInt(globalProperties.get(
+                    XMPPEventAdapterConstants.ADAPTER_EXECUTOR_JOB_QUEUE_SIZE_NAME));
+        } else {
+            sendQueueSize = XMPPEventAdapterConstants.DEFAULT_EXECUTOR_JOB_QUEUE_SIZE;
         }
     }
 
@@ -126,7 +97,9 @@ public class XMPPEventAdapter implements OutputEventAdapter {
                                                               .get(XMPPEventAdapterConstants.ADAPTER_CONF_PASSWORD),
                                                       timeoutInterval,
                                                       eventAdapterConfiguration.getStaticProperties()
-                                                              .get(XMPPEventAdapterConstants.ADAPTER_CONF_RESOURCE)
+                                                              .get(XMPPEventAdapterConstants.ADAPTER_CONF_RESOURCE),
+                                                      connectionPoolSize,
+                                                      sendQueueSize
                 );
         xmppAdapterPublisher = new XMPPAdapterPublisher(xmppServerConnectionConfiguration);
     }
@@ -136,10 +109,12 @@ public class XMPPEventAdapter implements OutputEventAdapter {
         String jid = dynamicProperties.get(XMPPEventAdapterConstants.ADAPTER_CONF_JID);
         String subject = dynamicProperties.get(XMPPEventAdapterConstants.ADAPTER_CONF_SUBJECT);
         String messageType = dynamicProperties.get(XMPPEventAdapterConstants.ADAPTER_CONF_MESSAGETYPE);
-        try {
-            threadPoolExecutor.submit(new XMPPSender(jid, subject, (String)message, messageType));
-        } catch (RejectedExecutionException e) {
-            EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, "Job queue is full", e, log,
+        XMPPAdapterPublisher publisher = xmppAdapterPublisher;
+        if (publisher == null) {
+            EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, "Adapter is not connected",
+                                        log, tenantId);
+        } else if (!publisher.publish(jid, subject, (String) message, messageType)) {
+            EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, "Send queue is full", log,
                                         tenantId);
         }
     }
@@ -166,35 +141,4 @@ public class XMPPEventAdapter implements OutputEventAdapter {
     public boolean isPolled() {
         return false;
     }
-
-    class XMPPSender implements Runnable {
-
-        String jid;
-        String subject;
-        String message;
-        String messageType;
-
-        XMPPSender(String jid, String subject, String message, String messageType) {
-            this.jid = jid;
-            this.message = message;
-            this.subject = subject;
-            this.messageType = messageType;
-        }
-
-        @Override
-        public void run() {
-            try {
-                if (!xmppAdapterPublisher.isConnected()) {
-                    synchronized (XMPPEventAdapter.class) {
-                        if (!xmppAdapterPublisher.isConnected()) {
-                            xmppAdapterPublisher.connect();
-                        }
-                    }
-                }
-                xmppAdapterPublisher.publish(jid, subject, message, messageType);
-            } catch (Throwable t) {
-                EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, null, t, log, tenantId);
-            }
-        }
-    }
 }
@@ -27,49 +27,66 @@ import org.jivesoftware.smack.packet.Message;
 import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterException;
 import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterRuntimeException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 /**
  * XMPP publisher related configuration initialization and publishing capabilties are implemented here.
+ * Messages are sent over a fixed pool of connections. Each connection has a bounded send queue drained by its own
+ * sender thread, and messages are assigned to a connection by the bare JID of the recipient so that the messages of a
+ * device keep their order. The sender thread checks the health of its connection and reconnects it, so publishers are
+ * only held back when the send queue of the connection is full.
  */
 public class XMPPAdapterPublisher {
 
     private static final Log log = LogFactory.getLog(XMPPAdapterPublisher.class);
     private XMPPServerConnectionConfiguration xmppServerConnectionConfiguration;
-    XMPPConnection xmppConnection;
+    private final List<XMPPConnectionWorker> connectionWorkers;
+    private volatile boolean running = true;
 
     public XMPPAdapterPublisher(XMPPServerConnectionConfiguration xmppServerConnectionConfiguration) {
         this.xmppServerConnectionConfiguration = xmppServerConnectionConfiguration;
-        connect();
-    }
-
-    public void connect() {
         SmackConfiguration.setPacketReplyTimeout(xmppServerConnectionConfiguration.getTimeoutInterval());
-        ConnectionConfiguration config = new ConnectionConfiguration(xmppServerConnectionConfiguration.getHost(),
-                                                                     xmppServerConnectionConfiguration.getPort());
-        config.setSASLAuthenticationEnabled(false);
-        config.setSecurityMode(ConnectionConfiguration.SecurityMode.disabled);
-        xmppConnection = new XMPPConnection(config);
-        String resource = xmppServerConnectionConfiguration.getResource();
-        String username = xmppServerConnectionConfiguration.getUsername();
-        String password = xmppServerConnectionConfiguration.getPassword();
+        int poolSize = Math.max(1, xmppServerConnectionConfiguration.getConnectionPoolSize());
+        int queueSize = Math.max(1, xmppServerConnectionConfiguration.getSendQueueSize() / poolSize);
+        connectionWorkers = new ArrayList<>(poolSize);
         try {
-            xmppConnection.connect();
-            if (resource == null || resource.trim().isEmpty()) {
-                xmppConnection.login(username, password);
-            } else {
-                xmppConnection.login(username, password, resource);
+            for (int i = 0; i < poolSize; i++) {
+                XMPPConnectionWorker connectionWorker = new XMPPConnectionWorker(i, poolSize, queueSize);
+                connectionWorker.connect();
+                connectionWorkers.add(connectionWorker);
             }
         } catch (XMPPException e) {
-            String errorMsg = "Login attempt to the XMPP Server  with username - " + username + " failed.";
+            disconnectAll();
+            String errorMsg = "Login attempt to the XMPP Server  with username - " +
+                    xmppServerConnectionConfiguration.getUsername() + " failed.";
             log.info(errorMsg);
             throw new OutputEventAdapterRuntimeException(errorMsg, e);
         }
+        for (XMPPConnectionWorker connectionWorker : connectionWorkers) {
+            connectionWorker.start();
+        }
     }
 
     public boolean isConnected() {
-        return xmppConnection.isConnected();
+        for (XMPPConnectionWorker connectionWorker : connectionWorkers) {
+            if (connectionWorker.isHealthy()) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    public void publish(String JID, String subject, String message, String messageType) {
+    /**
+     * Queues a message for the connection that serves the given JID.
+     *
+     * @return false if the message was dropped because the send queue of the connection stayed full.
+     */
+    public boolean publish(String JID, String subject, String message, String messageType) {
         Message xmppMessage = new Message();
         xmppMessage.setTo(JID);
         xmppMessage.setSubject(subject);
@@ -94,12 +111,191 @@ public class XMPPAdapterPublisher {
         } else {
             xmppMessage.setType(Message.Type.normal);
         }
-        xmppConnection.sendPacket(xmppMessage);
+        return getConnectionWorker(JID).offer(xmppMessage);
     }
 
     public void close() throws OutputEventAdapterException {
-        if (xmppConnection != null && isConnected()) {
-            xmppConnection.disconnect();
+        running = false;
+        for (XMPPConnectionWorker connectionWorker : connectionWorkers) {
+            connectionWorker.stop();
+        }
+        int pending = 0;
+        for (XMPPConnectionWorker connectionWorker : connectionWorkers) {
+            pending += connectionWorker.clear();
+        }
+        if (pending > 0) {
+            log.warn("XMPP publisher of user " + xmppServerConnectionConfiguration.getUsername() +
+                             " is closing with " + pending + " unsent messages, they will be dropped");
+        }
+        disconnectAll();
+    }
+
+    private XMPPConnectionWorker getConnectionWorker(String JID) {
+        String bareJID = JID == null ? "" : JID;
+        int resourceIndex = bareJID.indexOf('/');
+        if (resourceIndex >= 0) {
+            bareJID = bareJID.substring(0, resourceIndex);
+        }
+        int index = (bareJID.toLowerCase().hashCode() & Integer.MAX_VALUE) % connectionWorkers.size();
+        return connectionWorkers.get(index);
+    }
+
+    private void disconnectAll() {
+        for (XMPPConnectionWorker connectionWorker : connectionWorkers) {
+            connectionWorker.disconnect();
+        }
+    }
+
+    /**
+     * Owns one connection of the pool, together with its send queue and the thread that drains it.
+     */
+    private class XMPPConnectionWorker implements Runnable {
+
+        private final String resource;
+        private final BlockingQueue<Message> sendQueue;
+        private final Thread sender;
+        private volatile XMPPConnection xmppConnection;
+        private long nextHealthCheck;
+
+        private XMPPConnectionWorker(int index, int poolSize, int queueSize) {
+            String resource = xmppServerConnectionConfiguration.getResource();
+            if (poolSize > 1) {
+                // every connection of the pool logs in with its own resource, otherwise they would replace each other
+                if (resource == null || resource.trim().isEmpty()) {
+                    resource = XMPPEventAdapterConstants.DEFAULT_RESOURCE;
+                }
+                resource = resource + "-" + index;
+            }
+            this.resource = resource;
+            this.sendQueue = new ArrayBlockingQueue<>(queueSize);
+            this.sender = new Thread(this, "XMPPOutputAdapterSender-" +
+                    xmppServerConnectionConfiguration.getUsername() + "-" + index);
+            this.sender.setDaemon(true);
+        }
+
+        private boolean offer(Message message) {
+            if (sendQueue.offer(message)) {
+                return true;
+            }
+            try {
+                return sendQueue.offer(message, XMPPEventAdapterConstants.SEND_QUEUE_OFFER_TIMEOUT_IN_MILLIS,
+                                       TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private boolean isHealthy() {
+            XMPPConnection connection = xmppConnection;
+            return connection != null && connection.isConnected() && connection.isAuthenticated();
+        }
+
+        private void connect() throws XMPPException {
+            ConnectionConfiguration config = new ConnectionConfiguration(
+                    xmppServerConnectionConfiguration.getHost(), xmppServerConnectionConfiguration.getPort());
+            config.setSASLAuthenticationEnabled(false);
+            config.setSecurityMode(ConnectionConfiguration.SecurityMode.disabled);
+            XMPPConnection connection = new XMPPConnection(config);
+            String username = xmppServerConnectionConfiguration.getUsername();
+            String password = xmppServerConnectionConfiguration.getPassword();
+            connection.connect();
+            try {
+                if (resource == null || resource.trim().isEmpty()) {
+                    connection.login(username, password);
+                } else {
+                    connection.login(username, password, resource);
+                }
+            } catch (XMPPException e) {
+                connection.disconnect();
+                throw e;
+            }
+            xmppConnection = connection;
+            nextHealthCheck = System.currentTimeMillis() + XMPPEventAdapterConstants.HEALTH_CHECK_INTERVAL_IN_MILLIS;
+        }
+
+        private void disconnect() {
+            XMPPConnection connection = xmppConnection;
+            if (connection != null && connection.isConnected()) {
+                connection.disconnect();
+            }
+        }
+
+        private void start() {
+            sender.start();
+        }
+
+        private void stop() {
+            sender.interrupt();
+            try {
+                sender.join(XMPPEventAdapterConstants.SEND_QUEUE_OFFER_TIMEOUT_IN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private int clear() {
+            int pending = sendQueue.size();
+            sendQueue.clear();
+            return pending;
+        }
+
+        @Override
+        public void run() {
+            long reconnectDelay = XMPPEventAdapterConstants.INITIAL_RECONNECT_DELAY_IN_MILLIS;
+            Message pending = null;
+            while (running) {
+                try {
+                    if (!isHealthy()) {
+                        if (reconnect()) {
+                            reconnectDelay = XMPPEventAdapterConstants.INITIAL_RECONNECT_DELAY_IN_MILLIS;
+                        } else {
+                            // full jitter keeps the connections of the pool from retrying in lock step
+                            Thread.sleep(ThreadLocalRandom.current().nextLong(reconnectDelay + 1));
+                            reconnectDelay = Math.min(reconnectDelay * 2,
+                                                      XMPPEventAdapterConstants.MAX_RECONNECT_DELAY_IN_MILLIS);
+                        }
+                        continue;
+                    }
+                    if (pending == null) {
+                        long wait = Math.max(1, nextHealthCheck - System.currentTimeMillis());
+                        pending = sendQueue.poll(wait, TimeUnit.MILLISECONDS);
+                        if (pending == null) {
+                            nextHealthCheck = System.currentTimeMillis() +
+                                    XMPPEventAdapterConstants.HEALTH_CHECK_INTERVAL_IN_MILLIS;
+                            continue;
+                        }
+                    }
+                    try {
+                        xmppConnection.sendPacket(pending);
+                        pending = null;
+                    } catch (IllegalStateException e) {
+                        // the connection went down, the message is sent once it is back
+                        log.warn("XMPP connection " + resource + " of user " +
+                                         xmppServerConnectionConfiguration.getUsername() + " is not connected");
+                    }
+                } catch (InterruptedException e) {
+                    if (running) {
+                        log.warn("XMPP sender " + sender.getName() + " was interrupted");
+                    }
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private boolean reconnect() {
+            disconnect();
+            try {
+                connect();
+                log.info("XMPP connection " + resource + " of user " + xmppServerConnectionConfiguration.getUsername()
+                                 + " was re-established");
+                return true;
+            } catch (XMPPException | RuntimeException e) {
+                log.error("Error occurred when reconnecting XMPP connection " + resource + " of user " +
+                                  xmppServerConnectionConfiguration.getUsername() + ", retrying", e);
+                return false;
+            }
         }
     }
 
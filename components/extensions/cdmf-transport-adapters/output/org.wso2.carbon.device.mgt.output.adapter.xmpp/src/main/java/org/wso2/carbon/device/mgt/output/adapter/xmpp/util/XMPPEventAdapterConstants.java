@@ -50,14 +50,15 @@ public final class XMPPEventAdapterConstants {
     public static final int DEFAULT_TIMEOUT_INTERVAL = 5000;
 
     //global properties
-    public static final int DEFAULT_MIN_THREAD_POOL_SIZE = 8;
-    public static final int DEFAULT_MAX_THREAD_POOL_SIZE = 100;
     public static final int DEFAULT_EXECUTOR_JOB_QUEUE_SIZE = 2000;
-    public static final long DEFAULT_KEEP_ALIVE_TIME_IN_MILLIS = 20000;
-    public static final String ADAPTER_MIN_THREAD_POOL_SIZE_NAME = "minThread";
-    public static final String ADAPTER_MAX_THREAD_POOL_SIZE_NAME = "maxThread";
-    public static final String ADAPTER_KEEP_ALIVE_TIME_NAME = "keepAliveTimeInMillis";
     public static final String ADAPTER_EXECUTOR_JOB_QUEUE_SIZE_NAME = "jobQueueSize";
+    public static final String ADAPTER_CONNECTION_POOL_SIZE_NAME = "connectionPoolSize";
+    public static final int DEFAULT_CONNECTION_POOL_SIZE = 4;
+    public static final long SEND_QUEUE_OFFER_TIMEOUT_IN_MILLIS = 1000;
+    public static final long HEALTH_CHECK_INTERVAL_IN_MILLIS = 30000;
+    public static final long INITIAL_RECONNECT_DELAY_IN_MILLIS = 1000;
+    public static final long MAX_RECONNECT_DELAY_IN_MILLIS = 60000;
+    public static final String DEFAULT_RESOURCE = "Smack";
 
     public static final class MessageType {
         public static final String NORMAL = "normal";
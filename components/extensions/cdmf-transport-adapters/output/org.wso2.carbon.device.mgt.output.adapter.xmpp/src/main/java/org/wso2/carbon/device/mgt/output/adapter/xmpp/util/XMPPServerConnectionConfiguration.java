@@ -25,6 +25,8 @@ public class XMPPServerConnectionConfiguration {
     private String password;
     private int timeoutInterval;
     private String resource;
+    private int connectionPoolSize;
+    private int sendQueueSize;
 
     public String getHost() {
         return host;
@@ -50,14 +52,25 @@ public class XMPPServerConnectionConfiguration {
         return resource;
     }
 
+    public int getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    public int getSendQueueSize() {
+        return sendQueueSize;
+    }
+
     public XMPPServerConnectionConfiguration(String host, int port, String username, String password,
-                                             int timeoutInterval, String resource) {
+                                             int timeoutInterval, String resource, int connectionPoolSize,
+                                             int sendQueueSize) {
         this.host = host;
         this.port = port;
         this.username = username;
         this.password = password;
         this.timeoutInterval = timeoutInterval;
         this.resource = resource;
+        this.connectionPoolSize = connectionPoolSize;
+        this.sendQueueSize = sendQueueSize;
     }
 
 }
@@ -41,15 +41,13 @@ import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.config.AuthorizationConfigurationManager;
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.internal.AuthorizationDataHolder;
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.util.AuthorizationCacheKey;
+import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.util.AuthorizationDecisionCache;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.base.ServerConfiguration;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
 
-import javax.cache.Cache;
-import javax.cache.CacheConfiguration;
-import javax.cache.Caching;
 import javax.net.ssl.*;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -58,7 +56,7 @@ import java.security.*;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 
 /**
  * Authorize the connecting users against CDMF. Intended usage is
@@ -73,9 +71,8 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
     private AuthorizationConfigurationManager MQTTAuthorizationConfiguration;
     private static final String CDMF_SERVER_BASE_CONTEXT = "/api/device-mgt/v1.0";
     private static final String DEFAULT_ADMIN_PERMISSION = "permission/admin/device-mgt";
-    private static final String CACHE_MANAGER_NAME = "mqttAuthorizationCacheManager";
-    private static final String CACHE_NAME = "mqttAuthorizationCache";
     private static DeviceAccessAuthorizationAdminService deviceAccessAuthorizationAdminService;
+    private static AuthorizationDecisionCache decisionCache;
     private static OAuthRequestInterceptor oAuthRequestInterceptor;
     private static final String GATEWAY_ERROR_CODE = "<am:code>404</am:code>";
     private static final String ALL_TENANT_DOMAIN = "+";
@@ -84,10 +81,15 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
         oAuthRequestInterceptor = new OAuthRequestInterceptor();
         this.MQTTAuthorizationConfiguration = AuthorizationConfigurationManager.getInstance();
         deviceAccessAuthorizationAdminService = Feign.builder().client(getSSLClient()).logger(new Slf4jLogger())
-                .logLevel(Logger.Level.FULL).requestInterceptor(oAuthRequestInterceptor)
+                .logLevel(log.isDebugEnabled() ? Logger.Level.FULL : Logger.Level.BASIC)
+                .requestInterceptor(oAuthRequestInterceptor)
                 .contract(new JAXRSContract()).encoder(new GsonEncoder()).decoder(new GsonDecoder())
                 .target(DeviceAccessAuthorizationAdminService.class,
                         MQTTAuthorizationConfiguration.getDeviceMgtServerUrl() + CDMF_SERVER_BASE_CONTEXT);
+        decisionCache = new AuthorizationDecisionCache(MQTTAuthorizationConfiguration.getAllowCacheDuration(),
+                                                       MQTTAuthorizationConfiguration.getDenyCacheDuration(),
+                                                       MQTTAuthorizationConfiguration.getCacheMaxSize());
+        decisionCache.registerMBean();
     }
 
     /**
@@ -112,83 +114,116 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
             if (!tenantDomainFromTopic.equals(authorizationSubject.getTenantDomain())) {
                 return false;
             }
-            Cache<AuthorizationCacheKey, Boolean> cache = getCache();
+            final String tenantDomain = tenantDomainFromTopic;
+            final String username = authorizationSubject.getUsername();
             if (topics.length < 3) {
-                AuthorizationCacheKey authorizationCacheKey = new AuthorizationCacheKey(tenantDomainFromTopic
-                        , authorizationSubject.getUsername(), "", "");
-                if (cache.get(authorizationCacheKey) != null && cache.get(authorizationCacheKey)) {
-                    return true;
+                AuthorizationCacheKey authorizationCacheKey = new AuthorizationCacheKey(tenantDomain, username, "",
+                                                                                        "");
+                Boolean cachedDecision = decisionCache.getIfPresent(authorizationCacheKey);
+                if (cachedDecision != null) {
+                    return cachedDecision;
                 }
-                AuthorizationRequest authorizationRequest = new AuthorizationRequest();
-                authorizationRequest.setTenantDomain(tenantDomainFromTopic);
-                try {
-                    DeviceAuthorizationResult deviceAuthorizationResult =
-                            deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
-                    if (deviceAuthorizationResult != null) {
-                        cache.put(authorizationCacheKey, true);
-                        return true;
-                    }
-                    return false;
-                } catch (FeignException e) {
-                    oAuthRequestInterceptor.resetApiApplicationKey();
-                    if (e.getMessage().contains(GATEWAY_ERROR_CODE) || e.status() == 404 || e.status() == 403) {
-                        log.error("Failed to connect to the device authorization service, Retrying....");
-                    } else {
-                        log.error(e.getMessage(), e);
+                return decisionCache.load(authorizationCacheKey, new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return isTenantAuthorized(tenantDomain);
                     }
-                    return false;
-                }
+                });
             }
-            String deviceType = topics[1];
-            String deviceId = topics[2];
-            AuthorizationCacheKey authorizationCacheKey = new AuthorizationCacheKey(tenantDomainFromTopic
-                    , authorizationSubject.getUsername(), deviceId, deviceType);
-            if (cache.get(authorizationCacheKey) != null && cache.get(authorizationCacheKey)) {
-                return true;
+            final String deviceType = topics[1];
+            final String deviceId = topics[2];
+            final MQTTAuthoriztionPermissionLevel requiredPermissionLevel = permissionLevel;
+            AuthorizationCacheKey authorizationCacheKey = new AuthorizationCacheKey(tenantDomain, username, deviceId,
+                                                                                    deviceType, permissionLevel.name());
+            Boolean cachedDecision = decisionCache.getIfPresent(authorizationCacheKey);
+            if (cachedDecision != null) {
+                return cachedDecision;
             }
+            return decisionCache.load(authorizationCacheKey, new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return isDeviceAuthorized(tenantDomain, username, deviceId, deviceType, requiredPermissionLevel);
+                }
+            });
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
 
-            List<String> requiredPermission;
-            if (permissionLevel == MQTTAuthoriztionPermissionLevel.SUBSCRIBE) {
-                requiredPermission = MQTTAuthorizationConfiguration.getSubscriberPermissions();
-            } else {
-                requiredPermission = MQTTAuthorizationConfiguration.getPublisherPermissions();
-            }
+    /**
+     * Calls the device access authorization service to check whether the tenant is accessible.
+     *
+     * @param tenantDomain tenant domain of the topic.
+     * @return the decision, or null if the authorization service could not be reached.
+     */
+    private Boolean isTenantAuthorized(String tenantDomain) {
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setTenantDomain(tenantDomain);
+        try {
+            DeviceAuthorizationResult deviceAuthorizationResult =
+                    deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
+            return deviceAuthorizationResult != null;
+        } catch (FeignException e) {
+            handleAuthorizationServiceError(e);
+            return null;
+        }
+    }
 
-            AuthorizationRequest authorizationRequest = new AuthorizationRequest();
-            authorizationRequest.setTenantDomain(tenantDomainFromTopic);
-            if (requiredPermission != null) {
-                authorizationRequest.setPermissions(requiredPermission);
-            }
-            authorizationRequest.setUsername(authorizationSubject.getUsername());
-            DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
-            deviceIdentifier.setId(deviceId);
-            deviceIdentifier.setType(deviceType);
-            List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
-            deviceIdentifiers.add(deviceIdentifier);
-            authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
-            try {
-                DeviceAuthorizationResult deviceAuthorizationResult =
-                        deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
-                List<DeviceIdentifier> devices = deviceAuthorizationResult.getAuthorizedDevices();
-                if (devices != null && devices.size() > 0) {
-                    DeviceIdentifier authorizedDevice = devices.get(0);
-                    if (authorizedDevice.getId().equals(deviceId) && authorizedDevice.getType().equals(deviceType)) {
-                        cache.put(authorizationCacheKey, true);
-                        return true;
-                    }
-                }
-            } catch (FeignException e) {
-                oAuthRequestInterceptor.resetApiApplicationKey();
-                //This is to avoid failure where it tries to call authorization service before the api is published
-                if (e.getMessage().contains(GATEWAY_ERROR_CODE) || e.status() == 404 || e.status() == 403) {
-                    log.error("Failed to connect to the device authorization service, Retrying....");
-                } else {
-                    log.error(e.getMessage(), e);
+    /**
+     * Calls the device access authorization service to check whether the user is authorized for the device.
+     *
+     * @param tenantDomain    tenant domain of the topic.
+     * @param username        username of the client.
+     * @param deviceId        device id of the topic.
+     * @param deviceType      device type of the topic.
+     * @param permissionLevel whether the client publishes or subscribes to the topic.
+     * @return the decision, or null if the authorization service could not be reached.
+     */
+    private Boolean isDeviceAuthorized(String tenantDomain, String username, String deviceId, String deviceType,
+                                       MQTTAuthoriztionPermissionLevel permissionLevel) {
+        List<String> requiredPermission;
+        if (permissionLevel == MQTTAuthoriztionPermissionLevel.SUBSCRIBE) {
+            requiredPermission = MQTTAuthorizationConfiguration.getSubscriberPermissions();
+        } else {
+            requiredPermission = MQTTAuthorizationConfiguration.getPublisherPermissions();
+        }
+
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setTenantDomain(tenantDomain);
+        if (requiredPermission != null) {
+            authorizationRequest.setPermissions(requiredPermission);
+        }
+        authorizationRequest.setUsername(username);
+        DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
+        deviceIdentifier.setId(deviceId);
+        deviceIdentifier.setType(deviceType);
+        List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
+        deviceIdentifiers.add(deviceIdentifier);
+        authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
+        try {
+            DeviceAuthorizationResult deviceAuthorizationResult =
+                    deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
+            List<DeviceIdentifier> devices = deviceAuthorizationResult.getAuthorizedDevices();
+            if (devices != null && devices.size() > 0) {
+                DeviceIdentifier authorizedDevice = devices.get(0);
+                if (authorizedDevice.getId().equals(deviceId) && authorizedDevice.getType().equals(deviceType)) {
+                    return true;
                 }
             }
             return false;
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+        } catch (FeignException e) {
+            handleAuthorizationServiceError(e);
+            return null;
+        }
+    }
+
+    private void handleAuthorizationServiceError(FeignException e) {
+        oAuthRequestInterceptor.resetApiApplicationKey();
+        //This is to avoid failure where it tries to call authorization service before the api is published
+        if (e.getMessage().contains(GATEWAY_ERROR_CODE) || e.status() == 404 || e.status() == 403) {
+            log.error("Failed to connect to the device authorization service, Retrying....");
+        } else {
+            log.error(e.getMessage(), e);
         }
     }
 
@@ -234,28 +269,6 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
         }
     }
 
-    /**
-     * This method is used to create the Caches.
-     * @return          Cachemanager
-     */
-    private synchronized Cache<AuthorizationCacheKey, Boolean> getCache() {
-        PrivilegedCarbonContext.startTenantFlow();
-        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
-                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
-        try {
-            if (MQTTAuthorizationConfiguration.getCacheDuration() == 0) {
-                return Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME).getCache(CACHE_NAME);
-            } else {
-                return Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME).<AuthorizationCacheKey, Boolean>createCacheBuilder(CACHE_NAME).
-                        setExpiry(CacheConfiguration.ExpiryType.MODIFIED, new CacheConfiguration.Duration(
-                                TimeUnit.SECONDS, MQTTAuthorizationConfiguration.getCacheDuration())).
-                        setStoreByValue(false).build();
-            }
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
-        }
-    }
-
     public static Client getSSLClient() {
         boolean isIgnoreHostnameVerification = Boolean.parseBoolean(System.getProperty("org.wso2.ignoreHostnameVerification"));
         if(isIgnoreHostnameVerification) {
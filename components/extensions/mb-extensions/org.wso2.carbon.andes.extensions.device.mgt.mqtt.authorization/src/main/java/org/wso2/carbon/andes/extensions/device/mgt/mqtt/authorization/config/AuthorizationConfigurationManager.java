@@ -35,6 +35,11 @@ public class AuthorizationConfigurationManager {
     private static final String TOKEN_REFRESH_TIME_OFFSET = "tokenRefreshTimeOffset";
     private static final String DEVICE_MGT_SERVER_URL = "deviceMgtServerUrl";
     private static final String MQTT_CACHE_DURATION = "cacheDurationSeconds";
+    private static final String MQTT_DENY_CACHE_DURATION = "denyCacheDurationSeconds";
+    private static final String MQTT_CACHE_MAX_SIZE = "cacheMaxSize";
+    private static final long DEFAULT_CACHE_DURATION = 900;
+    private static final long DEFAULT_DENY_CACHE_DURATION = 30;
+    private static final int DEFAULT_CACHE_MAX_SIZE = 10000;
 
     private static final AuthorizationConfigurationManager oAuthConfigurationManager
             = new AuthorizationConfigurationManager();
@@ -46,6 +51,8 @@ public class AuthorizationConfigurationManager {
     private long tokenRefreshTimeOffset;
     private String deviceMgtServerUrl;
     private long cacheDuration;
+    private long denyCacheDuration = DEFAULT_DENY_CACHE_DURATION;
+    private int cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
 
     private List<String> publisherPermissions = new ArrayList<>();
     private List<String> subscriberPermissions = new ArrayList<>();
@@ -171,6 +178,41 @@ public class AuthorizationConfigurationManager {
         }
     }
 
+    /**
+     * @return the duration in seconds an allowed authorization decision is cached.
+     */
+    public long getAllowCacheDuration() {
+        return cacheDuration > 0 ? cacheDuration : DEFAULT_CACHE_DURATION;
+    }
+
+    public long getDenyCacheDuration() {
+        return denyCacheDuration;
+    }
+
+    public void setDenyCacheDuration(String denyCacheDuration) {
+        try {
+            if (denyCacheDuration != null && !denyCacheDuration.isEmpty()) {
+                this.denyCacheDuration = Long.parseLong(denyCacheDuration);
+            }
+        } catch (NumberFormatException e) {
+            logger.error("denyCacheDurationSeconds is not a number(long)");
+        }
+    }
+
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(String cacheMaxSize) {
+        try {
+            if (cacheMaxSize != null && !cacheMaxSize.isEmpty()) {
+                this.cacheMaxSize = Integer.parseInt(cacheMaxSize);
+            }
+        } catch (NumberFormatException e) {
+            logger.error("cacheMaxSize is not a number(int)");
+        }
+    }
+
     /**
      * Initialize the configuration properties that required for MQTT Authorization
      */
@@ -208,6 +250,12 @@ public class AuthorizationConfigurationManager {
                 case MQTT_CACHE_DURATION:
                     setCacheDuration(propertyValue);
                     break;
+                case MQTT_DENY_CACHE_DURATION:
+                    setDenyCacheDuration(propertyValue);
+                    break;
+                case MQTT_CACHE_MAX_SIZE:
+                    setCacheMaxSize(propertyValue);
+                    break;
 
 
                 default:
@@ -1,33 +1,53 @@
 package org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.util;
 
-public class AuthorizationCacheKey {
-    String tenantDomain;
-    String deviceId;
-    String deviceType;
-    String username;
+/**
+ * Key of a cached authorization decision. The hash code is computed once, without building any intermediate string,
+ * as keys are created and looked up for every publish and subscribe.
+ */
+public final class AuthorizationCacheKey {
+    private final String tenantDomain;
+    private final String deviceId;
+    private final String deviceType;
+    private final String username;
+    private final String permissionLevel;
+    private final int hashCode;
 
     public AuthorizationCacheKey(String tenantDomain, String username, String deviceId, String deviceType) {
+        this(tenantDomain, username, deviceId, deviceType, "");
+    }
+
+    public AuthorizationCacheKey(String tenantDomain, String username, String deviceId, String deviceType,
+                                 String permissionLevel) {
         this.username = username;
         this.tenantDomain = tenantDomain;
         this.deviceId = deviceId;
         this.deviceType = deviceType;
+        this.permissionLevel = permissionLevel;
+        int result = deviceType.hashCode();
+        result = 31 * result + deviceId.hashCode();
+        result = 31 * result + tenantDomain.hashCode();
+        result = 31 * result + username.hashCode();
+        result = 31 * result + permissionLevel.hashCode();
+        this.hashCode = result;
     }
 
     @Override
     public int hashCode() {
-        int result = this.deviceType.hashCode();
-        result = 31 * result + ("@" + this.deviceId + "@" + this.tenantDomain + "@" + this.username).hashCode();
-
-        return result;
+        return hashCode;
     }
 
     @Override
     public boolean equals(Object obj) {
-        return (obj instanceof AuthorizationCacheKey) && deviceType.equals(
-                ((AuthorizationCacheKey) obj).deviceType) && tenantDomain.equals(
-                ((AuthorizationCacheKey) obj).tenantDomain ) && deviceId.equals(
-                ((AuthorizationCacheKey) obj).deviceId) && username.equals(
-                ((AuthorizationCacheKey) obj).username);
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AuthorizationCacheKey)) {
+            return false;
+        }
+        AuthorizationCacheKey other = (AuthorizationCacheKey) obj;
+        return hashCode == other.hashCode && deviceType.equals(other.deviceType) && tenantDomain.equals(
+                other.tenantDomain) && deviceId.equals(other.deviceId) && username.equals(other.username)
+                && permissionLevel.equals(other.permissionLevel);
     }
 
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the {@link AuthorizationDecisionCache}, exposed over JMX.
+ */
+public class AuthorizationCacheStats implements AuthorizationCacheStatsMBean {
+
+    private final AuthorizationDecisionCache decisionCache;
+    private final AtomicLong allowHitCount = new AtomicLong();
+    private final AtomicLong denyHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong coalescedLoadCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong totalLoadTimeNanos = new AtomicLong();
+
+    public AuthorizationCacheStats(AuthorizationDecisionCache decisionCache) {
+        this.decisionCache = decisionCache;
+    }
+
+    void recordHit(boolean authorized) {
+        if (authorized) {
+            allowHitCount.incrementAndGet();
+        } else {
+            denyHitCount.incrementAndGet();
+        }
+    }
+
+    void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    void recordCoalescedLoad() {
+        coalescedLoadCount.incrementAndGet();
+    }
+
+    void recordLoad(long loadTimeNanos, boolean failed) {
+        loadCount.incrementAndGet();
+        totalLoadTimeNanos.addAndGet(loadTimeNanos);
+        if (failed) {
+            loadFailureCount.incrementAndGet();
+        }
+    }
+
+    void recordEviction() {
+        evictionCount.incrementAndGet();
+    }
+
+    @Override
+    public long getHitCount() {
+        return allowHitCount.get() + denyHitCount.get();
+    }
+
+    @Override
+    public long getAllowHitCount() {
+        return allowHitCount.get();
+    }
+
+    @Override
+    public long getDenyHitCount() {
+        return denyHitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public long getCoalescedLoadCount() {
+        return coalescedLoadCount.get();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return loadFailureCount.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public double getAverageLoadLatencyMillis() {
+        long loads = loadCount.get();
+        if (loads == 0) {
+            return 0;
+        }
+        return (double) TimeUnit.NANOSECONDS.toMicros(totalLoadTimeNanos.get()) / loads / 1000;
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long requests = hits + missCount.get();
+        if (requests == 0) {
+            return 0;
+        }
+        return (double) hits / requests;
+    }
+
+    @Override
+    public int getSize() {
+        return decisionCache.size();
+    }
+
+    @Override
+    public void invalidateAll() {
+        decisionCache.invalidateAll();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size bounded cache of authorization decisions. Allowed and denied decisions are kept for separate durations so
+ * that a denied device which keeps retrying does not reach the device access authorization service on every attempt,
+ * while a newly granted permission is picked up quickly. Concurrent misses for the same key are coalesced into a
+ * single load. Lookups do not take any lock.
+ */
+public class AuthorizationDecisionCache {
+
+    private static final Log log = LogFactory.getLog(AuthorizationDecisionCache.class);
+    private static final String MBEAN_NAME =
+            "org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization:type=AuthorizationDecisionCache";
+    private static final float EVICTION_FACTOR = 0.9f;
+
+    private final ConcurrentHashMap<AuthorizationCacheKey, CachedDecision> decisions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<AuthorizationCacheKey, FutureTask<Boolean>> inFlightLoads =
+            new ConcurrentHashMap<>();
+    private final long allowDurationNanos;
+    private final long denyDurationNanos;
+    private final int maxSize;
+    private final AuthorizationCacheStats stats;
+
+    /**
+     * @param allowDurationSeconds time an allowed decision is cached.
+     * @param denyDurationSeconds  time a denied decision is cached, 0 disables caching of denied decisions.
+     * @param maxSize              maximum number of cached decisions.
+     */
+    public AuthorizationDecisionCache(long allowDurationSeconds, long denyDurationSeconds, int maxSize) {
+        this.allowDurationNanos = TimeUnit.SECONDS.toNanos(allowDurationSeconds);
+        this.denyDurationNanos = TimeUnit.SECONDS.toNanos(denyDurationSeconds);
+        this.maxSize = maxSize;
+        this.stats = new AuthorizationCacheStats(this);
+    }
+
+    /**
+     * Returns the cached decision for the given key.
+     *
+     * @param key authorization request key.
+     * @return the cached decision, or null if there is no valid decision for the key.
+     */
+    public Boolean getIfPresent(AuthorizationCacheKey key) {
+        CachedDecision cachedDecision = decisions.get(key);
+        if (cachedDecision != null) {
+            if (cachedDecision.expiryTime - System.nanoTime() > 0) {
+                stats.recordHit(cachedDecision.authorized);
+                return cachedDecision.authorized;
+            }
+            decisions.remove(key, cachedDecision);
+        }
+        return null;
+    }
+
+    /**
+     * Loads the decision for the given key and caches it. If a load for the same key is already in progress the
+     * caller waits for its outcome instead of triggering another load.
+     *
+     * @param key    authorization request key.
+     * @param loader loads the decision, returns null when the decision cannot be determined (e.g. the authorization
+     *               service is not reachable) in which case nothing is cached.
+     * @return true only if the loaded decision allows the request.
+     */
+    public boolean load(AuthorizationCacheKey key, Callable<Boolean> loader) {
+        stats.recordMiss();
+        FutureTask<Boolean> loadTask = new FutureTask<>(loader);
+        FutureTask<Boolean> inFlightLoad = inFlightLoads.putIfAbsent(key, loadTask);
+        if (inFlightLoad == null) {
+            inFlightLoad = loadTask;
+            long startTime = System.nanoTime();
+            try {
+                loadTask.run();
+                Boolean authorized = getResult(loadTask);
+                stats.recordLoad(System.nanoTime() - startTime, authorized == null);
+                if (authorized != null) {
+                    put(key, authorized);
+                }
+            } finally {
+                inFlightLoads.remove(key, loadTask);
+            }
+        } else {
+            stats.recordCoalescedLoad();
+        }
+        Boolean authorized = getResult(inFlightLoad);
+        return authorized != null && authorized;
+    }
+
+    public void invalidateAll() {
+        decisions.clear();
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    public AuthorizationCacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Registers the cache statistics in the platform MBean server, replacing any previously registered instance.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(stats, objectName);
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException
+                | NotCompliantMBeanException | InstanceNotFoundException e) {
+            log.error("Failed to register the MQTT authorization cache MBean.", e);
+        }
+    }
+
+    private void put(AuthorizationCacheKey key, boolean authorized) {
+        long duration = authorized ? allowDurationNanos : denyDurationNanos;
+        if (duration <= 0) {
+            return;
+        }
+        if (decisions.size() >= maxSize) {
+            evict();
+        }
+        decisions.put(key, new CachedDecision(authorized, System.nanoTime() + duration));
+    }
+
+    /**
+     * Removes the expired decisions, and if the cache is still full, arbitrary decisions until the cache is filled
+     * below the eviction threshold.
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        int threshold = (int) (maxSize * EVICTION_FACTOR);
+        Iterator<Map.Entry<AuthorizationCacheKey, CachedDecision>> iterator = decisions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expiryTime - now <= 0) {
+                iterator.remove();
+                stats.recordEviction();
+            }
+        }
+        iterator = decisions.entrySet().iterator();
+        while (decisions.size() > threshold && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            stats.recordEviction();
+        }
+    }
+
+    private static Boolean getResult(FutureTask<Boolean> loadTask) {
+        try {
+            return loadTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.error("Failed to load the authorization decision.", e.getCause());
+            return null;
+        }
+    }
+
+    private static class CachedDecision {
+        private final boolean authorized;
+        private final long expiryTime;
+
+        private CachedDecision(boolean authorized, long expiryTime) {
+            this.authorized = authorized;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -20,14 +20,12 @@ package org.wso2.carbon.device.mgt.mqtt.notification.listener;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.context.PrivilegedCarbonContext;
-import org.wso2.carbon.device.mgt.common.pull.notification.PullNotificationExecutionFailedException;
 import org.wso2.carbon.device.mgt.mqtt.notification.listener.internal.MqttNotificationDataHolder;
 import org.wso2.carbon.event.input.adapter.core.InputEventAdapterSubscription;
-import org.wso2.carbon.user.api.UserStoreException;
 
 /**
- * Creates a event subscription for the input adapter.
+ * Creates a event subscription for the input adapter, which hands the received operation updates to the
+ * {@link PullNotificationDispatcher}.
  */
 public class DeviceTypeOperationAdapterSubscription implements InputEventAdapterSubscription {
     private static final Log log = LogFactory.getLog(DeviceTypeOperationAdapterSubscription.class);
@@ -39,26 +37,12 @@ public class DeviceTypeOperationAdapterSubscription implements InputEventAdapter
             return;
         }
 
-        NotificationMessage notificationMessage = (NotificationMessage) o;
-        PrivilegedCarbonContext.startTenantFlow();
-        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(notificationMessage.getTenantDomain(),
-                                                                              true);
-        String deviceType = "";
-        try {
-            PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername(PrivilegedCarbonContext.
-                    getThreadLocalCarbonContext().getUserRealm().getRealmConfiguration().getAdminUserName());
-            deviceType = notificationMessage.getDeviceIdentifier().getType();
-            MqttNotificationDataHolder.getInstance().getDeviceManagementProviderService().
-                    notifyPullNotificationSubscriber(notificationMessage.getDeviceIdentifier(),
-                                                     notificationMessage.getOperation());
-        } catch (UserStoreException e) {
-            log.error("Failed to retrieve tenant username", e);
-        } catch (PullNotificationExecutionFailedException e) {
-            log.error("Failed to execute device type pull notification subscriber execution for device type" + deviceType,
-                    e);
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+        PullNotificationDispatcher dispatcher = MqttNotificationDataHolder.getInstance()
+                .getPullNotificationDispatcher();
+        if (dispatcher == null) {
+            log.warn("Pull notification listener is not active, hence dropping the operation update");
+            return;
         }
-
+        dispatcher.dispatch((NotificationMessage) o);
     }
 }
@@ -0,0 +1,253 @@
+/*
+ *   Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.mqtt.notification.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.pull.notification.PullNotificationExecutionFailedException;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.mqtt.notification.listener.internal.MqttNotificationDataHolder;
+import org.wso2.carbon.user.api.UserStoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the operation updates received through pull notifications to the device type subscribers on a bounded pool
+ * of worker threads, so that the input adapter threads are not held by the subscribers. Updates of a device are
+ * batched and sent in the order they arrived by a single task, which resolves the tenant admin only once per tenant.
+ */
+public class PullNotificationDispatcher {
+
+    private static final Log log = LogFactory.getLog(PullNotificationDispatcher.class);
+    private static final int WORKER_COUNT = 4;
+    private static final int WORKER_QUEUE_SIZE = 1000;
+    private static final int MAX_PENDING_UPDATES = 10000;
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<DeviceKey, DeviceUpdates> pendingUpdates = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> tenantAdmins = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingUpdateCount = new AtomicInteger();
+
+    public PullNotificationDispatcher() {
+        executor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 0L, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<Runnable>(WORKER_QUEUE_SIZE), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "pull-notification-dispatcher-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queues the update of the device to be sent to its device type subscriber.
+     *
+     * @return false if the update was dropped since too many updates are waiting.
+     */
+    public boolean dispatch(NotificationMessage notificationMessage) {
+        if (pendingUpdateCount.incrementAndGet() > MAX_PENDING_UPDATES) {
+            pendingUpdateCount.decrementAndGet();
+            log.error("Too many pull notifications are waiting, hence dropping an operation update of " +
+                              describe(notificationMessage.getDeviceIdentifier()));
+            return false;
+        }
+        DeviceKey key = new DeviceKey(notificationMessage.getTenantDomain(), notificationMessage.getDeviceIdentifier());
+        while (true) {
+            DeviceUpdates updates = pendingUpdates.get(key);
+            if (updates == null) {
+                DeviceUpdates newUpdates = new DeviceUpdates(key);
+                updates = pendingUpdates.putIfAbsent(key, newUpdates);
+                if (updates == null) {
+                    updates = newUpdates;
+                }
+            }
+            synchronized (updates) {
+                if (updates.closed) {
+                    // Drained in between, so start a new batch.
+                    pendingUpdates.remove(key, updates);
+                    continue;
+                }
+                updates.messages.add(notificationMessage);
+                if (updates.scheduled) {
+                    return true;
+                }
+                updates.scheduled = true;
+            }
+            try {
+                executor.execute(new DeviceUpdatesTask(updates));
+                return true;
+            } catch (RejectedExecutionException e) {
+                int dropped;
+                synchronized (updates) {
+                    dropped = updates.messages.size();
+                    updates.messages = new ArrayList<>();
+                    updates.closed = true;
+                    pendingUpdates.remove(key, updates);
+                }
+                pendingUpdateCount.addAndGet(-dropped);
+                log.error("Pull notification workers are busy, hence dropping " + dropped + " operation updates of "
+                                  + describe(notificationMessage.getDeviceIdentifier()));
+                return false;
+            }
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Takes the queued updates, marking the batch closed when there are none left so that new updates start
+     * another batch.
+     */
+    private List<NotificationMessage> close(DeviceUpdates updates) {
+        synchronized (updates) {
+            List<NotificationMessage> messages = updates.messages;
+            updates.messages = new ArrayList<>();
+            if (messages.isEmpty()) {
+                updates.closed = true;
+                pendingUpdates.remove(updates.key, updates);
+            }
+            return messages;
+        }
+    }
+
+    private static String describe(DeviceIdentifier deviceIdentifier) {
+        return deviceIdentifier.getType() + " device " + deviceIdentifier.getId();
+    }
+
+    private String getTenantAdmin(String tenantDomain) throws UserStoreException {
+        String adminUsername = tenantAdmins.get(tenantDomain);
+        if (adminUsername == null) {
+            adminUsername = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUserRealm()
+                    .getRealmConfiguration().getAdminUserName();
+            tenantAdmins.put(tenantDomain, adminUsername);
+        }
+        return adminUsername;
+    }
+
+    private void notifySubscriber(String tenantDomain, List<NotificationMessage> messages) {
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername(getTenantAdmin(tenantDomain));
+            DeviceManagementProviderService deviceManagementProviderService =
+                    MqttNotificationDataHolder.getInstance().getDeviceManagementProviderService();
+            for (NotificationMessage message : messages) {
+                try {
+                    deviceManagementProviderService.notifyPullNotificationSubscriber(message.getDeviceIdentifier(),
+                                                                                     message.getOperation());
+                } catch (PullNotificationExecutionFailedException e) {
+                    log.error("Failed to execute device type pull notification subscriber execution for device type"
+                                      + message.getDeviceIdentifier().getType(), e);
+                }
+            }
+        } catch (UserStoreException e) {
+            log.error("Failed to retrieve tenant username", e);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private class DeviceUpdatesTask implements Runnable {
+
+        private final DeviceUpdates updates;
+
+        DeviceUpdatesTask(DeviceUpdates updates) {
+            this.updates = updates;
+        }
+
+        @Override
+        public void run() {
+            List<NotificationMessage> messages = close(updates);
+            while (!messages.isEmpty()) {
+                try {
+                    notifySubscriber(updates.key.tenantDomain, messages);
+                } catch (RuntimeException e) {
+                    log.error("Error occurred while notifying the pull notification subscriber of " +
+                                      describe(updates.key.deviceIdentifier), e);
+                } finally {
+                    pendingUpdateCount.addAndGet(-messages.size());
+                }
+                messages = close(updates);
+            }
+        }
+    }
+
+    /**
+     * Updates of a device waiting to be sent. Guarded by its own lock.
+     */
+    private static class DeviceUpdates {
+
+        private final DeviceKey key;
+        private List<NotificationMessage> messages = new ArrayList<>();
+        private boolean scheduled;
+        private boolean closed;
+
+        DeviceUpdates(DeviceKey key) {
+            this.key = key;
+        }
+    }
+
+    private static class DeviceKey {
+
+        private final String tenantDomain;
+        private final DeviceIdentifier deviceIdentifier;
+
+        DeviceKey(String tenantDomain, DeviceIdentifier deviceIdentifier) {
+            this.tenantDomain = tenantDomain;
+            this.deviceIdentifier = deviceIdentifier;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DeviceKey)) {
+                return false;
+            }
+            DeviceKey that = (DeviceKey) o;
+            return tenantDomain.equals(that.tenantDomain)
+                    && deviceIdentifier.getId().equals(that.deviceIdentifier.getId())
+                    && deviceIdentifier.getType().equals(that.deviceIdentifier.getType());
+        }
+
+        @Override
+        public int hashCode() {
+            int result = tenantDomain.hashCode();
+            result = 31 * result + deviceIdentifier.getId().hashCode();
+            result = 31 * result + deviceIdentifier.getType().hashCode();
+            return result;
+        }
+    }
+}
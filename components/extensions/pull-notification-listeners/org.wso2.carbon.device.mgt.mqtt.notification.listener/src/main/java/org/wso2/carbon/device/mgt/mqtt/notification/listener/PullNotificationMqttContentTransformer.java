@@ -33,6 +33,7 @@ import java.util.Map;
 public class PullNotificationMqttContentTransformer implements ContentTransformer {
 
     public static final String MQTT_NOTIFICATION_MESSAGE_TRANSFORMER = "mqtt-operation-transformer";
+    private static final Gson gson = new Gson();
 
     @Override
     public String getType() {
@@ -46,7 +47,6 @@ public class PullNotificationMqttContentTransformer implements ContentTransforme
         String tenantDomain = topicParams[0];
         String deviceType = topicParams[1];
         String deviceId = topicParams[2];
-        Gson gson = new Gson();
         try {
             Operation operation = gson.fromJson((String) message, Operation.class);
             return new NotificationMessage(tenantDomain, new DeviceIdentifier(deviceId, deviceType),operation);
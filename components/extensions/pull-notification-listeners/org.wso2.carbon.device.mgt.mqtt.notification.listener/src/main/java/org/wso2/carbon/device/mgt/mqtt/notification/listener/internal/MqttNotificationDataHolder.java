@@ -19,12 +19,14 @@
 package org.wso2.carbon.device.mgt.mqtt.notification.listener.internal;
 
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.mqtt.notification.listener.PullNotificationDispatcher;
 import org.wso2.carbon.event.input.adapter.core.InputEventAdapterService;
 
 public class MqttNotificationDataHolder {
 
     private DeviceManagementProviderService deviceManagementProviderService;
     private InputEventAdapterService inputEventAdapterService;
+    private PullNotificationDispatcher pullNotificationDispatcher;
 
     private static MqttNotificationDataHolder thisInstance = new MqttNotificationDataHolder();
 
@@ -48,4 +50,12 @@ public class MqttNotificationDataHolder {
             InputEventAdapterService inputEventAdapterService) {
         this.inputEventAdapterService = inputEventAdapterService;
     }
+
+    public PullNotificationDispatcher getPullNotificationDispatcher() {
+        return pullNotificationDispatcher;
+    }
+
+    public void setPullNotificationDispatcher(PullNotificationDispatcher pullNotificationDispatcher) {
+        this.pullNotificationDispatcher = pullNotificationDispatcher;
+    }
 }
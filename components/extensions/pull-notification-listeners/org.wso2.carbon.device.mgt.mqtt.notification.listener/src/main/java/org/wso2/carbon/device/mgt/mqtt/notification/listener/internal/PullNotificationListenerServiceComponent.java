@@ -25,6 +25,7 @@ import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.core.ServerStartupObserver;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentTransformer;
+import org.wso2.carbon.device.mgt.mqtt.notification.listener.PullNotificationDispatcher;
 import org.wso2.carbon.device.mgt.mqtt.notification.listener.PullNotificationMqttContentTransformer;
 import org.wso2.carbon.device.mgt.mqtt.notification.listener.PullNotificationStartupListener;
 import org.wso2.carbon.device.mgt.mqtt.notification.listener.util.MqttNotificationListener;
@@ -57,6 +58,7 @@ public class PullNotificationListenerServiceComponent {
                 log.debug("Pull notification provider implementation bundle has been successfully " +
                         "initialized");
             }
+            MqttNotificationDataHolder.getInstance().setPullNotificationDispatcher(new PullNotificationDispatcher());
             BundleContext bundleContext = componentContext.getBundleContext();
             bundleContext.registerService(ServerStartupObserver.class.getName(), new PullNotificationStartupListener(),
                                           null);
@@ -67,7 +69,11 @@ public class PullNotificationListenerServiceComponent {
     }
 
     protected void deactivate(ComponentContext componentContext) {
-        //Do nothing
+        PullNotificationDispatcher dispatcher = MqttNotificationDataHolder.getInstance().getPullNotificationDispatcher();
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            MqttNotificationDataHolder.getInstance().setPullNotificationDispatcher(null);
+        }
     }
 
     protected void setDeviceManagementProviderService(DeviceManagementProviderService deviceManagementProviderService) {
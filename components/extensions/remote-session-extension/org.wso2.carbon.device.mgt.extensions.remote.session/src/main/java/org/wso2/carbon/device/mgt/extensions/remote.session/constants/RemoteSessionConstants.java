@@ -30,6 +30,9 @@ public class RemoteSessionConstants {
     public static final String PASSWORD = "password";
     public static final String DATE_FORMAT_NOW = "yyyy-MM-dd HH:mm:ss";
     public static final int MAX_BUFFER_SIZE = 640 * 1024;
+    public static final int OUTBOUND_QUEUE_SIZE = 100;
+    public static final String RELAY_STATS_MBEAN_NAME =
+            "org.wso2.carbon.device.mgt.extensions.remote.session:type=RemoteSessionRelayStats";
 
     public enum CONNECTION_TYPE {
         CLIENT, DEVICE
@@ -22,14 +22,28 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.extensions.remote.session.constants.RemoteSessionConstants;
 import org.wso2.carbon.device.mgt.extensions.remote.session.exception.RemoteSessionManagementException;
 import org.wso2.carbon.device.mgt.extensions.remote.session.internal.RemoteSessionManagementDataHolder;
+import org.wso2.carbon.device.mgt.extensions.remote.session.util.RemoteSessionRelayStats;
 
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
 import javax.websocket.Session;
-import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * {@link RemoteSession} will represent remote websocket session
  * This class implements the behaviours of sending message to the session in multithreaded context.
+ * Messages are relayed asynchronously, one send in flight at a time, so a slow peer never blocks the sender. Text
+ * messages carry control data and wait in a bounded queue that is always served first, while binary messages are
+ * screen frames of which only the latest one is kept. When the message rate of the session is exceeded, sending is
+ * postponed instead of dropping the message.
  */
 public class RemoteSession {
 
@@ -42,10 +56,24 @@ public class RemoteSession {
     private long lastMessageTimeStamp = System.currentTimeMillis();
     private RemoteSession peerSession;
     private Session mySession;
-    private final Object writeLockObject = new Object();
     private int maxMessagesPerSecond;
-    private int messageAllowance;
+    private double messageAllowance;
     private double messageRatePerSecond;
+    private final BlockingQueue<String> controlQueue =
+            new ArrayBlockingQueue<>(RemoteSessionConstants.OUTBOUND_QUEUE_SIZE);
+    private final AtomicReference<byte[]> latestFrame = new AtomicReference<>();
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+    private static final RemoteSessionRelayStats relayStats = RemoteSessionRelayStats.getInstance();
+    private static final ScheduledExecutorService dispatchScheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RemoteSessionDispatchScheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
     private RemoteSessionConstants.CONNECTION_TYPE connectionType;
 
     public RemoteSession(Session session, String tenantDomain, String deviceType, String deviceId,
@@ -63,25 +91,21 @@ public class RemoteSession {
 
     private void sendMessage(Object message) throws RemoteSessionManagementException {
         if (message != null) {
-            boolean isMessageCountExceed = false;
             if (mySession != null && mySession.isOpen()) {
-                synchronized (writeLockObject) {
-                    try {
-                        isMessageCountExceed = applyRateLimit();
-                        if (!isMessageCountExceed) {
-                            if (message instanceof String) {
-                                mySession.getBasicRemote().sendText(message.toString());
-                            } else {
-                                mySession.getBasicRemote().sendBinary(ByteBuffer.wrap((byte[]) message));
-                            }
-                            this.lastMessageTimeStamp = System.currentTimeMillis();
-                        } else {
-                            log.warn("Message count per second is exceeded for device id :" + deviceId);
-                        }
-                    } catch (IOException e) {
-                        log.warn("Send data to session failed due to ", e);
+                if (message instanceof String) {
+                    if (controlQueue.offer((String) message)) {
+                        relayStats.recordQueued();
+                    } else {
+                        relayStats.recordDropped();
+                        log.warn("Outbound queue is full, dropping message for device id :" + deviceId);
+                    }
+                } else {
+                    relayStats.recordQueued();
+                    if (latestFrame.getAndSet((byte[]) message) != null) {
+                        relayStats.recordCoalesced();
                     }
                 }
+                dispatch();
             } else {
                 throw new RemoteSessionManagementException("Peer Session already closed ");
             }
@@ -90,6 +114,95 @@ public class RemoteSession {
         }
     }
 
+    /**
+     * Starts sending the next pending message unless a send is already in flight, in which case the completion of
+     * that send picks up the next one.
+     */
+    private void dispatch() {
+        while (sending.compareAndSet(false, true)) {
+            if (controlQueue.isEmpty() && latestFrame.get() == null) {
+                sending.set(false);
+                if (controlQueue.isEmpty() && latestFrame.get() == null) {
+                    return;
+                }
+                continue;
+            }
+            if (!mySession.isOpen()) {
+                controlQueue.clear();
+                latestFrame.set(null);
+                sending.set(false);
+                return;
+            }
+            if (isMessageCountExceeded()) {
+                relayStats.recordRateLimited();
+                sending.set(false);
+                scheduleDispatch();
+                return;
+            }
+            Object message = controlQueue.poll();
+            if (message == null) {
+                message = latestFrame.getAndSet(null);
+            }
+            if (message == null) {
+                sending.set(false);
+                continue;
+            }
+            send(message);
+            return;
+        }
+    }
+
+    private void send(Object message) {
+        SendHandler sendHandler = new SendHandler() {
+            @Override
+            public void onResult(SendResult result) {
+                if (result.isOK()) {
+                    lastMessageTimeStamp = System.currentTimeMillis();
+                    relayStats.recordSent();
+                } else {
+                    relayStats.recordFailed();
+                    log.warn("Send data to session failed due to ", result.getException());
+                }
+                sending.set(false);
+                dispatch();
+            }
+        };
+        boolean submitted = false;
+        try {
+            if (message instanceof String) {
+                mySession.getAsyncRemote().sendText((String) message, sendHandler);
+            } else {
+                mySession.getAsyncRemote().sendBinary(ByteBuffer.wrap((byte[]) message), sendHandler);
+            }
+            submitted = true;
+        } catch (RuntimeException e) {
+            relayStats.recordFailed();
+            log.warn("Send data to session failed due to ", e);
+        } finally {
+            if (!submitted) {
+                // the send handler will not be called, so pick up the pending messages here
+                sending.set(false);
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * Retries the dispatch once the rate limit allows another message.
+     */
+    private void scheduleDispatch() {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            long delay = Math.max(1, (long) Math.ceil(1 / messageRatePerSecond));
+            dispatchScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    dispatchScheduled.set(false);
+                    dispatch();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
     public void sendMessageToPeer(Object message) throws RemoteSessionManagementException {
         peerSession.sendMessage(message);
     }
@@ -97,9 +210,12 @@ public class RemoteSession {
     /**
      * Use for limit the messages for given time
      *
-     * @return message rate applied
+     * @return true if the message rate is exceeded and the message has to wait.
      */
-    private boolean applyRateLimit() {
+    private boolean isMessageCountExceeded() {
+        if (maxMessagesPerSecond <= 0) {
+            return false;
+        }
         long currentTime = System.currentTimeMillis();
         messageAllowance += (currentTime - lastMessageTimeStamp) * messageRatePerSecond;
         if (messageAllowance > maxMessagesPerSecond) {
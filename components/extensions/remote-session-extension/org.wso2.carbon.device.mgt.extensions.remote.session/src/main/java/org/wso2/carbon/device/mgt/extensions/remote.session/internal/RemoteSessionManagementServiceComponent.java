@@ -27,7 +27,18 @@ import org.wso2.carbon.device.mgt.common.authorization.DeviceAccessAuthorization
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.extensions.remote.session.RemoteSessionManagementService;
 import org.wso2.carbon.device.mgt.extensions.remote.session.RemoteSessionManagementServiceImpl;
+import org.wso2.carbon.device.mgt.extensions.remote.session.constants.RemoteSessionConstants;
 import org.wso2.carbon.device.mgt.extensions.remote.session.listener.RemoteSessionManagerStartupListener;
+import org.wso2.carbon.device.mgt.extensions.remote.session.util.RemoteSessionRelayStats;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 
 /**
  * @scr.component name="RemoteSessionManagementServiceComponent" immediate="true"
@@ -57,6 +68,7 @@ public class RemoteSessionManagementServiceComponent {
                     RemoteSessionManagerStartupListener(), null);
             bundleContext.registerService(RemoteSessionManagementService.class.getName(), new
                     RemoteSessionManagementServiceImpl(), null);
+            registerRelayStatsMBean();
             if (log.isDebugEnabled()) {
                 log.debug("Remote Session device access service implementation bundle has been successfully " +
                         "initialized");
@@ -71,6 +83,20 @@ public class RemoteSessionManagementServiceComponent {
         //Do nothing
     }
 
+    private void registerRelayStatsMBean() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(RemoteSessionConstants.RELAY_STATS_MBEAN_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(RemoteSessionRelayStats.getInstance(), objectName);
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException
+                | NotCompliantMBeanException | InstanceNotFoundException e) {
+            log.warn("Unable to register the remote session relay stats MBean", e);
+        }
+    }
+
     protected void setDeviceManagementProviderService(DeviceManagementProviderService deviceManagementProviderService) {
         RemoteSessionManagementDataHolder.getInstance()
                 .setDeviceManagementProviderService(deviceManagementProviderService);
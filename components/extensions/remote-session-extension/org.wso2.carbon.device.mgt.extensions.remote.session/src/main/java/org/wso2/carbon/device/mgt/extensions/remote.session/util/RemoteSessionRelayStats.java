@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.extensions.remote.session.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the outbound relay, shared by all remote sessions of the server.
+ */
+public class RemoteSessionRelayStats implements RemoteSessionRelayStatsMBean {
+
+    private static final RemoteSessionRelayStats instance = new RemoteSessionRelayStats();
+
+    private final AtomicLong queuedMessageCount = new AtomicLong();
+    private final AtomicLong sentMessageCount = new AtomicLong();
+    private final AtomicLong coalescedFrameCount = new AtomicLong();
+    private final AtomicLong droppedMessageCount = new AtomicLong();
+    private final AtomicLong failedMessageCount = new AtomicLong();
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+
+    private RemoteSessionRelayStats() {
+    }
+
+    public static RemoteSessionRelayStats getInstance() {
+        return instance;
+    }
+
+    public void recordQueued() {
+        queuedMessageCount.incrementAndGet();
+    }
+
+    public void recordSent() {
+        sentMessageCount.incrementAndGet();
+    }
+
+    public void recordCoalesced() {
+        coalescedFrameCount.incrementAndGet();
+    }
+
+    public void recordDropped() {
+        droppedMessageCount.incrementAndGet();
+    }
+
+    public void recordFailed() {
+        failedMessageCount.incrementAndGet();
+    }
+
+    public void recordRateLimited() {
+        rateLimitedCount.incrementAndGet();
+    }
+
+    @Override
+    public long getQueuedMessageCount() {
+        return queuedMessageCount.get();
+    }
+
+    @Override
+    public long getSentMessageCount() {
+        return sentMessageCount.get();
+    }
+
+    @Override
+    public long getCoalescedFrameCount() {
+        return coalescedFrameCount.get();
+    }
+
+    @Override
+    public long getDroppedMessageCount() {
+        return droppedMessageCount.get();
+    }
+
+    @Override
+    public long getFailedMessageCount() {
+        return failedMessageCount.get();
+    }
+
+    @Override
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.extensions.remote.session.util;
+
+/**
+ * Management interface exposing how the messages relayed to remote sessions are queued and sent.
+ */
+public interface RemoteSessionRelayStatsMBean {
+
+    /**
+     * @return number of messages accepted into the outbound lanes of the sessions.
+     */
+    long getQueuedMessageCount();
+
+    /**
+     * @return number of messages handed over to the websocket sessions successfully.
+     */
+    long getSentMessageCount();
+
+    /**
+     * @return number of screen frames replaced by a newer frame before they could be sent.
+     */
+    long getCoalescedFrameCount();
+
+    /**
+     * @return number of control messages dropped because the outbound queue of the session was full.
+     */
+    long getDroppedMessageCount();
+
+    /**
+     * @return number of sends that failed at the websocket session.
+     */
+    long getFailedMessageCount();
+
+    /**
+     * @return number of sends postponed because the session exceeded its message rate.
+     */
+    long getRateLimitedCount();
+}
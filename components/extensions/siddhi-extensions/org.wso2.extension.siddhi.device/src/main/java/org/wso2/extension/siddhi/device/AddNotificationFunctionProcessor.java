@@ -22,9 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.notification.mgt.Notification;
-import org.wso2.carbon.device.mgt.common.notification.mgt.NotificationManagementException;
-import org.wso2.carbon.device.mgt.common.notification.mgt.NotificationManagementService;
-import org.wso2.extension.siddhi.device.utils.DeviceUtils;
+import org.wso2.extension.siddhi.device.utils.OperationDispatcher;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
@@ -92,7 +90,6 @@ public class AddNotificationFunctionProcessor extends StreamFunctionProcessor {
             throw new ExecutionPlanRuntimeException("Invalid input given to device:addNotification() function. " +
                     "Neither of any three arguments cannot be null");
         }
-        boolean isNotified = false;
         String deviceId = (String) data[0];
         String deviceType = (String) data[1];
         String description = (String) data[2];
@@ -102,15 +99,10 @@ public class AddNotificationFunctionProcessor extends StreamFunctionProcessor {
         notification.setDeviceType(deviceType);
         notification.setDescription(description);
 
-        NotificationManagementService notificationManagementService = DeviceUtils.getNotificationManagementService();
-        try {
-            isNotified = notificationManagementService.addNotification(new DeviceIdentifier(deviceId, deviceType), notification);
-        } catch (NotificationManagementException e) {
-            // We are not throwing this exception to siddhi runtime as it will break the complete siddhi execution
-            // flow for the event stream coming in.
-            log.error("Error occurred while adding notification '" + notification.toString() + "' for " +
-                    deviceType + " device with id " + deviceId, e);
-        }
+        // The notification is added asynchronously, so that the siddhi execution flow is neither blocked by nor
+        // broken by the notification management service. isNotified only says whether it was queued.
+        boolean isNotified = OperationDispatcher.addNotification(new DeviceIdentifier(deviceId, deviceType),
+                                                                 notification);
 
         return new Object[]{isNotified};
     }
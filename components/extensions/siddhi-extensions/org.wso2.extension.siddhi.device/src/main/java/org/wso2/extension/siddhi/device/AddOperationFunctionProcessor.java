@@ -18,23 +18,11 @@
 
 package org.wso2.extension.siddhi.device;
 
-import feign.Feign;
-import feign.Logger;
-import feign.gson.GsonDecoder;
-import feign.gson.GsonEncoder;
-import feign.jaxrs.JAXRSContract;
-import feign.okhttp.OkHttpClient;
-import feign.slf4j.Slf4jLogger;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.JSONArray;
-import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
-import org.wso2.extension.siddhi.device.client.OAuthRequestInterceptor;
-import org.wso2.extension.siddhi.device.client.configs.SiddhiExtensionConfigReader;
-import org.wso2.extension.siddhi.device.client.dto.OperationRequest;
-import org.wso2.extension.siddhi.device.client.services.OperationService;
-import org.wso2.extension.siddhi.device.utils.ClientUtils;
+import org.wso2.extension.siddhi.device.utils.OperationDispatcher;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
@@ -43,27 +31,18 @@ import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
+/**
+ * Adds an operation to the given devices. Operations are queued to the {@link OperationDispatcher}, which coalesces
+ * the ones targeting the same operation into a single call. Hence the activity of the operation is not known when an
+ * event is processed, and the activity_id attribute introduced by the function is always null. The attribute is kept
+ * so that the execution plans selecting it remain valid.
+ */
 public class AddOperationFunctionProcessor extends StreamFunctionProcessor {
 
     private static final Log log = LogFactory.getLog(AddOperationFunctionProcessor.class);
-    private static final String DATE_FORMAT_NOW = "yyyy-MM-dd HH:mm:ss";
-    private static final String DEVICE_MGT_BASE_CONTEXT = "/api/device-mgt/v1.0";
-    private OperationService operationService;
-
-    public AddOperationFunctionProcessor() {
-        operationService = Feign.builder().client(new OkHttpClient(ClientUtils.getSSLClient()))
-                .logger(new Slf4jLogger())
-                .logLevel(Logger.Level.FULL).requestInterceptor(new OAuthRequestInterceptor())
-                .contract(new JAXRSContract()).encoder(new GsonEncoder()).decoder(new GsonDecoder())
-                .target(OperationService.class, ClientUtils.replaceProperties(
-                        SiddhiExtensionConfigReader.getInstance().getConfig().getGatewayEndpoint() +
-                                DEVICE_MGT_BASE_CONTEXT));
-    }
 
     /**
      * The init method of the StreamProcessor, this method will be called before other methods
@@ -151,19 +130,12 @@ public class AddOperationFunctionProcessor extends StreamFunctionProcessor {
         String payloadString = (String) data[5];
         operation.setPayLoad(payloadString.replaceAll("'", "\""));
 
-        String date = new SimpleDateFormat(DATE_FORMAT_NOW).format(new Date());
-        operation.setCreatedTimeStamp(date);
-
-        OperationRequest operationRequest = new OperationRequest();
-        operationRequest.setDeviceIdentifiers(deviceIdentifiers);
-        operationRequest.setOperation(operation);
-        try {
-            Activity activity = operationService.addOperation(deviceType, operationRequest);
-            return new Object[]{activity.getActivityId()};
-        } catch (Exception e) {
-            log.error("Error occurred while adding the operation " + operation.toString(), e);
-            return new Object[]{null};
+        if (!OperationDispatcher.addOperation(deviceType, deviceIdentifiers, operation)) {
+            log.warn("Operation " + operation.toString() + " was not added to all the devices " + deviceIdentifiers);
         }
+        // The operation is added asynchronously along with the ones targeting other devices, hence there is no
+        // activity to return.
+        return new Object[]{null};
     }
 
     /**
@@ -195,7 +167,7 @@ public class AddOperationFunctionProcessor extends StreamFunctionProcessor {
      */
     @Override
     public void stop() {
-
+        OperationDispatcher.flush();
     }
 
     /**
@@ -21,11 +21,8 @@ package org.wso2.extension.siddhi.device;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.JSONArray;
-import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
-import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
-import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
-import org.wso2.extension.siddhi.device.utils.DeviceUtils;
+import org.wso2.extension.siddhi.device.utils.DeviceMetadataCache;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
@@ -33,8 +30,6 @@ import org.wso2.siddhi.core.executor.function.FunctionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 
-import java.util.List;
-
 /**
  * getDevicesOfStatus(status [, deviceType])
  * Returns devices with specified status
@@ -85,19 +80,12 @@ public class GetDevicesOfStatusFunctionExecutor extends FunctionExecutor {
             deviceType = (String) data[1];
         }
 
-        JSONArray deviceIds = new JSONArray();
         try {
-            DeviceManagementProviderService deviceManagementProviderService = DeviceUtils.getDeviceManagementProviderService();
-            List<Device> devices = deviceManagementProviderService.getDevicesByStatus(EnrolmentInfo.Status.valueOf(status), false);
-            for (Device device : devices) {
-                if (deviceType == null || deviceType.equalsIgnoreCase(device.getType())) {
-                    deviceIds.put(device.getDeviceIdentifier());
-                }
-            }
+            return DeviceMetadataCache.getDevicesOfStatus(status).toJson(deviceType);
         } catch (DeviceManagementException e) {
             log.error("Error occurred while getting devices with status " + status, e);
         }
-        return deviceIds.toString();
+        return new JSONArray().toString();
     }
 
     @Override
@@ -21,10 +21,8 @@ package org.wso2.extension.siddhi.device;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.JSONArray;
-import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
-import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
-import org.wso2.extension.siddhi.device.utils.DeviceUtils;
+import org.wso2.extension.siddhi.device.utils.DeviceMetadataCache;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
@@ -32,8 +30,6 @@ import org.wso2.siddhi.core.executor.function.FunctionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 
-import java.util.List;
-
 /**
  * getDevicesOfUser(user , deviceType [, status])
  * Returns list of ids of devices belongs to a user
@@ -95,20 +91,13 @@ public class GetDevicesOfUserFunctionExecutor extends FunctionExecutor {
             status = (String) data[2];
         }
 
-        JSONArray deviceIds = new JSONArray();
         try {
-            DeviceManagementProviderService deviceManagementProviderService = DeviceUtils.getDeviceManagementProviderService();
-            List<Device> devices = deviceManagementProviderService.getDevicesOfUser(user, deviceType, false);
-            for (Device device : devices) {
-                if (status == null || status.equalsIgnoreCase(device.getEnrolmentInfo().getStatus().toString())) {
-                    deviceIds.put(device.getDeviceIdentifier());
-                }
-            }
+            return DeviceMetadataCache.getDevicesOfUser(user, deviceType).toJson(status);
         } catch (DeviceManagementException e) {
             log.error("Error occurred while getting " + deviceType + " devices of user " + user +
                       ", with status " + status, e);
         }
-        return deviceIds.toString();
+        return new JSONArray().toString();
     }
 
     @Override
@@ -20,11 +20,8 @@ package org.wso2.extension.siddhi.device;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
-import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
-import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
-import org.wso2.extension.siddhi.device.utils.DeviceUtils;
+import org.wso2.extension.siddhi.device.utils.DeviceMetadataCache;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
@@ -32,8 +29,6 @@ import org.wso2.siddhi.core.executor.function.FunctionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 
-import java.util.List;
-
 /**
  * hasDevicesOfStatus(status [, deviceType])
  * Returns true if there are devices with specified status
@@ -84,18 +79,7 @@ public class HasDevicesOfStatusFunctionExecutor extends FunctionExecutor {
             deviceType = (String) data[1];
         }
         try {
-            DeviceManagementProviderService deviceManagementProviderService = DeviceUtils.getDeviceManagementProviderService();
-            List<Device> devices = deviceManagementProviderService.getDevicesByStatus(EnrolmentInfo.Status.valueOf(status), false);
-            if (deviceType == null) {
-                return !devices.isEmpty();
-            } else {
-                for (Device device : devices) {
-                    if (deviceType.equalsIgnoreCase(device.getType())) {
-                        return true;
-                    }
-                }
-                return false;
-            }
+            return DeviceMetadataCache.getDevicesOfStatus(status).hasDevices(deviceType);
         } catch (DeviceManagementException e) {
             log.error("Error occurred while getting devices with status " + status, e);
         }
@@ -20,12 +20,10 @@ package org.wso2.extension.siddhi.device;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupManagementException;
-import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
-import org.wso2.extension.siddhi.device.utils.DeviceUtils;
+import org.wso2.extension.siddhi.device.utils.DeviceMetadataCache;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
@@ -80,10 +78,8 @@ public class IsEnrolledFunctionExecutor extends FunctionExecutor {
         String deviceId = (String) data[0];
         String deviceType = (String) data[1];
 
-        DeviceIdentifier deviceIdentifier = new DeviceIdentifier(deviceId, deviceType);
         try {
-            DeviceManagementProviderService deviceManagementService = DeviceUtils.getDeviceManagementProviderService();
-            return deviceManagementService.isEnrolled(deviceIdentifier);
+            return DeviceMetadataCache.isEnrolled(deviceId, deviceType);
         } catch (DeviceManagementException e) {
             log.error("Error occurred while checking device is enrolled.", e);
         }
@@ -20,10 +20,8 @@ package org.wso2.extension.siddhi.device;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupManagementException;
-import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
-import org.wso2.extension.siddhi.device.utils.DeviceUtils;
+import org.wso2.extension.siddhi.device.utils.DeviceMetadataCache;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
@@ -89,10 +87,8 @@ public class IsInGroupFunctionExecutor extends FunctionExecutor {
         String deviceId = (String) data[1];
         String deviceType = (String) data[2];
 
-        DeviceIdentifier deviceIdentifier = new DeviceIdentifier(deviceId, deviceType);
-        GroupManagementProviderService groupManagementService = DeviceUtils.getGroupManagementProviderService();
         try {
-            return groupManagementService.isDeviceMappedToGroup(groupId, deviceIdentifier);
+            return DeviceMetadataCache.isInGroup(groupId, deviceId, deviceType);
         } catch (GroupManagementException e) {
             log.error("Error occurred while checking device is belonging to group.", e);
         }
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.extension.siddhi.device.utils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.common.group.mgt.GroupManagementException;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per tenant cache of the device metadata looked up by the device functions, i.e. group membership, enrollment and
+ * the device lists of users and statuses. It is shared by all execution plans, so a function evaluated on every
+ * event only reaches the device management services when an entry expires. Concurrent lookups of a missing entry
+ * wait for a single load, and device lists keep their JSON form precomputed.
+ * <p>
+ * Entries expire after {@value #DEFAULT_CACHE_DURATION_IN_SECONDS} seconds, which can be changed with the
+ * {@value #CACHE_DURATION_PROPERTY} system property, and the cache holds at most {@value #DEFAULT_CACHE_SIZE}
+ * entries unless {@value #CACHE_SIZE_PROPERTY} says otherwise. When a device is enrolled, moved between groups or
+ * changes its status or owner, {@link #invalidateDevice(int, String, String)} makes the change visible before the
+ * entries expire. It is also available, along with the cache counters, through the {@link DeviceMetadataCacheStats}
+ * MBean so that the lifecycle tooling of a deployment can call it.
+ */
+public class DeviceMetadataCache {
+
+    public static final String CACHE_DURATION_PROPERTY = "org.wso2.extension.siddhi.device.cacheDurationInSeconds";
+    public static final String CACHE_SIZE_PROPERTY = "org.wso2.extension.siddhi.device.cacheSize";
+    public static final long DEFAULT_CACHE_DURATION_IN_SECONDS = 30;
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final float EVICTION_FACTOR = 0.9f;
+    private static final String STATS_MBEAN_NAME = "org.wso2.extension.siddhi.device:type=DeviceMetadataCacheStats";
+
+    private static Log log = LogFactory.getLog(DeviceMetadataCache.class);
+    private static final ConcurrentHashMap<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+    private static final long durationNanos = TimeUnit.SECONDS.toNanos(
+            Long.getLong(CACHE_DURATION_PROPERTY, DEFAULT_CACHE_DURATION_IN_SECONDS));
+    private static final int maxSize = Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE);
+    private static final DeviceMetadataCacheStats stats = new DeviceMetadataCacheStats();
+
+    static {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            mBeanServer.registerMBean(stats, new ObjectName(STATS_MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Device metadata cache stats MBean is already registered.");
+            }
+        } catch (JMException e) {
+            log.warn("Unable to register the device metadata cache stats MBean.", e);
+        }
+    }
+
+    private DeviceMetadataCache() {
+    }
+
+    public static boolean isInGroup(final int groupId, final String deviceId, final String deviceType)
+            throws GroupManagementException {
+        CacheKey key = new CacheKey(getTenantId(), EntryType.GROUP_MEMBERSHIP, deviceId, deviceType,
+                                    String.valueOf(groupId));
+        return (Boolean) get(key, new Callable<Object>() {
+            @Override
+            public Object call() throws GroupManagementException {
+                return DeviceUtils.getGroupManagementProviderService()
+                        .isDeviceMappedToGroup(groupId, new DeviceIdentifier(deviceId, deviceType));
+            }
+        }, GroupManagementException.class);
+    }
+
+    public static boolean isEnrolled(final String deviceId, final String deviceType)
+            throws DeviceManagementException {
+        CacheKey key = new CacheKey(getTenantId(), EntryType.ENROLMENT, deviceId, deviceType);
+        return (Boolean) get(key, new Callable<Object>() {
+            @Override
+            public Object call() throws DeviceManagementException {
+                return DeviceUtils.getDeviceManagementProviderService()
+                        .isEnrolled(new DeviceIdentifier(deviceId, deviceType));
+            }
+        }, DeviceManagementException.class);
+    }
+
+    /**
+     * @return the devices of the given type owned by the user, which can be filtered by status.
+     */
+    public static DeviceList getDevicesOfUser(final String user, final String deviceType)
+            throws DeviceManagementException {
+        CacheKey key = new CacheKey(getTenantId(), EntryType.DEVICES_OF_USER, user, deviceType);
+        return (DeviceList) get(key, new Callable<Object>() {
+            @Override
+            public Object call() throws DeviceManagementException {
+                List<Device> devices = DeviceUtils.getDeviceManagementProviderService()
+                        .getDevicesOfUser(user, deviceType, false);
+                return new DeviceList(devices, true);
+            }
+        }, DeviceManagementException.class);
+    }
+
+    /**
+     * @return the devices having the given status, which can be filtered by device type.
+     */
+    public static DeviceList getDevicesOfStatus(final String status) throws DeviceManagementException {
+        CacheKey key = new CacheKey(getTenantId(), EntryType.DEVICES_OF_STATUS, status);
+        return (DeviceList) get(key, new Callable<Object>() {
+            @Override
+            public Object call() throws DeviceManagementException {
+                List<Device> devices = DeviceUtils.getDeviceManagementProviderService()
+                        .getDevicesByStatus(EnrolmentInfo.Status.valueOf(status), false);
+                return new DeviceList(devices, false);
+            }
+        }, DeviceManagementException.class);
+    }
+
+    /**
+     * Removes the entries of the given device, along with the device lists of the tenant as the device may be part
+     * of any of them. To be called when a device is enrolled, moved between groups or changes its status or owner.
+     */
+    public static void invalidateDevice(int tenantId, String deviceId, String deviceType) {
+        Iterator<CacheKey> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            CacheKey key = iterator.next();
+            if (key.tenantId != tenantId) {
+                continue;
+            }
+            if (key.type == EntryType.DEVICES_OF_USER || key.type == EntryType.DEVICES_OF_STATUS
+                    || (key.parts[0].equals(deviceId) && key.parts[1].equals(deviceType))) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public static void invalidateTenant(int tenantId) {
+        Iterator<CacheKey> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().tenantId == tenantId) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public static void invalidateAll() {
+        entries.clear();
+    }
+
+    public static DeviceMetadataCacheStats getStats() {
+        return stats;
+    }
+
+    static int size() {
+        return entries.size();
+    }
+
+    private static int getTenantId() {
+        return PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+    }
+
+    private static <E extends Exception> Object get(CacheKey key, Callable<Object> loader, Class<E> exceptionType)
+            throws E {
+        while (true) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && !entry.isExpired()) {
+                stats.recordHit();
+                return entry.getValue(exceptionType);
+            }
+            CacheEntry loadingEntry = new CacheEntry(new FutureTask<>(loader));
+            boolean installed = entry == null ? entries.putIfAbsent(key, loadingEntry) == null
+                                              : entries.replace(key, entry, loadingEntry);
+            if (!installed) {
+                // another thread started loading the entry, wait for that one instead
+                continue;
+            }
+            if (entries.size() > maxSize) {
+                evict();
+            }
+            stats.recordLoad();
+            loadingEntry.value.run();
+            try {
+                return loadingEntry.getValue(exceptionType);
+            } catch (Exception e) {
+                // failures are not cached, the next lookup tries again
+                entries.remove(key, loadingEntry);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Drops the expired entries first, and then arbitrary entries until the cache is back under the eviction
+     * threshold.
+     */
+    private static void evict() {
+        Iterator<CacheEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired()) {
+                iterator.remove();
+            }
+        }
+        int threshold = (int) (maxSize * EVICTION_FACTOR);
+        iterator = entries.values().iterator();
+        while (entries.size() > threshold && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Evicted device metadata cache down to " + entries.size() + " entries");
+        }
+    }
+
+    /**
+     * Device identifiers of a device list, kept as JSON arrays for the whole list and for each value of the
+     * property the list can be filtered by.
+     */
+    public static final class DeviceList {
+
+        private static final String EMPTY_JSON_ARRAY = new JSONArray().toString();
+
+        private final String json;
+        private final Map<String, String> filteredJson;
+
+        private DeviceList(List<Device> devices, boolean filterByStatus) {
+            JSONArray deviceIds = new JSONArray();
+            Map<String, JSONArray> filteredDeviceIds = new HashMap<>();
+            for (Device device : devices) {
+                String filter = filterByStatus ? device.getEnrolmentInfo().getStatus().toString() : device.getType();
+                filter = filter.toLowerCase(Locale.ENGLISH);
+                JSONArray filtered = filteredDeviceIds.get(filter);
+                if (filtered == null) {
+                    filtered = new JSONArray();
+                    filteredDeviceIds.put(filter, filtered);
+                }
+                deviceIds.put(device.getDeviceIdentifier());
+                filtered.put(device.getDeviceIdentifier());
+            }
+            this.json = deviceIds.toString();
+            Map<String, String> filteredJson = new HashMap<>();
+            for (Map.Entry<String, JSONArray> filtered : filteredDeviceIds.entrySet()) {
+                filteredJson.put(filtered.getKey(), filtered.getValue().toString());
+            }
+            this.filteredJson = Collections.unmodifiableMap(filteredJson);
+        }
+
+        /**
+         * @param filter status or device type to filter by, or null for all the devices.
+         */
+        public boolean hasDevices(String filter) {
+            if (filter == null) {
+                return !EMPTY_JSON_ARRAY.equals(json);
+            }
+            return filteredJson.containsKey(filter.toLowerCase(Locale.ENGLISH));
+        }
+
+        /**
+         * @param filter status or device type to filter by, or null for all the devices.
+         * @return the device identifiers as a JSON array.
+         */
+        public String toJson(String filter) {
+            if (filter == null) {
+                return json;
+            }
+            String filtered = filteredJson.get(filter.toLowerCase(Locale.ENGLISH));
+            return filtered == null ? EMPTY_JSON_ARRAY : filtered;
+        }
+    }
+
+    private enum EntryType {
+        GROUP_MEMBERSHIP, ENROLMENT, DEVICES_OF_USER, DEVICES_OF_STATUS
+    }
+
+    private static final class CacheKey {
+
+        private final int tenantId;
+        private final EntryType type;
+        private final String[] parts;
+        private final int hashCode;
+
+        private CacheKey(int tenantId, EntryType type, String... parts) {
+            this.tenantId = tenantId;
+            this.type = type;
+            this.parts = parts;
+            this.hashCode = 31 * (31 * tenantId + type.hashCode()) + Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return tenantId == that.tenantId && type == that.type && Arrays.equals(parts, that.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class CacheEntry {
+
+        private final FutureTask<Object> value;
+        private final long expiryTime;
+
+        private CacheEntry(FutureTask<Object> value) {
+            this.value = value;
+            this.expiryTime = System.nanoTime() + durationNanos;
+        }
+
+        private boolean isExpired() {
+            return expiryTime - System.nanoTime() <= 0;
+        }
+
+        private <E extends Exception> Object getValue(Class<E> exceptionType) throws E {
+            try {
+                return value.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading device metadata", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (exceptionType.isInstance(cause)) {
+                    throw exceptionType.cast(cause);
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException("Error occurred while loading device metadata", cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.extension.siddhi.device.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the {@link DeviceMetadataCache}, exposed over JMX.
+ */
+public class DeviceMetadataCacheStats implements DeviceMetadataCacheStatsMBean {
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+
+    void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void recordLoad() {
+        loadCount.incrementAndGet();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    @Override
+    public int getSize() {
+        return DeviceMetadataCache.size();
+    }
+
+    @Override
+    public void invalidateDevice(int tenantId, String deviceId, String deviceType) {
+        DeviceMetadataCache.invalidateDevice(tenantId, deviceId, deviceType);
+    }
+
+    @Override
+    public void invalidateTenant(int tenantId) {
+        DeviceMetadataCache.invalidateTenant(tenantId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        DeviceMetadataCache.invalidateAll();
+    }
+
+    @Override
+    public void resetStats() {
+        hitCount.set(0);
+        loadCount.set(0);
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.extension.siddhi.device.utils;
+
+import feign.Feign;
+import feign.Logger;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.gson.GsonDecoder;
+import feign.gson.GsonEncoder;
+import feign.jaxrs.JAXRSContract;
+import feign.okhttp.OkHttpClient;
+import feign.slf4j.Slf4jLogger;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.notification.mgt.Notification;
+import org.wso2.carbon.device.mgt.common.notification.mgt.NotificationManagementException;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
+import org.wso2.carbon.user.api.UserRealm;
+import org.wso2.extension.siddhi.device.client.OAuthRequestInterceptor;
+import org.wso2.extension.siddhi.device.client.configs.SiddhiExtensionConfigReader;
+import org.wso2.extension.siddhi.device.client.dto.OperationRequest;
+import org.wso2.extension.siddhi.device.client.services.OperationService;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatches the operations and notifications added by the device functions away from the Siddhi execution plan
+ * threads. Operations of the same tenant, device type, code, type, enablement and payload that arrive within a
+ * flush interval are coalesced into one multi-device addOperation call, which is sent as soon as the batch is full
+ * or the interval elapses. Calls run on a bounded pool of {@value #DEFAULT_DISPATCHER_THREADS} threads and failed
+ * calls are retried up to {@value #MAX_ATTEMPTS} times with an exponential, jittered backoff. As adding an operation
+ * is not idempotent, it is only retried when the request could not have reached the server.
+ * <p>
+ * The defaults can be changed with the {@value #FLUSH_INTERVAL_PROPERTY}, {@value #BATCH_SIZE_PROPERTY},
+ * {@value #DISPATCHER_THREADS_PROPERTY} and {@value #QUEUE_SIZE_PROPERTY} system properties. When more than
+ * {@value #DEFAULT_QUEUE_SIZE} devices or calls are waiting, new requests are dropped rather than blocking the
+ * caller.
+ */
+public class OperationDispatcher {
+
+    public static final String FLUSH_INTERVAL_PROPERTY =
+            "org.wso2.extension.siddhi.device.operationFlushIntervalInMillis";
+    public static final String BATCH_SIZE_PROPERTY = "org.wso2.extension.siddhi.device.operationBatchSize";
+    public static final String DISPATCHER_THREADS_PROPERTY =
+            "org.wso2.extension.siddhi.device.operationDispatcherThreads";
+    public static final String QUEUE_SIZE_PROPERTY = "org.wso2.extension.siddhi.device.operationQueueSize";
+    public static final long DEFAULT_FLUSH_INTERVAL_IN_MILLIS = 200;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_DISPATCHER_THREADS = 4;
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+    public static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_RETRY_DELAY_IN_MILLIS = 1000;
+    private static final String DATE_FORMAT_NOW = "yyyy-MM-dd HH:mm:ss";
+    private static final String DEVICE_MGT_BASE_CONTEXT = "/api/device-mgt/v1.0";
+
+    private static Log log = LogFactory.getLog(OperationDispatcher.class);
+    private static final long flushIntervalInMillis = Long.getLong(FLUSH_INTERVAL_PROPERTY,
+                                                                   DEFAULT_FLUSH_INTERVAL_IN_MILLIS);
+    private static final int batchSize = Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE);
+    private static final int queueSize = Integer.getInteger(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE);
+    private static final int dispatcherThreads = Integer.getInteger(DISPATCHER_THREADS_PROPERTY,
+                                                                    DEFAULT_DISPATCHER_THREADS);
+    private static final ConcurrentHashMap<BatchKey, PendingBatch> pendingBatches = new ConcurrentHashMap<>();
+    private static final AtomicInteger pendingDevices = new AtomicInteger();
+    private static final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new DispatcherThreadFactory("siddhi-device-operation-flush"));
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            dispatcherThreads, dispatcherThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize), new DispatcherThreadFactory("siddhi-device-operation"));
+    private static volatile OperationService operationService;
+
+    static {
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, flushIntervalInMillis, flushIntervalInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private OperationDispatcher() {
+    }
+
+    /**
+     * Queues the operation for the given devices. Must be called within the flow of the tenant owning the devices.
+     *
+     * @return false if the operation was dropped since too many devices are waiting for operations.
+     */
+    public static boolean addOperation(String deviceType, Collection<String> deviceIds, Operation operation) {
+        TenantContext tenant = new TenantContext();
+        BatchKey key = new BatchKey(tenant.tenantId, deviceType, operation);
+        while (true) {
+            PendingBatch batch = pendingBatches.get(key);
+            if (batch == null) {
+                PendingBatch newBatch = new PendingBatch(key, tenant, operation);
+                batch = pendingBatches.putIfAbsent(key, newBatch);
+                if (batch == null) {
+                    batch = newBatch;
+                }
+            }
+            synchronized (batch) {
+                if (batch.closed) {
+                    // Flushed in between, so start a new batch.
+                    pendingBatches.remove(key, batch);
+                    continue;
+                }
+                for (String deviceId : deviceIds) {
+                    if (batch.deviceIds.contains(deviceId)) {
+                        continue;
+                    }
+                    if (pendingDevices.incrementAndGet() > queueSize) {
+                        pendingDevices.decrementAndGet();
+                        log.error("Too many devices are waiting for operations, hence dropping operation '" +
+                                          operation.getCode() + "' for " + deviceType + " device " + deviceId);
+                        return false;
+                    }
+                    batch.deviceIds.add(deviceId);
+                }
+                if (batch.deviceIds.size() >= batchSize) {
+                    batch.closed = true;
+                    pendingBatches.remove(key, batch);
+                } else {
+                    return true;
+                }
+            }
+            submit(new OperationTask(batch), 1);
+            return true;
+        }
+    }
+
+    /**
+     * Queues the notification of the given device. Must be called within the flow of the tenant owning the device.
+     *
+     * @return false if the notification was dropped since too many calls are waiting.
+     */
+    public static boolean addNotification(DeviceIdentifier deviceIdentifier, Notification notification) {
+        RetryableTask task = new NotificationTask(new TenantContext(), deviceIdentifier, notification);
+        task.attempt = 1;
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.error("Too many calls are waiting, hence dropping notification '" + notification.toString() +
+                              "' for " + deviceIdentifier.getType() + " device " + deviceIdentifier.getId());
+            return false;
+        }
+    }
+
+    /**
+     * Sends all the operations waiting to be coalesced without waiting for the flush interval to elapse.
+     */
+    public static void flush() {
+        Iterator<Map.Entry<BatchKey, PendingBatch>> iterator = pendingBatches.entrySet().iterator();
+        while (iterator.hasNext()) {
+            PendingBatch batch = iterator.next().getValue();
+            iterator.remove();
+            synchronized (batch) {
+                if (batch.closed) {
+                    continue;
+                }
+                batch.closed = true;
+            }
+            submit(new OperationTask(batch), 1);
+        }
+    }
+
+    private static void submit(final RetryableTask task, final int attempt) {
+        task.attempt = attempt;
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.failed(e);
+        }
+    }
+
+    private static OperationService getOperationService() {
+        if (operationService == null) {
+            synchronized (OperationDispatcher.class) {
+                if (operationService == null) {
+                    operationService = Feign.builder().client(new OkHttpClient(ClientUtils.getSSLClient()))
+                            .logger(new Slf4jLogger())
+                            .logLevel(log.isDebugEnabled() ? Logger.Level.FULL : Logger.Level.BASIC)
+                            .requestInterceptor(new OAuthRequestInterceptor())
+                            .retryer(new Retryer() {
+                                // Retries are left to the dispatcher, which knows whether a call can be repeated.
+                                @Override
+                                public void continueOrPropagate(RetryableException e) {
+                                    throw e;
+                                }
+
+                                @Override
+                                public Retryer clone() {
+                                    return this;
+                                }
+                            })
+                            .contract(new JAXRSContract()).encoder(new GsonEncoder()).decoder(new GsonDecoder())
+                            .target(OperationService.class, ClientUtils.replaceProperties(
+                                    SiddhiExtensionConfigReader.getInstance().getConfig().getGatewayEndpoint() +
+                                            DEVICE_MGT_BASE_CONTEXT));
+                }
+            }
+        }
+        return operationService;
+    }
+
+    /**
+     * Tenant of the caller, captured when a request is queued so that the call can be made in the same tenant flow.
+     */
+    private static class TenantContext {
+
+        private final int tenantId;
+        private final String tenantDomain;
+        private final UserRealm userRealm;
+
+        TenantContext() {
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            tenantId = carbonContext.getTenantId();
+            tenantDomain = carbonContext.getTenantDomain();
+            userRealm = carbonContext.getUserRealm();
+        }
+
+        void startTenantFlow() {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantId(tenantId);
+            carbonContext.setTenantDomain(tenantDomain);
+            carbonContext.setUserRealm(userRealm);
+        }
+    }
+
+    private abstract static class RetryableTask implements Runnable {
+
+        private final TenantContext tenant;
+        private int attempt;
+
+        RetryableTask(TenantContext tenant) {
+            this.tenant = tenant;
+        }
+
+        @Override
+        public void run() {
+            tenant.startTenantFlow();
+            try {
+                dispatch();
+            } catch (Exception e) {
+                failed(e);
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+
+        void failed(Exception e) {
+            if (!isRetryable(e)) {
+                log.error("Error occurred while " + describe(), e);
+                dropped();
+                return;
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                log.error("Error occurred while " + describe() + ", giving up after " + attempt + " attempts", e);
+                dropped();
+                return;
+            }
+            long delay = INITIAL_RETRY_DELAY_IN_MILLIS << (attempt - 1);
+            delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+            if (log.isDebugEnabled()) {
+                log.debug("Error occurred while " + describe() + ", retrying in " + delay + " ms", e);
+            }
+            final int nextAttempt = attempt + 1;
+            try {
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        submit(RetryableTask.this, nextAttempt);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                log.error("Error occurred while " + describe() + ", unable to schedule a retry", e);
+                dropped();
+            }
+        }
+
+        abstract void dispatch() throws Exception;
+
+        abstract String describe();
+
+        boolean isRetryable(Exception e) {
+            return true;
+        }
+
+        void dropped() {
+        }
+    }
+
+    private static class OperationTask extends RetryableTask {
+
+        private final PendingBatch batch;
+
+        OperationTask(PendingBatch batch) {
+            super(batch.tenant);
+            this.batch = batch;
+        }
+
+        @Override
+        void dispatch() {
+            Operation operation = batch.operation;
+            operation.setCreatedTimeStamp(new SimpleDateFormat(DATE_FORMAT_NOW).format(new Date()));
+            OperationRequest operationRequest = new OperationRequest();
+            operationRequest.setDeviceIdentifiers(new ArrayList<>(batch.deviceIds));
+            operationRequest.setOperation(operation);
+            Activity activity = getOperationService().addOperation(batch.key.deviceType, operationRequest);
+            pendingDevices.addAndGet(-batch.deviceIds.size());
+            if (log.isDebugEnabled()) {
+                log.debug("Added operation '" + operation.getCode() + "' to " + batch.deviceIds.size() + " " +
+                                  batch.key.deviceType + " devices as activity " +
+                                  (activity == null ? null : activity.getActivityId()));
+            }
+        }
+
+        /**
+         * The operation may already be persisted when a call fails after the request was sent, so only failures to
+         * submit the task or to connect to the server are retried.
+         */
+        @Override
+        boolean isRetryable(Exception e) {
+            if (e instanceof RejectedExecutionException) {
+                return true;
+            }
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                        || cause instanceof UnknownHostException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        String describe() {
+            return "adding operation '" + batch.operation.getCode() + "' to " + batch.deviceIds.size() + " " +
+                    batch.key.deviceType + " devices";
+        }
+
+        @Override
+        void dropped() {
+            pendingDevices.addAndGet(-batch.deviceIds.size());
+        }
+    }
+
+    private static class NotificationTask extends RetryableTask {
+
+        private final DeviceIdentifier deviceIdentifier;
+        private final Notification notification;
+
+        NotificationTask(TenantContext tenant, DeviceIdentifier deviceIdentifier, Notification notification) {
+            super(tenant);
+            this.deviceIdentifier = deviceIdentifier;
+            this.notification = notification;
+        }
+
+        @Override
+        void dispatch() throws NotificationManagementException {
+            if (!DeviceUtils.getNotificationManagementService().addNotification(deviceIdentifier, notification)) {
+                throw new NotificationManagementException("Notification was not added");
+            }
+        }
+
+        @Override
+        String describe() {
+            return "adding notification '" + notification.toString() + "' for " + deviceIdentifier.getType() +
+                    " device with id " + deviceIdentifier.getId();
+        }
+    }
+
+    /**
+     * Devices waiting for the same operation. Guarded by its own lock until closed, after which it is only read by
+     * the dispatching task.
+     */
+    private static class PendingBatch {
+
+        private final BatchKey key;
+        private final TenantContext tenant;
+        private final Operation operation;
+        private final Set<String> deviceIds = new LinkedHashSet<>();
+        private boolean closed;
+
+        PendingBatch(BatchKey key, TenantContext tenant, Operation operation) {
+            this.key = key;
+            this.tenant = tenant;
+            this.operation = operation;
+        }
+    }
+
+    private static class BatchKey {
+
+        private final int tenantId;
+        private final String deviceType;
+        private final String code;
+        private final Operation.Type type;
+        private final boolean enabled;
+        private final Object payload;
+        private final int hashCode;
+
+        BatchKey(int tenantId, String deviceType, Operation operation) {
+            this.tenantId = tenantId;
+            this.deviceType = deviceType;
+            this.code = operation.getCode();
+            this.type = operation.getType();
+            this.enabled = operation.isEnabled();
+            this.payload = operation.getPayLoad();
+            int result = tenantId;
+            result = 31 * result + deviceType.hashCode();
+            result = 31 * result + (code != null ? code.hashCode() : 0);
+            result = 31 * result + (type != null ? type.hashCode() : 0);
+            result = 31 * result + (enabled ? 1 : 0);
+            result = 31 * result + (payload != null ? payload.hashCode() : 0);
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey that = (BatchKey) o;
+            return tenantId == that.tenantId && enabled == that.enabled && deviceType.equals(that.deviceType)
+                    && (code != null ? code.equals(that.code) : that.code == null)
+                    && type == that.type
+                    && (payload != null ? payload.equals(that.payload) : that.payload == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class DispatcherThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DispatcherThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -22,10 +22,12 @@ import org.apache.log4j.Logger;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.DeviceNotFoundException;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupAlreadyExistException;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupManagementException;
@@ -49,6 +51,8 @@ import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 import org.wso2.extension.siddhi.device.test.util.SiddhiTestHelper;
 import org.wso2.extension.siddhi.device.test.util.TestDataHolder;
 import org.wso2.extension.siddhi.device.test.util.TestDeviceManagementService;
+import org.wso2.extension.siddhi.device.utils.DeviceMetadataCache;
+import org.wso2.extension.siddhi.device.utils.DeviceMetadataCacheStats;
 import org.wso2.extension.siddhi.device.utils.DeviceUtils;
 import org.wso2.siddhi.core.ExecutionPlanRuntime;
 import org.wso2.siddhi.core.SiddhiManager;
@@ -304,4 +308,31 @@ public class ExtensionTestCase extends BaseDeviceManagementTest {
         Assert.assertEquals(1, count.get());
         executionPlanRuntime.shutdown();
     }
+
+    @Test(dependsOnMethods = {"testGetDevicesOfStatusWithTypeFunctionExecutor"})
+    public void testDeviceMetadataCacheInvalidation() throws DeviceManagementException {
+        log.info("DeviceMetadataCache invalidation TestCase");
+        String deviceId = "54321";
+        Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+        device.setDeviceIdentifier(deviceId);
+        DeviceMetadataCacheStats stats = DeviceMetadataCache.getStats();
+
+        long loadCount = stats.getLoadCount();
+        long hitCount = stats.getHitCount();
+        Assert.assertFalse(DeviceMetadataCache.isEnrolled(deviceId, DEVICE_TYPE));
+        Assert.assertFalse(DeviceMetadataCache.isEnrolled(deviceId, DEVICE_TYPE));
+        Assert.assertEquals(stats.getLoadCount(), loadCount + 1);
+        Assert.assertEquals(stats.getHitCount(), hitCount + 1);
+        Assert.assertFalse(DeviceMetadataCache.getDevicesOfUser(TestDataHolder.OWNER, DEVICE_TYPE).toJson(null)
+                                   .contains(deviceId));
+
+        Assert.assertTrue(deviceManagementProviderService.enrollDevice(device));
+        DeviceMetadataCache.invalidateDevice(PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId(),
+                                             deviceId, DEVICE_TYPE);
+        Assert.assertTrue(DeviceMetadataCache.isEnrolled(deviceId, DEVICE_TYPE));
+        Assert.assertTrue(DeviceMetadataCache.getDevicesOfUser(TestDataHolder.OWNER, DEVICE_TYPE).toJson(null)
+                                  .contains(deviceId));
+        Assert.assertTrue(DeviceMetadataCache.getDevicesOfUser(TestDataHolder.OWNER, DEVICE_TYPE)
+                                  .hasDevices(EnrolmentInfo.Status.ACTIVE.toString()));
+    }
 }
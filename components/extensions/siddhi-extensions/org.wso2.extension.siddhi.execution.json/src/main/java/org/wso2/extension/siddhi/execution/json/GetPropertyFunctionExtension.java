@@ -29,8 +29,9 @@ import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 
 /**
  * getProperty(json , propertyName)
- * Returns the vale of the property from the given json json
- * Accept Type(s): (STRING, STRING)
+ * Returns the vale of the property from the given json json, which can be either a json string or a document
+ * returned by json:parse(). Json strings are parsed once per thread however many properties are read from them
+ * Accept Type(s): (STRING|OBJECT, STRING)
  * Return Type(s): (STRING|INT|DOUBLE|FLOAT|OBJECT)
  */
 public class GetPropertyFunctionExtension extends FunctionExecutor {
@@ -45,11 +46,12 @@ public class GetPropertyFunctionExtension extends FunctionExecutor {
                     "Invalid no of arguments passed to json:getProperty() function," + " required 2, but found "
                             + attributeExpressionExecutors.length);
         }
-        if (attributeExpressionExecutors[0].getReturnType() != Attribute.Type.STRING) {
+        if (attributeExpressionExecutors[0].getReturnType() != Attribute.Type.STRING
+                && attributeExpressionExecutors[0].getReturnType() != Attribute.Type.OBJECT) {
             throw new ExecutionPlanValidationException(
                     "Invalid parameter type found for the first argument of json:getProperty() function, required "
-                            + Attribute.Type.STRING + ", but found " + attributeExpressionExecutors[0].getReturnType()
-                            .toString());
+                            + Attribute.Type.STRING + " or " + Attribute.Type.OBJECT + ", but found "
+                            + attributeExpressionExecutors[0].getReturnType().toString());
         }
         if (attributeExpressionExecutors[1].getReturnType() != Attribute.Type.STRING) {
             throw new ExecutionPlanValidationException(
@@ -69,11 +71,19 @@ public class GetPropertyFunctionExtension extends FunctionExecutor {
             throw new ExecutionPlanRuntimeException("Invalid input given to json:getProperty() function. " +
                     "Second argument cannot be null");
         }
-        String jsonString = (String) data[0];
         String property = (String) data[1];
+        JSONObject document;
         Object jsonObject;
         try {
-            jsonObject = new JSONObject(jsonString).get(property);
+            if (data[0] instanceof JSONObject) {
+                document = (JSONObject) data[0];
+            } else if (data[0] instanceof String) {
+                document = JsonDocumentCache.parse((String) data[0]);
+            } else {
+                throw new ExecutionPlanRuntimeException("Invalid input given to json:getProperty() function. " +
+                        "First argument should be a json string or a document returned by json:parse()");
+            }
+            jsonObject = document.get(property);
             return jsonObject == null ? null : jsonObject.toString();
         } catch (JSONException e) {
             throw new ExecutionPlanRuntimeException("Cannot parse JSON String in json:getPeroperty() function. " + e);
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.extension.siddhi.execution.json;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Per thread memo of the last few parsed JSON documents, keyed by the identity of their source strings. Siddhi
+ * hands the same attribute value to every function of a query, so when several properties are read from one payload
+ * it is parsed only once. Identity is enough as strings are immutable, and it keeps a lookup cheaper than comparing
+ * the payloads.
+ * <p>
+ * The returned documents are shared, hence must not be modified.
+ */
+final class JsonDocumentCache {
+
+    private static final int CACHE_SIZE = 4;
+
+    private static final ThreadLocal<JsonDocumentCache> cache = new ThreadLocal<JsonDocumentCache>() {
+        @Override
+        protected JsonDocumentCache initialValue() {
+            return new JsonDocumentCache();
+        }
+    };
+
+    private final String[] sources = new String[CACHE_SIZE];
+    private final JSONObject[] documents = new JSONObject[CACHE_SIZE];
+    private int next;
+
+    private JsonDocumentCache() {
+    }
+
+    static JSONObject parse(String jsonString) throws JSONException {
+        return cache.get().get(jsonString);
+    }
+
+    private JSONObject get(String jsonString) throws JSONException {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            if (sources[i] == jsonString) {
+                return documents[i];
+            }
+        }
+        JSONObject document = new JSONObject(jsonString);
+        sources[next] = jsonString;
+        documents[next] = document;
+        next = (next + 1) % CACHE_SIZE;
+        return document;
+    }
+}
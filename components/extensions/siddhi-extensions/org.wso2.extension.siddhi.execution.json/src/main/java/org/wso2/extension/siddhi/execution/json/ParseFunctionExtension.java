@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.extension.siddhi.execution.json;
+
+import org.json.JSONException;
+import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.function.FunctionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
+
+/**
+ * parse(json)
+ * Returns the parsed json document, which can be passed to json:getProperty() instead of the json string
+ * Accept Type(s): (STRING)
+ * Return Type(s): (OBJECT)
+ */
+public class ParseFunctionExtension extends FunctionExecutor {
+
+    private Attribute.Type returnType = Attribute.Type.OBJECT;
+
+    @Override
+    protected void init(ExpressionExecutor[] attributeExpressionExecutors,
+                        ExecutionPlanContext executionPlanContext) {
+        if (attributeExpressionExecutors.length != 1) {
+            throw new ExecutionPlanValidationException(
+                    "Invalid no of arguments passed to json:parse() function, required 1, but found "
+                            + attributeExpressionExecutors.length);
+        }
+        if (attributeExpressionExecutors[0].getReturnType() != Attribute.Type.STRING) {
+            throw new ExecutionPlanValidationException(
+                    "Invalid parameter type found for the argument of json:parse() function, required "
+                            + Attribute.Type.STRING + ", but found "
+                            + attributeExpressionExecutors[0].getReturnType().toString());
+        }
+    }
+
+    @Override
+    protected Object execute(Object[] data) {
+        return null;  //Since the parse function takes in 1 parameter, this method does not get called.
+                     // Hence,not implemented.
+    }
+
+    @Override
+    protected Object execute(Object data) {
+        if (data == null) {
+            throw new ExecutionPlanRuntimeException("Invalid input given to json:parse() function. " +
+                    "Argument cannot be null");
+        }
+        try {
+            return JsonDocumentCache.parse((String) data);
+        } catch (JSONException e) {
+            throw new ExecutionPlanRuntimeException("Cannot parse JSON String in json:parse() function. " + e);
+        }
+    }
+
+    @Override
+    public void start() {
+        //Nothing to start
+    }
+
+    @Override
+    public void stop() {
+        //Nothing to stop
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return returnType;
+    }
+
+    @Override
+    public Object[] currentState() {
+        return null;    //No need to maintain a state.
+    }
+
+    @Override
+    public void restoreState(Object[] state) {
+        //Since there's no need to maintain a state, nothing needs to be done here.
+    }
+}
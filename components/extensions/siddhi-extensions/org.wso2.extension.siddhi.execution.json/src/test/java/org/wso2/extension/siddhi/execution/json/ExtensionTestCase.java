@@ -19,6 +19,7 @@
 package org.wso2.extension.siddhi.execution.json;
 
 import org.apache.log4j.Logger;
+import org.json.JSONObject;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -120,4 +121,62 @@ public class ExtensionTestCase {
         Assert.assertTrue(eventArrived);
         executionPlanRuntime.shutdown();
     }
+
+    @Test(dependsOnMethods = {"testGetArrayFunctionExtension"})
+    public void testParseFunctionExtension() throws InterruptedException {
+        count.set(0);
+        eventArrived = false;
+        log.info("ParseFunctionExtension TestCase");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String inStreamDefinition = "define stream inputStream (payload string, id string);";
+        String query = ("@info(name = 'query1') from inputStream select id, json:parse(payload) as document "
+                + "insert into parsedStream; "
+                + "@info(name = 'query2') from parsedStream select id, json:getProperty(document, 'latitude') "
+                + "as latitude, json:getProperty(document, 'longitude') as longitude insert into outputStream;");
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(inStreamDefinition + query);
+
+        executionPlanRuntime.addCallback("query2", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                for (Event event : inEvents) {
+                    count.incrementAndGet();
+                    if (count.get() == 1) {
+                        Assert.assertEquals("1.5", event.getData(1));
+                        Assert.assertEquals("78.5", event.getData(2));
+                        eventArrived = true;
+                    }
+                    if (count.get() == 2) {
+                        Assert.assertEquals("67.5", event.getData(1));
+                        Assert.assertEquals("34.9", event.getData(2));
+                        eventArrived = true;
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("inputStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"{'latitude' : 1.5, 'longitude' : 78.5}", "IBM"});
+        inputHandler.send(new Object[]{"{'latitude' : 67.5, 'longitude' : 34.9}", "WSO2"});
+        SiddhiTestHelper.waitForEvents(100, 2, count, 60000);
+        Assert.assertEquals(2, count.get());
+        Assert.assertTrue(eventArrived);
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testJsonDocumentCache() {
+        String payload = "{'latitude' : 1.5, 'longitude' : 78.5}";
+        JSONObject document = JsonDocumentCache.parse(payload);
+        Assert.assertSame(JsonDocumentCache.parse(payload), document, "Same payload should be parsed only once");
+        Assert.assertNotSame(JsonDocumentCache.parse(new String(payload)), document,
+                             "Payloads are looked up by identity");
+        for (int i = 0; i < 4; i++) {
+            JsonDocumentCache.parse("{'id' : " + i + "}");
+        }
+        Assert.assertNotSame(JsonDocumentCache.parse(payload), document, "Oldest document should be evicted");
+        Assert.assertEquals(JsonDocumentCache.parse(payload).get("latitude").toString(), "1.5");
+    }
 }
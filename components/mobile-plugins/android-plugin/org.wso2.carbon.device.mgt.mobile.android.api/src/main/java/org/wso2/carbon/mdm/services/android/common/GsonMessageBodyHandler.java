@@ -26,6 +26,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
@@ -70,7 +71,8 @@ public class GsonMessageBodyHandler implements MessageBodyWriter<Object>, Messag
     }
 
     public boolean isWriteable(Class<?> aClass, Type type, Annotation[] annotations, MediaType mediaType) {
-        return true;
+        // streamed entities write their own JSON.
+        return !StreamingOutput.class.isAssignableFrom(aClass);
     }
 
     public long getSize(Object o, Class<?> aClass, Type type, Annotation[] annotations, MediaType mediaType) {
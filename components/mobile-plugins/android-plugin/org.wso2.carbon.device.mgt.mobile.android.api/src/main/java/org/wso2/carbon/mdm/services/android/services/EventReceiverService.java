@@ -203,6 +203,16 @@ public interface EventReceiverService {
                             "Provide APPLICATION_STATE or RUNTIME_STATE as the value.")
             @Size(min = 2, max = 45)
             @QueryParam("type") String type,
+            @ApiParam(
+                    name = "limit",
+                    value = "Maximum number of events to return in a page. Without a limit or a continuation token " +
+                            "all the events are returned.")
+            @QueryParam("limit") int limit,
+            @ApiParam(
+                    name = "continuationToken",
+                    value = "Token of the page to return, taken from the X-Continuation-Token header of the " +
+                            "previous page.")
+            @QueryParam("continuationToken") String continuationToken,
             @ApiParam(
                     name = "If-Modified-Since",
                     value = "Checks if the requested variant was modified, since the specified date-time.\n" +
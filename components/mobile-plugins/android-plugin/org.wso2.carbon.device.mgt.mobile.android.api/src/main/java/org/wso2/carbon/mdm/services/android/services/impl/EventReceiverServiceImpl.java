@@ -29,7 +29,6 @@ import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
-import org.wso2.carbon.mdm.services.android.bean.DeviceState;
 import org.wso2.carbon.mdm.services.android.bean.ErrorResponse;
 import org.wso2.carbon.mdm.services.android.bean.wrapper.EventBeanWrapper;
 import org.wso2.carbon.mdm.services.android.exception.BadRequestException;
@@ -49,7 +48,6 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
-import java.util.List;
 
 @Path("/events")
 public class EventReceiverServiceImpl implements EventReceiverService {
@@ -132,14 +130,16 @@ public class EventReceiverServiceImpl implements EventReceiverService {
                                    @QueryParam("to") long to,
                                        @Size(min = 2, max = 45)
                                    @QueryParam("type") String type,
+                                   @QueryParam("limit") int limit,
+                                   @QueryParam("continuationToken") String continuationToken,
                                    @HeaderParam("If-Modified-Since") String ifModifiedSince) {
 
         if (from != 0l && to != 0l && deviceId != null) {
-            return retrieveAlertFromDate(deviceId, from, to);
+            return retrieveAlertFromDate(deviceId, from, to, limit, continuationToken);
         } else if (deviceId != null && type != null) {
-            return retrieveAlertByType(deviceId, type);
+            return retrieveAlertByType(deviceId, type, limit, continuationToken);
         } else if (deviceId != null) {
-            return retrieveAlert(deviceId);
+            return retrieveAlert(deviceId, limit, continuationToken);
         } else {
             throw new BadRequestException(
                     new ErrorResponse.ErrorResponseBuilder().setCode(400l).setMessage("Request must contain " +
@@ -148,20 +148,20 @@ public class EventReceiverServiceImpl implements EventReceiverService {
         }
     }
 
-    private Response retrieveAlert(String deviceId) {
+    private Response retrieveAlert(String deviceId, int limit, String continuationToken) {
         if (log.isDebugEnabled()) {
             log.debug("Retrieving events for given device Identifier.");
         }
         String query = "deviceIdentifier:" + deviceId;
-        List<DeviceState> deviceStates;
+        Response response;
         try {
-            deviceStates = AndroidDeviceUtils.getAllEventsForDevice(EVENT_STREAM_DEFINITION, query);
-            if (deviceStates == null) {
+            response = AndroidDeviceUtils.getEventsResponse(EVENT_STREAM_DEFINITION, query, limit, continuationToken);
+            if (response == null) {
                 throw new NotFoundException(
                         new ErrorResponse.ErrorResponseBuilder().setCode(404l).setMessage("No any alerts are " +
                                 "published for Device: " + deviceId + ".").build());
             } else {
-                return Response.status(Response.Status.OK).entity(deviceStates).build();
+                return response;
             }
         } catch (AnalyticsException e) {
             String msg = "Error occurred while getting published events for specific device: " + deviceId + ".";
@@ -171,7 +171,8 @@ public class EventReceiverServiceImpl implements EventReceiverService {
         }
     }
 
-    private Response retrieveAlertFromDate(String deviceId, long from, long to) {
+    private Response retrieveAlertFromDate(String deviceId, long from, long to, int limit,
+                                           String continuationToken) {
         String fromDate = String.valueOf(from);
         String toDate = String.valueOf(to);
         if (log.isDebugEnabled()) {
@@ -179,16 +180,16 @@ public class EventReceiverServiceImpl implements EventReceiverService {
         }
 
         String query = "deviceIdentifier:" + deviceId + " AND _timestamp: [" + fromDate + " TO " + toDate + "]";
-        List<DeviceState> deviceStates;
+        Response response;
         try {
-            deviceStates = AndroidDeviceUtils.getAllEventsForDevice(EVENT_STREAM_DEFINITION, query);
-            if (deviceStates == null) {
+            response = AndroidDeviceUtils.getEventsResponse(EVENT_STREAM_DEFINITION, query, limit, continuationToken);
+            if (response == null) {
                 throw new NotFoundException(
                         new ErrorResponse.ErrorResponseBuilder().setCode(404l).setMessage("No any alerts are " +
                                 "published on given date for given Device: " + deviceId + ".").build());
 
             } else {
-                return Response.status(Response.Status.OK).entity(deviceStates).build();
+                return response;
             }
         } catch (AnalyticsException e) {
             String msg = "Error occurred while getting published events for specific " +
@@ -199,21 +200,22 @@ public class EventReceiverServiceImpl implements EventReceiverService {
         }
     }
 
-    private Response retrieveAlertByType(String deviceId, String type) {
+    private Response retrieveAlertByType(String deviceId, String type, int limit,
+                                         String continuationToken) {
         if (log.isDebugEnabled()) {
             log.debug("Retrieving events for given device identifier and type.");
         }
         String query = "deviceIdentifier:" + deviceId + " AND type:" + type;
-        List<DeviceState> deviceStates;
+        Response response;
         try {
-            deviceStates = AndroidDeviceUtils.getAllEventsForDevice(EVENT_STREAM_DEFINITION, query);
-            if (deviceStates == null) {
+            response = AndroidDeviceUtils.getEventsResponse(EVENT_STREAM_DEFINITION, query, limit, continuationToken);
+            if (response == null) {
                 throw new NotFoundException(
                         new ErrorResponse.ErrorResponseBuilder().setCode(404l).setMessage("No any alerts are " +
                                 "published for given Device: '" + deviceId + "' and given specific Type.").build());
 
             } else {
-                return Response.status(Response.Status.OK).entity(deviceStates).build();
+                return response;
             }
         } catch (AnalyticsException e) {
             String msg = "Error occurred while getting published events for specific " +
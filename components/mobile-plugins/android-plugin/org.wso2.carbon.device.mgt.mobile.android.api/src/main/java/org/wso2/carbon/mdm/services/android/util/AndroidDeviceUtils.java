@@ -21,9 +21,10 @@ package org.wso2.carbon.mdm.services.android.util;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonNull;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.analytics.api.AnalyticsDataAPI;
@@ -58,9 +59,16 @@ import org.wso2.carbon.mdm.services.android.bean.ErrorResponse;
 import org.wso2.carbon.mdm.services.android.exception.BadRequestException;
 
 import javax.validation.ConstraintViolation;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -70,6 +78,13 @@ import java.util.Set;
 public class AndroidDeviceUtils {
 
     private static Log log = LogFactory.getLog(AndroidDeviceUtils.class);
+    private static final Gson gson = new Gson();
+    private static final String PROPERTY_NAME = "name";
+    private static final String PROPERTY_VALUE = "value";
+    private static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_PAGE_SIZE = 500;
 
     private AndroidDeviceUtils() {
         throw new IllegalStateException("Utility class");
@@ -111,14 +126,52 @@ public class AndroidDeviceUtils {
                 DeviceManagementConstants.MobileDeviceTypes.MOBILE_DEVICE_TYPE_ANDROID, operation, deviceIdentifiers);
     }
 
-    public static List<DeviceState> getAllEventsForDevice(String tableName, String query) throws AnalyticsException {
+    /**
+     * Builds the response of an event query. Without a limit or a continuation token all the matching events are
+     * streamed, otherwise a single page of at most {@value #MAX_PAGE_SIZE} events is returned, and the token of the
+     * next page, if any, is set in the {@value #CONTINUATION_TOKEN_HEADER} header.
+     *
+     * @return the response, or null if no events match the query.
+     */
+    public static Response getEventsResponse(String tableName, String query, int limit, String continuationToken)
+            throws AnalyticsException {
         int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
         AnalyticsDataAPI analyticsDataAPI = AndroidAPIUtils.getAnalyticsDataAPI();
-        int eventCount = analyticsDataAPI.searchCount(tenantId, tableName, query);
-        if (eventCount == 0) {
+        if (limit <= 0 && continuationToken == null) {
+            List<SearchResultEntry> resultEntries = analyticsDataAPI.search(tenantId, tableName, query, 0,
+                                                                            STREAM_PAGE_SIZE);
+            if (resultEntries.isEmpty()) {
+                return null;
+            }
+            return Response.status(Response.Status.OK).entity(new DeviceStateStreamingOutput(
+                    analyticsDataAPI, tenantId, tableName, query, resultEntries, STREAM_PAGE_SIZE)).build();
+        }
+        int start = decodeContinuationToken(continuationToken);
+        if (start < 0) {
+            throw buildBadRequestException("Invalid continuation token " + continuationToken);
+        }
+        int pageSize = limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+        List<SearchResultEntry> resultEntries = analyticsDataAPI.search(tenantId, tableName, query, start,
+                                                                        pageSize + 1);
+        if (resultEntries.isEmpty() && start == 0) {
             return null;
         }
-        List<SearchResultEntry> resultEntries = analyticsDataAPI.search(tenantId, tableName, query, 0, eventCount);
+        Response.ResponseBuilder responseBuilder = Response.status(Response.Status.OK);
+        if (resultEntries.size() > pageSize) {
+            resultEntries = resultEntries.subList(0, pageSize);
+            responseBuilder.header(CONTINUATION_TOKEN_HEADER, encodeContinuationToken(start + pageSize));
+        }
+        return responseBuilder.entity(getDeviceStates(analyticsDataAPI, tenantId, tableName, resultEntries)).build();
+    }
+
+    /**
+     * Loads the device states of the given search results, in the order of the search results.
+     */
+    public static List<DeviceState> getDeviceStates(AnalyticsDataAPI analyticsDataAPI, int tenantId, String tableName,
+                                                    List<SearchResultEntry> resultEntries) throws AnalyticsException {
+        if (resultEntries.isEmpty()) {
+            return new ArrayList<>();
+        }
         List<String> recordIds = getRecordIds(resultEntries);
         AnalyticsDataResponse response = analyticsDataAPI.get(tenantId, tableName, 1, null, recordIds);
         Map<String, DeviceState> deviceStateses = createDeviceStatusData(AnalyticsDataAPIUtil.listRecords(
@@ -126,6 +179,27 @@ public class AndroidDeviceUtils {
         return getSortedDeviceStateData(deviceStateses, resultEntries);
     }
 
+    private static String encodeContinuationToken(int start) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                String.valueOf(start).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the offset encoded in the token, 0 for a missing token or -1 for an invalid one.
+     */
+    private static int decodeContinuationToken(String continuationToken) {
+        if (continuationToken == null || continuationToken.isEmpty()) {
+            return 0;
+        }
+        try {
+            int start = Integer.parseInt(new String(Base64.getUrlDecoder().decode(continuationToken),
+                                                    StandardCharsets.UTF_8));
+            return start >= 0 ? start : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
     private static List<String> getRecordIds(List<SearchResultEntry> searchResults) {
         List<String> ids = new ArrayList<>();
         for (SearchResultEntry searchResult : searchResults) {
@@ -186,7 +260,7 @@ public class AndroidDeviceUtils {
                 if (log.isDebugEnabled()) {
                     log.debug("Operation response: " + operation.getOperationResponse());
                 }
-                Device device = new Gson().fromJson(operation.getOperationResponse(), Device.class);
+                Device device = gson.fromJson(operation.getOperationResponse(), Device.class);
                 org.wso2.carbon.device.mgt.common.device.details.DeviceInfo deviceInfo = convertDeviceToInfo(device);
                 updateDeviceInfo(deviceIdentifier, deviceInfo);
             } catch (DeviceDetailsMgtException e) {
@@ -196,7 +270,7 @@ public class AndroidDeviceUtils {
         } else if (!Operation.Status.ERROR.equals(operation.getStatus()) &&
                 AndroidConstants.OperationCodes.DEVICE_LOCATION.equals(operation.getCode())) {
             try {
-                DeviceLocation location = new Gson().fromJson(operation.getOperationResponse(), DeviceLocation.class);
+                DeviceLocation location = gson.fromJson(operation.getOperationResponse(), DeviceLocation.class);
                 // reason for checking "location.getLatitude() != null" because when device fails to provide
                 // device location and send status instead, above Gson converter create new location object
                 // with null attributes
@@ -292,86 +366,91 @@ public class AndroidDeviceUtils {
 
     private static void extractMapProperties(DeviceInfo deviceInfo, Device.Property prop) {
         if (prop.getName().equalsIgnoreCase("CPU_INFO")) {
-            deviceInfo.getDeviceDetailsMap().put("cpuUser", getProperty(prop.getValue(), "User"));
-            deviceInfo.getDeviceDetailsMap().put("cpuSystem", getProperty(prop.getValue(), "System"));
-            deviceInfo.getDeviceDetailsMap().put("IOW", getProperty(prop.getValue(), "IOW"));
-            deviceInfo.getDeviceDetailsMap().put("IRQ", getProperty(prop.getValue(), "IRQ"));
+            Map<String, String> properties = getProperties(prop.getValue());
+            deviceInfo.getDeviceDetailsMap().put("cpuUser", getProperty(properties, "User"));
+            deviceInfo.getDeviceDetailsMap().put("cpuSystem", getProperty(properties, "System"));
+            deviceInfo.getDeviceDetailsMap().put("IOW", getProperty(properties, "IOW"));
+            deviceInfo.getDeviceDetailsMap().put("IRQ", getProperty(properties, "IRQ"));
         } else if (prop.getName().equalsIgnoreCase("RAM_INFO")) {
-            if (!getProperty(prop.getValue(), "TOTAL_MEMORY").equals("")) {
-                deviceInfo.setTotalRAMMemory(Double.parseDouble(getProperty(prop.getValue(), "TOTAL_MEMORY")));
+            Map<String, String> properties = getProperties(prop.getValue());
+            if (!getProperty(properties, "TOTAL_MEMORY").equals("")) {
+                deviceInfo.setTotalRAMMemory(Double.parseDouble(getProperty(properties, "TOTAL_MEMORY")));
             } else {
                 deviceInfo.setTotalRAMMemory(-1D);
             }
-            if (!getProperty(prop.getValue(), "AVAILABLE_MEMORY").equals("")) {
+            if (!getProperty(properties, "AVAILABLE_MEMORY").equals("")) {
                 deviceInfo.setAvailableRAMMemory(Double.parseDouble(
-                        getProperty(prop.getValue(), "AVAILABLE_MEMORY")));
+                        getProperty(properties, "AVAILABLE_MEMORY")));
             } else {
                 deviceInfo.setAvailableRAMMemory(-1D);
             }
-            deviceInfo.getDeviceDetailsMap().put("ramThreshold", getProperty(prop.getValue(), "THRESHOLD"));
-            deviceInfo.getDeviceDetailsMap().put("ramLowMemory", getProperty(prop.getValue(), "LOW_MEMORY"));
+            deviceInfo.getDeviceDetailsMap().put("ramThreshold", getProperty(properties, "THRESHOLD"));
+            deviceInfo.getDeviceDetailsMap().put("ramLowMemory", getProperty(properties, "LOW_MEMORY"));
         } else if (prop.getName().equalsIgnoreCase("BATTERY_INFO")) {
-            deviceInfo.setPluggedIn(Boolean.parseBoolean(getProperty(prop.getValue(), "PLUGGED")));
+            Map<String, String> properties = getProperties(prop.getValue());
+            deviceInfo.setPluggedIn(Boolean.parseBoolean(getProperty(properties, "PLUGGED")));
 
-            deviceInfo.getDeviceDetailsMap().put("batteryLevel", getProperty(prop.getValue(), "BATTERY_LEVEL"));
-            deviceInfo.getDeviceDetailsMap().put("batteryScale", getProperty(prop.getValue(), "SCALE"));
+            deviceInfo.getDeviceDetailsMap().put("batteryLevel", getProperty(properties, "BATTERY_LEVEL"));
+            deviceInfo.getDeviceDetailsMap().put("batteryScale", getProperty(properties, "SCALE"));
             deviceInfo.getDeviceDetailsMap().put("batteryVoltage",
-                    getProperty(prop.getValue(), "BATTERY_VOLTAGE"));
+                    getProperty(properties, "BATTERY_VOLTAGE"));
             deviceInfo.getDeviceDetailsMap().put("batteryTemperature",
-                    getProperty(prop.getValue(), "TEMPERATURE"));
+                    getProperty(properties, "TEMPERATURE"));
             deviceInfo.getDeviceDetailsMap().put("batteryCurrentTemperature",
-                    getProperty(prop.getValue(), "CURRENT_AVERAGE"));
+                    getProperty(properties, "CURRENT_AVERAGE"));
             deviceInfo.getDeviceDetailsMap().put("batteryTechnology",
-                    getProperty(prop.getValue(), "TECHNOLOGY"));
-            deviceInfo.getDeviceDetailsMap().put("batteryHealth", getProperty(prop.getValue(), "HEALTH"));
-            deviceInfo.getDeviceDetailsMap().put("batteryStatus", getProperty(prop.getValue(), "STATUS"));
+                    getProperty(properties, "TECHNOLOGY"));
+            deviceInfo.getDeviceDetailsMap().put("batteryHealth", getProperty(properties, "HEALTH"));
+            deviceInfo.getDeviceDetailsMap().put("batteryStatus", getProperty(properties, "STATUS"));
         } else if (prop.getName().equalsIgnoreCase("NETWORK_INFO")) {
-            deviceInfo.setSsid(getProperty(prop.getValue(), "WIFI_SSID"));
-            deviceInfo.setConnectionType(getProperty(prop.getValue(), "CONNECTION_TYPE"));
+            Map<String, String> properties = getProperties(prop.getValue());
+            deviceInfo.setSsid(getProperty(properties, "WIFI_SSID"));
+            deviceInfo.setConnectionType(getProperty(properties, "CONNECTION_TYPE"));
 
             deviceInfo.getDeviceDetailsMap().put("mobileSignalStrength",
-                    getProperty(prop.getValue(), "MOBILE_SIGNAL_STRENGTH"));
+                    getProperty(properties, "MOBILE_SIGNAL_STRENGTH"));
             deviceInfo.getDeviceDetailsMap().put("wifiSignalStrength",
-                    getProperty(prop.getValue(), "WIFI_SIGNAL_STRENGTH"));
+                    getProperty(properties, "WIFI_SIGNAL_STRENGTH"));
         } else if (prop.getName().equalsIgnoreCase("DEVICE_INFO")) {
-            if (!getProperty(prop.getValue(), "BATTERY_LEVEL").equals("")) {
+            Map<String, String> properties = getProperties(prop.getValue());
+            if (!getProperty(properties, "BATTERY_LEVEL").equals("")) {
                 deviceInfo.setBatteryLevel(Double.parseDouble(
-                        getProperty(prop.getValue(), "BATTERY_LEVEL")));
+                        getProperty(properties, "BATTERY_LEVEL")));
             } else {
                 deviceInfo.setBatteryLevel(-1D);
             }
-            if (!getProperty(prop.getValue(), "INTERNAL_TOTAL_MEMORY").equals("")) {
+            if (!getProperty(properties, "INTERNAL_TOTAL_MEMORY").equals("")) {
                 deviceInfo.setInternalTotalMemory(Double.parseDouble(
-                        getProperty(prop.getValue(), "INTERNAL_TOTAL_MEMORY")));
+                        getProperty(properties, "INTERNAL_TOTAL_MEMORY")));
             } else {
                 deviceInfo.setInternalTotalMemory(-1D);
             }
-            if (!getProperty(prop.getValue(), "INTERNAL_AVAILABLE_MEMORY").equals("")) {
+            if (!getProperty(properties, "INTERNAL_AVAILABLE_MEMORY").equals("")) {
                 deviceInfo.setInternalAvailableMemory(Double.parseDouble(
-                        getProperty(prop.getValue(), "INTERNAL_AVAILABLE_MEMORY")));
+                        getProperty(properties, "INTERNAL_AVAILABLE_MEMORY")));
             } else {
                 deviceInfo.setInternalAvailableMemory(-1D);
             }
-            if (!getProperty(prop.getValue(), "EXTERNAL_TOTAL_MEMORY").equals("")) {
+            if (!getProperty(properties, "EXTERNAL_TOTAL_MEMORY").equals("")) {
                 deviceInfo.setExternalTotalMemory(Double.parseDouble(
-                        getProperty(prop.getValue(), "EXTERNAL_TOTAL_MEMORY")));
+                        getProperty(properties, "EXTERNAL_TOTAL_MEMORY")));
             } else {
                 deviceInfo.setExternalTotalMemory(-1D);
             }
-            if (!getProperty(prop.getValue(), "EXTERNAL_AVAILABLE_MEMORY").equals("")) {
+            if (!getProperty(properties, "EXTERNAL_AVAILABLE_MEMORY").equals("")) {
                 deviceInfo.setExternalAvailableMemory(Double.parseDouble(
-                        getProperty(prop.getValue(), "EXTERNAL_AVAILABLE_MEMORY")));
+                        getProperty(properties, "EXTERNAL_AVAILABLE_MEMORY")));
             } else {
                 deviceInfo.setExternalAvailableMemory(-1D);
             }
             deviceInfo.getDeviceDetailsMap().put("passcodeEnabled",
-                    getProperty(prop.getValue(), "PASSCODE_ENABLED"));
+                    getProperty(properties, "PASSCODE_ENABLED"));
             deviceInfo.getDeviceDetailsMap().put("operator",
-                    getProperty(prop.getValue(), "OPERATOR"));
+                    getProperty(properties, "OPERATOR"));
             deviceInfo.getDeviceDetailsMap().put("PhoneNumber",
-                    getProperty(prop.getValue(), "PHONE_NUMBER"));
+                    getProperty(properties, "PHONE_NUMBER"));
             deviceInfo.getDeviceDetailsMap().put("operator",
-                    getProperty(prop.getValue(), "OPERATOR"));
+                    getProperty(properties, "OPERATOR"));
 
         } else if (prop.getName().equalsIgnoreCase("IMEI")) {
             deviceInfo.getDeviceDetailsMap().put("IMEI", prop.getValue());
@@ -396,32 +475,75 @@ public class AndroidDeviceUtils {
         }
     }
 
-    private static String getProperty(String properties, String needed) {
-        // This is not a key value pair. value is the immediate element to its filed name.
-        // Ex:
-        // [{"name":"ENCRYPTION_ENABLED","value":"false"},{"name":"PASSCODE_ENABLED","value":"true"},
-        // {"name":"BATTERY_LEVEL","value":"100"},{"name":"INTERNAL_TOTAL_MEMORY","value":"0.76"}]
-        JsonElement jsonElement = new JsonParser().parse(properties);
-        JsonArray jsonArray = jsonElement.getAsJsonArray();
-        for (JsonElement element : jsonArray) {
-            if (element.isJsonObject()) {
-                JsonObject jsonObject = element.getAsJsonObject();
-                if (jsonObject.has("name")
-                        && jsonObject.get("name").getAsString().equalsIgnoreCase(needed)) {
-                    if (jsonObject.has("value") && jsonObject.get("value") != JsonNull.INSTANCE) {
-                        return jsonObject.get("value").getAsString().replace("%", "");
+    private static String getProperty(Map<String, String> properties, String needed) {
+        String value = properties.get(needed.toUpperCase(Locale.ENGLISH));
+        return value != null ? value : "";
+    }
+
+    /**
+     * Reads all the name and value pairs of a composite property in a single pass. Names are upper-cased so that
+     * they can be looked up case insensitively, and only the first occurrence of a name is kept.
+     * Ex:
+     * [{"name":"ENCRYPTION_ENABLED","value":"false"},{"name":"PASSCODE_ENABLED","value":"true"},
+     * {"name":"BATTERY_LEVEL","value":"100"},{"name":"INTERNAL_TOTAL_MEMORY","value":"0.76"}]
+     */
+    private static Map<String, String> getProperties(String properties) {
+        if (properties == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> values = new HashMap<>();
+        JsonReader reader = new JsonReader(new StringReader(properties));
+        reader.setLenient(true);
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                String name = null;
+                String value = "";
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if (PROPERTY_NAME.equals(field) && name == null) {
+                        name = readString(reader);
+                    } else if (PROPERTY_VALUE.equals(field)) {
+                        String propertyValue = readString(reader);
+                        value = propertyValue != null ? propertyValue.replace("%", "") : "";
                     } else {
-                        return "";
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (name != null) {
+                    String key = name.toUpperCase(Locale.ENGLISH);
+                    if (!values.containsKey(key)) {
+                        values.put(key, value);
                     }
                 }
             }
+            reader.endArray();
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException("Invalid device property value: " + properties, e);
+        }
+        return values;
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        } else if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
         }
-        return "";
+        return reader.nextString();
     }
 
     private static List<ComplianceFeature> getComplianceFeatures(Object compliancePayload)
             throws PolicyComplianceException {
-        String compliancePayloadString = new Gson().toJson(compliancePayload);
+        String compliancePayloadString = gson.toJson(compliancePayload);
         if (compliancePayload == null) {
             return null;
         }
@@ -434,7 +556,6 @@ public class AndroidDeviceUtils {
         }
 
         JsonArray jsonArray = jsonElement.getAsJsonArray();
-        Gson gson = new Gson();
         ComplianceFeature complianceFeature;
         List<ComplianceFeature> complianceFeatures = new ArrayList<ComplianceFeature>(jsonArray.size());
 
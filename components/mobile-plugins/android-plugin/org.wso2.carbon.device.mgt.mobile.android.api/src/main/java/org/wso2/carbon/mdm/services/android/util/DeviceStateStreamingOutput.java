@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.services.android.util;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.analytics.api.AnalyticsDataAPI;
+import org.wso2.carbon.analytics.dataservice.commons.SearchResultEntry;
+import org.wso2.carbon.analytics.datasource.commons.exception.AnalyticsException;
+import org.wso2.carbon.mdm.services.android.bean.DeviceState;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes all the device states matching a query as a JSON array. States are searched and loaded one page at a time
+ * and written as soon as they are loaded, so the memory used does not grow with the number of matching events.
+ */
+public class DeviceStateStreamingOutput implements StreamingOutput {
+
+    private static final Log log = LogFactory.getLog(DeviceStateStreamingOutput.class);
+    private static final Gson gson = new Gson();
+
+    private final AnalyticsDataAPI analyticsDataAPI;
+    private final int tenantId;
+    private final String tableName;
+    private final String query;
+    private final List<SearchResultEntry> firstPage;
+    private final int pageSize;
+
+    public DeviceStateStreamingOutput(AnalyticsDataAPI analyticsDataAPI, int tenantId, String tableName, String query,
+                                      List<SearchResultEntry> firstPage, int pageSize) {
+        this.analyticsDataAPI = analyticsDataAPI;
+        this.tenantId = tenantId;
+        this.tableName = tableName;
+        this.query = query;
+        this.firstPage = firstPage;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        jsonWriter.beginArray();
+        try {
+            List<SearchResultEntry> resultEntries = firstPage;
+            int start = 0;
+            while (!resultEntries.isEmpty()) {
+                for (DeviceState deviceState : AndroidDeviceUtils.getDeviceStates(analyticsDataAPI, tenantId,
+                                                                                   tableName, resultEntries)) {
+                    gson.toJson(deviceState, DeviceState.class, jsonWriter);
+                }
+                jsonWriter.flush();
+                if (resultEntries.size() < pageSize) {
+                    break;
+                }
+                start += resultEntries.size();
+                resultEntries = analyticsDataAPI.search(tenantId, tableName, query, start, pageSize);
+            }
+        } catch (AnalyticsException e) {
+            String msg = "Error occurred while getting published events from table " + tableName + " with query " +
+                    query;
+            log.error(msg, e);
+            throw new IOException(msg, e);
+        }
+        jsonWriter.endArray();
+        jsonWriter.flush();
+    }
+}
@@ -20,6 +20,7 @@ package org.wso2.carbon.device.mgt.mobile.android.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementConstants;
@@ -40,6 +41,7 @@ import org.wso2.carbon.device.mgt.mobile.android.impl.dto.MobileDevice;
 import org.wso2.carbon.device.mgt.mobile.android.impl.util.AndroidPluginConstants;
 import org.wso2.carbon.device.mgt.mobile.android.impl.util.AndroidPluginUtils;
 import org.wso2.carbon.device.mgt.mobile.android.impl.util.MobileDeviceManagementUtil;
+import org.wso2.carbon.device.mgt.mobile.android.impl.util.PlatformConfigurationCache;
 import org.wso2.carbon.registry.api.RegistryException;
 import org.wso2.carbon.registry.api.Resource;
 
@@ -62,6 +64,8 @@ public class AndroidDeviceManager implements DeviceManager {
     private static final Log log = LogFactory.getLog(AndroidDeviceManagementService.class);
     private FeatureManager featureManager = new AndroidFeatureManager();
     private LicenseManager licenseManager;
+    private static final XMLInputFactory xmlInputFactory = createXMLInputFactory();
+    private static volatile JAXBContext platformConfigurationContext;
 
     public AndroidDeviceManager() {
         this.daoFactory = new AndroidDAOFactory();
@@ -100,14 +104,15 @@ public class AndroidDeviceManager implements DeviceManager {
                     DeviceManagementConstants.
                             MobileDeviceTypes.MOBILE_DEVICE_TYPE_ANDROID);
             StringWriter writer = new StringWriter();
-            JAXBContext context = JAXBContext.newInstance(PlatformConfiguration.class);
-            Marshaller marshaller = context.createMarshaller();
+            Marshaller marshaller = getPlatformConfigurationContext().createMarshaller();
             marshaller.marshal(tenantConfiguration, writer);
 
             Resource resource = MobileDeviceManagementUtil.getConfigurationRegistry().newResource();
             resource.setContent(writer.toString());
             resource.setMediaType(AndroidPluginConstants.MobilePluginConstants.MEDIA_TYPE_XML);
             MobileDeviceManagementUtil.putRegistryResource(resourcePath, resource);
+            PlatformConfigurationCache.invalidate(
+                    PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
             status = true;
         } catch (AndroidDeviceMgtPluginException e) {
             throw new DeviceManagementException(
@@ -124,6 +129,18 @@ public class AndroidDeviceManager implements DeviceManager {
 
     @Override
     public PlatformConfiguration getConfiguration() throws DeviceManagementException {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        PlatformConfigurationCache.CacheEntry cacheEntry = PlatformConfigurationCache.get(tenantId);
+        if (cacheEntry != null) {
+            return cacheEntry.getConfiguration();
+        }
+        long generation = PlatformConfigurationCache.getGeneration();
+        PlatformConfiguration configuration = loadConfiguration();
+        PlatformConfigurationCache.put(tenantId, configuration, generation);
+        return configuration;
+    }
+
+    private PlatformConfiguration loadConfiguration() throws DeviceManagementException {
         Resource resource;
         try {
             String androidRegPath =
@@ -131,14 +148,10 @@ public class AndroidDeviceManager implements DeviceManager {
                             MobileDeviceTypes.MOBILE_DEVICE_TYPE_ANDROID);
             resource = MobileDeviceManagementUtil.getRegistryResource(androidRegPath);
             if (resource != null) {
-                XMLInputFactory factory = XMLInputFactory.newInstance();
-                factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-                factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-                XMLStreamReader reader = factory.createXMLStreamReader(
+                XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(
                         new StringReader(new String((byte[]) resource.getContent(), Charset.
                                 forName(AndroidPluginConstants.MobilePluginConstants.CHARSET_UTF8))));
-                JAXBContext context = JAXBContext.newInstance(PlatformConfiguration.class);
-                Unmarshaller unmarshaller = context.createUnmarshaller();
+                Unmarshaller unmarshaller = getPlatformConfigurationContext().createUnmarshaller();
                 return (PlatformConfiguration) unmarshaller.unmarshal(reader);
             }
             return null;
@@ -154,6 +167,31 @@ public class AndroidDeviceManager implements DeviceManager {
         }
     }
 
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+    /**
+     * JAXBContext creation is expensive and the context is thread safe, so a single instance is shared.
+     * Marshallers and unmarshallers are not thread safe and are still created per call.
+     */
+    private static JAXBContext getPlatformConfigurationContext() throws JAXBException {
+        JAXBContext context = platformConfigurationContext;
+        if (context == null) {
+            synchronized (AndroidDeviceManager.class) {
+                context = platformConfigurationContext;
+                if (context == null) {
+                    context = JAXBContext.newInstance(PlatformConfiguration.class);
+                    platformConfigurationContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
     @Override
     public boolean enrollDevice(Device device) throws DeviceManagementException {
         boolean status = false;
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.mobile.android.impl.util;
+
+import org.wso2.carbon.device.mgt.common.configuration.mgt.ConfigurationEntry;
+import org.wso2.carbon.device.mgt.common.configuration.mgt.PlatformConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the Android platform configuration of each tenant in memory so that it is read from the registry and
+ * unmarshalled only once. Entries are dropped when the configuration is saved or its registry resource changes, and
+ * expire after a while so that changes made through other nodes of a cluster are eventually picked up. Callers get
+ * their own copy of the cached configuration, as they are free to modify it.
+ */
+public final class PlatformConfigurationCache {
+
+    private static final long EXPIRY_TIME_IN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final ConcurrentMap<Integer, CacheEntry> configurations = new ConcurrentHashMap<>();
+    private static final AtomicLong generation = new AtomicLong();
+
+    private PlatformConfigurationCache() {
+    }
+
+    /**
+     * @param tenantId tenant of the configuration.
+     * @return the cached entry, or null if the configuration of the tenant has to be loaded.
+     */
+    public static CacheEntry get(int tenantId) {
+        CacheEntry entry = configurations.get(tenantId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            configurations.remove(tenantId, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns a marker to be taken before loading a configuration and passed back to
+     * {@link #put(int, PlatformConfiguration, long)}, so that a load which raced with an invalidation is not cached.
+     */
+    public static long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a copy of a loaded configuration. A null configuration is cached as well, meaning that the tenant has
+     * none.
+     *
+     * @param tenantId           tenant of the configuration.
+     * @param configuration      loaded configuration.
+     * @param expectedGeneration value of {@link #getGeneration()} taken before the configuration was loaded.
+     */
+    public static void put(int tenantId, PlatformConfiguration configuration, long expectedGeneration) {
+        CacheEntry entry = new CacheEntry(copy(configuration), System.currentTimeMillis() + EXPIRY_TIME_IN_MILLIS);
+        configurations.put(tenantId, entry);
+        if (generation.get() != expectedGeneration) {
+            configurations.remove(tenantId, entry);
+        }
+    }
+
+    public static void invalidate(int tenantId) {
+        generation.incrementAndGet();
+        configurations.remove(tenantId);
+    }
+
+    public static void clear() {
+        generation.incrementAndGet();
+        configurations.clear();
+    }
+
+    /**
+     * Cached configuration of a tenant.
+     */
+    public static final class CacheEntry {
+
+        private final PlatformConfiguration configuration;
+        private final long expiryTime;
+
+        private CacheEntry(PlatformConfiguration configuration, long expiryTime) {
+            this.configuration = configuration;
+            this.expiryTime = expiryTime;
+        }
+
+        /**
+         * @return a copy of the cached configuration, or null if the tenant has none.
+         */
+        public PlatformConfiguration getConfiguration() {
+            return copy(configuration);
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiryTime;
+        }
+    }
+
+    private static PlatformConfiguration copy(PlatformConfiguration configuration) {
+        if (configuration == null) {
+            return null;
+        }
+        PlatformConfiguration copy = new PlatformConfiguration();
+        copy.setType(configuration.getType());
+        List<ConfigurationEntry> entries = configuration.getConfiguration();
+        if (entries != null) {
+            List<ConfigurationEntry> copiedEntries = new ArrayList<>(entries.size());
+            for (ConfigurationEntry entry : entries) {
+                ConfigurationEntry copiedEntry = new ConfigurationEntry();
+                copiedEntry.setName(entry.getName());
+                copiedEntry.setContentType(entry.getContentType());
+                copiedEntry.setValue(entry.getValue());
+                copiedEntries.add(copiedEntry);
+            }
+            copy.setConfiguration(copiedEntries);
+        }
+        return copy;
+    }
+}
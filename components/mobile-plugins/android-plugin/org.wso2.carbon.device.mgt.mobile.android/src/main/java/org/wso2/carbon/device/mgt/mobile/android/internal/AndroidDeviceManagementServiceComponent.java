@@ -21,11 +21,21 @@ package org.wso2.carbon.device.mgt.mobile.android.internal;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
+import org.wso2.carbon.device.mgt.common.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.common.spi.DeviceManagementService;
 import org.wso2.carbon.device.mgt.mobile.android.impl.AndroidDeviceManagementService;
+import org.wso2.carbon.device.mgt.mobile.android.impl.util.AndroidPluginConstants;
+import org.wso2.carbon.device.mgt.mobile.android.impl.util.MobileDeviceManagementUtil;
+import org.wso2.carbon.device.mgt.mobile.android.impl.util.PlatformConfigurationCache;
 import org.wso2.carbon.ndatasource.core.DataSourceService;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.registry.core.jdbc.handlers.HandlerManager;
+import org.wso2.carbon.registry.core.jdbc.handlers.filters.Filter;
+import org.wso2.carbon.registry.core.jdbc.handlers.filters.URLMatcher;
 import org.wso2.carbon.registry.core.service.RegistryService;
 
+import java.util.regex.Pattern;
+
 /**
  * @scr.component name="org.wso2.carbon.device.mgt.mobile.android.impl.internal.AndroidDeviceManagementServiceComponent"
  * immediate="true"
@@ -46,6 +56,7 @@ import org.wso2.carbon.registry.core.service.RegistryService;
 public class AndroidDeviceManagementServiceComponent {
 
     private static final Log log = LogFactory.getLog(AndroidDeviceManagementServiceComponent.class);
+    private PlatformConfigurationRegistryHandler platformConfigurationHandler;
 
     protected void activate(ComponentContext ctx) {
 
@@ -95,10 +106,46 @@ public class AndroidDeviceManagementServiceComponent {
             log.debug("RegistryService acquired");
         }
         AndroidDeviceManagementDataHolder.getInstance().setRegistryService(registryService);
+        registerPlatformConfigurationHandler(registryService);
     }
 
     protected void unsetRegistryService(RegistryService registryService) {
+        unregisterPlatformConfigurationHandler(registryService);
         AndroidDeviceManagementDataHolder.getInstance().setRegistryService(null);
+        PlatformConfigurationCache.clear();
+    }
+
+    private void registerPlatformConfigurationHandler(RegistryService registryService) {
+        String configPath = AndroidPluginConstants.MobilePluginConstants.MOBILE_CONFIG_REGISTRY_ROOT + "/" +
+                MobileDeviceManagementUtil.getPlatformConfigPath(
+                        DeviceManagementConstants.MobileDeviceTypes.MOBILE_DEVICE_TYPE_ANDROID);
+        URLMatcher matcher = new URLMatcher();
+        matcher.setPutPattern(Pattern.quote(configPath));
+        matcher.setDeletePattern(Pattern.quote(configPath));
+        try {
+            PlatformConfigurationRegistryHandler handler = new PlatformConfigurationRegistryHandler();
+            getHandlerManager(registryService).addHandler(new String[]{Filter.PUT, Filter.DELETE}, matcher, handler);
+            platformConfigurationHandler = handler;
+        } catch (RegistryException e) {
+            log.error("Error occurred while registering the Android platform configuration handler. Cached " +
+                    "configurations will only be refreshed on save or expiry", e);
+        }
+    }
+
+    private void unregisterPlatformConfigurationHandler(RegistryService registryService) {
+        if (platformConfigurationHandler == null) {
+            return;
+        }
+        try {
+            getHandlerManager(registryService).removeHandler(platformConfigurationHandler);
+        } catch (RegistryException e) {
+            log.error("Error occurred while removing the Android platform configuration handler", e);
+        }
+        platformConfigurationHandler = null;
+    }
+
+    private HandlerManager getHandlerManager(RegistryService registryService) throws RegistryException {
+        return registryService.getConfigSystemRegistry().getRegistryContext().getHandlerManager();
     }
 
 }
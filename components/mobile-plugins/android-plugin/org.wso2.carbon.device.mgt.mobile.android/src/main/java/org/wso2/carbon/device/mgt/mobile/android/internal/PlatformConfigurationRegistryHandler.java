@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.mobile.android.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.device.mgt.mobile.android.impl.util.PlatformConfigurationCache;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.registry.core.jdbc.handlers.Handler;
+import org.wso2.carbon.registry.core.jdbc.handlers.RequestContext;
+
+/**
+ * Registry handler which drops the cached Android platform configuration of a tenant whenever its registry resource
+ * is updated or removed.
+ */
+public class PlatformConfigurationRegistryHandler extends Handler {
+
+    private static final Log log = LogFactory.getLog(PlatformConfigurationRegistryHandler.class);
+
+    @Override
+    public void put(RequestContext requestContext) throws RegistryException {
+        invalidate(requestContext);
+    }
+
+    @Override
+    public void delete(RequestContext requestContext) throws RegistryException {
+        invalidate(requestContext);
+    }
+
+    private void invalidate(RequestContext requestContext) {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        if (log.isDebugEnabled()) {
+            log.debug("Android platform configuration of tenant " + tenantId + " changed at '"
+                    + requestContext.getResourcePath().getPath() + "'; invalidating the cached configuration");
+        }
+        PlatformConfigurationCache.invalidate(tenantId);
+    }
+}
@@ -20,7 +20,6 @@ package org.wso2.carbon.device.mgt.mobile.windows.api.services.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.w3c.dom.Document;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
@@ -51,6 +50,7 @@ import org.wso2.carbon.device.mgt.mobile.windows.api.services.DeviceManagementSe
 import org.wso2.carbon.device.mgt.mobile.windows.impl.dto.MobileCacheEntry;
 
 import javax.ws.rs.core.Response;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -62,7 +62,7 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
             org.wso2.carbon.device.mgt.mobile.windows.api.services.syncml.impl.SyncmlServiceImpl.class);
 
     @Override
-    public Response getResponse(Document request) throws WindowsDeviceEnrolmentException, WindowsOperationException,
+    public Response getResponse(InputStream request) throws WindowsDeviceEnrolmentException, WindowsOperationException,
             NotificationManagementException, WindowsConfigurationException {
 
         int msgId;
@@ -76,79 +76,77 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
         OperationReply operationReply = new OperationReply();
 
         try {
-            if (SyncmlParser.parseSyncmlPayload(request) != null) {
-                syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
-                SyncmlHeader syncmlHeader = syncmlDocument.getHeader();
-                sessionId = syncmlHeader.getSessionId();
-                user = syncmlHeader.getSource().getLocName();
-                DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(syncmlHeader.getSource().
-                        getLocURI());
-                msgId = syncmlHeader.getMsgID();
+            syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
+            SyncmlHeader syncmlHeader = syncmlDocument.getHeader();
+            sessionId = syncmlHeader.getSessionId();
+            user = syncmlHeader.getSource().getLocName();
+            DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(syncmlHeader.getSource().
+                    getLocURI());
+            msgId = syncmlHeader.getMsgID();
 
-                if ((PluginConstants.SyncML.SYNCML_FIRST_MESSAGE_ID == msgId) &&
-                        (PluginConstants.SyncML.SYNCML_FIRST_SESSION_ID == sessionId)) {
-                    if (syncmlHeader.getCredential() != null) {
-                        token = syncmlHeader.getCredential().getData();
-                        MobileCacheEntry cacheToken = DeviceUtil.getTokenEntry(token);
-                        DeviceUtil.persistChallengeToken(token, deviceIdentifier.getId(), user);
-                        PrivilegedCarbonContext carbonCtx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-                        carbonCtx.setTenantId(cacheToken.getTenanatID(), true);
-                        if ((cacheToken.getUsername() != null) && (cacheToken.getUsername().equals(user))) {
-                            if (modifyEnrollWithMoreDetail(request, cacheToken.getTenantDomain(), cacheToken.getTenanatID())) {
-                                pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
-                                operationHandler.checkForDeviceWipe(pendingOperations, deviceIdentifier);
-                                response = operationReply.generateReply(syncmlDocument, pendingOperations);
-                                return Response.status(Response.Status.OK).entity(response).build();
-                            } else {
-                                String msg = "Error occurred in while modify the enrollment.";
-                                log.error(msg);
-                                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).build();
-                            }
+            if ((PluginConstants.SyncML.SYNCML_FIRST_MESSAGE_ID == msgId) &&
+                    (PluginConstants.SyncML.SYNCML_FIRST_SESSION_ID == sessionId)) {
+                if (syncmlHeader.getCredential() != null) {
+                    token = syncmlHeader.getCredential().getData();
+                    MobileCacheEntry cacheToken = DeviceUtil.getTokenEntry(token);
+                    DeviceUtil.persistChallengeToken(token, deviceIdentifier.getId(), user);
+                    PrivilegedCarbonContext carbonCtx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                    carbonCtx.setTenantId(cacheToken.getTenanatID(), true);
+                    if ((cacheToken.getUsername() != null) && (cacheToken.getUsername().equals(user))) {
+                        if (modifyEnrollWithMoreDetail(syncmlDocument, cacheToken.getTenantDomain(), cacheToken.getTenanatID())) {
+                            pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
+                            operationHandler.checkForDeviceWipe(pendingOperations, deviceIdentifier);
+                            response = operationReply.generateReply(syncmlDocument, pendingOperations);
+                            return Response.status(Response.Status.OK).entity(response).build();
                         } else {
-                            String msg = "Authentication failure due to incorrect credentials.";
+                            String msg = "Error occurred in while modify the enrollment.";
                             log.error(msg);
-                            return Response.status(Response.Status.UNAUTHORIZED).entity(msg).build();
+                            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).build();
                         }
                     } else {
-                        return Response.ok().entity(operationReply.generateReply(syncmlDocument, null)).build();
+                        String msg = "Authentication failure due to incorrect credentials.";
+                        log.error(msg);
+                        return Response.status(Response.Status.UNAUTHORIZED).entity(msg).build();
                     }
                 } else {
-                    if (DeviceUtil.getTokenEntryFromDeviceId(deviceIdentifier.getId()) == null) {
-                        if (syncmlHeader.getCredential() != null) {
-                            token = syncmlHeader.getCredential().getData();
-                            MobileCacheEntry cacheToken = DeviceUtil.getTokenEntry(token);
-                            DeviceUtil.persistChallengeToken(token, deviceIdentifier.getId(), user);
-                            PrivilegedCarbonContext carbonCtx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-                            carbonCtx.setTenantId(cacheToken.getTenanatID(), true);
-                        }
-                    } else {
-                        MobileCacheEntry cacheToken = DeviceUtil.getTokenEntryFromDeviceId(deviceIdentifier.getId());
+                    return Response.ok().entity(operationReply.generateReply(syncmlDocument, null)).build();
+                }
+            } else {
+                if (DeviceUtil.getTokenEntryFromDeviceId(deviceIdentifier.getId()) == null) {
+                    if (syncmlHeader.getCredential() != null) {
+                        token = syncmlHeader.getCredential().getData();
+                        MobileCacheEntry cacheToken = DeviceUtil.getTokenEntry(token);
+                        DeviceUtil.persistChallengeToken(token, deviceIdentifier.getId(), user);
                         PrivilegedCarbonContext carbonCtx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-                        carbonCtx.setTenantId(cacheToken.getTenanatID());
+                        carbonCtx.setTenantId(cacheToken.getTenanatID(), true);
                     }
-                    if ((syncmlDocument.getBody().getAlert() != null)) {
-                        if (!syncmlDocument.getBody().getAlert().getData().equals(Constants.DISENROLL_ALERT_DATA)) {
-                            pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
-                            operationHandler.checkForDeviceWipe(pendingOperations, deviceIdentifier);
-                            return Response.ok().entity(operationReply.generateReply(
-                                    syncmlDocument, pendingOperations)).build();
-                        } else {
-                            if (WindowsAPIUtils.getDeviceManagementService().getDevice(deviceIdentifier, false) != null) {
-                                operationHandler.updateDisenrollOperationStatus(deviceIdentifier);
-                                WindowsAPIUtils.getDeviceManagementService().disenrollDevice(deviceIdentifier);
-                                return Response.ok().entity(operationReply.generateReply(syncmlDocument, null)).build();
-                            } else {
-                                String msg = "Enrolled device can not be found in the server.";
-                                log.error(msg);
-                                return Response.status(Response.Status.NOT_FOUND).entity(msg).build();
-                            }
-                        }
-                    } else {
+                } else {
+                    MobileCacheEntry cacheToken = DeviceUtil.getTokenEntryFromDeviceId(deviceIdentifier.getId());
+                    PrivilegedCarbonContext carbonCtx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                    carbonCtx.setTenantId(cacheToken.getTenanatID());
+                }
+                if ((syncmlDocument.getBody().getAlert() != null)) {
+                    if (!syncmlDocument.getBody().getAlert().getData().equals(Constants.DISENROLL_ALERT_DATA)) {
                         pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
                         operationHandler.checkForDeviceWipe(pendingOperations, deviceIdentifier);
                         return Response.ok().entity(operationReply.generateReply(
                                 syncmlDocument, pendingOperations)).build();
+                    } else {
+                        if (WindowsAPIUtils.getDeviceManagementService().getDevice(deviceIdentifier, false) != null) {
+                            operationHandler.updateDisenrollOperationStatus(deviceIdentifier);
+                            WindowsAPIUtils.getDeviceManagementService().disenrollDevice(deviceIdentifier);
+                            return Response.ok().entity(operationReply.generateReply(syncmlDocument, null)).build();
+                        } else {
+                            String msg = "Enrolled device can not be found in the server.";
+                            log.error(msg);
+                            return Response.status(Response.Status.NOT_FOUND).entity(msg).build();
+                        }
                     }
+                } else {
+                    pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
+                    operationHandler.checkForDeviceWipe(pendingOperations, deviceIdentifier);
+                    return Response.ok().entity(operationReply.generateReply(
+                            syncmlDocument, pendingOperations)).build();
                 }
             }
         } catch (SyncmlMessageFormatException e) {
@@ -168,27 +166,24 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
             log.error(msg, e);
             throw new WindowsOperationException(msg, e);
         }
-        return null;
     }
 
     /**
      * Enroll phone device
      *
-     * @param request Device syncml request for the server side.
+     * @param syncmlDocument Parsed syncml request of the device.
      * @return enroll state
      * @throws WindowsDeviceEnrolmentException
      * @throws WindowsOperationException
      */
-    private boolean modifyEnrollWithMoreDetail(Document request, String tenantDomain, int tenantId) throws WindowsDeviceEnrolmentException,
+    private boolean modifyEnrollWithMoreDetail(SyncmlDocument syncmlDocument, String tenantDomain, int tenantId) throws WindowsDeviceEnrolmentException,
             WindowsOperationException {
 
         String devMan = null;
         String devMod = null;
         boolean status = false;
         String user;
-        SyncmlDocument syncmlDocument;
         try {
-            syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
             ReplaceTag replace = syncmlDocument.getBody().getReplace();
             List<ItemTag> itemList = replace.getItems();
             for (ItemTag itemTag : itemList) {
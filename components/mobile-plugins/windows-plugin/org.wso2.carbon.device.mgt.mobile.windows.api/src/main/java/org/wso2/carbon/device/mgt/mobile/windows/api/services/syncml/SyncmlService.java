@@ -18,7 +18,6 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.services.syncml;
 
-import org.w3c.dom.Document;
 import org.wso2.carbon.apimgt.annotations.api.Scope;
 import org.wso2.carbon.apimgt.annotations.api.Scopes;
 import org.wso2.carbon.device.mgt.common.notification.mgt.NotificationManagementException;
@@ -33,6 +32,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.InputStream;
 
 /**
  * Interface for Windows 8.1 enrollment flow.
@@ -55,7 +55,7 @@ public interface SyncmlService {
     @POST
     @Consumes({PluginConstants.SYNCML_MEDIA_TYPE, MediaType.APPLICATION_XML})
     @Produces(PluginConstants.SYNCML_MEDIA_TYPE)
-    Response getResponse(Document request) throws WindowsDeviceEnrolmentException, WindowsOperationException,
+    Response getResponse(InputStream request) throws WindowsDeviceEnrolmentException, WindowsOperationException,
             NotificationManagementException, WindowsConfigurationException;
 
 }
@@ -20,7 +20,6 @@ package org.wso2.carbon.device.mgt.mobile.windows.api.services.syncml.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.w3c.dom.Document;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
@@ -56,6 +55,7 @@ import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerService;
 
 import javax.ws.rs.core.Response;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -130,7 +130,7 @@ public class SyncmlServiceImpl implements SyncmlService {
      * @throws WindowsDeviceEnrolmentException
      */
     @Override
-    public Response getResponse(Document request)
+    public Response getResponse(InputStream request)
             throws WindowsDeviceEnrolmentException, WindowsOperationException, NotificationManagementException,
                    WindowsConfigurationException {
         int msgId;
@@ -145,69 +145,67 @@ public class SyncmlServiceImpl implements SyncmlService {
         DeviceInfo deviceInfo = new DeviceInfo();
 
         try {
-            if (SyncmlParser.parseSyncmlPayload(request) != null) {
-                syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
-                SyncmlHeader syncmlHeader = syncmlDocument.getHeader();
-                sessionId = syncmlHeader.getSessionId();
-                user = syncmlHeader.getSource().getLocName();
-                DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(syncmlHeader.getSource().
-                        getLocURI());
-                msgId = syncmlHeader.getMsgID();
-                if ((PluginConstants.SyncML.SYNCML_FIRST_MESSAGE_ID == msgId) &&
-                    (PluginConstants.SyncML.SYNCML_FIRST_SESSION_ID == sessionId)) {
-                    token = syncmlHeader.getCredential().getData();
-                    MobileCacheEntry cacheToken = DeviceUtil.getTokenEntry(token);
-
-                    if ((cacheToken.getUsername() != null) && (cacheToken.getUsername().equals(user))) {
-
-                        if (enrollDevice(request, cacheToken.getTenantDomain(), cacheToken.getTenanatID())) {
-                            deviceInfoOperations = deviceInfo.getDeviceInfo();
-                            response = generateReply(syncmlDocument, deviceInfoOperations);
-                            return Response.status(Response.Status.OK).entity(response).build();
-                        } else {
-                            String msg = "Error occurred in device enrollment.";
-                            log.error(msg);
-                            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).build();
-                        }
+            syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
+            SyncmlHeader syncmlHeader = syncmlDocument.getHeader();
+            sessionId = syncmlHeader.getSessionId();
+            user = syncmlHeader.getSource().getLocName();
+            DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(syncmlHeader.getSource().
+                    getLocURI());
+            msgId = syncmlHeader.getMsgID();
+            if ((PluginConstants.SyncML.SYNCML_FIRST_MESSAGE_ID == msgId) &&
+                (PluginConstants.SyncML.SYNCML_FIRST_SESSION_ID == sessionId)) {
+                token = syncmlHeader.getCredential().getData();
+                MobileCacheEntry cacheToken = DeviceUtil.getTokenEntry(token);
+
+                if ((cacheToken.getUsername() != null) && (cacheToken.getUsername().equals(user))) {
+
+                    if (enrollDevice(syncmlDocument, cacheToken.getTenantDomain(), cacheToken.getTenanatID())) {
+                        deviceInfoOperations = deviceInfo.getDeviceInfo();
+                        response = generateReply(syncmlDocument, deviceInfoOperations);
+                        return Response.status(Response.Status.OK).entity(response).build();
                     } else {
-                        String msg = "Authentication failure due to incorrect credentials.";
+                        String msg = "Error occurred in device enrollment.";
                         log.error(msg);
-                        return Response.status(Response.Status.UNAUTHORIZED).entity(msg).build();
+                        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).build();
                     }
-                } else if (PluginConstants.SyncML.SYNCML_SECOND_MESSAGE_ID == msgId &&
-                           PluginConstants.SyncML.SYNCML_FIRST_SESSION_ID == sessionId) {
-                    PrivilegedCarbonContext carbonCtx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-                    if (enrollDevice(request, carbonCtx.getTenantDomain(), carbonCtx.getTenantId())) {
-                        return Response.ok().entity(generateReply(syncmlDocument, null)).build();
+                } else {
+                    String msg = "Authentication failure due to incorrect credentials.";
+                    log.error(msg);
+                    return Response.status(Response.Status.UNAUTHORIZED).entity(msg).build();
+                }
+            } else if (PluginConstants.SyncML.SYNCML_SECOND_MESSAGE_ID == msgId &&
+                       PluginConstants.SyncML.SYNCML_FIRST_SESSION_ID == sessionId) {
+                PrivilegedCarbonContext carbonCtx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                if (enrollDevice(syncmlDocument, carbonCtx.getTenantDomain(), carbonCtx.getTenantId())) {
+                    return Response.ok().entity(generateReply(syncmlDocument, null)).build();
+                } else {
+                    String msg = "Error occurred in modify enrollment.";
+                    log.error(msg);
+                    return Response.status(Response.Status.NOT_MODIFIED).entity(msg).build();
+                }
+            } else if (sessionId >= PluginConstants.SyncML.SYNCML_SECOND_SESSION_ID) {
+                if ((syncmlDocument.getBody().getAlert() != null)) {
+                    if (!syncmlDocument.getBody().getAlert().getData().equals(Constants.DISENROLL_ALERT_DATA)) {
+                        pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
+                        return Response.ok().entity(generateReply(syncmlDocument, pendingOperations)).build();
                     } else {
-                        String msg = "Error occurred in modify enrollment.";
-                        log.error(msg);
-                        return Response.status(Response.Status.NOT_MODIFIED).entity(msg).build();
-                    }
-                } else if (sessionId >= PluginConstants.SyncML.SYNCML_SECOND_SESSION_ID) {
-                    if ((syncmlDocument.getBody().getAlert() != null)) {
-                        if (!syncmlDocument.getBody().getAlert().getData().equals(Constants.DISENROLL_ALERT_DATA)) {
-                            pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
-                            return Response.ok().entity(generateReply(syncmlDocument, pendingOperations)).build();
+                        if (WindowsAPIUtils.getDeviceManagementService().getDevice(deviceIdentifier, false) != null) {
+                            WindowsAPIUtils.getDeviceManagementService().disenrollDevice(deviceIdentifier);
+                            return Response.ok().entity(generateReply(syncmlDocument, null)).build();
                         } else {
-                            if (WindowsAPIUtils.getDeviceManagementService().getDevice(deviceIdentifier, false) != null) {
-                                WindowsAPIUtils.getDeviceManagementService().disenrollDevice(deviceIdentifier);
-                                return Response.ok().entity(generateReply(syncmlDocument, null)).build();
-                            } else {
-                                String msg = "Enrolled device can not be found in the server.";
-                                log.error(msg);
-                                return Response.status(Response.Status.NOT_FOUND).entity(msg).build();
-                            }
+                            String msg = "Enrolled device can not be found in the server.";
+                            log.error(msg);
+                            return Response.status(Response.Status.NOT_FOUND).entity(msg).build();
                         }
-                    } else {
-                        pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
-                        return Response.ok().entity(generateReply(syncmlDocument, pendingOperations)).build();
                     }
                 } else {
-                    String msg = "Failure occurred in Device request message.";
-                    log.error(msg);
-                    return Response.status(Response.Status.BAD_REQUEST).entity(msg).build();
+                    pendingOperations = operationHandler.getPendingOperations(syncmlDocument);
+                    return Response.ok().entity(generateReply(syncmlDocument, pendingOperations)).build();
                 }
+            } else {
+                String msg = "Failure occurred in Device request message.";
+                log.error(msg);
+                return Response.status(Response.Status.BAD_REQUEST).entity(msg).build();
             }
         } catch (SyncmlMessageFormatException e) {
             String msg = "Error occurred while parsing syncml request.";
@@ -226,18 +224,17 @@ public class SyncmlServiceImpl implements SyncmlService {
             log.error(msg, e);
             throw new WindowsOperationException(msg, e);
         }
-        return null;
     }
 
     /**
      * Enroll phone device
      *
-     * @param request Device syncml request for the server side.
+     * @param syncmlDocument Parsed syncml request of the device.
      * @return enroll state
      * @throws WindowsDeviceEnrolmentException
      * @throws WindowsOperationException
      */
-    private boolean enrollDevice(Document request, String tenantDomain, int tenantId) throws WindowsDeviceEnrolmentException,
+    private boolean enrollDevice(SyncmlDocument syncmlDocument, String tenantDomain, int tenantId) throws WindowsDeviceEnrolmentException,
                                                           WindowsOperationException {
 
         String osVersion;
@@ -254,10 +251,8 @@ public class SyncmlServiceImpl implements SyncmlService {
         String user;
         String deviceName;
         int msgID;
-        SyncmlDocument syncmlDocument;
 
         try {
-            syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
             msgID = syncmlDocument.getHeader().getMsgID();
             if (msgID == PluginConstants.SyncML.SYNCML_FIRST_MESSAGE_ID) {
                 ReplaceTag replace = syncmlDocument.getBody().getReplace();